@@ -0,0 +1,73 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.behaviour.upf.UpfCounter;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * UPF counters aggregated over the UPF devices that answered a counter read.
+ * The counters are incomplete, i.e., they do not include the values of some
+ * UPF devices, if the devices were unhealthy or did not answer in time.
+ */
+@Beta
+public final class Up4Counters {
+
+    private final Collection<UpfCounter> counters;
+    private final Set<DeviceId> missingDevices;
+
+    /**
+     * Creates new aggregated counters.
+     *
+     * @param counters       the aggregated counters
+     * @param missingDevices the UPF devices whose values are not aggregated
+     */
+    public Up4Counters(Collection<UpfCounter> counters, Set<DeviceId> missingDevices) {
+        this.counters = ImmutableList.copyOf(counters);
+        this.missingDevices = ImmutableSet.copyOf(missingDevices);
+    }
+
+    /**
+     * Returns the aggregated counters.
+     *
+     * @return the UPF counters
+     */
+    public Collection<UpfCounter> counters() {
+        return counters;
+    }
+
+    /**
+     * Returns the UPF devices whose values are not included in the counters.
+     *
+     * @return the missing UPF devices, empty if the counters are complete
+     */
+    public Set<DeviceId> missingDevices() {
+        return missingDevices;
+    }
+
+    /**
+     * Returns true if the counters include the values of all UPF devices.
+     *
+     * @return true if the counters are complete, false otherwise
+     */
+    public boolean isComplete() {
+        return missingDevices.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("counters", counters.size())
+                .add("missingDevices", missingDevices)
+                .toString();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Readiness of the UPF data plane, as last observed by the UP4 Device
+ * Manager. Clients of a UPF data plane not ready should retry their
+ * requests after the given hint.
+ */
+@Beta
+public final class Up4Readiness {
+
+    /**
+     * Readiness states of the UPF data plane.
+     */
+    public enum State {
+        /**
+         * No valid UP4 app configuration has been loaded.
+         */
+        NOT_CONFIGURED,
+        /**
+         * The UPF physical devices in the configuration are not all set up.
+         */
+        WAITING_FOR_DEVICES,
+        /**
+         * The UPF data plane is ready.
+         */
+        READY
+    }
+
+    private final State state;
+    private final String reason;
+    private final long since;
+    private final long retryAfterMillis;
+
+    /**
+     * Creates a new readiness.
+     *
+     * @param state            the readiness state
+     * @param reason           the reason of the state
+     * @param since            the time of the last state change, in milliseconds since the epoch
+     * @param retryAfterMillis the time after which requests should be retried, 0 if ready
+     */
+    public Up4Readiness(State state, String reason, long since, long retryAfterMillis) {
+        this.state = checkNotNull(state);
+        this.reason = checkNotNull(reason);
+        this.since = since;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Returns the readiness state.
+     *
+     * @return the readiness state
+     */
+    public State state() {
+        return state;
+    }
+
+    /**
+     * Returns true if the UPF data plane is ready.
+     *
+     * @return true if ready, false otherwise
+     */
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    /**
+     * Returns the reason of the readiness state.
+     *
+     * @return the reason
+     */
+    public String reason() {
+        return reason;
+    }
+
+    /**
+     * Returns the time of the last state change.
+     *
+     * @return milliseconds since the epoch
+     */
+    public long since() {
+        return since;
+    }
+
+    /**
+     * Returns the time after which requests should be retried, e.g., when
+     * the next setup attempt of the UPF physical devices is due.
+     *
+     * @return milliseconds, 0 if the UPF data plane is ready
+     */
+    public long retryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("state", state)
+                .add("reason", reason)
+                .add("since", since)
+                .add("retryAfterMillis", retryAfterMillis)
+                .toString();
+    }
+}
@@ -7,7 +7,14 @@ package org.omecproject.up4;
 
 import com.google.common.annotations.Beta;
 import org.onosproject.event.ListenerService;
+import org.onosproject.net.behaviour.upf.UpfCounter;
 import org.onosproject.net.behaviour.upf.UpfDevice;
+import org.onosproject.net.behaviour.upf.UpfEntity;
+import org.onosproject.net.behaviour.upf.UpfEntityType;
+import org.onosproject.net.behaviour.upf.UpfProgrammableException;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -18,12 +25,24 @@ import org.onosproject.net.behaviour.upf.UpfDevice;
 public interface Up4Service extends ListenerService<Up4Event, Up4EventListener>, UpfDevice {
 
     /**
-     * True if the UPF data plane is ready, and false otherwise.
+     * True if the UPF data plane is ready, and false otherwise. If not ready,
+     * a setup of the UPF physical devices might be attempted asynchronously,
+     * without delaying the caller.
      *
      * @return true if the data plane is ready and false otherwise
      */
     boolean isReady();
 
+    /**
+     * Returns the readiness of the UPF data plane, with the reason why it is
+     * not ready and when requests should be retried. Unlike
+     * {@link #isReady()}, this call never attempts to set up the UPF
+     * physical devices.
+     *
+     * @return the UPF data plane readiness
+     */
+    Up4Readiness readiness();
+
     /**
      * True if a valid UP4 app configuration has been loaded, and false otherwise.
      *
@@ -31,4 +50,83 @@ public interface Up4Service extends ListenerService<Up4Event, Up4EventListener>,
      */
     boolean configIsLoaded();
 
+    /**
+     * Applies the given UPF entities of a UE session as a single bundle, e.g.,
+     * on UE attach or modification. The bundle can include sessions,
+     * terminations, session and application meters and tunnel peers. The
+     * whole bundle is validated before writing anything, then the entities
+     * are applied in dependency order. If any entity fails to be applied, the
+     * entities already applied are rolled back to their previous state.
+     *
+     * @param entities the UPF entities of the bundle
+     * @throws UpfProgrammableException if the bundle is not valid or cannot be applied
+     */
+    void applyBundle(Collection<? extends UpfEntity> entities) throws UpfProgrammableException;
+
+    /**
+     * Asynchronously applies the given UPF entity, as {@link #apply(UpfEntity)}.
+     * The returned future completes exceptionally with a
+     * {@link UpfProgrammableException} if
+     * the entity cannot be applied. Asynchronous operations are not ordered
+     * with each other, chain the returned futures to order them.
+     *
+     * @param entity the UPF entity to apply
+     * @return the future completed when the entity has been applied
+     */
+    CompletableFuture<Void> applyAsync(UpfEntity entity);
+
+    /**
+     * Asynchronously deletes the given UPF entity, as {@link #delete(UpfEntity)}.
+     * The returned future completes exceptionally with a
+     * {@link UpfProgrammableException} if
+     * the entity cannot be deleted.
+     *
+     * @param entity the UPF entity to delete
+     * @return the future completed when the entity has been deleted
+     */
+    CompletableFuture<Void> deleteAsync(UpfEntity entity);
+
+    /**
+     * Asynchronously applies the given UPF session bundle, as
+     * {@link #applyBundle(Collection)}. The returned future completes
+     * exceptionally with a {@link UpfProgrammableException} if the bundle is
+     * not valid or cannot be applied.
+     *
+     * @param entities the UPF entities of the bundle
+     * @return the future completed when the bundle has been applied
+     */
+    CompletableFuture<Void> applyBundleAsync(Collection<? extends UpfEntity> entities);
+
+    /**
+     * Asynchronously reads all the UPF entities of the given type, as
+     * {@link #readAll(UpfEntityType)}.
+     *
+     * @param entityType the UPF entity type
+     * @return the future UPF entities
+     */
+    CompletableFuture<Collection<? extends UpfEntity>> readAllAsync(UpfEntityType entityType);
+
+    /**
+     * Asynchronously reads the counters of the given type, as
+     * {@link #readCounters(long, UpfEntityType)}.
+     *
+     * @param maxCounterId the maximum counter ID to read, -1 to read all counters
+     * @param type         the counter type
+     * @return the future UPF counters
+     */
+    CompletableFuture<Collection<UpfCounter>> readCountersAsync(long maxCounterId, UpfEntityType type);
+
+    /**
+     * Reads the counters of the given type as
+     * {@link #readCounters(long, UpfEntityType)}, in degraded mode: the UPF
+     * devices that are unhealthy or do not answer in time are skipped, and
+     * the result is flagged as incomplete instead of failing the read.
+     * Incomplete counters must not be used for usage accounting.
+     *
+     * @param maxCounterId the maximum counter ID to read, -1 to read all counters
+     * @param type         the counter type
+     * @return the counters aggregated over the UPF devices that answered
+     * @throws UpfProgrammableException if no UPF device answered
+     */
+    Up4Counters readCountersDegraded(long maxCounterId, UpfEntityType type) throws UpfProgrammableException;
 }
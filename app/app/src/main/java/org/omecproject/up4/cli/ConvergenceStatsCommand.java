@@ -0,0 +1,47 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.impl.Up4AdminService;
+import org.omecproject.up4.impl.UpfConvergenceStats;
+import org.onosproject.cli.AbstractShellCommand;
+
+/**
+ * UP4 follower devices convergence statistics command.
+ */
+@Service
+@Command(scope = "up4", name = "convergence-stats",
+        description = "Print the convergence latency of the follower UPF devices")
+public class ConvergenceStatsCommand extends AbstractShellCommand {
+
+    @Option(name = "-r", aliases = "--reset",
+            description = "Reset the statistics after printing them",
+            required = false)
+    boolean reset = false;
+
+    @Override
+    protected void doExecute() {
+        Up4AdminService adminService = get(Up4AdminService.class);
+        UpfConvergenceStats stats = adminService.convergenceStats();
+        if (stats.deviceStats().isEmpty()) {
+            print("No follower UPF device statistics");
+        }
+        stats.deviceStats().forEach((deviceId, deviceStats) -> {
+            print("Device: " + deviceId);
+            print("    " + deviceStats.toString());
+        });
+        print("Pending leader rules=%d, untracked leader rules=%d",
+              stats.pendingRules(), stats.untrackedRules());
+        print("Leader reconciliations=%d, repaired entities=%d, failed repairs=%d",
+              stats.leaderReconciliations(), stats.leaderRepairedEntities(), stats.leaderRepairFailures());
+        if (reset) {
+            stats.reset();
+            print("Statistics reset");
+        }
+    }
+}
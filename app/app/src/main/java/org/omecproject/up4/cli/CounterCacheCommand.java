@@ -0,0 +1,43 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.impl.Up4AdminService;
+import org.omecproject.up4.impl.UpfCounterCache;
+import org.onosproject.cli.AbstractShellCommand;
+
+/**
+ * UP4 counter cache statistics command.
+ */
+@Service
+@Command(scope = "up4", name = "counter-cache",
+        description = "Print the statistics of the UPF counter cache")
+public class CounterCacheCommand extends AbstractShellCommand {
+
+    @Option(name = "-r", aliases = "--reset",
+            description = "Reset the statistics after printing them",
+            required = false)
+    boolean reset = false;
+
+    @Override
+    protected void doExecute() {
+        UpfCounterCache cache = get(Up4AdminService.class).counterCache();
+        if (cache.maxAgeMillis() <= 0) {
+            print("Counter cache disabled");
+        } else {
+            print("Counter cache max age: %d ms", cache.maxAgeMillis());
+        }
+        print("hits=%d, coalesced=%d, misses=%d, saved_reads=%d, hit_ratio=%.2f%%",
+              cache.hits(), cache.coalesced(), cache.misses(), cache.savedReads(),
+              cache.hitRatio() * 100.0);
+        if (reset) {
+            cache.resetStats();
+            print("Statistics reset");
+        }
+    }
+}
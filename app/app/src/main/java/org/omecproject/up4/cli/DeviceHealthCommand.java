@@ -0,0 +1,42 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.impl.Up4AdminService;
+import org.omecproject.up4.impl.UpfDeviceHealth;
+import org.onosproject.cli.AbstractShellCommand;
+
+/**
+ * UP4 UPF device health command.
+ */
+@Service
+@Command(scope = "up4", name = "device-health",
+        description = "Print the circuit breaker state and call statistics of the UPF devices")
+public class DeviceHealthCommand extends AbstractShellCommand {
+
+    @Option(name = "-r", aliases = "--reset",
+            description = "Close all the circuit breakers and reset the statistics after printing them",
+            required = false)
+    boolean reset = false;
+
+    @Override
+    protected void doExecute() {
+        UpfDeviceHealth health = get(Up4AdminService.class).deviceHealth();
+        if (health.devices().isEmpty()) {
+            print("No UPF device called yet");
+        }
+        health.devices().forEach((deviceId, deviceHealth) -> {
+            print("Device: " + deviceId);
+            print("    " + deviceHealth.toString());
+        });
+        if (reset) {
+            health.reset();
+            print("Circuit breakers closed and statistics reset");
+        }
+    }
+}
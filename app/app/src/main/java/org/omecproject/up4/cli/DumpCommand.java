@@ -0,0 +1,48 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.Up4Service;
+import org.omecproject.up4.impl.UpfStateDump;
+import org.onosproject.cli.AbstractShellCommand;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * UP4 UPF state dump command.
+ */
+@Service
+@Command(scope = "up4", name = "dump",
+        description = "Dump all UPF entities, meters and counters to a file, to be loaded with up4:load")
+public class DumpCommand extends AbstractShellCommand {
+
+    @Option(name = "--file", aliases = "-f",
+            description = "The dump file, overwritten if it exists",
+            required = true)
+    String file = null;
+
+    @Option(name = "--no-counters", aliases = "-n",
+            description = "Do not dump the UPF counters",
+            required = false)
+    boolean noCounters = false;
+
+    @Override
+    protected void doExecute() throws Exception {
+        Path path = Paths.get(file).toAbsolutePath();
+        long start = System.currentTimeMillis();
+        UpfStateDump.Result result = new UpfStateDump().dump(get(Up4Service.class), path, !noCounters);
+        long elapsed = System.currentTimeMillis() - start;
+        result.entities().forEach((type, count) -> print("%s: %d", type, count));
+        print("Dumped %d entities to %s (%d bytes) in %d ms",
+              result.entities().values().stream().mapToLong(Long::longValue).sum(),
+              path, Files.size(path), elapsed);
+        result.firstError().ifPresent(e -> print("Warning: %s", e));
+    }
+}
@@ -10,7 +10,10 @@ import org.apache.karaf.shell.api.action.Command;
 import org.apache.karaf.shell.api.action.Option;
 import org.apache.karaf.shell.api.action.lifecycle.Service;
 import org.omecproject.up4.impl.DownlinkUpfFlow;
+import org.omecproject.up4.impl.UeTrafficRate;
 import org.omecproject.up4.impl.Up4AdminService;
+import org.omecproject.up4.impl.Up4StatsService;
+import org.omecproject.up4.impl.UpfFlowsSnapshot;
 import org.omecproject.up4.impl.UplinkUpfFlow;
 import org.onlab.packet.Ip4Address;
 import org.onosproject.cli.AbstractShellCommand;
@@ -32,7 +35,8 @@ public class FlowsStatsCommand extends AbstractShellCommand {
     private static final float DEFAULT_SLEEP_TIME = 2; // 2 seconds
 
     @Option(name = "-t", aliases = "--time",
-            description = "Time between counter reads (seconds)",
+            description = "Time between counter reads (seconds), " +
+                    "not used when the background counters polling is enabled",
             valueToShowInHelp = "2")
     float sleepTimeS = DEFAULT_SLEEP_TIME;
 
@@ -52,12 +56,26 @@ public class FlowsStatsCommand extends AbstractShellCommand {
     @Override
     protected void doExecute() throws Exception {
         Up4AdminService adminService = get(Up4AdminService.class);
+        Up4StatsService statsService = get(Up4StatsService.class);
         Ip4Address ueAddr = ueSessionId != null ? Ip4Address.valueOf(ueSessionId) : null;
+        if (statsService.isPollingEnabled()) {
+            // Use the rates computed by the background poller, without
+            // reading the UPF data plane.
+            do {
+                printPolledStats(statsService, ueAddr);
+                if (cont) {
+                    print("");
+                    Thread.sleep(statsService.pollInterval() * 1000);
+                }
+            } while (cont);
+            return;
+        }
         do {
+            UpfFlowsSnapshot beforeSnapshot = adminService.getFlowsSnapshot();
             Map<Ip4Address, UpfCounter> beforeDownlink =
-                    sumDownlinkUpfCountersPerSession(adminService.getDownlinkFlows(), ueAddr);
+                    sumDownlinkUpfCountersPerSession(beforeSnapshot.downlinkFlows(), ueAddr);
             Map<Ip4Address, UpfCounter> beforeUplink =
-                    sumUplinkUpfCountersPerSession(adminService.getUplinkFlows(), ueAddr);
+                    sumUplinkUpfCountersPerSession(beforeSnapshot.uplinkFlows(), ueAddr);
 
             if (beforeDownlink.isEmpty() || beforeUplink.isEmpty()) {
                 print("No UE Sessions\n");
@@ -69,10 +87,11 @@ public class FlowsStatsCommand extends AbstractShellCommand {
 
             Thread.sleep((int) (sleepTimeS * 1000));
 
+            UpfFlowsSnapshot afterSnapshot = adminService.getFlowsSnapshot();
             Map<Ip4Address, UpfCounter> afterDownlink =
-                    sumDownlinkUpfCountersPerSession(adminService.getDownlinkFlows(), ueAddr);
+                    sumDownlinkUpfCountersPerSession(afterSnapshot.downlinkFlows(), ueAddr);
             Map<Ip4Address, UpfCounter> afterUplink =
-                    sumUplinkUpfCountersPerSession(adminService.getUplinkFlows(), ueAddr);
+                    sumUplinkUpfCountersPerSession(afterSnapshot.uplinkFlows(), ueAddr);
 
             if (beforeDownlink.keySet().containsAll(beforeUplink.keySet()) &&
                     beforeDownlink.keySet().equals(afterUplink.keySet()) &&
@@ -125,43 +144,10 @@ public class FlowsStatsCommand extends AbstractShellCommand {
                         long droppedBitsDl = ((afDlIngressBytes - afDlEgressBytes) -
                                 (bfDlIngressBytes - bfDlEgressBytes)) * 8;
 
-                        if (droppedPktsUl > rxPktsUl) {
-                            print("  Uplink: more dropped packets than received! (%d > %d)", droppedPktsUl, rxPktsUl);
-                        }
-                        print("  Uplink: %s / %s (%.2f%% dropped)",
-                              toReadable((double) txBitsUl / sleepTimeS, "bps"),
-                              toReadable((double) txPktsUl / sleepTimeS, "pps"),
-                              rxPktsUl == 0 ? 0.0 : ((double) droppedPktsUl / (double) rxPktsUl) * 100.0);
-                        if (debug) {
-                            print("    RX: %s / %s",
-                                  toReadable(rxPktsUl, "pkts"),
-                                  toReadable(rxBitsUl, "bit"));
-                            print("    TX: %s / %s",
-                                  toReadable(txPktsUl, "pkts"),
-                                  toReadable(txBitsUl, "bit"));
-                            print("    Dropped: %s / %s",
-                                  toReadable(droppedPktsUl, "pkts"),
-                                  toReadable(droppedBitsUl, "bit"));
-                        }
-
-                        if (droppedPktsDl > rxPktsDl) {
-                            print("  Downlink: more dropped packets than received! (%d > %d)", droppedPktsDl, rxPktsDl);
-                        }
-                        print("  Downlink: %s / %s (%.2f%% dropped)",
-                              toReadable((double) txBitsDl / sleepTimeS, "bps"),
-                              toReadable((double) txPktsDl / sleepTimeS, "pps"),
-                              rxPktsDl == 0 ? 0.0 : ((double) droppedPktsDl / (double) rxPktsDl) * 100.0);
-                        if (debug) {
-                            print("    RX: %s / %s",
-                                  toReadable(rxPktsDl, "pkts"),
-                                  toReadable(rxBitsDl, "bit"));
-                            print("    TX: %s / %s",
-                                  toReadable(txPktsDl, "pkts"),
-                                  toReadable(txBitsDl, "bit"));
-                            print("    Dropped: %s / %s",
-                                  toReadable(droppedPktsDl, "pkts"),
-                                  toReadable(droppedBitsDl, "bit"));
-                        }
+                        printDirectionStats("Uplink", rxPktsUl, txPktsUl, rxBitsUl, txBitsUl,
+                                            droppedPktsUl, droppedBitsUl, sleepTimeS);
+                        printDirectionStats("Downlink", rxPktsDl, txPktsDl, rxBitsDl, txBitsDl,
+                                            droppedPktsDl, droppedBitsDl, sleepTimeS);
                         print(SEPARATOR);
                     }
                 }
@@ -174,6 +160,59 @@ public class FlowsStatsCommand extends AbstractShellCommand {
         } while (cont);
     }
 
+    private void printPolledStats(Up4StatsService statsService, Ip4Address ueAddr) {
+        Map<Ip4Address, UeTrafficRate> uplinkRates = Maps.newTreeMap();
+        Map<Ip4Address, UeTrafficRate> downlinkRates = Maps.newTreeMap();
+        statsService.rates().stream()
+                .filter(r -> ueAddr == null || ueAddr.equals(r.ueAddress()))
+                .forEach(r -> (r.direction() == UeTrafficRate.Direction.UPLINK ? uplinkRates : downlinkRates)
+                        .put(r.ueAddress(), r));
+        if (uplinkRates.isEmpty() && downlinkRates.isEmpty()) {
+            print(statsService.history().size() < 2 ? "Waiting for counter samples\n" : "No UE Sessions\n");
+            return;
+        }
+        Set<Ip4Address> ues = Sets.newTreeSet(uplinkRates.keySet());
+        ues.addAll(downlinkRates.keySet());
+        print(SEPARATOR);
+        for (Ip4Address ue : ues) {
+            print("Session: " + ue.toString());
+            printRate("Uplink", uplinkRates.get(ue));
+            printRate("Downlink", downlinkRates.get(ue));
+            print(SEPARATOR);
+        }
+    }
+
+    private void printRate(String direction, UeTrafficRate rate) {
+        if (rate == null) {
+            print("  %s: NO STATISTICS", direction);
+            return;
+        }
+        printDirectionStats(direction, rate.rxPkts(), rate.txPkts(), rate.rxBytes() * 8, rate.txBytes() * 8,
+                            rate.droppedPkts(), rate.droppedBytes() * 8, rate.intervalS());
+    }
+
+    private void printDirectionStats(String direction, long rxPkts, long txPkts, long rxBits, long txBits,
+                                     long droppedPkts, long droppedBits, double intervalS) {
+        if (droppedPkts > rxPkts) {
+            print("  %s: more dropped packets than received! (%d > %d)", direction, droppedPkts, rxPkts);
+        }
+        print("  %s: %s / %s (%.2f%% dropped)", direction,
+              toReadable((double) txBits / intervalS, "bps"),
+              toReadable((double) txPkts / intervalS, "pps"),
+              rxPkts == 0 ? 0.0 : ((double) droppedPkts / (double) rxPkts) * 100.0);
+        if (debug) {
+            print("    RX: %s / %s",
+                  toReadable(rxPkts, "pkts"),
+                  toReadable(rxBits, "bit"));
+            print("    TX: %s / %s",
+                  toReadable(txPkts, "pkts"),
+                  toReadable(txBits, "bit"));
+            print("    Dropped: %s / %s",
+                  toReadable(droppedPkts, "pkts"),
+                  toReadable(droppedBits, "bit"));
+        }
+    }
+
     private String toReadable(double value, String unit) {
         if (value < 1000) {
             return String.format("%.3f %s", value, unit);
@@ -213,6 +252,7 @@ public class FlowsStatsCommand extends AbstractShellCommand {
         Map<Ip4Address, Set<UpfCounter>> dlUpfCountersPerSession = Maps.newHashMap();
         downlinkUpfFlowList.stream()
                 .filter(upfFlow -> ueAddr == null || ueAddr.equals(upfFlow.getTermination().ueSessionId()))
+                .filter(upfFlow -> upfFlow.getCounter() != null)
                 .forEach(dlUpfFlow -> dlUpfCountersPerSession.compute(
                         dlUpfFlow.getTermination().ueSessionId(),
                         (key, value) -> {
@@ -232,6 +272,7 @@ public class FlowsStatsCommand extends AbstractShellCommand {
         Map<Ip4Address, Set<UpfCounter>> ulUpfCountersPerSession = Maps.newHashMap();
         uplinkUpfFlowList.stream()
                 .filter(upfFlow -> ueAddr == null || ueAddr.equals(upfFlow.getTermination().ueSessionId()))
+                .filter(upfFlow -> upfFlow.getCounter() != null)
                 .forEach(ulUpfFlow -> ulUpfCountersPerSession.compute(
                         ulUpfFlow.getTermination().ueSessionId(),
                         (key, value) -> {
@@ -0,0 +1,47 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.Up4Service;
+import org.omecproject.up4.impl.UpfStateDump;
+import org.onosproject.cli.AbstractShellCommand;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * UP4 UPF state load command.
+ */
+@Service
+@Command(scope = "up4", name = "load",
+        description = "Load the UPF entities and meters from a file written by up4:dump")
+public class LoadCommand extends AbstractShellCommand {
+
+    @Option(name = "--file", aliases = "-f",
+            description = "The dump file",
+            required = true)
+    String file = null;
+
+    @Option(name = "--parallelism", aliases = "-p",
+            description = "Number of threads applying the entities of the same type",
+            valueToShowInHelp = "8")
+    int parallelism = 8;
+
+    @Override
+    protected void doExecute() throws Exception {
+        Path path = Paths.get(file).toAbsolutePath();
+        long start = System.currentTimeMillis();
+        UpfStateDump.Result result = new UpfStateDump().load(get(Up4Service.class), path, parallelism);
+        long elapsed = System.currentTimeMillis() - start;
+        result.entities().forEach((type, count) -> print("%s: %d", type, count));
+        print("Loaded %d entities from %s in %d ms, skipped=%d, failed=%d",
+              result.entities().values().stream().mapToLong(Long::longValue).sum(),
+              path, elapsed, result.skipped(), result.failed());
+        result.firstError().ifPresent(e -> print("First error: %s", e));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.impl.Up4AdminService;
+import org.onlab.packet.Ip4Address;
+import org.onlab.packet.Ip4Prefix;
+import org.onosproject.cli.AbstractShellCommand;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * UP4 UE purge command.
+ */
+@Service
+@Command(scope = "up4", name = "purge-ues",
+        description = "Delete all the sessions and terminations of the UEs of a UE prefix, " +
+                "of a slice or of a set of UEs, and reset their counters and meters")
+public class PurgeUesCommand extends AbstractShellCommand {
+
+    @Option(name = "--prefix", aliases = "-p",
+            description = "Purge the UEs in the given IPv4 prefix",
+            required = false)
+    String uePrefix = null;
+
+    @Option(name = "--slice", aliases = "-s",
+            description = "Purge the UEs of the UE pools of the given slice ID",
+            required = false)
+    Integer sliceId = null;
+
+    @Option(name = "--ue", aliases = "-u",
+            description = "Purge the given UE address, can be repeated",
+            required = false, multiValued = true)
+    List<String> ueAddrs = null;
+
+    @Option(name = "--force", aliases = "-f",
+            description = "Purge even if the UE index is not seeded yet, possibly missing some UE entities",
+            required = false)
+    boolean force = false;
+
+    @Override
+    protected void doExecute() throws Exception {
+        Up4AdminService app = get(Up4AdminService.class);
+        int selectors = (uePrefix != null ? 1 : 0) + (sliceId != null ? 1 : 0) + (ueAddrs != null ? 1 : 0);
+        if (selectors != 1) {
+            print("Exactly one of --prefix, --slice or --ue must be given");
+            return;
+        }
+        if (!app.isUeIndexSeeded() && !force) {
+            print("The UE index is not seeded yet, entities installed before the last restart might be missed. " +
+                          "Retry later, or use --force to purge the indexed entities only");
+            return;
+        }
+        long deleted;
+        if (uePrefix != null) {
+            Ip4Prefix prefix = Ip4Prefix.valueOf(uePrefix);
+            print("Purging the UEs in %s", prefix);
+            deleted = app.purgeUes(prefix::contains);
+        } else if (sliceId != null) {
+            print("Purging the UEs of slice %d", sliceId);
+            deleted = app.purgeSlice(sliceId);
+        } else {
+            Set<Ip4Address> ues = ueAddrs.stream().map(Ip4Address::valueOf).collect(Collectors.toSet());
+            print("Purging %d UEs", ues.size());
+            deleted = app.purgeUes(ues::contains);
+        }
+        print("Deleted %d sessions and terminations", deleted);
+    }
+}
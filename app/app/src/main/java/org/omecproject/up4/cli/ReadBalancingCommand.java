@@ -0,0 +1,39 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.impl.Up4AdminService;
+import org.omecproject.up4.impl.UpfReadBalancer;
+import org.onosproject.cli.AbstractShellCommand;
+
+/**
+ * UP4 read balancing statistics command.
+ */
+@Service
+@Command(scope = "up4", name = "read-balancing",
+        description = "Print the UPF entity reads served by the leader and by the in-sync followers")
+public class ReadBalancingCommand extends AbstractShellCommand {
+
+    @Option(name = "-r", aliases = "--reset",
+            description = "Reset the statistics after printing them",
+            required = false)
+    boolean reset = false;
+
+    @Override
+    protected void doExecute() {
+        UpfReadBalancer balancer = get(Up4AdminService.class).readBalancer();
+        print("Read balancing policy: %s", balancer.policy());
+        print("Followers in sync at the last reconciliation: %s", balancer.inSyncFollowers());
+        balancer.reads().forEach((deviceId, reads) -> print("Device: %s, reads=%d", deviceId, reads));
+        print("Leader fallbacks=%d", balancer.fallbacks());
+        if (reset) {
+            balancer.resetStats();
+            print("Statistics reset");
+        }
+    }
+}
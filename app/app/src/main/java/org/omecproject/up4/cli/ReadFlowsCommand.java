@@ -5,95 +5,142 @@
 package org.omecproject.up4.cli;
 
 import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
 import org.apache.karaf.shell.api.action.lifecycle.Service;
 import org.omecproject.up4.impl.DownlinkUpfFlow;
 import org.omecproject.up4.impl.Up4AdminService;
+import org.omecproject.up4.impl.UpfFlowFilter;
+import org.omecproject.up4.impl.UpfFlowVisitor;
 import org.omecproject.up4.impl.UplinkUpfFlow;
+import org.onlab.packet.Ip4Address;
 import org.onosproject.cli.AbstractShellCommand;
 import org.onosproject.net.behaviour.upf.UpfApplication;
 import org.onosproject.net.behaviour.upf.UpfEntity;
-import org.onosproject.net.behaviour.upf.UpfEntityType;
 import org.onosproject.net.behaviour.upf.UpfMeter;
 import org.onosproject.net.behaviour.upf.UpfSessionUplink;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.omecproject.up4.impl.Up4Utils.ppUpfMeter;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.APPLICATION;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.APPLICATION_METER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.SESSION_METER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.SESSION_UPLINK;
 
 /**
  * UP4 UE session read command.
  */
 @Service
 @Command(scope = "up4", name = "read-flows",
-        description = "Read all UE data flows installed in the dataplane")
+        description = "Read the UE data flows installed in the dataplane")
 public class ReadFlowsCommand extends AbstractShellCommand {
 
     private static final String SEPARATOR = "-".repeat(40);
 
+    @Option(name = "--ue", aliases = "-u",
+            description = "Show only the flows of the given UE address",
+            required = false)
+    String ueAddr = null;
+
+    @Option(name = "--slice", aliases = "-s",
+            description = "Show only the flows of the given slice ID",
+            required = false)
+    Integer sliceId = null;
+
+    @Option(name = "--app", aliases = "-a",
+            description = "Show only the flows of the given application ID",
+            required = false)
+    Byte appId = null;
+
     @Override
     protected void doExecute() throws Exception {
         Up4AdminService adminService = get(Up4AdminService.class);
 
-        Collection<DownlinkUpfFlow> dlUpfFlow = adminService.getDownlinkFlows();
-        Collection<UplinkUpfFlow> ulUpfFlow = adminService.getUplinkFlows();
-        Collection<? extends UpfEntity> ulSess = adminService.adminReadAll(UpfEntityType.SESSION_UPLINK);
-        Collection<? extends UpfEntity> appFilters = adminService.adminReadAll(UpfEntityType.APPLICATION);
+        UpfFlowFilter filter = UpfFlowFilter.builder()
+                .withUeAddress(ueAddr == null ? null : Ip4Address.valueOf(ueAddr))
+                .withSliceId(sliceId)
+                .withAppId(appId)
+                .build();
+        boolean filtered = ueAddr != null || sliceId != null || appId != null;
+
         // Get session and app meter only to show the number of meters
-        Collection<? extends UpfEntity> sessMeters = adminService.adminReadAll(UpfEntityType.SESSION_METER);
-        Map<Integer, UpfMeter> sessMeterMap = sessMeters.stream()
+        Collection<UpfMeter> sessMeters = adminService.adminReadAll(SESSION_METER).stream()
                 .map(m -> (UpfMeter) m)
-                .collect(Collectors.toMap(UpfMeter::cellId, m -> m));
-        Collection<? extends UpfEntity> appMeters = adminService.adminReadAll(UpfEntityType.APPLICATION_METER);
+                .collect(Collectors.toList());
+        Collection<? extends UpfEntity> appMeters = adminService.adminReadAll(APPLICATION_METER);
+        Collection<? extends UpfEntity> appFilters = adminService.adminReadAll(APPLICATION);
+        Collection<? extends UpfEntity> ulSess = adminService.adminReadAll(SESSION_UPLINK);
 
-        print(SEPARATOR);
-        print(appFilters.size() + " Applications");
-        for (UpfEntity a : appFilters) {
-            if (!a.type().equals(UpfEntityType.APPLICATION)) {
-                print("ERROR: Wrong application filter: " + a);
-                continue;
+        // Applications and uplink sessions are not bound to a UE flow, print
+        // them only when showing all the flows.
+        if (!filtered) {
+            print(SEPARATOR);
+            print(appFilters.size() + " Applications");
+            for (UpfEntity e : appFilters) {
+                UpfApplication app = (UpfApplication) e;
+                print("app_id=" + app.appId() +
+                              ", ipv4_prefix=" + app.ip4Prefix() +
+                              ", l4_range=" + app.l4PortRange() +
+                              ", ip_proto=" + app.ipProto()
+                );
+            }
+            Map<Integer, UpfMeter> sessMeterMap = sessMeters.stream()
+                    .collect(Collectors.toMap(UpfMeter::cellId, m -> m));
+            print(SEPARATOR);
+            print(ulSess.size() + " Uplink Sessions");
+            for (UpfEntity e : ulSess) {
+                UpfSessionUplink sess = (UpfSessionUplink) e;
+                print("n3_addr=" + sess.tunDstAddr() +
+                              ", teid=" + sess.teid() +
+                              (sess.needsDropping() ? ", drop()" :
+                                      ", fwd(" + "sess_meter_idx=" + sess.sessionMeterIdx() + ")")
+                );
+                UpfMeter sessMeter = sessMeterMap.getOrDefault(sess.sessionMeterIdx(), null);
+                if (sessMeter == null) {
+                    print("    NO SESSION METER (sess_meter_idx=" + sess.sessionMeterIdx() + ")");
+                } else {
+                    print("    Session meter: " + ppUpfMeter(sessMeter));
+                }
             }
-            UpfApplication app = (UpfApplication) a;
-            print("app_id=" + app.appId() +
-                          ", ipv4_prefix=" + app.ip4Prefix() +
-                          ", l4_range=" + app.l4PortRange() +
-                          ", ip_proto=" + app.ipProto()
-            );
         }
+
+        // Flows are printed as they are joined, the totals are known only at the end.
+        AtomicInteger ulFlows = new AtomicInteger();
+        AtomicInteger dlFlows = new AtomicInteger();
         print(SEPARATOR);
-        print(ulSess.size() + " Uplink Sessions");
-        for (UpfEntity s : ulSess) {
-            if (!s.type().equals(UpfEntityType.SESSION_UPLINK)) {
-                print("ERROR: Wrong uplink session: " + s);
-                continue;
+        print("Uplink Flows");
+        adminService.forEachFlow(filter, new UpfFlowVisitor() {
+            @Override
+            public void visitUplink(UplinkUpfFlow flow) {
+                print(flow.toString());
+                ulFlows.incrementAndGet();
             }
-            UpfSessionUplink sess = (UpfSessionUplink) s;
-            print("n3_addr=" + sess.tunDstAddr() +
-                          ", teid=" + sess.teid() +
-                          (sess.needsDropping() ? ", drop()" :
-                                  ", fwd(" + "sess_meter_idx=" + sess.sessionMeterIdx() + ")")
-            );
-            UpfMeter sessMeter = sessMeterMap.getOrDefault(sess.sessionMeterIdx(), null);
-            if (sessMeter == null) {
-                print("    NO SESSION METER (sess_meter_idx=" + sess.sessionMeterIdx() + ")");
-            } else {
-                print("    Session meter: " + ppUpfMeter(sessMeter));
+
+            @Override
+            public void visitDownlink(DownlinkUpfFlow flow) {
+                if (dlFlows.getAndIncrement() == 0) {
+                    printDownlinkHeader();
+                }
+                print(flow.toString());
             }
+        });
+        if (dlFlows.get() == 0) {
+            printDownlinkHeader();
         }
         print(SEPARATOR);
-        print(ulUpfFlow.size() + " Uplink Flows");
-        for (UplinkUpfFlow f : ulUpfFlow) {
-            print(f.toString());
-        }
-        print(SEPARATOR);
-        print(dlUpfFlow.size() + " Downlink Flows");
-        for (DownlinkUpfFlow f : dlUpfFlow) {
-            print(f.toString());
+        if (filtered) {
+            print("Filter: %s", filter);
         }
-        print(SEPARATOR);
         print("Apps=%d, UL sess=%d, UL flows=%d, DL flows=%s",
-              appFilters.size(), ulSess.size(), ulUpfFlow.size(), dlUpfFlow.size());
+              appFilters.size(), ulSess.size(), ulFlows.get(), dlFlows.get());
         print("App meters=%d, Sess meters=%d", appMeters.size(), sessMeters.size());
     }
+
+    private void printDownlinkHeader() {
+        print(SEPARATOR);
+        print("Downlink Flows");
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.impl.UeTrafficRate;
+import org.omecproject.up4.impl.Up4StatsService;
+import org.onosproject.cli.AbstractShellCommand;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * UP4 top UEs command.
+ */
+@Service
+@Command(scope = "up4", name = "top-ues",
+        description = "Print the UEs with the highest traffic, from the polled counters")
+public class TopUesCommand extends AbstractShellCommand {
+
+    @Option(name = "-n", aliases = "--number",
+            description = "Number of UEs to print",
+            valueToShowInHelp = "10")
+    int number = 10;
+
+    @Option(name = "-m", aliases = "--metric",
+            description = "Ranking metric: bps, pps or drop",
+            valueToShowInHelp = "bps")
+    String metric = "bps";
+
+    @Option(name = "-d", aliases = "--direction",
+            description = "Traffic direction: uplink or downlink, both if not given")
+    String direction = null;
+
+    @Override
+    protected void doExecute() {
+        Up4StatsService statsService = get(Up4StatsService.class);
+        if (!statsService.isPollingEnabled()) {
+            print("Counters polling disabled, set statsPollInterval to enable it");
+            return;
+        }
+        Optional<UeTrafficRate.Metric> rankMetric = Arrays.stream(UeTrafficRate.Metric.values())
+                .filter(m -> m.name().equalsIgnoreCase(metric))
+                .findFirst();
+        if (rankMetric.isEmpty()) {
+            print("Invalid metric %s, must be one of: %s", metric, allowedValues(UeTrafficRate.Metric.values()));
+            return;
+        }
+        if (direction != null && Arrays.stream(UeTrafficRate.Direction.values())
+                .noneMatch(d -> d.name().equalsIgnoreCase(direction))) {
+            print("Invalid direction %s, must be one of: %s",
+                  direction, allowedValues(UeTrafficRate.Direction.values()));
+            return;
+        }
+        for (UeTrafficRate.Direction dir : UeTrafficRate.Direction.values()) {
+            if (direction != null && !dir.name().equalsIgnoreCase(direction)) {
+                continue;
+            }
+            List<UeTrafficRate> top = statsService.topUes(number, rankMetric.get(), dir);
+            print("Top %d %s UEs by %s:", top.size(), dir, rankMetric.get());
+            int rank = 1;
+            for (UeTrafficRate rate : top) {
+                print("%3d. ue_addr=%s, tx=%.0f bps / %.0f pps, rx=%.0f bps / %.0f pps, dropped=%.2f%%",
+                      rank++, rate.ueAddress(), rate.txBps(), rate.txPps(), rate.rxBps(), rate.rxPps(),
+                      rate.dropPercentage());
+            }
+        }
+    }
+
+    private static String allowedValues(Enum<?>[] values) {
+        return Arrays.stream(values)
+                .map(v -> v.name().toLowerCase())
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.impl.UeTrafficRate;
+import org.omecproject.up4.impl.Up4StatsService;
+import org.omecproject.up4.impl.UpfTrafficAggregator;
+import org.omecproject.up4.impl.UpfTrafficAggregator.TrafficTotals;
+import org.onosproject.cli.AbstractShellCommand;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.omecproject.up4.impl.UeTrafficRate.Direction.DOWNLINK;
+import static org.omecproject.up4.impl.UeTrafficRate.Direction.UPLINK;
+
+/**
+ * UP4 per-slice, per-application and per-UE traffic totals command.
+ */
+@Service
+@Command(scope = "up4", name = "traffic-totals",
+        description = "Print the traffic totals per slice, application and UE")
+public class TrafficTotalsCommand extends AbstractShellCommand {
+
+    @Option(name = "-s", aliases = "--slice",
+            description = "Print only the given slice")
+    Integer sliceId = null;
+
+    @Option(name = "-a", aliases = "--app",
+            description = "Print only the given application, and its UEs")
+    Byte appId = null;
+
+    @Option(name = "-u", aliases = "--ues",
+            description = "Print also the per-UE totals")
+    boolean ues = false;
+
+    @Option(name = "-r", aliases = "--reset",
+            description = "Reset the totals after printing them")
+    boolean reset = false;
+
+    @Override
+    protected void doExecute() {
+        Up4StatsService statsService = get(Up4StatsService.class);
+        if (!statsService.isPollingEnabled()) {
+            print("Counters polling disabled, set statsPollInterval to enable it");
+            return;
+        }
+        UpfTrafficAggregator aggregator = statsService.trafficAggregator();
+        print("Totals since %s", Instant.ofEpochMilli(aggregator.sinceMillis()));
+        new TreeMap<>(aggregator.sliceTotals()).forEach((slice, sliceTotals) -> {
+            if (sliceId != null && !sliceId.equals(slice)) {
+                return;
+            }
+            print("slice_id=%s: %s", slice == UpfTrafficAggregator.UNKNOWN_SLICE_ID ? "unknown" : slice,
+                  ppTotals(sliceTotals));
+            Map<Byte, TrafficTotals> apps = new TreeMap<>(aggregator.appTotals(slice));
+            apps.forEach((app, appTotals) -> {
+                if (appId != null && !appId.equals(app)) {
+                    return;
+                }
+                print("    app_id=%d: %s", app, ppTotals(appTotals));
+                if (ues || appId != null) {
+                    new TreeMap<>(aggregator.ueTotals(slice, app)).forEach(
+                            (ue, ueTotals) -> print("        ue_addr=%s: %s", ue, ppTotals(ueTotals)));
+                }
+            });
+        });
+        if (reset) {
+            aggregator.reset();
+            print("Totals reset");
+        }
+    }
+
+    private static String ppTotals(TrafficTotals totals) {
+        return ppDirection(totals, UPLINK) + ", " + ppDirection(totals, DOWNLINK);
+    }
+
+    private static String ppDirection(TrafficTotals totals, UeTrafficRate.Direction direction) {
+        return String.format("%s(rx_pkts=%d, rx_bytes=%d, tx_pkts=%d, tx_bytes=%d, dropped_pkts=%d)",
+                             direction == UPLINK ? "UL" : "DL",
+                             totals.rxPkts(direction), totals.rxBytes(direction), totals.txPkts(direction),
+                             totals.txBytes(direction), totals.droppedPkts(direction));
+    }
+}
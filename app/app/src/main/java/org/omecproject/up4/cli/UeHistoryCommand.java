@@ -0,0 +1,57 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Argument;
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.impl.UeTrafficRate;
+import org.omecproject.up4.impl.Up4StatsService;
+import org.onlab.packet.Ip4Address;
+import org.onosproject.cli.AbstractShellCommand;
+
+import java.time.Instant;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UP4 UE traffic history command.
+ */
+@Service
+@Command(scope = "up4", name = "ue-history",
+        description = "Print the traffic history of a UE, from the counter history")
+public class UeHistoryCommand extends AbstractShellCommand {
+
+    @Argument(index = 0, name = "ue-address",
+            description = "UE Session ID (IPv4 UE address)",
+            required = true, multiValued = false)
+    String ueAddress = null;
+
+    @Option(name = "-s", aliases = "--since",
+            description = "Print only the history of the last given seconds",
+            valueToShowInHelp = "60")
+    long sinceS = 0;
+
+    @Override
+    protected void doExecute() {
+        Up4StatsService statsService = get(Up4StatsService.class);
+        if (!statsService.isCounterHistoryEnabled()) {
+            print("Counter history disabled, set statsPollInterval and statsHistoryRetention to enable it");
+            return;
+        }
+        Ip4Address ue = Ip4Address.valueOf(ueAddress);
+        long sinceMillis = sinceS > 0 ? System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(sinceS) : 0;
+        for (UeTrafficRate.Direction direction : UeTrafficRate.Direction.values()) {
+            SortedMap<Long, UeTrafficRate> history = statsService.ueHistory(ue, direction, sinceMillis);
+            print("%s: %d samples", direction, history.size());
+            history.forEach((timestamp, rate) -> print(
+                    "  %s rx_pkts=%d, rx_bytes=%d, tx_pkts=%d, tx_bytes=%d, dropped_pkts=%d, " +
+                            "tx_bps=%.0f, tx_pps=%.0f",
+                    Instant.ofEpochMilli(timestamp), rate.rxPkts(), rate.rxBytes(), rate.txPkts(),
+                    rate.txBytes(), rate.droppedPkts(), rate.txBps(), rate.txPps()));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Argument;
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.impl.Up4StatsService;
+import org.omecproject.up4.impl.UsageRecordLog;
+import org.onosproject.cli.AbstractShellCommand;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * UP4 usage record log command.
+ */
+@Service
+@Command(scope = "up4", name = "usage-log",
+        description = "List the usage record log files, or print the records of a log file")
+public class UsageLogCommand extends AbstractShellCommand {
+
+    @Argument(index = 0, name = "file",
+            description = "Usage log file to print, relative to the usage log directory or absolute",
+            required = false, multiValued = false)
+    String file = null;
+
+    @Option(name = "-n", aliases = "--max-records",
+            description = "Maximum number of records to print, 0 for all",
+            valueToShowInHelp = "100")
+    long maxRecords = 100;
+
+    @Override
+    protected void doExecute() throws Exception {
+        Optional<Path> directory = get(Up4StatsService.class).usageLogDirectory();
+        if (file == null) {
+            if (directory.isEmpty()) {
+                print("Usage log disabled, set usageLogDirectory and statsPollInterval to enable it");
+                return;
+            }
+            if (!Files.isDirectory(directory.get())) {
+                print("No usage log files in %s", directory.get());
+                return;
+            }
+            try (Stream<Path> files = Files.list(directory.get())) {
+                for (Path logFile : files.sorted().collect(Collectors.toList())) {
+                    AtomicLong records = new AtomicLong();
+                    UsageRecordLog.read(logFile, r -> records.incrementAndGet());
+                    print("%s: %d records", logFile, records.get());
+                }
+            }
+            return;
+        }
+        Path logFile = directory.map(d -> d.resolve(file)).orElse(Paths.get(file));
+        AtomicLong printed = new AtomicLong();
+        UsageRecordLog.read(logFile, r -> {
+            if (maxRecords > 0 && printed.get() >= maxRecords) {
+                return;
+            }
+            printed.incrementAndGet();
+            print("%s interval=%dms, ue_addr=%s, app_id=%d, %s, ctr_id=%d, " +
+                          "ingress(pkts=%d, bytes=%d), egress(pkts=%d, bytes=%d)",
+                  Instant.ofEpochMilli(r.timestampMillis()), r.intervalMillis(), r.ueAddress(),
+                  r.applicationId(), r.direction(), r.counterId(), r.ingressPkts(), r.ingressBytes(),
+                  r.egressPkts(), r.egressBytes());
+        });
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.impl.Up4AdminService;
+import org.omecproject.up4.impl.UpfWriteCoalescer;
+import org.onosproject.cli.AbstractShellCommand;
+
+/**
+ * UP4 downlink session write coalescing statistics command.
+ */
+@Service
+@Command(scope = "up4", name = "write-coalescing",
+        description = "Print the statistics of the downlink session write coalescing")
+public class WriteCoalescingCommand extends AbstractShellCommand {
+
+    @Option(name = "-r", aliases = "--reset",
+            description = "Reset the statistics after printing them",
+            required = false)
+    boolean reset = false;
+
+    @Override
+    protected void doExecute() {
+        UpfWriteCoalescer coalescer = get(Up4AdminService.class).writeCoalescer();
+        if (coalescer.windowMillis() <= 0) {
+            print("Write coalescing disabled");
+        } else {
+            print("Write coalescing window: %d ms", coalescer.windowMillis());
+        }
+        print("writes=%d, coalesced=%d, pending_keys=%d",
+              coalescer.writes(), coalescer.coalesced(), coalescer.pendingKeys());
+        if (reset) {
+            coalescer.resetStats();
+            print("Statistics reset");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.cli;
+
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.omecproject.up4.impl.Up4AdminService;
+import org.omecproject.up4.impl.UpfWriteLaneStats;
+import org.onosproject.cli.AbstractShellCommand;
+
+/**
+ * UP4 write lanes statistics command.
+ */
+@Service
+@Command(scope = "up4", name = "write-lanes",
+        description = "Print the queue depth and latency of the priority lanes of the async UPF operations")
+public class WriteLanesCommand extends AbstractShellCommand {
+
+    @Option(name = "-r", aliases = "--reset",
+            description = "Reset the statistics after printing them",
+            required = false)
+    boolean reset = false;
+
+    @Override
+    protected void doExecute() {
+        UpfWriteLaneStats stats = get(Up4AdminService.class).writeLaneStats();
+        stats.laneStats().forEach((lane, laneStats) -> {
+            print("Lane: " + lane);
+            print("    " + laneStats.toString());
+        });
+        if (reset) {
+            stats.reset();
+            print("Statistics reset");
+        }
+    }
+}
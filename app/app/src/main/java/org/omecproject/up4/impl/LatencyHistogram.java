@@ -0,0 +1,125 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with fixed, roughly exponential, millisecond
+ * buckets. Percentiles are approximated with the upper bound of the bucket
+ * containing the requested rank.
+ */
+public final class LatencyHistogram {
+
+    // Upper bounds (inclusive) of the buckets in milliseconds, the last bucket
+    // collects everything above the last bound.
+    private static final long[] BUCKET_BOUNDS_MS = {
+            1, 2, 5, 10, 20, 50, 100, 200, 500,
+            1000, 2000, 5000, 10000, 30000, 60000
+    };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sumNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a latency sample.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int idx = 0;
+        while (idx < BUCKET_BOUNDS_MS.length && millis > BUCKET_BOUNDS_MS[idx]) {
+            idx++;
+        }
+        buckets.incrementAndGet(idx);
+        count.incrementAndGet();
+        sumNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded samples.
+     *
+     * @return number of samples
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * Returns the mean latency in milliseconds, or 0 if there are no samples.
+     *
+     * @return mean latency in milliseconds
+     */
+    public double meanMillis() {
+        long samples = count.get();
+        return samples == 0 ? 0 : (double) sumNanos.get() / samples / 1e6;
+    }
+
+    /**
+     * Returns the maximum recorded latency in milliseconds.
+     *
+     * @return maximum latency in milliseconds
+     */
+    public double maxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * Returns the approximated latency percentile in milliseconds, i.e., the
+     * upper bound of the bucket containing the given percentile. Returns -1 if
+     * the percentile falls in the unbounded bucket, or 0 if there are no samples.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the approximated percentile in milliseconds
+     */
+    public long percentileMillis(double percentile) {
+        long samples = count.get();
+        if (samples == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(samples * Math.min(Math.max(percentile, 0), 100) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return BUCKET_BOUNDS_MS[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Clears all recorded samples.
+     */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sumNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("samples=%d, mean=%.3fms, p50=%s, p90=%s, p99=%s, max=%.3fms",
+                             count(), meanMillis(), ppPercentile(50), ppPercentile(90),
+                             ppPercentile(99), maxMillis());
+    }
+
+    private String ppPercentile(double percentile) {
+        long value = percentileMillis(percentile);
+        return value < 0 ? ">" + BUCKET_BOUNDS_MS[BUCKET_BOUNDS_MS.length - 1] + "ms" : "<=" + value + "ms";
+    }
+}
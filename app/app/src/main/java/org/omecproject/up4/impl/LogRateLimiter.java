@@ -0,0 +1,54 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter of repeated log messages, e.g., logged for every request
+ * received during an outage. At most one message is let through per
+ * interval, the others are counted as suppressed.
+ */
+final class LogRateLimiter {
+
+    private final long intervalNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong nextLogAt;
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * Creates a new log rate limiter.
+     *
+     * @param interval the minimum interval between two messages
+     * @param unit     the interval unit
+     */
+    LogRateLimiter(long interval, TimeUnit unit) {
+        this(interval, unit, System::nanoTime);
+    }
+
+    LogRateLimiter(long interval, TimeUnit unit, LongSupplier nanoClock) {
+        this.intervalNanos = unit.toNanos(interval);
+        this.nanoClock = nanoClock;
+        this.nextLogAt = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Returns the number of messages suppressed since the last message let
+     * through, or -1 if this message must be suppressed.
+     *
+     * @return the number of suppressed messages, -1 to suppress this message
+     */
+    long tryAcquire() {
+        long now = nanoClock.getAsLong();
+        long next = nextLogAt.get();
+        if (now - next < 0 || !nextLogAt.compareAndSet(next, now + intervalNanos)) {
+            suppressed.incrementAndGet();
+            return -1;
+        }
+        return suppressed.getAndSet(0);
+    }
+}
@@ -13,6 +13,66 @@ public final class OsgiPropertyConstants {
     public static final String UPF_RECONCILE_INTERVAL = "upfReconcileInterval";
     public static final long UPF_RECONCILE_INTERVAL_DEFAULT = 30; // Seconds
 
+    public static final String UPF_MIRROR_BATCH_WINDOW = "upfMirrorBatchWindow";
+    public static final long UPF_MIRROR_BATCH_WINDOW_DEFAULT = 20; // Milliseconds
+
+    public static final String UPF_WRITE_ALL_DEVICES = "upfWriteAllDevices";
+    public static final boolean UPF_WRITE_ALL_DEVICES_DEFAULT = false;
+
+    public static final String UPF_WRITE_QUORUM = "upfWriteQuorum";
+    public static final int UPF_WRITE_QUORUM_DEFAULT = 0; // All devices
+
+    public static final String UPF_COUNTER_CACHE_MAX_AGE = "upfCounterCacheMaxAge";
+    public static final long UPF_COUNTER_CACHE_MAX_AGE_DEFAULT = 0; // Milliseconds, 0 disables the cache
+
+    public static final String UPF_STATE_DIRECTORY = "upfStateDirectory";
+    public static final String UPF_STATE_DIRECTORY_DEFAULT = ""; // Empty disables the UPF state persistence
+
+    public static final String UPF_LEADER_RECONCILE = "upfLeaderReconcile";
+    public static final boolean UPF_LEADER_RECONCILE_DEFAULT = false;
+
+    public static final String UPF_ASYNC_WINDOW = "upfAsyncWindow";
+    public static final int UPF_ASYNC_WINDOW_DEFAULT = 64; // Outstanding async operations
+
+    public static final String UPF_COALESCE_WINDOW = "upfCoalesceWindow";
+    public static final long UPF_COALESCE_WINDOW_DEFAULT = 0; // Milliseconds, 0 disables write coalescing
+
+    public static final String UPF_WRITE_BATCH_WINDOW = "upfWriteBatchWindow";
+    public static final long UPF_WRITE_BATCH_WINDOW_DEFAULT = 0; // Microseconds, 0 disables write batching
+
+    public static final String UPF_WRITE_BATCH_SIZE = "upfWriteBatchSize";
+    public static final int UPF_WRITE_BATCH_SIZE_DEFAULT = 32; // Writes
+
+    public static final String UPF_DEVICE_TIMEOUT = "upfDeviceTimeout";
+    public static final long UPF_DEVICE_TIMEOUT_DEFAULT = 0; // Milliseconds, 0 disables the deadline
+
+    public static final String UPF_BREAKER_THRESHOLD = "upfBreakerThreshold";
+    public static final int UPF_BREAKER_THRESHOLD_DEFAULT = 0; // Consecutive failures, 0 disables the breakers
+
+    public static final String UPF_BREAKER_OPEN_TIME = "upfBreakerOpenTime";
+    public static final long UPF_BREAKER_OPEN_TIME_DEFAULT = 10000; // Milliseconds
+
+    public static final String UPF_READ_BALANCING = "upfReadBalancing";
+    public static final String UPF_READ_BALANCING_DEFAULT = "LEADER"; // LEADER, ROUND_ROBIN or LEAST_LOADED
+
+    public static final String STATS_POLL_INTERVAL = "statsPollInterval";
+    public static final long STATS_POLL_INTERVAL_DEFAULT = 0; // Seconds, 0 disables polling
+
+    public static final String STATS_HISTORY_SIZE = "statsHistorySize";
+    public static final int STATS_HISTORY_SIZE_DEFAULT = 10;
+
+    public static final String STATS_TOP_UES = "statsTopUes";
+    public static final int STATS_TOP_UES_DEFAULT = 20;
+
+    public static final String STATS_HISTORY_RETENTION = "statsHistoryRetention";
+    public static final long STATS_HISTORY_RETENTION_DEFAULT = 0; // Seconds, 0 disables the counter history
+
+    public static final String USAGE_LOG_DIRECTORY = "usageLogDirectory";
+    public static final String USAGE_LOG_DIRECTORY_DEFAULT = ""; // Empty disables the usage log
+
+    public static final String USAGE_LOG_FILE_SIZE = "usageLogFileSize";
+    public static final int USAGE_LOG_FILE_SIZE_DEFAULT = 64; // MiB
+
     private OsgiPropertyConstants() {
     }
 }
@@ -0,0 +1,52 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Utility to select the top UE traffic rates with a bounded heap, i.e., in
+ * O(M log K) for M rates and K selected rates.
+ */
+final class TopUeRates {
+
+    private TopUeRates() {
+    }
+
+    /**
+     * Returns the K rates with the highest value of the given metric, in
+     * descending order.
+     *
+     * @param rates  the UE traffic rates
+     * @param k      the number of rates to select
+     * @param metric the ranking metric
+     * @return the top rates
+     */
+    static List<UeTrafficRate> top(Iterable<UeTrafficRate> rates, int k, UeTrafficRate.Metric metric) {
+        if (k <= 0) {
+            return ImmutableList.of();
+        }
+        Comparator<UeTrafficRate> comparator = Comparator.comparingDouble(metric::of);
+        // Min-heap, the head is the lowest of the top K rates
+        PriorityQueue<UeTrafficRate> heap = new PriorityQueue<>(k + 1, comparator);
+        for (UeTrafficRate rate : rates) {
+            if (heap.size() < k) {
+                heap.add(rate);
+            } else if (comparator.compare(rate, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(rate);
+            }
+        }
+        UeTrafficRate[] sorted = new UeTrafficRate[heap.size()];
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            sorted[i] = heap.poll();
+        }
+        return ImmutableList.copyOf(sorted);
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+import org.onlab.packet.Ip4Address;
+import org.onosproject.net.behaviour.upf.UpfEntity;
+import org.onosproject.net.behaviour.upf.UpfEntityType;
+import org.onosproject.net.behaviour.upf.UpfSessionDownlink;
+import org.onosproject.net.behaviour.upf.UpfSessionUplink;
+import org.onosproject.net.behaviour.upf.UpfTerminationDownlink;
+import org.onosproject.net.behaviour.upf.UpfTerminationUplink;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Index of the UPF entities applied via UP4 by UE address, used to delete
+ * all the entities of a set of UEs without reading the UPF tables. Downlink
+ * sessions and terminations are indexed by their UE address. Uplink sessions
+ * are matched on the N3 tunnel only, thus they are indexed when explicitly
+ * associated with a UE (e.g., when applied in a session bundle), or with the
+ * UE whose downlink session uses the same dedicated session meter. Uplink
+ * sessions applied before the downlink session of their UE wait for it.
+ * <p>
+ * The index is seeded when it tracks all the UE entities installed on the
+ * UPF devices, i.e., after loading the persisted UPF state, after a clear, or
+ * after {@link #seed(Collection) seeding} it with the installed entities.
+ */
+final class UeEntityIndex {
+
+    // Meter cell shared by the UE flows without a dedicated meter
+    static final int DEFAULT_METER_CELL = 0;
+
+    private final Map<Ip4Address, Map<UpfEntityKey, UpfEntity>> ueEntities = Maps.newHashMap();
+    private final Map<UpfEntityKey, Ip4Address> owners = Maps.newHashMap();
+    // UEs of the downlink sessions using each dedicated session meter cell
+    private final SetMultimap<Integer, Ip4Address> sessionMeterUes = HashMultimap.create();
+    // Uplink sessions not associated with a UE yet, by session meter cell
+    private final Map<Integer, Map<UpfEntityKey, UpfEntity>> unownedUplinks = Maps.newHashMap();
+    private final Map<UpfEntityKey, Integer> unownedCells = Maps.newHashMap();
+    // Deletions while seeding, the deleted entities are not seeded
+    private final Set<UpfEntityKey> deletedKeys = Sets.newHashSet();
+    private final Set<UpfEntityType> deletedTypes = Sets.newHashSet();
+    private boolean seeding;
+    private volatile boolean seeded;
+
+    /**
+     * Returns the UE address of the given UPF entity.
+     *
+     * @param entity the UPF entity
+     * @return the UE address, or null if the entity does not reference a UE
+     */
+    static Ip4Address ueAddress(UpfEntity entity) {
+        switch (entity.type()) {
+            case SESSION_DOWNLINK:
+                return ((UpfSessionDownlink) entity).ueAddress();
+            case TERMINATION_UPLINK:
+                return ((UpfTerminationUplink) entity).ueSessionId();
+            case TERMINATION_DOWNLINK:
+                return ((UpfTerminationDownlink) entity).ueSessionId();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Records that the given UPF entity has been applied.
+     *
+     * @param entity the UPF entity
+     */
+    synchronized void applied(UpfEntity entity) {
+        UpfEntityKey key = keyOf(entity);
+        if (key == null) {
+            return;
+        }
+        Ip4Address ueAddress = ueAddress(entity);
+        if (ueAddress != null) {
+            if (entity.type() == UpfEntityType.SESSION_DOWNLINK) {
+                downlinkSessionApplied(ueAddress, key, ((UpfSessionDownlink) entity).sessionMeterIdx());
+            }
+            put(ueAddress, key, entity);
+            return;
+        }
+        // Uplink session, associated with a UE explicitly or via its session meter
+        removeUnowned(key);
+        int cell = ((UpfSessionUplink) entity).sessionMeterIdx();
+        ueAddress = owners.get(key);
+        if (ueAddress == null && cell != DEFAULT_METER_CELL) {
+            Set<Ip4Address> ues = sessionMeterUes.get(cell);
+            ueAddress = ues.size() == 1 ? ues.iterator().next() : null;
+        }
+        if (ueAddress != null) {
+            put(ueAddress, key, entity);
+        } else if (cell != DEFAULT_METER_CELL) {
+            unownedUplinks.computeIfAbsent(cell, k -> Maps.newHashMap()).put(key, entity);
+            unownedCells.put(key, cell);
+        }
+    }
+
+    /**
+     * Associates the given UPF entity with the given UE, e.g., an uplink
+     * session applied with the other entities of the UE.
+     *
+     * @param entity    the UPF entity
+     * @param ueAddress the UE address
+     */
+    synchronized void associate(UpfEntity entity, Ip4Address ueAddress) {
+        UpfEntityKey key = keyOf(entity);
+        if (key != null) {
+            removeUnowned(key);
+            put(ueAddress, key, entity);
+        }
+    }
+
+    /**
+     * Records that the given UPF entity has been deleted.
+     *
+     * @param entity the UPF entity
+     */
+    synchronized void deleted(UpfEntity entity) {
+        UpfEntityKey key = keyOf(entity);
+        if (key == null) {
+            return;
+        }
+        if (seeding) {
+            deletedKeys.add(key);
+        }
+        Ip4Address ueAddress = owners.get(key);
+        if (ueAddress != null && key.type() == UpfEntityType.SESSION_DOWNLINK) {
+            UpfSessionDownlink indexed = (UpfSessionDownlink) ueEntities.get(ueAddress).get(key);
+            sessionMeterUes.remove(indexed.sessionMeterIdx(), ueAddress);
+        }
+        remove(key);
+        removeUnowned(key);
+    }
+
+    /**
+     * Records that all the UPF entities of the given type have been deleted.
+     *
+     * @param entityType the UPF entity type
+     */
+    synchronized void deletedAll(UpfEntityType entityType) {
+        if (seeding) {
+            deletedTypes.add(entityType);
+        }
+        ImmutableList.copyOf(owners.keySet()).stream()
+                .filter(k -> k.type() == entityType)
+                .forEach(this::remove);
+        if (entityType == UpfEntityType.SESSION_DOWNLINK) {
+            sessionMeterUes.clear();
+        } else if (entityType == UpfEntityType.SESSION_UPLINK) {
+            unownedUplinks.clear();
+            unownedCells.clear();
+        }
+    }
+
+    /**
+     * Removes all the indexed UPF entities. The index is then seeded, as no
+     * UE entity is installed.
+     */
+    synchronized void clear() {
+        ueEntities.clear();
+        owners.clear();
+        sessionMeterUes.clear();
+        unownedUplinks.clear();
+        unownedCells.clear();
+        cancelSeeding();
+        seeded = true;
+    }
+
+    /**
+     * Returns true if the index tracks all the UE entities installed on the
+     * UPF devices.
+     *
+     * @return true if the index is seeded
+     */
+    boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Marks the index as seeded, e.g., after indexing the persisted UPF
+     * state.
+     */
+    void markSeeded() {
+        seeded = true;
+    }
+
+    /**
+     * Starts seeding the index, i.e., records the deletions from now on, so
+     * that the entities deleted before being seeded are not indexed.
+     */
+    synchronized void startSeeding() {
+        cancelSeeding();
+        seeding = true;
+    }
+
+    /**
+     * Stops seeding the index without seeding it, e.g., if the installed
+     * entities could not be read.
+     */
+    synchronized void cancelSeeding() {
+        seeding = false;
+        deletedKeys.clear();
+        deletedTypes.clear();
+    }
+
+    /**
+     * Seeds the index with the given installed UE entities, read after
+     * {@link #startSeeding()}, and marks it as seeded. Entities already
+     * indexed (i.e., applied in the meantime) are not replaced, and entities
+     * deleted in the meantime are skipped.
+     *
+     * @param entities the installed UE entities
+     */
+    synchronized void seed(Collection<? extends UpfEntity> entities) {
+        if (!seeding) {
+            // Cancelled, e.g., by a clear
+            return;
+        }
+        for (UpfEntity entity : entities) {
+            UpfEntityKey key = keyOf(entity);
+            if (key != null && !owners.containsKey(key) && !unownedCells.containsKey(key) &&
+                    !deletedKeys.contains(key) && !deletedTypes.contains(key.type())) {
+                applied(entity);
+            }
+        }
+        cancelSeeding();
+        seeded = true;
+    }
+
+    /**
+     * Returns the indexed UEs matching the given filter.
+     *
+     * @param filter the UE address filter
+     * @return the matching UE addresses
+     */
+    synchronized Set<Ip4Address> ues(Predicate<Ip4Address> filter) {
+        return ueEntities.keySet().stream().filter(filter).collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns the UPF entities of the given UE.
+     *
+     * @param ueAddress the UE address
+     * @return the UPF entities of the UE
+     */
+    synchronized Collection<UpfEntity> entities(Ip4Address ueAddress) {
+        Map<UpfEntityKey, UpfEntity> entities = ueEntities.get(ueAddress);
+        return entities == null ? ImmutableList.of() : ImmutableList.copyOf(entities.values());
+    }
+
+    /**
+     * Returns the meter cells referenced by the entities of the given UEs
+     * and by no other indexed UE, excluding the default meter cell.
+     *
+     * @param meterType the meter type, session or application meter
+     * @param ues       the UE addresses
+     * @return the meter cells referenced only by the given UEs
+     */
+    synchronized Set<Integer> exclusiveMeterCells(UpfEntityType meterType, Set<Ip4Address> ues) {
+        Set<Integer> cells = Sets.newHashSet();
+        Set<Integer> shared = Sets.newHashSet();
+        ueEntities.forEach((ueAddress, entities) -> entities.values().forEach(e -> {
+            Integer cell = meterCell(e, meterType);
+            if (cell != null && cell != DEFAULT_METER_CELL) {
+                (ues.contains(ueAddress) ? cells : shared).add(cell);
+            }
+        }));
+        cells.removeAll(shared);
+        return cells;
+    }
+
+    /**
+     * Returns the number of indexed UPF entities.
+     *
+     * @return number of indexed entities
+     */
+    synchronized int size() {
+        return owners.size();
+    }
+
+    private static UpfEntityKey keyOf(UpfEntity entity) {
+        switch (entity.type()) {
+            case SESSION_UPLINK:
+            case SESSION_DOWNLINK:
+            case TERMINATION_UPLINK:
+            case TERMINATION_DOWNLINK:
+                return UpfEntityKey.of(entity);
+            default:
+                return null;
+        }
+    }
+
+    private static Integer meterCell(UpfEntity entity, UpfEntityType meterType) {
+        if (meterType == UpfEntityType.SESSION_METER) {
+            switch (entity.type()) {
+                case SESSION_UPLINK:
+                    return ((UpfSessionUplink) entity).sessionMeterIdx();
+                case SESSION_DOWNLINK:
+                    return ((UpfSessionDownlink) entity).sessionMeterIdx();
+                default:
+                    return null;
+            }
+        }
+        if (meterType == UpfEntityType.APPLICATION_METER) {
+            switch (entity.type()) {
+                case TERMINATION_UPLINK:
+                    return ((UpfTerminationUplink) entity).appMeterIdx();
+                case TERMINATION_DOWNLINK:
+                    return ((UpfTerminationDownlink) entity).appMeterIdx();
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    private void downlinkSessionApplied(Ip4Address ueAddress, UpfEntityKey key, int cell) {
+        Map<UpfEntityKey, UpfEntity> entities = ueEntities.get(ueAddress);
+        UpfEntity previous = entities == null ? null : entities.get(key);
+        if (previous != null) {
+            sessionMeterUes.remove(((UpfSessionDownlink) previous).sessionMeterIdx(), ueAddress);
+        }
+        if (cell == DEFAULT_METER_CELL) {
+            return;
+        }
+        sessionMeterUes.put(cell, ueAddress);
+        if (sessionMeterUes.get(cell).size() == 1) {
+            // The uplink sessions waiting for the UE of the meter
+            Map<UpfEntityKey, UpfEntity> uplinks = unownedUplinks.remove(cell);
+            if (uplinks != null) {
+                uplinks.forEach((k, e) -> {
+                    unownedCells.remove(k);
+                    put(ueAddress, k, e);
+                });
+            }
+        }
+    }
+
+    private void removeUnowned(UpfEntityKey key) {
+        Integer cell = unownedCells.remove(key);
+        if (cell != null) {
+            Map<UpfEntityKey, UpfEntity> uplinks = unownedUplinks.get(cell);
+            uplinks.remove(key);
+            if (uplinks.isEmpty()) {
+                unownedUplinks.remove(cell);
+            }
+        }
+    }
+
+    private void put(Ip4Address ueAddress, UpfEntityKey key, UpfEntity entity) {
+        Ip4Address previous = owners.put(key, ueAddress);
+        if (previous != null && !previous.equals(ueAddress)) {
+            removeFromUe(previous, key);
+        }
+        ueEntities.computeIfAbsent(ueAddress, k -> Maps.newHashMap()).put(key, entity);
+    }
+
+    private void remove(UpfEntityKey key) {
+        Ip4Address ueAddress = owners.remove(key);
+        if (ueAddress != null) {
+            removeFromUe(ueAddress, key);
+        }
+    }
+
+    private void removeFromUe(Ip4Address ueAddress, UpfEntityKey key) {
+        Map<UpfEntityKey, UpfEntity> entities = ueEntities.get(ueAddress);
+        if (entities != null) {
+            entities.remove(key);
+            if (entities.isEmpty()) {
+                ueEntities.remove(ueAddress);
+            }
+        }
+    }
+}
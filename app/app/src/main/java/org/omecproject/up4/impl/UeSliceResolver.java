@@ -0,0 +1,66 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import org.onlab.packet.Ip4Address;
+import org.onosproject.net.behaviour.upf.UpfApplication;
+import org.onosproject.net.behaviour.upf.UpfEntity;
+import org.onosproject.net.behaviour.upf.UpfInterface;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the slice of the UE traffic: the slice of the UE pool containing
+ * the UE or, if the UE is not in any UE pool, the slice of the application.
+ * Application IDs are scoped by slice, so an application ID installed in
+ * more than one slice doesn't resolve to any slice.
+ */
+final class UeSliceResolver {
+
+    /**
+     * Slice ID of the traffic that could not be associated to any slice.
+     */
+    static final int UNKNOWN_SLICE_ID = -1;
+
+    private final List<UpfInterface> uePools;
+    private final SetMultimap<Byte, Integer> appSlices = HashMultimap.create();
+
+    /**
+     * Creates a new slice resolver.
+     *
+     * @param interfaces   the UPF interfaces
+     * @param applications the UPF applications
+     */
+    UeSliceResolver(Collection<? extends UpfEntity> interfaces, Collection<? extends UpfEntity> applications) {
+        this.uePools = interfaces.stream()
+                .map(i -> (UpfInterface) i)
+                .filter(UpfInterface::isCore)
+                .collect(Collectors.toList());
+        applications.forEach(a -> appSlices.put(
+                ((UpfApplication) a).appId(), ((UpfApplication) a).sliceId()));
+    }
+
+    /**
+     * Returns the slice ID of the traffic of the given UE and application.
+     *
+     * @param ueAddress the UE address
+     * @param appId     the application ID
+     * @return the slice ID, or {@link #UNKNOWN_SLICE_ID}
+     */
+    int sliceId(Ip4Address ueAddress, byte appId) {
+        for (UpfInterface uePool : uePools) {
+            if (uePool.prefix().contains(ueAddress)) {
+                return uePool.sliceId();
+            }
+        }
+        Set<Integer> slices = appSlices.get(appId);
+        return slices.size() == 1 ? slices.iterator().next() : UNKNOWN_SLICE_ID;
+    }
+}
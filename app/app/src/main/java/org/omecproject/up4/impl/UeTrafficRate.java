@@ -0,0 +1,242 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.onlab.packet.Ip4Address;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Traffic of a UE in one direction between two consecutive counter samples.
+ */
+public final class UeTrafficRate {
+
+    /**
+     * Traffic direction.
+     */
+    public enum Direction {
+        UPLINK,
+        DOWNLINK
+    }
+
+    /**
+     * Metric used to rank UE traffic rates.
+     */
+    public enum Metric {
+        /**
+         * Transmitted bits per second.
+         */
+        BPS,
+        /**
+         * Transmitted packets per second.
+         */
+        PPS,
+        /**
+         * Percentage of received packets dropped.
+         */
+        DROP;
+
+        /**
+         * Returns the value of this metric for the given traffic rate.
+         *
+         * @param rate the UE traffic rate
+         * @return the metric value
+         */
+        public double of(UeTrafficRate rate) {
+            switch (this) {
+                case BPS:
+                    return rate.txBps();
+                case PPS:
+                    return rate.txPps();
+                case DROP:
+                    return rate.dropPercentage();
+                default:
+                    throw new IllegalStateException("Unknown metric " + this);
+            }
+        }
+    }
+
+    private final Ip4Address ueAddress;
+    private final Direction direction;
+    private final double intervalS;
+    private final long rxPkts;
+    private final long rxBytes;
+    private final long txPkts;
+    private final long txBytes;
+
+    /**
+     * Creates a new UE traffic rate.
+     *
+     * @param ueAddress the UE address
+     * @param direction the traffic direction
+     * @param intervalS the time between the two samples, in seconds
+     * @param rxPkts    packets received by the UPF in the interval
+     * @param rxBytes   bytes received by the UPF in the interval
+     * @param txPkts    packets transmitted by the UPF in the interval
+     * @param txBytes   bytes transmitted by the UPF in the interval
+     */
+    public UeTrafficRate(Ip4Address ueAddress, Direction direction, double intervalS,
+                         long rxPkts, long rxBytes, long txPkts, long txBytes) {
+        this.ueAddress = ueAddress;
+        this.direction = direction;
+        this.intervalS = intervalS;
+        this.rxPkts = rxPkts;
+        this.rxBytes = rxBytes;
+        this.txPkts = txPkts;
+        this.txBytes = txBytes;
+    }
+
+    /**
+     * Returns the UE address.
+     *
+     * @return the UE address
+     */
+    public Ip4Address ueAddress() {
+        return ueAddress;
+    }
+
+    /**
+     * Returns the traffic direction.
+     *
+     * @return the traffic direction
+     */
+    public Direction direction() {
+        return direction;
+    }
+
+    /**
+     * Returns the time between the two samples.
+     *
+     * @return the interval in seconds
+     */
+    public double intervalS() {
+        return intervalS;
+    }
+
+    /**
+     * Returns the packets received by the UPF in the interval.
+     *
+     * @return the received packets
+     */
+    public long rxPkts() {
+        return rxPkts;
+    }
+
+    /**
+     * Returns the bytes received by the UPF in the interval.
+     *
+     * @return the received bytes
+     */
+    public long rxBytes() {
+        return rxBytes;
+    }
+
+    /**
+     * Returns the packets transmitted by the UPF in the interval.
+     *
+     * @return the transmitted packets
+     */
+    public long txPkts() {
+        return txPkts;
+    }
+
+    /**
+     * Returns the bytes transmitted by the UPF in the interval.
+     *
+     * @return the transmitted bytes
+     */
+    public long txBytes() {
+        return txBytes;
+    }
+
+    /**
+     * Returns the packets dropped by the UPF in the interval.
+     *
+     * @return the dropped packets
+     */
+    public long droppedPkts() {
+        return rxPkts - txPkts;
+    }
+
+    /**
+     * Returns the bytes dropped by the UPF in the interval.
+     *
+     * @return the dropped bytes
+     */
+    public long droppedBytes() {
+        return rxBytes - txBytes;
+    }
+
+    /**
+     * Returns the received packets per second.
+     *
+     * @return the received pps
+     */
+    public double rxPps() {
+        return perSecond(rxPkts);
+    }
+
+    /**
+     * Returns the transmitted packets per second.
+     *
+     * @return the transmitted pps
+     */
+    public double txPps() {
+        return perSecond(txPkts);
+    }
+
+    /**
+     * Returns the dropped packets per second.
+     *
+     * @return the dropped pps
+     */
+    public double droppedPps() {
+        return perSecond(droppedPkts());
+    }
+
+    /**
+     * Returns the received bits per second.
+     *
+     * @return the received bps
+     */
+    public double rxBps() {
+        return perSecond(rxBytes * 8);
+    }
+
+    /**
+     * Returns the transmitted bits per second.
+     *
+     * @return the transmitted bps
+     */
+    public double txBps() {
+        return perSecond(txBytes * 8);
+    }
+
+    /**
+     * Returns the percentage of received packets dropped by the UPF.
+     *
+     * @return the drop percentage, 0 if no packets were received
+     */
+    public double dropPercentage() {
+        return rxPkts == 0 ? 0.0 : ((double) droppedPkts() / (double) rxPkts) * 100.0;
+    }
+
+    private double perSecond(long value) {
+        return intervalS <= 0 ? 0.0 : value / intervalS;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("ueAddress", ueAddress)
+                .add("direction", direction)
+                .add("intervalS", intervalS)
+                .add("rxPkts", rxPkts)
+                .add("rxBytes", rxBytes)
+                .add("txPkts", txPkts)
+                .add("txBytes", txBytes)
+                .toString();
+    }
+}
@@ -6,6 +6,7 @@ package org.omecproject.up4.impl;
 
 
 import com.google.common.annotations.Beta;
+import org.onlab.packet.Ip4Address;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.behaviour.upf.UpfCounter;
 import org.onosproject.net.behaviour.upf.UpfEntity;
@@ -14,6 +15,7 @@ import org.onosproject.net.behaviour.upf.UpfInterface;
 import org.onosproject.net.behaviour.upf.UpfProgrammableException;
 
 import java.util.Collection;
+import java.util.function.Predicate;
 
 
 /**
@@ -39,6 +41,110 @@ public interface Up4AdminService {
      */
     Collection<DownlinkUpfFlow> getDownlinkFlows() throws UpfProgrammableException;
 
+    /**
+     * Visits the uplink and then the downlink UPF flows installed matching the
+     * given filter, one at a time, without materializing the whole collection
+     * of flows. The counters and the meters are read only once for both
+     * directions. Used for debug purposes only.
+     *
+     * @param filter  the flow filter
+     * @param visitor the visitor of the matching UPF flows
+     * @throws UpfProgrammableException if flows are unable to read
+     */
+    void forEachFlow(UpfFlowFilter filter, UpfFlowVisitor visitor) throws UpfProgrammableException;
+
+    /**
+     * Gets a snapshot of the UE flows installed, reading each UPF table and
+     * all the counters only once. Used for debug purposes only.
+     *
+     * @return the snapshot of the installed UE flows
+     * @throws UpfProgrammableException if flows are unable to read
+     */
+    UpfFlowsSnapshot getFlowsSnapshot() throws UpfProgrammableException;
+
+    /**
+     * Gets the convergence statistics of the follower UPF devices, i.e., the
+     * latency from a leader flow rule request to the rule being added on each
+     * follower and the number of rules mirrored or repaired by reconciliation.
+     *
+     * @return the convergence statistics
+     */
+    UpfConvergenceStats convergenceStats();
+
+    /**
+     * Gets the cache of the counters read from the UPF devices, exposing the
+     * cache statistics.
+     *
+     * @return the counter cache
+     */
+    UpfCounterCache counterCache();
+
+    /**
+     * Deletes all the sessions and terminations of the UEs matching the given
+     * filter, and resets their counters and the meters used only by them.
+     * The UE entities are found via an index of the entities applied through
+     * UP4, without reading the UPF tables. Uplink sessions are found via the
+     * dedicated session meter of the UE downlink session, or when applied in
+     * a session bundle. The UEs are purged concurrently.
+     *
+     * @param filter the UE address filter
+     * @return the number of deleted sessions and terminations
+     * @throws UpfProgrammableException if any of the entities failed to be deleted
+     */
+    long purgeUes(Predicate<Ip4Address> filter) throws UpfProgrammableException;
+
+    /**
+     * Returns true if the UE index used by the purges tracks all the UE
+     * entities installed on the UPF devices. Until then, e.g., while the index
+     * is seeded from the leader UPF device after a restart, the purges might
+     * miss some UE entities.
+     *
+     * @return true if the UE index is seeded
+     */
+    boolean isUeIndexSeeded();
+
+    /**
+     * Purges all the UEs of the given slice, i.e., of the UE pools of the
+     * slice, as {@link #purgeUes(Predicate)}.
+     *
+     * @param sliceId the slice ID
+     * @return the number of deleted sessions and terminations
+     * @throws UpfProgrammableException if any of the entities failed to be deleted
+     */
+    long purgeSlice(int sliceId) throws UpfProgrammableException;
+
+    /**
+     * Gets the coalescer of the downlink session writes, exposing the
+     * coalescing statistics.
+     *
+     * @return the write coalescer
+     */
+    UpfWriteCoalescer writeCoalescer();
+
+    /**
+     * Gets the statistics of the priority lanes of the asynchronous UPF
+     * operations, i.e., the per lane queue depth and latency.
+     *
+     * @return the write lane statistics
+     */
+    UpfWriteLaneStats writeLaneStats();
+
+    /**
+     * Gets the health of the UPF devices, i.e., the state of the circuit
+     * breakers guarding the calls on each device.
+     *
+     * @return the UPF device health
+     */
+    UpfDeviceHealth deviceHealth();
+
+    /**
+     * Gets the balancer of the UPF entity reads across the leader and the
+     * in-sync followers, exposing the read statistics.
+     *
+     * @return the read balancer
+     */
+    UpfReadBalancer readBalancer();
+
     /**
      * Install all UPF entities internal to UP4.
      * In particular, interfaces present in the app configuration and the DBUF
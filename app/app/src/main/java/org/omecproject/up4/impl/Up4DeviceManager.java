@@ -4,18 +4,23 @@
  */
 package org.omecproject.up4.impl;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Striped;
 import io.grpc.Context;
 import org.apache.commons.lang3.tuple.Pair;
 import org.omecproject.dbuf.client.DbufClient;
 import org.omecproject.dbuf.client.DefaultDbufClient;
+import org.omecproject.up4.Up4Counters;
 import org.omecproject.up4.Up4Event;
 import org.omecproject.up4.Up4EventListener;
+import org.omecproject.up4.Up4Readiness;
 import org.omecproject.up4.Up4Service;
 import org.omecproject.up4.config.Up4Config;
 import org.omecproject.up4.config.Up4DbufConfig;
+import org.omecproject.up4.impl.UpfWriteLaneStats.Lane;
 import org.onlab.packet.Ip4Address;
 import org.onlab.packet.Ip4Prefix;
 import org.onosproject.cfg.ComponentConfigService;
@@ -25,6 +30,7 @@ import org.onosproject.event.AbstractListenerManager;
 import org.onosproject.mastership.MastershipService;
 import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
+import org.onosproject.net.behaviour.upf.UpfApplication;
 import org.onosproject.net.behaviour.upf.UpfCounter;
 import org.onosproject.net.behaviour.upf.UpfDevice;
 import org.onosproject.net.behaviour.upf.UpfEntity;
@@ -35,6 +41,7 @@ import org.onosproject.net.behaviour.upf.UpfMeter;
 import org.onosproject.net.behaviour.upf.UpfProgrammable;
 import org.onosproject.net.behaviour.upf.UpfProgrammableException;
 import org.onosproject.net.behaviour.upf.UpfSessionDownlink;
+import org.onosproject.net.behaviour.upf.UpfSessionUplink;
 import org.onosproject.net.behaviour.upf.UpfTerminationDownlink;
 import org.onosproject.net.behaviour.upf.UpfTerminationUplink;
 import org.onosproject.net.config.ConfigFactory;
@@ -65,6 +72,7 @@ import org.onosproject.net.pi.runtime.PiMeterCellId;
 import org.onosproject.net.pi.service.PiPipeconfEvent;
 import org.onosproject.net.pi.service.PiPipeconfListener;
 import org.onosproject.net.pi.service.PiPipeconfService;
+import org.onosproject.p4runtime.model.P4InfoParserException;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -75,34 +83,90 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Dictionary;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static org.omecproject.up4.impl.AppConstants.DEFAULT_SLICE_ID;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_ASYNC_WINDOW;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_ASYNC_WINDOW_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_BREAKER_OPEN_TIME;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_BREAKER_OPEN_TIME_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_BREAKER_THRESHOLD;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_BREAKER_THRESHOLD_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_COALESCE_WINDOW;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_COALESCE_WINDOW_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_COUNTER_CACHE_MAX_AGE;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_COUNTER_CACHE_MAX_AGE_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_DEVICE_TIMEOUT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_DEVICE_TIMEOUT_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_LEADER_RECONCILE;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_LEADER_RECONCILE_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_MIRROR_BATCH_WINDOW;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_MIRROR_BATCH_WINDOW_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_READ_BALANCING;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_READ_BALANCING_DEFAULT;
 import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_RECONCILE_INTERVAL;
 import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_RECONCILE_INTERVAL_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_STATE_DIRECTORY;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_STATE_DIRECTORY_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_WRITE_ALL_DEVICES;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_WRITE_ALL_DEVICES_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_WRITE_BATCH_SIZE;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_WRITE_BATCH_SIZE_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_WRITE_BATCH_WINDOW;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_WRITE_BATCH_WINDOW_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_WRITE_QUORUM;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.UPF_WRITE_QUORUM_DEFAULT;
+import static org.onlab.util.Tools.get;
+import static org.onlab.util.Tools.getIntegerProperty;
 import static org.onlab.util.Tools.getLongProperty;
 import static org.onlab.util.Tools.groupedThreads;
+import static org.onlab.util.Tools.isPropertyEnabled;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.APPLICATION;
 import static org.onosproject.net.behaviour.upf.UpfEntityType.APPLICATION_METER;
 import static org.onosproject.net.behaviour.upf.UpfEntityType.COUNTER;
 import static org.onosproject.net.behaviour.upf.UpfEntityType.EGRESS_COUNTER;
 import static org.onosproject.net.behaviour.upf.UpfEntityType.INGRESS_COUNTER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.INTERFACE;
 import static org.onosproject.net.behaviour.upf.UpfEntityType.SESSION_DOWNLINK;
 import static org.onosproject.net.behaviour.upf.UpfEntityType.SESSION_METER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.SESSION_UPLINK;
 import static org.onosproject.net.behaviour.upf.UpfEntityType.SLICE_METER;
 import static org.onosproject.net.behaviour.upf.UpfEntityType.TERMINATION_DOWNLINK;
 import static org.onosproject.net.behaviour.upf.UpfEntityType.TERMINATION_UPLINK;
@@ -116,16 +180,48 @@ import static org.onosproject.net.config.basics.SubjectFactories.APP_SUBJECT_FAC
 @Component(immediate = true, service = {Up4Service.class, Up4AdminService.class},
         property = {
                 UPF_RECONCILE_INTERVAL + ":Long=" + UPF_RECONCILE_INTERVAL_DEFAULT,
+                UPF_MIRROR_BATCH_WINDOW + ":Long=" + UPF_MIRROR_BATCH_WINDOW_DEFAULT,
+                UPF_WRITE_ALL_DEVICES + ":Boolean=" + UPF_WRITE_ALL_DEVICES_DEFAULT,
+                UPF_WRITE_QUORUM + ":Integer=" + UPF_WRITE_QUORUM_DEFAULT,
+                UPF_COUNTER_CACHE_MAX_AGE + ":Long=" + UPF_COUNTER_CACHE_MAX_AGE_DEFAULT,
+                UPF_STATE_DIRECTORY + "=" + UPF_STATE_DIRECTORY_DEFAULT,
+                UPF_LEADER_RECONCILE + ":Boolean=" + UPF_LEADER_RECONCILE_DEFAULT,
+                UPF_ASYNC_WINDOW + ":Integer=" + UPF_ASYNC_WINDOW_DEFAULT,
+                UPF_COALESCE_WINDOW + ":Long=" + UPF_COALESCE_WINDOW_DEFAULT,
+                UPF_WRITE_BATCH_WINDOW + ":Long=" + UPF_WRITE_BATCH_WINDOW_DEFAULT,
+                UPF_WRITE_BATCH_SIZE + ":Integer=" + UPF_WRITE_BATCH_SIZE_DEFAULT,
+                UPF_DEVICE_TIMEOUT + ":Long=" + UPF_DEVICE_TIMEOUT_DEFAULT,
+                UPF_BREAKER_THRESHOLD + ":Integer=" + UPF_BREAKER_THRESHOLD_DEFAULT,
+                UPF_BREAKER_OPEN_TIME + ":Long=" + UPF_BREAKER_OPEN_TIME_DEFAULT,
+                UPF_READ_BALANCING + "=" + UPF_READ_BALANCING_DEFAULT,
         })
 public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4EventListener>
         implements Up4Service, Up4AdminService {
 
     private static final long NO_UE_LIMIT = -1;
+    // Leader rules not converged on all followers within this time are no
+    // longer tracked by the convergence statistics.
+    private static final long CONVERGENCE_TRACKING_TIMEOUT_MINUTES = 10;
+    private static final int ENTITY_LOCK_STRIPES = 1024;
+    // UPF entities indexed by UE address
+    private static final List<UpfEntityType> UE_ENTITY_TYPES = List.of(
+            SESSION_UPLINK, SESSION_DOWNLINK, TERMINATION_UPLINK, TERMINATION_DOWNLINK);
+    // Per device, so that a hung device cannot take the threads calling the others
+    private static final int UPF_DEVICE_THREADS = 16;
+    private static final int UPF_DEVICE_QUEUE_SIZE = 256;
+    // Backoff between the lazy setup attempts of the UPF physical devices
+    private static final long SETUP_RETRY_MIN_MILLIS = 1000;
+    private static final long SETUP_RETRY_MAX_MILLIS = 30000;
+    private static final long NOT_READY_LOG_INTERVAL_SECONDS = 10;
+    // Set while a thread runs an operation of the async window, see submitBulk
+    private static final ThreadLocal<Boolean> IN_ASYNC_WINDOW = ThreadLocal.withInitial(() -> false);
     public static final int GTP_PORT = 2152;
     public static final byte DBUF_TUNNEL_ID = 1;
 
     private final Logger log = LoggerFactory.getLogger(getClass());
     private final AtomicBoolean upfInitialized = new AtomicBoolean(false);
+    private final UpfReadiness readiness = new UpfReadiness(SETUP_RETRY_MIN_MILLIS, SETUP_RETRY_MAX_MILLIS);
+    private final LogRateLimiter notReadyLog = new LogRateLimiter(NOT_READY_LOG_INTERVAL_SECONDS, TimeUnit.SECONDS);
     private final ConfigFactory<ApplicationId, Up4Config> up4ConfigFactory = new ConfigFactory<>(
             APP_SUBJECT_FACTORY, Up4Config.class, Up4Config.KEY) {
         @Override
@@ -161,8 +257,13 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected Up4Store up4Store;
 
-    private ExecutorService eventExecutor;
+    private ScheduledExecutorService eventExecutor;
     private ScheduledExecutorService reconciliationExecutor;
+    private UpfDeviceExecutors upfDeviceExecutors;
+    // Bulk reads and writes (e.g., UE index seeding, state restore), kept off the device executors
+    private ExecutorService bulkExecutor;
+    private ExecutorService asyncExecutor;
+    private ExecutorService journalExecutor;
     private Future<?> reconciliationTask;
 
     /**
@@ -170,6 +271,95 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
      **/
     private long upfReconcileInterval = UPF_RECONCILE_INTERVAL_DEFAULT;
 
+    /**
+     * Time window (in milliseconds) used to group leader flow rule and meter
+     * events before mirroring them on the follower UPF devices.
+     **/
+    private long upfMirrorBatchWindow = UPF_MIRROR_BATCH_WINDOW_DEFAULT;
+
+    // Leader flow rules and meters waiting to be mirrored on the followers.
+    // Keyed by the leader entity, so that a later event for the same rule or
+    // meter cell supersedes the pending one. Value is true for additions.
+    private final Map<FlowRule, Boolean> pendingMirrorFlowRules = Maps.newLinkedHashMap();
+    private final Map<MeterCellId, Pair<Meter, Boolean>> pendingMirrorMeters = Maps.newLinkedHashMap();
+    private final AtomicBoolean mirrorFlushScheduled = new AtomicBoolean(false);
+    private final UpfConvergenceStats convergenceStats = new UpfConvergenceStats();
+    private final UpfCounterCache counterCache = new UpfCounterCache(UPF_COUNTER_CACHE_MAX_AGE_DEFAULT);
+    // Serializes the writes of the same UE or UPF entity key
+    private final Striped<Lock> entityLocks = Striped.lock(ENTITY_LOCK_STRIPES);
+    private final UeEntityIndex ueIndex = new UeEntityIndex();
+    // Coalesces the flapping downlink session writes of the same UE
+    private final UpfWriteCoalescer writeCoalescer =
+            new UpfWriteCoalescer(UPF_COALESCE_WINDOW_DEFAULT, entityLocks::get, this::dispatchCoalesced);
+    private final UpfWriteLaneStats writeLaneStats = new UpfWriteLaneStats();
+    // Merges the device writes of concurrent callers
+    private final UpfWriteBatcher<UpfProgrammableOperation> writeBatcher = new UpfWriteBatcher<>(
+            this::writeBatchOnUpfDevices, UPF_WRITE_BATCH_WINDOW_DEFAULT, UPF_WRITE_BATCH_SIZE_DEFAULT);
+    private final UpfCounterAggregator counterAggregator = new UpfCounterAggregator();
+    private final UpfDeviceHealth deviceHealth =
+            new UpfDeviceHealth(UPF_BREAKER_THRESHOLD_DEFAULT, UPF_BREAKER_OPEN_TIME_DEFAULT);
+    private final UpfReadBalancer readBalancer =
+            new UpfReadBalancer(UpfReadBalancer.Policy.valueOf(UPF_READ_BALANCING_DEFAULT));
+
+    /**
+     * Write UPF entities directly on all UPF devices in parallel, instead of
+     * writing only on the leader and mirroring its state on the followers.
+     * Only enabled with a non-zero UPF device deadline.
+     **/
+    private volatile boolean upfWriteAllDevices = UPF_WRITE_ALL_DEVICES_DEFAULT;
+
+    /**
+     * Number of UPF devices that must acknowledge a write when writing on
+     * all UPF devices. Zero or a negative value means all devices.
+     **/
+    private volatile int upfWriteQuorum = UPF_WRITE_QUORUM_DEFAULT;
+
+    /**
+     * Local directory where the applied UPF entities are persisted, to be
+     * restored on the UPF devices after a restart. Empty disables it.
+     **/
+    private String upfStateDirectory = UPF_STATE_DIRECTORY_DEFAULT;
+    private volatile UpfStateJournal stateJournal;
+
+    /**
+     * Periodically reconcile the leader UPF device with the intended UPF
+     * state, i.e., the UPF entities applied and not deleted via UP4. The
+     * intended state is local to this instance, enable it only when the
+     * northbound is always served by the same instance.
+     **/
+    private boolean upfLeaderReconcile = UPF_LEADER_RECONCILE_DEFAULT;
+    private final AtomicBoolean leaderReconcileRunning = new AtomicBoolean(false);
+
+    /**
+     * Maximum number of outstanding asynchronous UPF operations. Further
+     * operations are queued until an outstanding one completes.
+     **/
+    private int upfAsyncWindow = UPF_ASYNC_WINDOW_DEFAULT;
+    private volatile UpfAsyncWindow asyncWindow;
+
+    /**
+     * Maximum time (in microseconds) a device write waits for concurrent
+     * writes to be merged in the same batch, and maximum batch size. The
+     * actual window shrinks under light load. Zero disables batching.
+     **/
+    private long upfWriteBatchWindow = UPF_WRITE_BATCH_WINDOW_DEFAULT;
+    private int upfWriteBatchSize = UPF_WRITE_BATCH_SIZE_DEFAULT;
+
+    /**
+     * Deadline (in milliseconds) of the counter calls on each UPF device, and
+     * of the writes when writing on all UPF devices. Zero disables the
+     * deadline.
+     **/
+    private volatile long upfDeviceTimeout = UPF_DEVICE_TIMEOUT_DEFAULT;
+
+    /**
+     * Consecutive failures or timeouts of a UPF device tripping its circuit
+     * breaker open, and time (in milliseconds) the breaker stays open before
+     * probing the device again. Zero failures disables the breakers.
+     **/
+    private int upfBreakerThreshold = UPF_BREAKER_THRESHOLD_DEFAULT;
+    private long upfBreakerOpenTime = UPF_BREAKER_OPEN_TIME_DEFAULT;
+
     private ApplicationId appId;
     private InternalDeviceListener deviceListener;
     private InternalConfigListener netCfgListener;
@@ -202,6 +392,17 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
                 "omec/up4", "event-%d", log));
         reconciliationExecutor = newSingleThreadScheduledExecutor(groupedThreads(
                 "omec/up4/reconcile", "executor", log));
+        upfDeviceExecutors = new UpfDeviceExecutors(
+                UPF_DEVICE_THREADS, UPF_DEVICE_QUEUE_SIZE,
+                deviceId -> groupedThreads("omec/up4/device", deviceId + "-%d", log));
+        bulkExecutor = Executors.newSingleThreadExecutor(groupedThreads(
+                "omec/up4/bulk", "worker", log));
+        // Threads are bounded by the async window
+        asyncExecutor = Executors.newCachedThreadPool(groupedThreads(
+                "omec/up4/async", "worker-%d", log));
+        asyncWindow = new UpfAsyncWindow(asyncExecutor, upfAsyncWindow, writeLaneStats);
+        journalExecutor = Executors.newSingleThreadExecutor(groupedThreads(
+                "omec/up4/journal", "compaction", log));
 
         flowRuleService.addListener(flowRuleListener);
         meterService.addListener(meterListener);
@@ -234,6 +435,196 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
                 }
             }
         }
+        Long mirrorBatchWindow = getLongProperty(properties, UPF_MIRROR_BATCH_WINDOW);
+        if (mirrorBatchWindow != null && mirrorBatchWindow >= 0) {
+            upfMirrorBatchWindow = mirrorBatchWindow;
+        }
+        Integer writeQuorum = getIntegerProperty(properties, UPF_WRITE_QUORUM);
+        if (writeQuorum != null) {
+            upfWriteQuorum = writeQuorum;
+        }
+        Long counterCacheMaxAge = getLongProperty(properties, UPF_COUNTER_CACHE_MAX_AGE);
+        if (counterCacheMaxAge != null && counterCacheMaxAge >= 0 &&
+                counterCacheMaxAge != counterCache.maxAgeMillis()) {
+            counterCache.setMaxAgeMillis(counterCacheMaxAge);
+            log.info("UPF counter cache max age set to {} ms", counterCacheMaxAge);
+        }
+        Integer asyncWindowSize = getIntegerProperty(properties, UPF_ASYNC_WINDOW);
+        if (asyncWindowSize != null && asyncWindowSize > 0 && asyncWindowSize != upfAsyncWindow) {
+            upfAsyncWindow = asyncWindowSize;
+            UpfAsyncWindow window = asyncWindow;
+            if (window != null) {
+                window.setWindow(upfAsyncWindow);
+            }
+            log.info("UPF async window set to {} operations", upfAsyncWindow);
+        }
+        Long coalesceWindow = getLongProperty(properties, UPF_COALESCE_WINDOW);
+        if (coalesceWindow != null && coalesceWindow >= 0 &&
+                coalesceWindow != writeCoalescer.windowMillis()) {
+            writeCoalescer.setWindowMillis(coalesceWindow);
+            log.info("Downlink session write coalescing window set to {} ms", coalesceWindow);
+        }
+        Long writeBatchWindow = getLongProperty(properties, UPF_WRITE_BATCH_WINDOW);
+        Integer writeBatchSize = getIntegerProperty(properties, UPF_WRITE_BATCH_SIZE);
+        if ((writeBatchWindow != null && writeBatchWindow >= 0 && writeBatchWindow != upfWriteBatchWindow) ||
+                (writeBatchSize != null && writeBatchSize > 0 && writeBatchSize != upfWriteBatchSize)) {
+            if (writeBatchWindow != null && writeBatchWindow >= 0) {
+                upfWriteBatchWindow = writeBatchWindow;
+            }
+            if (writeBatchSize != null && writeBatchSize > 0) {
+                upfWriteBatchSize = writeBatchSize;
+            }
+            writeBatcher.configure(upfWriteBatchWindow, upfWriteBatchSize);
+            log.info("UPF write batching set to {} us and {} writes", upfWriteBatchWindow, upfWriteBatchSize);
+        }
+        Long deviceTimeout = getLongProperty(properties, UPF_DEVICE_TIMEOUT);
+        if (deviceTimeout != null && deviceTimeout >= 0 && deviceTimeout != upfDeviceTimeout) {
+            upfDeviceTimeout = deviceTimeout;
+            log.info("UPF device deadline set to {} ms", upfDeviceTimeout);
+        }
+        Boolean writeAllDevices = isPropertyEnabled(properties, UPF_WRITE_ALL_DEVICES);
+        if (writeAllDevices == null) {
+            writeAllDevices = upfWriteAllDevices;
+        }
+        if (writeAllDevices && upfDeviceTimeout == 0) {
+            // The writes would wait forever for a hung device
+            log.warn("UPF write on all devices requires a non-zero {}, writing only on the leader",
+                     UPF_DEVICE_TIMEOUT);
+            writeAllDevices = false;
+        }
+        if (writeAllDevices != upfWriteAllDevices) {
+            upfWriteAllDevices = writeAllDevices;
+            log.info("{} UPF write on all devices", upfWriteAllDevices ? "Enabled" : "Disabled");
+        }
+        Integer breakerThreshold = getIntegerProperty(properties, UPF_BREAKER_THRESHOLD);
+        Long breakerOpenTime = getLongProperty(properties, UPF_BREAKER_OPEN_TIME);
+        if ((breakerThreshold != null && breakerThreshold >= 0 && breakerThreshold != upfBreakerThreshold) ||
+                (breakerOpenTime != null && breakerOpenTime >= 0 && breakerOpenTime != upfBreakerOpenTime)) {
+            if (breakerThreshold != null && breakerThreshold >= 0) {
+                upfBreakerThreshold = breakerThreshold;
+            }
+            if (breakerOpenTime != null && breakerOpenTime >= 0) {
+                upfBreakerOpenTime = breakerOpenTime;
+            }
+            deviceHealth.configure(upfBreakerThreshold, upfBreakerOpenTime);
+            log.info("UPF device circuit breakers set to {} failures and {} ms open time",
+                     upfBreakerThreshold, upfBreakerOpenTime);
+        }
+        String readBalancing = get(properties, UPF_READ_BALANCING);
+        if (readBalancing != null && !readBalancing.isBlank()) {
+            try {
+                UpfReadBalancer.Policy policy = UpfReadBalancer.Policy.valueOf(
+                        readBalancing.trim().toUpperCase().replace('-', '_'));
+                if (policy != readBalancer.policy()) {
+                    readBalancer.setPolicy(policy);
+                    log.info("UPF read balancing set to {}", policy);
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid UPF read balancing policy {}, keeping {}", readBalancing, readBalancer.policy());
+            }
+        }
+        String stateDirectory = get(properties, UPF_STATE_DIRECTORY);
+        Boolean leaderReconcile = isPropertyEnabled(properties, UPF_LEADER_RECONCILE);
+        boolean directoryChanged = stateDirectory != null && !stateDirectory.trim().equals(upfStateDirectory);
+        if (directoryChanged || (leaderReconcile != null && leaderReconcile != upfLeaderReconcile)) {
+            upfStateDirectory = stateDirectory != null ? stateDirectory.trim() : upfStateDirectory;
+            upfLeaderReconcile = leaderReconcile != null ? leaderReconcile : upfLeaderReconcile;
+            updateStateJournal(directoryChanged);
+            log.info("{} UPF leader reconciliation", upfLeaderReconcile ? "Enabled" : "Disabled");
+        }
+    }
+
+    private synchronized void updateStateJournal(boolean directoryChanged) {
+        boolean needed = !upfStateDirectory.isEmpty() || upfLeaderReconcile;
+        if (stateJournal != null && needed && !directoryChanged) {
+            // Only the reconciliation changed, the tracked state is still valid
+            return;
+        }
+        openStateJournal();
+    }
+
+    private synchronized void openStateJournal() {
+        closeStateJournal();
+        if (upfStateDirectory.isEmpty() && !upfLeaderReconcile) {
+            return;
+        }
+        // Without persistence, the intended state is tracked from now on
+        Path directory = upfStateDirectory.isEmpty() ? null : Paths.get(upfStateDirectory);
+        try {
+            UpfStateJournal journal = new UpfStateJournal(directory, new UpfStateDump(), journalExecutor);
+            journal.open();
+            if (!upfInitialized.get()) {
+                // Nothing has been applied before the UPF data plane setup
+                journal.markComplete();
+            }
+            stateJournal = journal;
+            if (journal.isPersistent()) {
+                // Uplink sessions are associated with their UE via the session meters
+                UE_ENTITY_TYPES.forEach(type -> journal.entities(type).forEach(ueIndex::applied));
+                if (journal.isComplete()) {
+                    ueIndex.markSeeded();
+                }
+                log.info("UPF state persistence enabled in {}", directory);
+                if (upfInitialized.get()) {
+                    // Opened after the UPF data plane setup, which already
+                    // tried to restore the (then not tracked) state.
+                    restoreUpfState();
+                }
+            } else if (journal.isComplete()) {
+                log.info("Tracking the intended UPF state in memory");
+            } else {
+                log.info("Tracking the intended UPF state in memory, entities applied before are not tracked");
+            }
+        } catch (IOException | P4InfoParserException e) {
+            log.error("Unable to open UPF state journal in {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private synchronized void closeStateJournal() {
+        if (stateJournal != null) {
+            if (stateJournal.directory() != null) {
+                log.info("Stopped tracking the UPF state persisted in {}", stateJournal.directory());
+            } else if (stateJournal.size() > 0) {
+                log.warn("Discarding {} UPF entities of the intended state tracked in memory",
+                         stateJournal.size());
+            }
+            stateJournal.close();
+            stateJournal = null;
+        }
+    }
+
+    // Tracks the applied UPF entities in the UE index and in the UPF state journal
+
+    private void trackApplied(UpfEntity entity) {
+        ueIndex.applied(entity);
+        UpfStateJournal journal = stateJournal;
+        if (journal != null) {
+            journal.applied(entity);
+        }
+    }
+
+    private void trackDeleted(UpfEntity entity) {
+        ueIndex.deleted(entity);
+        UpfStateJournal journal = stateJournal;
+        if (journal != null) {
+            journal.deleted(entity);
+        }
+    }
+
+    private void trackDeletedAll(UpfEntityType entityType) {
+        ueIndex.deletedAll(entityType);
+        UpfStateJournal journal = stateJournal;
+        if (journal != null) {
+            journal.deletedAll(entityType);
+        }
+    }
+
+    private void trackCleared() {
+        ueIndex.clear();
+        UpfStateJournal journal = stateJournal;
+        if (journal != null) {
+            journal.clear();
+        }
     }
 
     protected void preDeactivate() {
@@ -244,8 +635,10 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
         if (isReady()) {
             upfProgrammables.values().forEach(UpfDevice::cleanUp);
         }
+        trackCleared();
         teardownDbufClient();
         upfInitialized.set(false);
+        readiness.transition(Up4Readiness.State.NOT_CONFIGURED, "UP4 is deactivating");
     }
 
     @Deactivate
@@ -263,8 +656,20 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
 
         eventExecutor.shutdownNow();
         reconciliationExecutor.shutdown();
+        upfDeviceExecutors.shutdown();
+        bulkExecutor.shutdownNow();
+        asyncWindow.close();
+        asyncExecutor.shutdown();
+        // Waits for the running compaction, if any
+        closeStateJournal();
+        journalExecutor.shutdown();
 
         reconciliationExecutor = null;
+        upfDeviceExecutors = null;
+        bulkExecutor = null;
+        asyncExecutor = null;
+        journalExecutor = null;
+        asyncWindow = null;
         eventExecutor = null;
         leaderUpfDevice = null;
         upfProgrammables = null;
@@ -277,63 +682,272 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
         return config != null;
     }
 
+    @Override
+    public CompletableFuture<Void> applyAsync(UpfEntity entity) {
+        if (entity.type() == SESSION_DOWNLINK) {
+            // Doesn't take a slot of the async window while waiting for the coalescing window
+            return writeCoalescer.writeAsync(UpfEntityKey.orderingKey(entity), entity, false, this::doWrite);
+        }
+        return submitAsync(writeLane(entity, false), () -> {
+            apply(entity);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(UpfEntity entity) {
+        if (entity.type() == SESSION_DOWNLINK) {
+            return writeCoalescer.writeAsync(UpfEntityKey.orderingKey(entity), entity, true, this::doWrite);
+        }
+        return submitAsync(writeLane(entity, true), () -> {
+            delete(entity);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> applyBundleAsync(Collection<? extends UpfEntity> entities) {
+        // The bundle takes the locks of its ordering keys once dispatched, it
+        // is ordered with the other writes of the same UEs as single writes.
+        Lane lane = entities.stream()
+                .map(entity -> writeLane(entity, false))
+                .min(Comparator.naturalOrder())
+                .orElse(Lane.NORMAL);
+        return submitAsync(lane, () -> {
+            applyBundle(entities);
+            return null;
+        });
+    }
+
+    private CompletableFuture<Void> dispatchCoalesced(UpfEntity entity, boolean delete, Runnable flush) {
+        return submitAsync(writeLane(entity, delete), () -> {
+            flush.run();
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Collection<? extends UpfEntity>> readAllAsync(UpfEntityType entityType) {
+        return submitAsync(Lane.NORMAL, () -> readAll(entityType));
+    }
+
+    @Override
+    public CompletableFuture<Collection<UpfCounter>> readCountersAsync(long maxCounterId, UpfEntityType type) {
+        return submitAsync(Lane.NORMAL, () -> readCounters(maxCounterId, type));
+    }
+
+    /**
+     * Returns the async window lane of the given write. Paging-related
+     * downlink session changes, i.e., from or to buffering, and session and
+     * termination deletions, e.g., on detach, are latency-critical.
+     *
+     * @param entity the UPF entity to write
+     * @param delete true if the entity is deleted, false if applied
+     * @return the lane of the write
+     */
+    private Lane writeLane(UpfEntity entity, boolean delete) {
+        switch (entity.type()) {
+            case SESSION_DOWNLINK:
+                UpfSessionDownlink sess = (UpfSessionDownlink) entity;
+                return delete || sess.needsBuffering() || up4Store.isUeBuffering(sess.ueAddress()) ?
+                        Lane.URGENT : Lane.NORMAL;
+            case SESSION_UPLINK:
+            case TERMINATION_UPLINK:
+            case TERMINATION_DOWNLINK:
+                return delete ? Lane.URGENT : Lane.NORMAL;
+            default:
+                return Lane.NORMAL;
+        }
+    }
+
+    private <T> CompletableFuture<T> submitAsync(Lane lane, UpfAsyncWindow.DeviceOperation<T> operation) {
+        UpfAsyncWindow window = asyncWindow;
+        if (window == null) {
+            return CompletableFuture.failedFuture(
+                    new UpfProgrammableException("UP4 is not active, operation not executed"));
+        }
+        return window.submit(lane, () -> {
+            boolean nested = IN_ASYNC_WINDOW.get();
+            IN_ASYNC_WINDOW.set(true);
+            try {
+                return operation.run();
+            } finally {
+                IN_ASYNC_WINDOW.set(nested);
+            }
+        });
+    }
+
+    /**
+     * Submits the given operation to the bulk lane of the async window, or
+     * runs it on the calling thread if it is itself running an operation of
+     * the window: waiting there for operations needing a thread of the same
+     * window could deadlock. The returned future is then already completed.
+     *
+     * @param operation the operation
+     * @param <T>       the result type
+     * @return the future of the operation
+     */
+    private <T> CompletableFuture<T> submitBulk(UpfAsyncWindow.DeviceOperation<T> operation) {
+        if (!IN_ASYNC_WINDOW.get()) {
+            return submitAsync(Lane.BULK, operation);
+        }
+        try {
+            return CompletableFuture.completedFuture(operation.run());
+        } catch (UpfProgrammableException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     private UpfProgrammable getLeaderUpfProgrammable() {
         assertUpfIsReady();
         return upfProgrammables.get(leaderUpfDevice);
     }
 
     /**
-     * Asserts that UPF data plane is ready and try a lazy setup if possible.
-     * This doesn't mean that all UPF physical devices are available, but only
-     * that we called the init() method on all UPF programmable.
+     * Initializes the UPF data plane with the given UPF programmable as the
+     * only UPF device, without the device, pipeconf and config checks.
+     *
+     * @param deviceId        the UPF device ID
+     * @param upfProgrammable the UPF programmable of the device
+     */
+    @VisibleForTesting
+    void setUpUpfDataPlane(DeviceId deviceId, UpfProgrammable upfProgrammable) {
+        synchronized (upfInitialized) {
+            upfDevices.add(deviceId);
+            upfProgrammables.put(deviceId, upfProgrammable);
+            leaderUpfDevice = deviceId;
+            upfInitialized.set(true);
+            updateReadiness();
+        }
+    }
+
+    /**
+     * Asserts that UPF data plane is ready, otherwise schedules a lazy setup
+     * if possible. This doesn't mean that all UPF physical devices are
+     * available, but only that we called the init() method on all UPF
+     * programmable. Fails fast with the reason cached by the readiness
+     * state machine, without looking up the device store.
      */
     private void assertUpfIsReady() {
         if (!upfInitialized.get()) {
-            if (this.config == null) {
-                throw new IllegalStateException(
-                        "No UpfProgrammable set because no app config is available!");
+            scheduleLazySetup();
+            throw new IllegalStateException(readiness.reason());
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        if (upfInitialized.get()) {
+            return true;
+        }
+        scheduleLazySetup();
+        long suppressed = notReadyLog.tryAcquire();
+        if (suppressed >= 0) {
+            log.info("{} (suppressed {} similar messages)", readiness.reason(), suppressed);
+        }
+        return false;
+    }
+
+    @Override
+    public Up4Readiness readiness() {
+        return readiness.snapshot();
+    }
+
+    /**
+     * Schedules a lazy setup of the UPF physical devices on the event
+     * executor, if no other attempt is running and the backoff elapsed.
+     */
+    private void scheduleLazySetup() {
+        var executor = eventExecutor;
+        if (executor == null || !readiness.tryStartSetup()) {
+            return;
+        }
+        try {
+            executor.execute(this::lazySetup);
+        } catch (RejectedExecutionException e) {
+            readiness.setupDone(false);
+        }
+    }
+
+    private void lazySetup() {
+        boolean ready = false;
+        try {
+            if (notReadyReason() == null) {
+                // setUpfDevice is called during events (Device/Netcfg/Pipeconf)
+                // however those events might not be enough to setup the UPF
+                // physical devices, especially during ONOS Reboot (i.e.,
+                // when the P4RT client is not created before calling setUpfDevice).
+                // FIXME: always do lazy setup, instead of relying on events.
+                log.info("UPF data plane not initialized, try lazy setup");
+                upfDevices.forEach(this::setUpfDevice);
             }
-            if (leaderUpfDevice == null) {
-                throw new IllegalStateException(
-                        "Leader UpfProgrammable is not set!");
+            ready = upfInitialized.get();
+            if (!ready) {
+                updateReadiness();
             }
-            if (upfDevices.isEmpty()) {
-                throw new IllegalStateException("UPF Devices are not set");
+        } catch (RuntimeException e) {
+            log.warn("Error during UPF data plane lazy setup: {}", e.getMessage());
+        } finally {
+            readiness.setupDone(ready);
+        }
+    }
+
+    /**
+     * Returns the reason why the UPF physical devices cannot be set up yet.
+     * Looks up the device store, not to be called from the request path.
+     *
+     * @return the reason, or null if the devices can be set up
+     */
+    private String notReadyReason() {
+        if (this.config == null) {
+            return "No UpfProgrammable set because no app config is available!";
+        }
+        if (leaderUpfDevice == null) {
+            return "Leader UpfProgrammable is not set!";
+        }
+        var devices = upfDevices;
+        if (devices == null || devices.isEmpty()) {
+            return "UPF Devices are not set";
+        }
+        for (DeviceId deviceId : devices) {
+            if (deviceService.getDevice(deviceId) == null) {
+                return "No UpfProgrammable set because " + deviceId + " is not present in the device store!";
             }
-            upfDevices.forEach(deviceId -> {
-                if (deviceService.getDevice(deviceId) == null) {
-                    throw new IllegalStateException(
-                            "No UpfProgrammable set because deviceId is not present in the device store!");
-                }
-            });
-            upfDevices.forEach(deviceId -> {
-                if (!isUpfProgrammable(deviceId)) {
-                    throw new IllegalStateException(
-                            "No UpfProgrammable set because deviceId present in config is not a valid UPF!");
-                }
-            });
-            // setUpfDevice is called during events (Device/Netcfg/Pipeconf)
-            // however those events might not be enough to setup the UPF
-            // physical devices, especially during ONOS Reboot (i.e.,
-            // when the P4RT client is not created before calling setUpfDevice).
-            // FIXME: always do lazy setup, instead of relying on events.
-            log.info("UPF data plane not initialized, try lazy setup");
-            upfDevices.forEach(this::setUpfDevice);
-            if (!upfInitialized.get()) {
-                throw new IllegalStateException("UPF data plane not initialized after lazy setup!");
+        }
+        for (DeviceId deviceId : devices) {
+            if (!isUpfProgrammable(deviceId)) {
+                return "No UpfProgrammable set because " + deviceId + " present in config is not a valid UPF!";
             }
         }
+        return null;
     }
 
-    @Override
-    public boolean isReady() {
-        try {
-            assertUpfIsReady();
-        } catch (IllegalStateException e) {
-            log.info(e.getMessage());
-            return false;
+    /**
+     * Updates the readiness state machine after a change of the UPF data
+     * plane, e.g., on device, config and pipeconf events.
+     */
+    private void updateReadiness() {
+        synchronized (upfInitialized) {
+            Up4Readiness.State state;
+            String reason;
+            if (upfInitialized.get()) {
+                state = Up4Readiness.State.READY;
+                reason = "UPF data plane ready";
+            } else if (this.config == null) {
+                state = Up4Readiness.State.NOT_CONFIGURED;
+                reason = "No app config is available";
+            } else {
+                state = Up4Readiness.State.WAITING_FOR_DEVICES;
+                reason = notReadyReason();
+                if (reason == null) {
+                    reason = "UPF data plane not initialized";
+                }
+            }
+            Up4Readiness.State prev = readiness.transition(state, reason);
+            if (prev != state) {
+                log.info("UPF data plane readiness changed from {} to {}: {}", prev, state, reason);
+            }
         }
-        return true;
     }
 
     private boolean isUpfProgrammable(DeviceId deviceId) {
@@ -358,6 +972,10 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
                 ensureInterfacesInstalled();
                 // Update PSC configuration if needed
                 applyPscEncap();
+                if (upfLeaderReconcile) {
+                    restoreUpfState();
+                }
+                seedUeIndex();
             } else if (!upfDevices.contains(deviceId)) {
                 log.warn("UPF {} is not in the configuration!", deviceId);
             } else if (deviceService.getDevice(deviceId) == null) {
@@ -381,10 +999,13 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
                     // The UPF data plane is initialized when all UPF physical
                     // devices have been initialized properly.
                     upfInitialized.set(true);
+                    updateReadiness();
 
                     // Do the initial device configuration required
                     installUpfEntities();
                     applyPscEncap();
+                    restoreUpfState();
+                    seedUeIndex();
                     // Start reconcile thread only when UPF data plane is initialized
                     reconciliationTask = reconciliationExecutor.scheduleAtFixedRate(
                             new ReconcileUpfDevices(), 0, upfReconcileInterval, TimeUnit.SECONDS);
@@ -463,38 +1084,128 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
     @Override
     public Collection<UplinkUpfFlow> getUplinkFlows() throws UpfProgrammableException {
         Collection<UplinkUpfFlow> uplinkFlows = Lists.newArrayList();
+        visitUplinkFlows(this.adminReadAll(TERMINATION_UPLINK), readCellCounters(),
+                         readMetersByCellId(APPLICATION_METER), uplinkFlows::add);
+        return uplinkFlows;
+    }
+
+    @Override
+    public Collection<DownlinkUpfFlow> getDownlinkFlows() throws UpfProgrammableException {
+        Collection<DownlinkUpfFlow> downlinkFlows = Lists.newArrayList();
+        visitDownlinkFlows(this.adminReadAll(TERMINATION_DOWNLINK), this.adminReadAll(SESSION_DOWNLINK),
+                           this.adminReadAll(TUNNEL_PEER), readCellCounters(), readMetersByCellId(SESSION_METER),
+                           readMetersByCellId(APPLICATION_METER), downlinkFlows::add);
+        return downlinkFlows;
+    }
+
+    @Override
+    public void forEachFlow(UpfFlowFilter filter, UpfFlowVisitor visitor) throws UpfProgrammableException {
         Collection<? extends UpfEntity> uplinkTerm = this.adminReadAll(TERMINATION_UPLINK);
-        Map<Integer, UpfMeter> appMeters = Maps.newHashMap();
-        this.adminReadAll(APPLICATION_METER).forEach(
-                am -> appMeters.put(((UpfMeter) am).cellId(), (UpfMeter) am));
+        Collection<? extends UpfEntity> downlinkTerm = this.adminReadAll(TERMINATION_DOWNLINK);
+        if (!filter.isEmpty()) {
+            UeSliceResolver sliceResolver = filter.sliceId().isPresent() ?
+                    new UeSliceResolver(this.adminReadAll(INTERFACE), this.adminReadAll(APPLICATION)) : null;
+            uplinkTerm = filterTerminations(uplinkTerm, filter, sliceResolver,
+                                            t -> ((UpfTerminationUplink) t).ueSessionId(),
+                                            t -> ((UpfTerminationUplink) t).applicationId());
+            downlinkTerm = filterTerminations(downlinkTerm, filter, sliceResolver,
+                                              t -> ((UpfTerminationDownlink) t).ueSessionId(),
+                                              t -> ((UpfTerminationDownlink) t).applicationId());
+        }
+        if (uplinkTerm.isEmpty() && downlinkTerm.isEmpty()) {
+            return;
+        }
+        // Counters and application meters are shared by both directions
+        UpfCellCounters counters = readCellCounters();
+        Map<Integer, UpfMeter> appMeters = readMetersByCellId(APPLICATION_METER);
+        visitUplinkFlows(uplinkTerm, counters, appMeters, visitor::visitUplink);
+        if (!downlinkTerm.isEmpty()) {
+            visitDownlinkFlows(downlinkTerm, this.adminReadAll(SESSION_DOWNLINK), this.adminReadAll(TUNNEL_PEER),
+                               counters, readMetersByCellId(SESSION_METER), appMeters, visitor::visitDownlink);
+        }
+    }
+
+    @Override
+    public UpfFlowsSnapshot getFlowsSnapshot() throws UpfProgrammableException {
+        UpfCellCounters counters = readCellCounters();
+        Map<Integer, UpfMeter> sessMeters = readMetersByCellId(SESSION_METER);
+        Map<Integer, UpfMeter> appMeters = readMetersByCellId(APPLICATION_METER);
+        Collection<UplinkUpfFlow> uplinkFlows = Lists.newArrayList();
+        visitUplinkFlows(this.adminReadAll(TERMINATION_UPLINK), counters, appMeters, uplinkFlows::add);
+        Collection<DownlinkUpfFlow> downlinkFlows = Lists.newArrayList();
+        visitDownlinkFlows(this.adminReadAll(TERMINATION_DOWNLINK), this.adminReadAll(SESSION_DOWNLINK),
+                           this.adminReadAll(TUNNEL_PEER), counters, sessMeters, appMeters, downlinkFlows::add);
+        Collection<UpfSessionUplink> uplinkSessions = this.adminReadAll(SESSION_UPLINK).stream()
+                .map(s -> (UpfSessionUplink) s)
+                .collect(Collectors.toList());
+        Collection<UpfApplication> applications = this.adminReadAll(APPLICATION).stream()
+                .map(a -> (UpfApplication) a)
+                .collect(Collectors.toList());
+        return new UpfFlowsSnapshot(uplinkFlows, downlinkFlows, uplinkSessions, applications,
+                                    sessMeters.values(), appMeters.values());
+    }
+
+    private static List<UpfEntity> filterTerminations(Collection<? extends UpfEntity> terms, UpfFlowFilter filter,
+                                                      UeSliceResolver sliceResolver,
+                                                      Function<UpfEntity, Ip4Address> ueAddress,
+                                                      Function<UpfEntity, Byte> appId) {
+        List<UpfEntity> filtered = Lists.newArrayList();
+        for (UpfEntity term : terms) {
+            Ip4Address ue = ueAddress.apply(term);
+            byte app = appId.apply(term);
+            if (filter.matches(ue, app) &&
+                    (sliceResolver == null || filter.matchesSlice(sliceResolver.sliceId(ue, app)))) {
+                filtered.add(term);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Reads the counters aggregated across all UPF devices, indexed by
+     * counter cell ID.
+     *
+     * @return the counter cell values
+     * @throws UpfProgrammableException if counters are unable to read
+     */
+    private UpfCellCounters readCellCounters() throws UpfProgrammableException {
+        UpfCellCounters counters = new UpfCellCounters();
+        counters.load(this.readCounters(-1, COUNTER));
+        return counters;
+    }
 
+    private Map<Integer, UpfMeter> readMetersByCellId(UpfEntityType meterType) throws UpfProgrammableException {
+        Map<Integer, UpfMeter> meters = Maps.newHashMap();
+        this.adminReadAll(meterType).forEach(m -> meters.put(((UpfMeter) m).cellId(), (UpfMeter) m));
+        return meters;
+    }
+
+    private void visitUplinkFlows(Collection<? extends UpfEntity> uplinkTerm,
+                                  UpfCellCounters counters,
+                                  Map<Integer, UpfMeter> appMeters,
+                                  Consumer<UplinkUpfFlow> consumer) {
         for (UpfEntity t : uplinkTerm) {
             UpfTerminationUplink term = (UpfTerminationUplink) t;
-            uplinkFlows.add(UplinkUpfFlow.builder().withTerminationUplink(term)
-                                    .withCounter(this.readCounter(term.counterId(), COUNTER))
+            consumer.accept(UplinkUpfFlow.builder().withTerminationUplink(term)
+                                    .withCounter(counters.counter(term.counterId()))
                                     .withAppMeter(appMeters.getOrDefault(term.appMeterIdx(), null))
                                     .build());
         }
-        return uplinkFlows;
     }
 
-    @Override
-    public Collection<DownlinkUpfFlow> getDownlinkFlows() throws UpfProgrammableException {
-        Collection<DownlinkUpfFlow> downlinkFlows = Lists.newArrayList();
+    private void visitDownlinkFlows(Collection<? extends UpfEntity> downlinkTerm,
+                                    Collection<? extends UpfEntity> downlinkSess,
+                                    Collection<? extends UpfEntity> tunnelPeers,
+                                    UpfCellCounters counters,
+                                    Map<Integer, UpfMeter> sessMeters,
+                                    Map<Integer, UpfMeter> appMeters,
+                                    Consumer<DownlinkUpfFlow> consumer) {
         Map<Ip4Address, UpfSessionDownlink> ueToSess = Maps.newHashMap();
         Map<Byte, UpfGtpTunnelPeer> idToTunn = Maps.newHashMap();
-        Map<Integer, UpfMeter> sessMeters = Maps.newHashMap();
-        Map<Integer, UpfMeter> appMeters = Maps.newHashMap();
-
-        Collection<? extends UpfEntity> downlinkTerm = this.adminReadAll(TERMINATION_DOWNLINK);
-        this.adminReadAll(SESSION_DOWNLINK).forEach(
+        downlinkSess.forEach(
                 s -> ueToSess.put(((UpfSessionDownlink) s).ueAddress(), (UpfSessionDownlink) s));
-        this.adminReadAll(TUNNEL_PEER).forEach(
+        tunnelPeers.forEach(
                 t -> idToTunn.put(((UpfGtpTunnelPeer) t).tunPeerId(), (UpfGtpTunnelPeer) t));
-        this.adminReadAll(SESSION_METER).forEach(
-                sm -> sessMeters.put(((UpfMeter) sm).cellId(), (UpfMeter) sm));
-        this.adminReadAll(APPLICATION_METER).forEach(
-                am -> appMeters.put(((UpfMeter) am).cellId(), (UpfMeter) am));
 
         for (UpfEntity t : downlinkTerm) {
             UpfTerminationDownlink term = (UpfTerminationDownlink) t;
@@ -507,17 +1218,65 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
                 sMeter = sessMeters.getOrDefault(sess.sessionMeterIdx(), null);
             }
             aMeter = appMeters.getOrDefault(term.appMeterIdx(), null);
-            downlinkFlows.add(DownlinkUpfFlow.builder()
-                                      .withTerminationDownlink(term)
-                                      .withSessionDownlink(sess)
-                                      .withTunnelPeer(tunn)
-                                      .withCounter(this.readCounter(term.counterId(), COUNTER))
-                                      .withAppMeter(aMeter)
-                                      .withSessionMeter(sMeter)
-                                      .build());
-
+            consumer.accept(DownlinkUpfFlow.builder()
+                                    .withTerminationDownlink(term)
+                                    .withSessionDownlink(sess)
+                                    .withTunnelPeer(tunn)
+                                    .withCounter(counters.counter(term.counterId()))
+                                    .withAppMeter(aMeter)
+                                    .withSessionMeter(sMeter)
+                                    .build());
         }
-        return downlinkFlows;
+    }
+
+    @Override
+    public UpfConvergenceStats convergenceStats() {
+        return convergenceStats;
+    }
+
+    /**
+     * Returns the micro-batching stage of the device writes.
+     *
+     * @return the write batcher
+     */
+    @VisibleForTesting
+    UpfWriteBatcher<?> writeBatcher() {
+        return writeBatcher;
+    }
+
+    /**
+     * Returns the window of the asynchronous operations.
+     *
+     * @return the async window, null if not active
+     */
+    @VisibleForTesting
+    UpfAsyncWindow asyncWindow() {
+        return asyncWindow;
+    }
+
+    @Override
+    public UpfCounterCache counterCache() {
+        return counterCache;
+    }
+
+    @Override
+    public UpfWriteCoalescer writeCoalescer() {
+        return writeCoalescer;
+    }
+
+    @Override
+    public UpfWriteLaneStats writeLaneStats() {
+        return writeLaneStats;
+    }
+
+    @Override
+    public UpfDeviceHealth deviceHealth() {
+        return deviceHealth;
+    }
+
+    @Override
+    public UpfReadBalancer readBalancer() {
+        return readBalancer;
     }
 
     @Override
@@ -526,6 +1285,120 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
         installDbufTunnel();
     }
 
+    /**
+     * Seeds the UE index in the background with the UE entities installed on
+     * the leader UPF device, e.g., by UP4 before a restart without persisted
+     * UPF state or on another ONOS instance, unless already seeded.
+     */
+    private void seedUeIndex() {
+        if (ueIndex.isSeeded()) {
+            return;
+        }
+        bulkExecutor.execute(() -> {
+            if (ueIndex.isSeeded()) {
+                return;
+            }
+            ueIndex.startSeeding();
+            try {
+                List<UpfEntity> installed = Lists.newArrayList();
+                for (UpfEntityType type : UE_ENTITY_TYPES) {
+                    installed.addAll(getLeaderUpfProgrammable().readAll(type));
+                }
+                ueIndex.seed(installed);
+                log.info("Seeded the UE index with {} UPF entities installed on the leader", installed.size());
+            } catch (UpfProgrammableException | IllegalStateException e) {
+                ueIndex.cancelSeeding();
+                log.warn("Unable to seed the UE index: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reconciles the leader UPF device with the intended UPF state in the
+     * background, e.g., after an ONOS restart with a persisted UPF state or
+     * when the leader becomes available again.
+     */
+    private void restoreUpfState() {
+        final UpfStateJournal journal = stateJournal;
+        if (journal == null || journal.size() == 0) {
+            return;
+        }
+        bulkExecutor.execute(() -> {
+            try {
+                reconcileLeaderState();
+            } catch (UpfProgrammableException | IllegalStateException e) {
+                log.warn("Unable to restore the UPF state: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Re-pushes the UPF entities of the intended UPF state (i.e., the applied
+     * and not deleted entities) that are missing or different on the leader
+     * UPF device, without waiting for the PFCP agent to resync. Entities
+     * installed on the leader and not in the intended state are left
+     * untouched, since they might have been installed by UP4 itself (e.g.,
+     * DBUF and netcfg interfaces) or before the intended state was tracked.
+     * Followers are then aligned by the mirroring or, when writing on all
+     * devices, directly.
+     *
+     * @throws UpfProgrammableException if the leader state is unable to read
+     */
+    private void reconcileLeaderState() throws UpfProgrammableException {
+        final UpfStateJournal journal = stateJournal;
+        if (journal == null || !leaderReconcileRunning.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int repaired = 0;
+        int failed = 0;
+        try {
+            for (UpfEntityType type : UpfStateDump.ENTITY_ORDER) {
+                Collection<UpfEntity> intended = journal.entities(type);
+                if (intended.isEmpty()) {
+                    continue;
+                }
+                Set<UpfEntity> installed = Sets.newHashSet(getLeaderUpfProgrammable().readAll(type));
+                for (UpfEntity entity : intended) {
+                    if (installed.contains(entity)) {
+                        continue;
+                    }
+                    // Pushed in the bulk lane, so that urgent writes are not
+                    // queued behind the reconciliation.
+                    CompletableFuture<Boolean> push = submitAsync(Lane.BULK, () -> {
+                        Lock lock = entityLock(entity);
+                        lock.lock();
+                        try {
+                            // Skip entities changed or deleted since we read the intended state
+                            if (!journal.contains(entity)) {
+                                return false;
+                            }
+                            writeOnUpfDevices(upfProg -> upfProg.apply(entity));
+                            return true;
+                        } finally {
+                            lock.unlock();
+                        }
+                    });
+                    try {
+                        if (push.join()) {
+                            repaired++;
+                        }
+                    } catch (CompletionException e) {
+                        failed++;
+                        log.debug("Unable to re-push {} on the leader: {}", entity, e.getCause().getMessage());
+                    }
+                }
+            }
+        } finally {
+            leaderReconcileRunning.set(false);
+            convergenceStats.leaderReconciled(repaired, failed);
+        }
+        if (repaired > 0 || failed > 0) {
+            log.info("Re-pushed {} UPF entities missing on the leader in {} ms ({} failed)",
+                     repaired, System.currentTimeMillis() - start, failed);
+        }
+    }
+
     private void deleteDbufTunnel() {
         if (this.dbufTunnel != null) {
             try {
@@ -576,7 +1449,9 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
             upfProgrammables = Maps.newConcurrentMap();
             upfDevices = Sets.newConcurrentHashSet();
             up4Store.reset();
+            trackCleared();
             upfInitialized.set(false);
+            updateReadiness();
         }
     }
 
@@ -596,7 +1471,10 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
             // Stop reconcile thread when UPF is being uninitialized
             stopReconcile();
             upfProgrammables.remove(deviceId);
+            upfDeviceExecutors.remove(deviceId);
+            readBalancer.forget(deviceId);
             upfInitialized.set(false);
+            updateReadiness();
         }
     }
 
@@ -614,6 +1492,7 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
         } else {
             log.error("Invalid UP4 config loaded! Cannot set up UPF.");
         }
+        updateReadiness();
         log.info("Up4Config updated");
     }
 
@@ -682,8 +1561,13 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
 
     @Override
     public void cleanUp() {
-        getLeaderUpfProgrammable().cleanUp();
+        try {
+            getLeaderUpfProgrammable().cleanUp();
+        } finally {
+            counterCache.invalidate();
+        }
         up4Store.reset();
+        trackCleared();
     }
 
     private UpfSessionDownlink convertToBuffering(UpfSessionDownlink sess) {
@@ -703,6 +1587,50 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
 
     @Override
     public void apply(UpfEntity entity) throws UpfProgrammableException {
+        if (entity.type() == SESSION_DOWNLINK) {
+            // Supersedes the pending coalesced write of the same session, see applyAsync.
+            // DBUF drain is still triggered when the written state stops buffering.
+            writeCoalescer.write(UpfEntityKey.orderingKey(entity), entity, false, this::doWrite);
+            return;
+        }
+        lockedWrite(entity, false);
+    }
+
+    private void lockedWrite(UpfEntity entity, boolean delete) throws UpfProgrammableException {
+        Object key = UpfEntityKey.orderingKey(entity);
+        Lock lock = entityLocks.get(key);
+        lock.lock();
+        try {
+            // The pending session write of the same UE is issued before, thus executed first,
+            // e.g., a termination cannot overtake it
+            writeCoalescer.flush(key, this::doWrite);
+            doWrite(entity, delete);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void doWrite(UpfEntity entity, boolean delete) throws UpfProgrammableException {
+        if (delete) {
+            doDelete(entity);
+        } else {
+            doApply(entity);
+        }
+    }
+
+    /**
+     * Returns the lock serializing the writes with the same ordering key of
+     * the given entity, e.g., the writes of the same UE. Writes with different
+     * keys proceed concurrently to the UPF devices.
+     *
+     * @param entity the UPF entity
+     * @return the lock of the entity
+     */
+    private Lock entityLock(UpfEntity entity) {
+        return entityLocks.get(UpfEntityKey.orderingKey(entity));
+    }
+
+    private void doApply(UpfEntity entity) throws UpfProgrammableException {
         switch (entity.type()) {
             case SESSION_DOWNLINK:
                 UpfSessionDownlink sessDl = (UpfSessionDownlink) entity;
@@ -747,11 +1675,15 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
                 }
                 break;
             case COUNTER:
+                // Counters are always written on all UPF devices
                 applyUpfCounter((UpfCounter) entity);
+                return;
             default:
                 break;
         }
-        getLeaderUpfProgrammable().apply(entity);
+        final UpfEntity toApply = entity;
+        writeOnUpfDevices(upfProg -> upfProg.apply(toApply));
+        trackApplied(toApply);
         // Drain from DBUF if necessary
         if (entity.type().equals(SESSION_DOWNLINK)) {
             UpfSessionDownlink sess = (UpfSessionDownlink) entity;
@@ -792,32 +1724,523 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
         }
     }
 
-    private void applyUpfCounter(UpfCounter upfCounter) throws UpfProgrammableException {
-        // When writing counters we need to explicitly write on all UPF physical devices.
-        // We don't have any explicit asynchronous mechanism to reconcile state
-        // between different UPF physical devices (as we have for meters and flow rules).
-        boolean exception = false;
-        assertUpfIsReady();
-        for (UpfProgrammable upfProg : upfProgrammables.values()) {
-            try {
-                upfProg.apply(upfCounter);
-            } catch (UpfProgrammableException e) {
-                // Avoid to immediately propagating exception to callee.
-                // This is done to try applying the same state on all devices
-                // even if we get exceptions (i.e., we may fail to update just
-                // ingress or egress counters).
-                log.error(e.getMessage());
-                exception = true;
-            }
+    private void applyUpfCounter(UpfCounter upfCounter) throws UpfProgrammableException {
+        // When writing counters we need to explicitly write on all UPF physical devices.
+        // We don't have any explicit asynchronous mechanism to reconcile state
+        // between different UPF physical devices (as we have for meters and flow rules).
+        // Failures are not immediately propagated to the callee, so that the
+        // same state is applied on all devices even if we get exceptions
+        // (i.e., we may fail to update just ingress or egress counters).
+        Map<DeviceId, UpfProgrammableException> failures = Maps.newHashMap();
+        try {
+            callOnUpfDevices(upfProg -> {
+                upfProg.apply(upfCounter);
+                return true;
+            }, failures);
+        } finally {
+            // Even partially written, the cached values are stale
+            counterCache.invalidate();
+        }
+        failures.values().forEach(e -> log.error(e.getMessage()));
+        if (!failures.isEmpty()) {
+            throw new UpfProgrammableException(
+                    "Error while writing UPF counters! Check ONOS log for more information.");
+        }
+    }
+
+    @Override
+    public void applyBundle(Collection<? extends UpfEntity> entities) throws UpfProgrammableException {
+        if (entities.isEmpty()) {
+            return;
+        }
+        List<UpfEntity> bundle = sortBundle(entities);
+        Set<Object> orderingKeys = bundle.stream().map(UpfEntityKey::orderingKey).collect(Collectors.toSet());
+        List<Lock> locks = Lists.newArrayList(entityLocks.bulkGet(orderingKeys));
+        locks.forEach(Lock::lock);
+        try {
+            // A coalesced write still pending must not overwrite the bundle
+            orderingKeys.forEach(key -> writeCoalescer.flush(key, this::doWrite));
+            BundleState state = readBundleState(bundle);
+            validateBundle(bundle, state);
+            List<UpfEntity> applied = Lists.newArrayList();
+            try {
+                for (UpfEntity entity : bundle) {
+                    doApply(entity);
+                    applied.add(entity);
+                }
+                associateBundle(bundle);
+            } catch (UpfProgrammableException e) {
+                log.warn("Failed to apply UPF session bundle, rolling back {} entities: {}",
+                         applied.size(), e.getMessage());
+                rollbackBundle(applied, state.installed);
+                throw e;
+            }
+        } finally {
+            Lists.reverse(locks).forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Returns true if the given entity type can be applied in a session
+     * bundle.
+     *
+     * @param entityType the UPF entity type
+     * @return true if the type is supported in session bundles
+     */
+    static boolean isBundleType(UpfEntityType entityType) {
+        switch (entityType) {
+            case TUNNEL_PEER:
+            case SESSION_UPLINK:
+            case SESSION_DOWNLINK:
+            case TERMINATION_UPLINK:
+            case TERMINATION_DOWNLINK:
+            case SESSION_METER:
+            case APPLICATION_METER:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks the types, the counter indexes and the keys of the given bundle,
+     * and returns its entities in dependency order, i.e., tunnel peers and
+     * meters before the sessions and terminations referencing them.
+     *
+     * @param entities the entities of the bundle
+     * @return the entities in dependency order
+     * @throws UpfProgrammableException if the bundle is not valid
+     */
+    private List<UpfEntity> sortBundle(Collection<? extends UpfEntity> entities) throws UpfProgrammableException {
+        Set<UpfEntityKey> keys = Sets.newHashSet();
+        for (UpfEntity entity : entities) {
+            if (!isBundleType(entity.type())) {
+                throw new UpfProgrammableException(
+                        "UPF entity type not supported in session bundle: " + entity.type());
+            }
+            switch (entity.type()) {
+                case TERMINATION_UPLINK:
+                case TERMINATION_DOWNLINK:
+                    int counterId = entity.type() == TERMINATION_UPLINK ?
+                            ((UpfTerminationUplink) entity).counterId() :
+                            ((UpfTerminationDownlink) entity).counterId();
+                    if (isMaxUeSet() && counterId >= getMaxUe() * 2) {
+                        throw new UpfProgrammableException(
+                                "Counter cell index referenced by UPF termination in session bundle " +
+                                        "above max supported UE value.",
+                                UpfProgrammableException.Type.ENTITY_OUT_OF_RANGE,
+                                entity.type()
+                        );
+                    }
+                    break;
+                case TUNNEL_PEER:
+                    if (((UpfGtpTunnelPeer) entity).tunPeerId() == DBUF_TUNNEL_ID) {
+                        throw new UpfProgrammableException("Cannot apply the DBUF GTP Tunnel Peer");
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (!keys.add(UpfEntityKey.of(entity))) {
+                throw new UpfProgrammableException("Duplicate UPF entity in session bundle: " + entity);
+            }
+        }
+        List<UpfEntity> sorted = Lists.newArrayList(entities);
+        sorted.sort(Comparator.comparingInt(e -> UpfStateDump.ENTITY_ORDER.indexOf(e.type())));
+        return sorted;
+    }
+
+    /**
+     * Installed UPF entities with the keys of a bundle, and number of
+     * installed entities of the bundle types.
+     */
+    private static final class BundleState {
+        private final Map<UpfEntityKey, UpfEntity> installed = Maps.newHashMap();
+        private final Map<UpfEntityType, Long> occupancy = Maps.newHashMap();
+    }
+
+    /**
+     * Returns the UPF entities currently installed with the keys of the given
+     * bundle, and with the keys of the tunnel peers referenced by it. Only
+     * the touched keys are looked up in the intended UPF state, when all the
+     * applied entities are tracked in it, and the table occupancy is given by
+     * its counters. Otherwise, the tables of the bundle types are read from
+     * the leader device.
+     *
+     * @param bundle the entities of the bundle
+     * @return the installed entities and the table occupancy
+     * @throws UpfProgrammableException if the UPF entities cannot be read
+     */
+    private BundleState readBundleState(List<UpfEntity> bundle) throws UpfProgrammableException {
+        Set<UpfEntityKey> keys = Sets.newHashSet();
+        for (UpfEntity entity : bundle) {
+            keys.add(UpfEntityKey.of(entity));
+            if (entity.type() == SESSION_DOWNLINK && ((UpfSessionDownlink) entity).tunPeerId() != null) {
+                keys.add(UpfEntityKey.tunnelPeer(((UpfSessionDownlink) entity).tunPeerId()));
+            }
+        }
+        Set<UpfEntityType> types = keys.stream().map(UpfEntityKey::type).collect(Collectors.toSet());
+        BundleState state = new BundleState();
+        UpfStateJournal journal = stateJournal;
+        if (journal != null && journal.isComplete()) {
+            for (UpfEntityKey key : keys) {
+                UpfEntity entity = journal.get(key);
+                if (entity != null) {
+                    state.installed.put(key, entity);
+                }
+            }
+            types.forEach(type -> state.occupancy.put(type, (long) journal.count(type)));
+            return state;
+        }
+        for (UpfEntityType type : types) {
+            Collection<? extends UpfEntity> entities = getLeaderUpfProgrammable().readAll(type);
+            for (UpfEntity entity : entities) {
+                UpfEntityKey key = UpfEntityKey.of(entity);
+                if (keys.contains(key)) {
+                    state.installed.put(key, entity);
+                }
+            }
+            state.occupancy.put(type, (long) entities.size());
+        }
+        return state;
+    }
+
+    /**
+     * Checks that the tunnel peers referenced by the given bundle exist, and
+     * that the new entities of the bundle fit in the UPF tables.
+     *
+     * @param bundle the entities of the bundle
+     * @param state  the installed entities and the table occupancy
+     * @throws UpfProgrammableException if the bundle cannot be applied
+     */
+    private void validateBundle(List<UpfEntity> bundle, BundleState state) throws UpfProgrammableException {
+        Set<Byte> bundleTunnelPeers = Sets.newHashSet();
+        Map<UpfEntityType, Long> newEntities = Maps.newHashMap();
+        for (UpfEntity entity : bundle) {
+            if (entity.type() == TUNNEL_PEER) {
+                bundleTunnelPeers.add(((UpfGtpTunnelPeer) entity).tunPeerId());
+            }
+            if (entity.type() == SESSION_DOWNLINK) {
+                UpfSessionDownlink sessDl = (UpfSessionDownlink) entity;
+                Byte tunPeerId = sessDl.tunPeerId();
+                // Tunnel peers of the bundle precede the sessions in dependency order
+                if (tunPeerId != null && !sessDl.needsBuffering() && !sessDl.needsDropping() &&
+                        !bundleTunnelPeers.contains(tunPeerId) &&
+                        !state.installed.containsKey(UpfEntityKey.tunnelPeer(tunPeerId))) {
+                    throw new UpfProgrammableException(
+                            "GTP tunnel peer " + tunPeerId + " referenced by session bundle not found");
+                }
+            }
+            if (!state.installed.containsKey(UpfEntityKey.of(entity))) {
+                newEntities.merge(entity.type(), 1L, Long::sum);
+            }
+        }
+        for (Map.Entry<UpfEntityType, Long> entry : newEntities.entrySet()) {
+            UpfEntityType type = entry.getKey();
+            if (type == SESSION_METER || type == APPLICATION_METER) {
+                // Meter cells are preallocated, the cell index is checked by the device
+                continue;
+            }
+            if (state.occupancy.getOrDefault(type, 0L) + entry.getValue() > tableSize(type)) {
+                throw new UpfProgrammableException(
+                        "Not enough space in " + type + " table for session bundle",
+                        UpfProgrammableException.Type.ENTITY_EXHAUSTED, type);
+            }
+        }
+    }
+
+    /**
+     * Associates the uplink sessions of the given bundle with the UE of the
+     * bundle, so that they can be purged with the other UE entities.
+     *
+     * @param bundle the entities of the bundle
+     */
+    private void associateBundle(List<UpfEntity> bundle) {
+        Set<Ip4Address> ues = bundle.stream()
+                .map(UeEntityIndex::ueAddress)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ues.size() != 1) {
+            // The uplink sessions cannot be attributed to a single UE
+            return;
+        }
+        Ip4Address ueAddress = ues.iterator().next();
+        bundle.stream()
+                .filter(e -> e.type() == SESSION_UPLINK)
+                .forEach(e -> ueIndex.associate(e, ueAddress));
+    }
+
+    /**
+     * Restores the state preceding a partially applied bundle, in reverse
+     * dependency order.
+     *
+     * @param applied   the entities of the bundle applied so far
+     * @param installed the entities installed before the bundle, by key
+     */
+    private void rollbackBundle(List<UpfEntity> applied, Map<UpfEntityKey, UpfEntity> installed) {
+        for (UpfEntity entity : Lists.reverse(applied)) {
+            UpfEntity previous = installed.get(UpfEntityKey.of(entity));
+            try {
+                if (previous != null) {
+                    writeOnUpfDevices(upfProg -> upfProg.apply(previous));
+                    trackApplied(previous);
+                } else {
+                    writeOnUpfDevices(upfProg -> upfProg.delete(entity));
+                    trackDeleted(entity);
+                    forgetBufferingUeIfRequired(entity);
+                }
+            } catch (UpfProgrammableException e) {
+                log.error("Unable to roll back {} from session bundle: {}", entity, e.getMessage());
+            }
+        }
+    }
+
+    public void adminApply(UpfEntity entity) throws UpfProgrammableException {
+        Object key = UpfEntityKey.orderingKey(entity);
+        Lock lock = entityLocks.get(key);
+        lock.lock();
+        try {
+            writeCoalescer.flush(key, this::doWrite);
+            writeOnUpfDevices(upfProg -> upfProg.apply(entity));
+            trackApplied(entity);
+        } finally {
+            invalidateCountersIfRequired(entity.type());
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Operation on a single UPF programmable.
+     */
+    @FunctionalInterface
+    private interface UpfProgrammableOperation {
+        void run(UpfProgrammable upfProgrammable) throws UpfProgrammableException;
+    }
+
+    /**
+     * Runs the given write operation on the UPF devices, merged with the
+     * concurrent writes of the other callers when micro-batching is enabled.
+     * Without a batch write API on the UPF devices, the writes of a batch are
+     * executed one after the other, on the leader or on each device, by the
+     * caller flushing the batch.
+     *
+     * @param operation the write operation
+     * @throws UpfProgrammableException if the write on the leader failed or if
+     *                                  the quorum could not be reached
+     * @see #writeBatchOnUpfDevices(List)
+     */
+    private void writeOnUpfDevices(UpfProgrammableOperation operation) throws UpfProgrammableException {
+        writeBatcher.write(operation);
+    }
+
+    /**
+     * Runs the given write operations, in order, on the leader UPF
+     * programmable or, when writing on all UPF devices is enabled, on every
+     * UPF programmable in parallel, with a single task per device. In the
+     * latter case, this method returns as soon as the configured quorum of
+     * devices (leader included) completed each write. The leader write must
+     * always succeed, as the leader is used as the source of truth by the
+     * reconciliation. Devices with an open circuit breaker are not written,
+     * and devices not answering within the device deadline are abandoned
+     * and counted as failed.
+     *
+     * @param operations the write operations
+     * @return the failure of each write, null if the write succeeded
+     */
+    private List<UpfProgrammableException> writeBatchOnUpfDevices(List<UpfProgrammableOperation> operations) {
+        final int size = operations.size();
+        final UpfProgrammableException[] failures = new UpfProgrammableException[size];
+        if (!upfWriteAllDevices) {
+            final UpfProgrammable leader = getLeaderUpfProgrammable();
+            final DeviceId leaderId = leaderUpfDevice;
+            // Accounted by the least-loaded read balancing
+            readBalancer.started(leaderId, false);
+            try {
+                for (int i = 0; i < size; i++) {
+                    try {
+                        operations.get(i).run(leader);
+                    } catch (UpfProgrammableException e) {
+                        failures[i] = e;
+                    }
+                }
+            } finally {
+                readBalancer.completed(leaderId);
+            }
+            return Arrays.asList(failures);
+        }
+        assertUpfIsReady();
+        final long start = System.nanoTime();
+        final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(upfDeviceTimeout);
+        // Completed writes of all the devices, each device writing with its own executor
+        final BlockingQueue<Future<UpfProgrammableException[]>> completedWrites = new LinkedBlockingQueue<>();
+        final Map<Future<UpfProgrammableException[]>, DeviceId> pendingWrites = Maps.newHashMap();
+        // Set once the device outcome has been reported to its breaker
+        final Map<DeviceId, AtomicBoolean> reported = Maps.newHashMap();
+        final WriteQuorum quorum = new WriteQuorum(size, upfProgrammables.size(), leaderUpfDevice);
+        upfProgrammables.forEach((deviceId, upfProg) -> {
+            if (!deviceHealth.tryAcquire(deviceId)) {
+                UpfProgrammableException[] rejected = new UpfProgrammableException[size];
+                Arrays.fill(rejected, new UpfProgrammableException(
+                        "Circuit breaker open for UPF device " + deviceId + ", not written"));
+                quorum.deviceDone(deviceId, rejected);
+                return;
+            }
+            AtomicBoolean deviceReported = new AtomicBoolean();
+            Callable<UpfProgrammableException[]> deviceWrite = () -> {
+                UpfProgrammableException[] deviceFailures = new UpfProgrammableException[size];
+                readBalancer.started(deviceId, false);
+                try {
+                    for (int i = 0; i < size; i++) {
+                        try {
+                            operations.get(i).run(upfProg);
+                        } catch (UpfProgrammableException e) {
+                            // The device answered, not a health failure
+                            deviceFailures[i] = e;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    if (deviceReported.compareAndSet(false, true)) {
+                        deviceHealth.failure(deviceId, false, e.getMessage());
+                    }
+                    throw e;
+                } finally {
+                    readBalancer.completed(deviceId);
+                }
+                if (deviceReported.compareAndSet(false, true)) {
+                    deviceHealth.success(deviceId, System.nanoTime() - start);
+                }
+                return deviceFailures;
+            };
+            try {
+                pendingWrites.put(new ExecutorCompletionService<>(
+                        upfDeviceExecutors.executor(deviceId), completedWrites).submit(deviceWrite), deviceId);
+                reported.put(deviceId, deviceReported);
+            } catch (RejectedExecutionException e) {
+                // Too many calls pending on the device, e.g., hung, or shutting down
+                deviceHealth.failure(deviceId, true, "Too many pending calls");
+                UpfProgrammableException[] rejected = new UpfProgrammableException[size];
+                Arrays.fill(rejected, new UpfProgrammableException(
+                        "Too many pending calls on UPF device " + deviceId + ", not written"));
+                quorum.deviceDone(deviceId, rejected);
+            }
+        });
+        int devicesPending = pendingWrites.size();
+        try {
+            while (!quorum.isDone() && devicesPending > 0) {
+                Future<UpfProgrammableException[]> done = timeoutNanos > 0 ?
+                        completedWrites.poll(start + timeoutNanos - System.nanoTime(), TimeUnit.NANOSECONDS) :
+                        completedWrites.take();
+                if (done == null) {
+                    // Deadline expired, the devices still writing are unhealthy
+                    String error = "No answer within " + upfDeviceTimeout + " ms";
+                    pendingWrites.forEach((deviceId, future) -> {
+                        if (!future.isDone()) {
+                            future.cancel(true);
+                            if (reported.get(deviceId).compareAndSet(false, true)) {
+                                deviceHealth.failure(deviceId, true, error);
+                            }
+                            log.error("Failed to write on UPF device {}: {}", deviceId, error);
+                        }
+                    });
+                    quorum.expire(new UpfProgrammableException(error + " from the UPF devices"));
+                    break;
+                }
+                devicesPending--;
+                UpfProgrammableException[] deviceFailures;
+                try {
+                    deviceFailures = done.get();
+                } catch (ExecutionException e) {
+                    // Unexpected error, all the writes failed on this device
+                    UpfProgrammableException failure = e.getCause() instanceof UpfProgrammableException ?
+                            (UpfProgrammableException) e.getCause() :
+                            new UpfProgrammableException(e.getCause().getMessage());
+                    deviceFailures = new UpfProgrammableException[size];
+                    Arrays.fill(deviceFailures, failure);
+                }
+                quorum.deviceDone(pendingWrites.get(done), deviceFailures);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            quorum.expire(new UpfProgrammableException("Interrupted while writing on UPF devices"));
+        }
+        return Arrays.asList(quorum.failures);
+    }
+
+    /**
+     * Outcome of a batch of writes on all the UPF devices. Each write
+     * completes as soon as the leader and the quorum of devices succeeded, or
+     * as soon as the leader failed or the quorum cannot be reached anymore.
+     */
+    private final class WriteQuorum {
+        private final int total;
+        private final int required;
+        private final DeviceId leader;
+        private final int[] succeeded;
+        private final int[] failed;
+        private final boolean[] leaderDone;
+        private final boolean[] completed;
+        private final UpfProgrammableException[] failures;
+        private int remaining;
+
+        private WriteQuorum(int size, int total, DeviceId leader) {
+            this.total = total;
+            final int quorum = upfWriteQuorum;
+            this.required = quorum > 0 ? Math.min(quorum, total) : total;
+            this.leader = leader;
+            this.succeeded = new int[size];
+            this.failed = new int[size];
+            this.leaderDone = new boolean[size];
+            this.completed = new boolean[size];
+            this.failures = new UpfProgrammableException[size];
+            this.remaining = size;
         }
-        if (exception) {
-            throw new UpfProgrammableException(
-                    "Error while writing UPF counters! Check ONOS log for more information.");
+
+        private boolean isDone() {
+            return remaining == 0;
         }
-    }
 
-    public void adminApply(UpfEntity entity) throws UpfProgrammableException {
-        getLeaderUpfProgrammable().apply(entity);
+        private void deviceDone(DeviceId deviceId, UpfProgrammableException[] deviceFailures) {
+            boolean isLeader = deviceId.equals(leader);
+            for (int i = 0; i < failures.length; i++) {
+                if (completed[i]) {
+                    continue;
+                }
+                if (deviceFailures[i] == null) {
+                    succeeded[i]++;
+                    leaderDone[i] |= isLeader;
+                } else {
+                    failed[i]++;
+                    log.error("Failed to write on UPF device {}: {}", deviceId, deviceFailures[i].getMessage());
+                    if (failures[i] == null || isLeader) {
+                        failures[i] = deviceFailures[i];
+                    }
+                    if (isLeader || total - failed[i] < required) {
+                        completed[i] = true;
+                        remaining--;
+                        continue;
+                    }
+                }
+                if (leaderDone[i] && succeeded[i] >= required) {
+                    // Remaining writes complete in background, the
+                    // reconciliation takes care of eventual failures.
+                    failures[i] = null;
+                    completed[i] = true;
+                    remaining--;
+                }
+            }
+        }
+
+        private void expire(UpfProgrammableException error) {
+            for (int i = 0; i < failures.length; i++) {
+                if (!completed[i]) {
+                    if (failures[i] == null || !leaderDone[i]) {
+                        failures[i] = error;
+                    }
+                    completed[i] = true;
+                }
+            }
+            remaining = 0;
+        }
     }
 
     @Override
@@ -826,7 +2249,7 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
             // Counters can't be read from only the leader UPF.
             return this.readCounters(-1, entityType);
         } else {
-            Collection<? extends UpfEntity> entities = getLeaderUpfProgrammable().readAll(entityType);
+            Collection<? extends UpfEntity> entities = readAllBalanced(entityType);
             switch (entityType) {
                 case SESSION_DOWNLINK:
                     // TODO: this might be an overkill, however reads are required
@@ -866,7 +2289,81 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
             // Counters can't be read from only the leader UPF.
             return this.readCounters(-1, entityType);
         }
-        return getLeaderUpfProgrammable().readAll(entityType);
+        return readAllBalanced(entityType);
+    }
+
+    /**
+     * Reads the UPF entities of the given type from the device selected by
+     * the read balancer, i.e., the leader or a follower in sync with it.
+     * Falls back to the leader if the follower read fails, or if the
+     * follower diverged from the leader during the read.
+     *
+     * @param entityType the UPF entity type
+     * @return the UPF entities
+     * @throws UpfProgrammableException if the UPF entities are unable to read
+     */
+    private Collection<? extends UpfEntity> readAllBalanced(UpfEntityType entityType)
+            throws UpfProgrammableException {
+        final UpfProgrammable leader = getLeaderUpfProgrammable();
+        final DeviceId leaderId = leaderUpfDevice;
+        DeviceId deviceId = leaderId;
+        if (readBalancer.policy() != UpfReadBalancer.Policy.LEADER) {
+            deviceId = readBalancer.select(leaderId, upfProgrammables.keySet().stream()
+                    .filter(id -> !id.equals(leaderId) && isFollowerInSync(id))
+                    .collect(Collectors.toList()));
+        }
+        final UpfProgrammable follower = deviceId.equals(leaderId) ? null : upfProgrammables.get(deviceId);
+        if (follower != null) {
+            try {
+                Collection<? extends UpfEntity> entities = readAllOnDevice(deviceId, follower, entityType);
+                if (isFollowerInSync(deviceId)) {
+                    return entities;
+                }
+                log.debug("Follower {} diverged while reading {}, reading from the leader", deviceId, entityType);
+            } catch (UpfProgrammableException e) {
+                log.debug("Unable to read {} from follower {}, reading from the leader: {}",
+                          entityType, deviceId, e.getMessage());
+            }
+            readBalancer.fallback();
+        }
+        return readAllOnDevice(leaderId, leader, entityType);
+    }
+
+    private Collection<? extends UpfEntity> readAllOnDevice(DeviceId deviceId, UpfProgrammable upfProg,
+                                                            UpfEntityType entityType)
+            throws UpfProgrammableException {
+        readBalancer.started(deviceId, true);
+        try {
+            return upfProg.readAll(entityType);
+        } finally {
+            readBalancer.completed(deviceId);
+        }
+    }
+
+    /**
+     * Returns true if the given follower can serve reads, i.e., the last
+     * reconciliation found it in sync, no leader change is waiting to be
+     * mirrored on it or to be confirmed by it (rule additions and removals
+     * alike), and it is available and healthy.
+     *
+     * @param deviceId the follower device ID
+     * @return true if the follower is in sync with the leader
+     */
+    private boolean isFollowerInSync(DeviceId deviceId) {
+        if (!readBalancer.reconciledInSync(deviceId) || convergenceStats.isAwaiting(deviceId)) {
+            return false;
+        }
+        synchronized (pendingMirrorFlowRules) {
+            if (!pendingMirrorFlowRules.isEmpty()) {
+                return false;
+            }
+        }
+        synchronized (pendingMirrorMeters) {
+            if (!pendingMirrorMeters.isEmpty()) {
+                return false;
+            }
+        }
+        return deviceService.isAvailable(deviceId) && deviceHealth.state(deviceId) != UpfDeviceHealth.State.OPEN;
     }
 
     @Override
@@ -878,20 +2375,32 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
         }
         // When reading counters we need to explicitly read on all UPF physical
         // devices and aggregate counter values.
-        assertUpfIsReady();
+        Map<DeviceId, UpfProgrammableException> failures = Maps.newHashMap();
+        Map<DeviceId, UpfCounter> deviceCounters =
+                callOnUpfDevices(upfProg -> upfProg.readCounter(counterIdx, type), failures);
+        throwFirstFailure(failures);
         UpfCounter counterStats = UpfCounter.builder()
                 .withCellId(counterIdx)
                 .setIngress(0, 0)
                 .setEgress(0, 0)
                 .build();
-        for (UpfProgrammable upfProg : upfProgrammables.values()) {
-            counterStats = counterStats.sum(upfProg.readCounter(counterIdx, type));
+        for (UpfCounter deviceCounter : deviceCounters.values()) {
+            counterStats = counterStats.sum(deviceCounter);
         }
         return counterStats;
     }
 
     @Override
     public void delete(UpfEntity entity) throws UpfProgrammableException {
+        if (entity.type() == SESSION_DOWNLINK) {
+            // Supersedes the pending coalesced write of the same session
+            writeCoalescer.write(UpfEntityKey.orderingKey(entity), entity, true, this::doWrite);
+            return;
+        }
+        lockedWrite(entity, true);
+    }
+
+    private void doDelete(UpfEntity entity) throws UpfProgrammableException {
         switch (entity.type()) {
             case SESSION_DOWNLINK:
                 UpfSessionDownlink sess = (UpfSessionDownlink) entity;
@@ -914,13 +2423,41 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
             default:
                 break;
         }
-        getLeaderUpfProgrammable().delete(entity);
+        final UpfEntity toDelete = entity;
+        try {
+            writeOnUpfDevices(upfProg -> upfProg.delete(toDelete));
+        } finally {
+            invalidateCountersIfRequired(toDelete.type());
+        }
+        trackDeleted(toDelete);
         forgetBufferingUeIfRequired(entity);
     }
 
+    /**
+     * Drops the cached counters if the given entity type is a counter, so
+     * that the counters written, reset or deleted are not read stale.
+     *
+     * @param entityType the type of the written entities
+     */
+    private void invalidateCountersIfRequired(UpfEntityType entityType) {
+        if (entityType.equals(COUNTER) || entityType.equals(INGRESS_COUNTER) || entityType.equals(EGRESS_COUNTER)) {
+            counterCache.invalidate();
+        }
+    }
+
     public void adminDelete(UpfEntity entity) throws UpfProgrammableException {
-        getLeaderUpfProgrammable().delete(entity);
-        forgetBufferingUeIfRequired(entity);
+        Object key = UpfEntityKey.orderingKey(entity);
+        Lock lock = entityLocks.get(key);
+        lock.lock();
+        try {
+            writeCoalescer.flush(key, this::doWrite);
+            writeOnUpfDevices(upfProg -> upfProg.delete(entity));
+            trackDeleted(entity);
+            forgetBufferingUeIfRequired(entity);
+        } finally {
+            invalidateCountersIfRequired(entity.type());
+            lock.unlock();
+        }
     }
 
     private void forgetBufferingUeIfRequired(UpfEntity entity) {
@@ -935,7 +2472,7 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
     public void deleteAll(UpfEntityType entityType) throws UpfProgrammableException {
         switch (entityType) {
             case TERMINATION_DOWNLINK:
-                getLeaderUpfProgrammable().deleteAll(entityType);
+                writeOnUpfDevices(upfProg -> upfProg.deleteAll(entityType));
                 up4Store.reset();
                 break;
             case INTERFACE:
@@ -943,26 +2480,57 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
                         getLeaderUpfProgrammable().readAll(UpfEntityType.INTERFACE).stream()
                                 .filter(t -> !((UpfInterface) t).isDbufReceiver())
                                 .collect(Collectors.toList());
-                for (UpfEntity i : intfs) {
-                    getLeaderUpfProgrammable().delete(i);
-                }
+                deleteConcurrently(intfs);
                 break;
             case TUNNEL_PEER:
                 Collection<? extends UpfEntity> tunnels =
                         getLeaderUpfProgrammable().readAll(UpfEntityType.TUNNEL_PEER).stream()
                                 .filter(t -> ((UpfGtpTunnelPeer) t).tunPeerId() != DBUF_TUNNEL_ID)
                                 .collect(Collectors.toList());
-                for (UpfEntity tun : tunnels) {
-                    getLeaderUpfProgrammable().delete(tun);
-                }
+                deleteConcurrently(tunnels);
                 break;
             default:
-                getLeaderUpfProgrammable().deleteAll(entityType);
+                try {
+                    writeOnUpfDevices(upfProg -> upfProg.deleteAll(entityType));
+                } finally {
+                    invalidateCountersIfRequired(entityType);
+                }
+        }
+        trackDeletedAll(entityType);
+    }
+
+    /**
+     * Deletes the given UPF entities from the UPF devices, pipelining the
+     * deletions in the async window. Each deletion is ordered with the other
+     * writes of the same key, as single deletions.
+     *
+     * @param entities the UPF entities to delete
+     * @throws UpfProgrammableException if any of the entities failed to be deleted
+     */
+    private void deleteConcurrently(Collection<? extends UpfEntity> entities) throws UpfProgrammableException {
+        List<CompletableFuture<Void>> futures = entities.stream()
+                .map(entity -> submitBulk(() -> {
+                    lockedWrite(entity, true);
+                    return (Void) null;
+                }))
+                .collect(Collectors.toList());
+        UpfProgrammableException error = null;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                error = e.getCause() instanceof UpfProgrammableException ?
+                        (UpfProgrammableException) e.getCause() : new UpfProgrammableException(e.getMessage());
+            }
+        }
+        if (error != null) {
+            throw error;
         }
     }
 
     public void adminDeleteAll(UpfEntityType entityType) throws UpfProgrammableException {
-        getLeaderUpfProgrammable().deleteAll(entityType);
+        writeOnUpfDevices(upfProg -> upfProg.deleteAll(entityType));
+        trackDeletedAll(entityType);
     }
 
     @Override
@@ -980,6 +2548,115 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
         return upfProgrammable.readCounter(counterIdx, type);
     }
 
+    @Override
+    public long purgeUes(Predicate<Ip4Address> filter) throws UpfProgrammableException {
+        Set<Ip4Address> ues = ueIndex.ues(filter);
+        if (ues.isEmpty()) {
+            return 0;
+        }
+        log.info("Purging the UPF entities of {} UEs", ues.size());
+        // Computed before the UE entities are removed from the index
+        Set<Integer> sessionMeters = ueIndex.exclusiveMeterCells(SESSION_METER, ues);
+        Set<Integer> appMeters = ueIndex.exclusiveMeterCells(APPLICATION_METER, ues);
+        AtomicLong deleted = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        List<CompletableFuture<Void>> futures = Lists.newArrayList();
+        for (Ip4Address ueAddress : ues) {
+            futures.add(submitBulk(() -> {
+                purgeUe(ueAddress, deleted, failed);
+                return null;
+            }));
+        }
+        awaitPurge(futures, failed);
+        futures.clear();
+        sessionMeters.forEach(cellId -> futures.add(bulkApply(UpfMeter.resetSession(cellId))));
+        appMeters.forEach(cellId -> futures.add(bulkApply(UpfMeter.resetApplication(cellId))));
+        awaitPurge(futures, failed);
+        log.info("Purged {} UPF entities and {} meters of {} UEs, {} failures",
+                 deleted.get(), sessionMeters.size() + appMeters.size(), ues.size(), failed.get());
+        if (failed.get() > 0) {
+            throw new UpfProgrammableException(
+                    "Failed to purge " + failed.get() + " UPF entities! Check ONOS log for more information.");
+        }
+        return deleted.get();
+    }
+
+    @Override
+    public boolean isUeIndexSeeded() {
+        return ueIndex.isSeeded();
+    }
+
+    @Override
+    public long purgeSlice(int sliceId) throws UpfProgrammableException {
+        // The interfaces table is small, the UE entities are found via the index
+        List<Ip4Prefix> uePools = getLeaderUpfProgrammable().readAll(INTERFACE).stream()
+                .map(e -> (UpfInterface) e)
+                .filter(i -> i.isCore() && i.sliceId() == sliceId)
+                .map(UpfInterface::prefix)
+                .collect(Collectors.toList());
+        if (uePools.isEmpty()) {
+            log.warn("No UE pool found for slice {}, nothing to purge", sliceId);
+            return 0;
+        }
+        return purgeUes(ue -> uePools.stream().anyMatch(p -> p.contains(ue)));
+    }
+
+    /**
+     * Deletes the indexed entities of the given UE, terminations first, and
+     * resets the counters of the deleted terminations.
+     *
+     * @param ueAddress the UE address
+     * @param deleted   the counter of deleted entities
+     * @param failed    the counter of failed deletions
+     */
+    private void purgeUe(Ip4Address ueAddress, AtomicLong deleted, AtomicLong failed) {
+        List<UpfEntity> entities = Lists.newArrayList(ueIndex.entities(ueAddress));
+        // Reverse dependency order, i.e., terminations before sessions
+        entities.sort(Comparator.comparingInt(e -> -UpfStateDump.ENTITY_ORDER.indexOf(e.type())));
+        for (UpfEntity entity : entities) {
+            try {
+                delete(entity);
+                deleted.incrementAndGet();
+            } catch (UpfProgrammableException e) {
+                failed.incrementAndGet();
+                log.warn("Unable to purge {} of UE {}: {}", entity, ueAddress, e.getMessage());
+                continue;
+            }
+            int counterId;
+            if (entity.type() == TERMINATION_UPLINK) {
+                counterId = ((UpfTerminationUplink) entity).counterId();
+            } else if (entity.type() == TERMINATION_DOWNLINK) {
+                counterId = ((UpfTerminationDownlink) entity).counterId();
+            } else {
+                continue;
+            }
+            try {
+                apply(UpfCounter.builder().withCellId(counterId).setIngress(0, 0).setEgress(0, 0).build());
+            } catch (UpfProgrammableException e) {
+                // The termination is gone, a stale counter is not a purge failure
+                log.debug("Unable to reset counter {} of UE {}: {}", counterId, ueAddress, e.getMessage());
+            }
+        }
+    }
+
+    private CompletableFuture<Void> bulkApply(UpfEntity entity) {
+        return submitBulk(() -> {
+            apply(entity);
+            return null;
+        });
+    }
+
+    private void awaitPurge(List<CompletableFuture<Void>> futures, AtomicLong failed) {
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException | CancellationException e) {
+                failed.incrementAndGet();
+                log.warn("Unable to complete UE purge operation: {}", e.getMessage());
+            }
+        }
+    }
+
     @Override
     public void resetAllSessionMeters() throws UpfProgrammableException {
         for (UpfEntity e : this.readAll(UpfEntityType.SESSION_METER)) {
@@ -1028,40 +2705,152 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
 
     @Override
     public Collection<UpfCounter> readCounters(long maxCounterId, UpfEntityType type) throws UpfProgrammableException {
+        // When reading counters we need to explicitly read on all UPF physical
+        // devices and aggregate counter values.
+        assertUpfIsReady();
+        return counterCache.read(maxCounterRange(maxCounterId), type, this::readCountersFromDevices);
+    }
+
+    @Override
+    public Up4Counters readCountersDegraded(long maxCounterId, UpfEntityType type) throws UpfProgrammableException {
+        final long maxId = maxCounterRange(maxCounterId);
+        Map<DeviceId, UpfProgrammableException> failures = Maps.newHashMap();
+        Map<DeviceId, Collection<UpfCounter>> deviceCounters =
+                callOnUpfDevices(upfProg -> upfProg.readCounters(maxId, type), failures);
+        if (deviceCounters.isEmpty()) {
+            throwFirstFailure(failures);
+        }
+        if (!failures.isEmpty()) {
+            log.warn("Counters read without the values of UPF devices {}", failures.keySet());
+        }
+        return new Up4Counters(aggregateCounters(deviceCounters.values(), maxId, type), failures.keySet());
+    }
+
+    private long maxCounterRange(long maxCounterId) {
         if (isMaxUeSet()) {
             if (maxCounterId == -1) {
-                maxCounterId = getMaxUe() * 2;
-            } else {
-                maxCounterId = Math.min(maxCounterId, getMaxUe() * 2);
+                return getMaxUe() * 2;
             }
+            return Math.min(maxCounterId, getMaxUe() * 2);
         }
-        // When reading counters we need to explicitly read on all UPF physical
-        // devices and aggregate counter values.
-        assertUpfIsReady();
+        return maxCounterId;
+    }
 
-        Map<Integer, UpfCounter> mapCounterIdStats = Maps.newHashMap();
-        for (UpfProgrammable upfProg : upfProgrammables.values()) {
-            Collection<UpfCounter> pdrStats = upfProg.readCounters(maxCounterId, type);
-            pdrStats.forEach(currStat -> {
-                mapCounterIdStats.compute(currStat.getCellId(), (counterId, prevStats) -> {
-                    if (prevStats == null) {
-                        return currStat;
+    private Collection<UpfCounter> readCountersFromDevices(long maxCounterId, UpfEntityType type)
+            throws UpfProgrammableException {
+        Map<DeviceId, UpfProgrammableException> failures = Maps.newHashMap();
+        Map<DeviceId, Collection<UpfCounter>> deviceCounters =
+                callOnUpfDevices(upfProg -> upfProg.readCounters(maxCounterId, type), failures);
+        throwFirstFailure(failures);
+        return aggregateCounters(deviceCounters.values(), maxCounterId, type);
+    }
+
+    // Accumulates the values in reused primitive arrays to avoid allocating
+    // a counter object per cell per device.
+    private Collection<UpfCounter> aggregateCounters(Collection<Collection<UpfCounter>> deviceCounters,
+                                                     long maxCounterId, UpfEntityType type) {
+        if (deviceCounters.size() == 1) {
+            return deviceCounters.iterator().next();
+        }
+        return counterAggregator.aggregate(deviceCounters, type, maxCounterId);
+    }
+
+    /**
+     * Call on a single UPF programmable returning a result.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    private interface UpfProgrammableCall<T> {
+        T call(UpfProgrammable upfProgrammable) throws UpfProgrammableException;
+    }
+
+    /**
+     * Runs the given call on all the UPF devices concurrently, guarded by the
+     * device circuit breakers and bounded by the device deadline, so that a
+     * hung device cannot stall the caller. Devices with an open breaker are
+     * not called. The failure of each device that is not called, fails or
+     * does not answer in time is added to the given map.
+     *
+     * @param call     the call
+     * @param failures the map where the failures are added
+     * @param <T>      the result type
+     * @return the results of the devices that answered in time
+     * @throws UpfProgrammableException if interrupted while waiting for the devices
+     */
+    private <T> Map<DeviceId, T> callOnUpfDevices(UpfProgrammableCall<T> call,
+                                                  Map<DeviceId, UpfProgrammableException> failures)
+            throws UpfProgrammableException {
+        assertUpfIsReady();
+        final long start = System.nanoTime();
+        final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(upfDeviceTimeout);
+        final Map<DeviceId, Future<T>> pendingCalls = Maps.newHashMap();
+        upfProgrammables.forEach((deviceId, upfProg) -> {
+            if (deviceHealth.tryAcquire(deviceId)) {
+                try {
+                    pendingCalls.put(deviceId, upfDeviceExecutors.executor(deviceId).submit(() -> call.call(upfProg)));
+                } catch (RejectedExecutionException e) {
+                    // Too many calls pending on the device, e.g., hung, or shutting down
+                    deviceHealth.failure(deviceId, true, "Too many pending calls");
+                    failures.put(deviceId, new UpfProgrammableException(
+                            "Too many pending calls on UPF device " + deviceId + ", not called"));
+                }
+            } else {
+                failures.put(deviceId, new UpfProgrammableException(
+                        "Circuit breaker open for UPF device " + deviceId + ", not called"));
+            }
+        });
+        final Map<DeviceId, T> results = Maps.newHashMap();
+        for (Map.Entry<DeviceId, Future<T>> entry : pendingCalls.entrySet()) {
+            DeviceId deviceId = entry.getKey();
+            Future<T> future = entry.getValue();
+            try {
+                results.put(deviceId, timeoutNanos > 0 ?
+                        future.get(start + timeoutNanos - System.nanoTime(), TimeUnit.NANOSECONDS) :
+                        future.get());
+                deviceHealth.success(deviceId, System.nanoTime() - start);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                String error = "No answer within " + upfDeviceTimeout + " ms";
+                deviceHealth.failure(deviceId, true, error);
+                failures.put(deviceId, new UpfProgrammableException(error + " from UPF device " + deviceId));
+            } catch (ExecutionException e) {
+                deviceHealth.failure(deviceId, false, e.getCause().getMessage());
+                failures.put(deviceId, e.getCause() instanceof UpfProgrammableException ?
+                        (UpfProgrammableException) e.getCause() :
+                        new UpfProgrammableException(e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pendingCalls.forEach((id, f) -> {
+                    if (!results.containsKey(id) && !failures.containsKey(id)) {
+                        f.cancel(true);
+                        deviceHealth.abandoned(id);
                     }
-                    return prevStats.sum(currStat);
                 });
-            });
+                throw new UpfProgrammableException("Interrupted while calling UPF devices");
+            }
+        }
+        return results;
+    }
+
+    private void throwFirstFailure(Map<DeviceId, UpfProgrammableException> failures)
+            throws UpfProgrammableException {
+        if (failures.isEmpty()) {
+            return;
         }
-        return mapCounterIdStats.values();
+        failures.forEach((deviceId, e) -> log.error("Failed to read counters from UPF device {}: {}",
+                                                    deviceId, e.getMessage()));
+        throw failures.values().iterator().next();
     }
 
     @Override
     public void enablePscEncap() throws UpfProgrammableException {
-        getLeaderUpfProgrammable().enablePscEncap();
+        writeOnUpfDevices(UpfDevice::enablePscEncap);
     }
 
     @Override
     public void disablePscEncap() throws UpfProgrammableException {
-        getLeaderUpfProgrammable().disablePscEncap();
+        writeOnUpfDevices(UpfDevice::disablePscEncap);
     }
 
     /**
@@ -1213,39 +3002,193 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
 
         @Override
         public void event(FlowRuleEvent event) {
-            eventExecutor.execute(() -> internalEventHandler(event));
+            // Filter on the listener thread, only relevant events are queued.
+            final FlowRule rule = event.subject();
+            switch (event.type()) {
+                case RULE_ADD_REQUESTED:
+                case RULE_REMOVE_REQUESTED:
+                    if (rule.deviceId().equals(leaderUpfDevice) && isFromLeaderUpf(rule)) {
+                        log.debug("Relevant FlowRuleEvent {}: {}", event.type(), rule);
+                        handleLeaderRuleRequested(rule, event.type() == FlowRuleEvent.Type.RULE_ADD_REQUESTED);
+                    }
+                    break;
+                case RULE_ADDED:
+                case RULE_REMOVED:
+                    if (convergenceStats.hasPendingRules() && !rule.deviceId().equals(leaderUpfDevice)) {
+                        handleFollowerRuleEvent(rule, event.type() == FlowRuleEvent.Type.RULE_ADDED,
+                                                System.nanoTime());
+                    }
+                    break;
+                default:
+                    break;
+            }
         }
 
-        private void internalEventHandler(FlowRuleEvent event) {
-            if ((event.type() == FlowRuleEvent.Type.RULE_ADD_REQUESTED ||
-                    event.type() == FlowRuleEvent.Type.RULE_REMOVE_REQUESTED) &&
-                    event.subject().deviceId().equals(leaderUpfDevice)) {
-                try {
-                    assertUpfIsReady();
-                } catch (IllegalStateException e) {
-                    log.warn("While handling event type {}: {}", event.type(), e.getMessage());
-                    return;
-                }
-                if (upfProgrammables.get(leaderUpfDevice).fromThisUpf(event.subject())) {
-                    log.debug("Relevant FlowRuleEvent {}: {}", event.type(), event.subject());
-                    FlowRule rule = event.subject();
-                    List<FlowRule> flowRules = Lists.newArrayList();
-                    upfProgrammables.keySet().stream()
-                            .filter(deviceId -> !deviceId.equals(leaderUpfDevice))
-                            .forEach(deviceId -> flowRules.add(copyFlowRuleForDevice(rule, deviceId)));
-                    switch (event.type()) {
-                        case RULE_ADD_REQUESTED:
-                            flowRuleService.applyFlowRules(flowRules.toArray(new FlowRule[0]));
-                            break;
-                        case RULE_REMOVE_REQUESTED:
-                            flowRuleService.removeFlowRules(flowRules.toArray(new FlowRule[0]));
-                            break;
-                        default:
-                            log.error("I should never reach this point on {}", event);
-                    }
+        private void handleLeaderRuleRequested(FlowRule rule, boolean add) {
+            var devices = upfDevices;
+            List<DeviceId> followers = devices == null ? List.of() : devices.stream()
+                    .filter(deviceId -> !deviceId.equals(leaderUpfDevice))
+                    .collect(Collectors.toList());
+            if (add) {
+                convergenceStats.leaderRuleRequested(rule, followers, System.nanoTime());
+            } else {
+                // Followers still having the rule are out of sync until they remove it
+                convergenceStats.leaderRuleRemoveRequested(rule, followers, System.nanoTime());
+            }
+            if (upfWriteAllDevices) {
+                // When writing on all devices, followers are written directly.
+                return;
+            }
+            synchronized (pendingMirrorFlowRules) {
+                // Remove first to keep the latest rule and the latest arrival order
+                pendingMirrorFlowRules.remove(rule);
+                pendingMirrorFlowRules.put(rule, add);
+            }
+            scheduleMirrorFlush();
+        }
+
+        private void handleFollowerRuleEvent(FlowRule rule, boolean added, long eventNanos) {
+            var programmables = upfProgrammables;
+            var executor = eventExecutor;
+            var follower = programmables != null ? programmables.get(rule.deviceId()) : null;
+            if (follower == null || executor == null || !follower.fromThisUpf(rule)) {
+                return;
+            }
+            executor.execute(() -> {
+                FlowRule leaderRule = copyFlowRuleForDevice(rule, leaderUpfDevice);
+                if (added) {
+                    convergenceStats.followerRuleAdded(leaderRule, rule.deviceId(), eventNanos);
+                } else {
+                    convergenceStats.followerRuleRemoved(leaderRule, rule.deviceId());
                 }
+            });
+        }
+    }
+
+    /**
+     * Returns true if the given flow rule has been generated by the leader UPF
+     * programmable. This check doesn't try a lazy setup of the UPF data plane,
+     * so that it can be safely called from the listener threads.
+     *
+     * @param rule the flow rule
+     * @return true if the flow rule is from the leader UPF programmable
+     */
+    private boolean isFromLeaderUpf(FlowRule rule) {
+        if (!upfInitialized.get()) {
+            return false;
+        }
+        var programmables = upfProgrammables;
+        var leader = programmables != null && leaderUpfDevice != null ?
+                programmables.get(leaderUpfDevice) : null;
+        return leader != null && leader.fromThisUpf(rule);
+    }
+
+    /**
+     * Same as {@link #isFromLeaderUpf(FlowRule)} but for meters.
+     *
+     * @param meter the meter
+     * @return true if the meter is from the leader UPF programmable
+     */
+    private boolean isFromLeaderUpf(Meter meter) {
+        if (!upfInitialized.get()) {
+            return false;
+        }
+        var programmables = upfProgrammables;
+        var leader = programmables != null && leaderUpfDevice != null ?
+                programmables.get(leaderUpfDevice) : null;
+        return leader != null && leader.fromThisUpf(meter);
+    }
+
+    /**
+     * Schedules the mirroring of the pending leader flow rules and meters
+     * after the batching window, if not already scheduled.
+     */
+    private void scheduleMirrorFlush() {
+        if (mirrorFlushScheduled.compareAndSet(false, true)) {
+            var executor = eventExecutor;
+            if (executor == null) {
+                mirrorFlushScheduled.set(false);
+                return;
+            }
+            try {
+                executor.schedule(this::flushPendingMirrors, upfMirrorBatchWindow, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down, let a later event schedule the flush again
+                mirrorFlushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Mirrors all the pending leader flow rules and meters on the follower UPF
+     * devices, using one flow rule operation batch per follower.
+     */
+    private void flushPendingMirrors() {
+        // Reset the flag before draining, events arriving from now on will be
+        // part of the next batch.
+        mirrorFlushScheduled.set(false);
+        final Map<FlowRule, Boolean> flowRules;
+        final Map<MeterCellId, Pair<Meter, Boolean>> meters;
+        synchronized (pendingMirrorFlowRules) {
+            flowRules = Maps.newLinkedHashMap(pendingMirrorFlowRules);
+            pendingMirrorFlowRules.clear();
+        }
+        synchronized (pendingMirrorMeters) {
+            meters = Maps.newLinkedHashMap(pendingMirrorMeters);
+            pendingMirrorMeters.clear();
+        }
+        if (flowRules.isEmpty() && meters.isEmpty()) {
+            return;
+        }
+        try {
+            assertUpfIsReady();
+        } catch (IllegalStateException e) {
+            // Reconciliation will take care of the dropped changes
+            log.warn("While mirroring {} flow rules and {} meters: {}",
+                     flowRules.size(), meters.size(), e.getMessage());
+            return;
+        }
+        upfProgrammables.keySet().stream()
+                .filter(deviceId -> !deviceId.equals(leaderUpfDevice))
+                .forEach(deviceId -> {
+                    mirrorFlowRulesOnDevice(flowRules, deviceId);
+                    mirrorMetersOnDevice(meters, deviceId);
+                });
+    }
+
+    private void mirrorFlowRulesOnDevice(Map<FlowRule, Boolean> flowRules, DeviceId deviceId) {
+        if (flowRules.isEmpty()) {
+            return;
+        }
+        FlowRuleOperations.Builder ops = FlowRuleOperations.builder();
+        flowRules.forEach((rule, add) -> {
+            if (add) {
+                ops.add(copyFlowRuleForDevice(rule, deviceId));
+            } else {
+                ops.remove(copyFlowRuleForDevice(rule, deviceId));
             }
+        });
+        log.debug("Mirroring {} flow rules on {}", flowRules.size(), deviceId);
+        flowRuleService.apply(ops.build());
+        convergenceStats.flowRulesMirrored(deviceId, flowRules.size());
+    }
+
+    private void mirrorMetersOnDevice(Map<MeterCellId, Pair<Meter, Boolean>> meters, DeviceId deviceId) {
+        // Partition work based on the follower master instance
+        if (meters.isEmpty() || !mastershipService.isLocalMaster(deviceId)) {
+            return;
         }
+        log.debug("Mirroring {} meters on {}", meters.size(), deviceId);
+        convergenceStats.metersMirrored(deviceId, meters.size());
+        meters.forEach((cellId, meterAndOp) -> {
+            final boolean add = meterAndOp.getRight();
+            final MeterRequest mReq = meterToMeterRequestForDevice(meterAndOp.getLeft(), deviceId, add);
+            if (add) {
+                meterService.submit(mReq);
+            } else {
+                meterService.withdraw(mReq, cellId);
+            }
+        });
     }
 
     private FlowRule copyFlowRuleForDevice(FlowRule original, DeviceId newDevice) {
@@ -1266,40 +3209,19 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
 
         @Override
         public void event(MeterEvent event) {
-            eventExecutor.execute(() -> internalEventHandler(event));
-        }
-
-        private void internalEventHandler(MeterEvent event) {
-            if (event.type().equals(MeterEvent.Type.METER_ADDED) ||
-                    event.type().equals(MeterEvent.Type.METER_REMOVED)) {
-                try {
-                    assertUpfIsReady();
-                } catch (IllegalStateException e) {
-                    log.warn("While handling even type {}: {}", event.type(), e.getMessage());
-                    return;
-                }
+            // Filter on the listener thread, only relevant events are queued
+            if (!upfWriteAllDevices && (event.type().equals(MeterEvent.Type.METER_ADDED) ||
+                    event.type().equals(MeterEvent.Type.METER_REMOVED))) {
                 Meter m = event.subject();
                 if (m.meterCellId().type().equals(MeterCellId.MeterCellType.PIPELINE_INDEPENDENT) &&
-                        upfProgrammables.get(leaderUpfDevice).fromThisUpf(m)) {
-                    final List<MeterRequest> meters = Lists.newArrayList();
-                    final PiMeterCellId piMeterCellId = (PiMeterCellId) m.meterCellId();
-                    final boolean add = event.type().equals(MeterEvent.Type.METER_ADDED);
-                    // Partition work based on the follower master instance
-                    upfProgrammables.keySet().stream()
-                            .filter(deviceId -> !deviceId.equals(leaderUpfDevice))
-                            .filter(mastershipService::isLocalMaster)
-                            .forEach(deviceId -> meters.add(meterToMeterRequestForDevice(m, deviceId, add)));
-                    if (meters.size() > 0) {
-                        if (add) {
-                            log.debug("Adding " + meters.size() + " meters: " + meters);
-                            meters.forEach(meterService::submit);
-                        } else {
-                            log.debug("Removing " + meters.size() + " meters: " + meters);
-                            meters.forEach(mReq -> meterService.withdraw(mReq, piMeterCellId));
-                        }
+                        isFromLeaderUpf(m)) {
+                    synchronized (pendingMirrorMeters) {
+                        pendingMirrorMeters.remove(m.meterCellId());
+                        pendingMirrorMeters.put(m.meterCellId(),
+                                                Pair.of(m, event.type().equals(MeterEvent.Type.METER_ADDED)));
                     }
+                    scheduleMirrorFlush();
                 }
-
             }
         }
     }
@@ -1336,6 +3258,8 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
 
         @Override
         public void run() {
+            convergenceStats.expirePendingRules(
+                    System.nanoTime() - TimeUnit.MINUTES.toNanos(CONVERGENCE_TRACKING_TIMEOUT_MINUTES));
             try {
                 checkFlowRuleStateAndReconcile();
             } catch (Exception e) {
@@ -1346,6 +3270,13 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
             } catch (Exception e) {
                 log.error("Error during meters reconciliation: {}", e.getMessage());
             }
+            if (upfLeaderReconcile) {
+                try {
+                    reconcileLeaderState();
+                } catch (Exception e) {
+                    log.error("Error during leader reconciliation: {}", e.getMessage());
+                }
+            }
         }
 
         private void checkFlowRuleStateAndReconcile() throws UpfProgrammableException {
@@ -1421,6 +3352,10 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
                 });
 
                 flowRuleService.apply(ops.build());
+                convergenceStats.flowRulesReconciled(
+                        deviceId, missingRules.size(), staleRules.size(), unexpectedRules.size());
+                readBalancer.flowRulesReconciled(
+                        deviceId, missingRules.isEmpty() && staleRules.isEmpty() && unexpectedRules.isEmpty());
             }
         }
 
@@ -1488,6 +3423,10 @@ public class Up4DeviceManager extends AbstractListenerManager<Up4Event, Up4Event
                             log.trace("Adding {} to {}", m, deviceId);
                             meterService.submit(m);
                         });
+                convergenceStats.metersReconciled(
+                        deviceId, missingMeters.size(), staleMeters.size(), unexpectedMeters.size());
+                readBalancer.metersReconciled(
+                        deviceId, missingMeters.isEmpty() && staleMeters.isEmpty() && unexpectedMeters.isEmpty());
             }
         }
     }
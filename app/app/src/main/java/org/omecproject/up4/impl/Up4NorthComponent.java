@@ -8,10 +8,14 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.TextFormat;
 import com.google.rpc.Code;
 import com.google.rpc.Status;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
 import io.grpc.Server;
 import io.grpc.StatusException;
 import io.grpc.StatusRuntimeException;
@@ -19,6 +23,7 @@ import io.grpc.netty.NettyServerBuilder;
 import io.grpc.stub.StreamObserver;
 import org.omecproject.up4.Up4Event;
 import org.omecproject.up4.Up4EventListener;
+import org.omecproject.up4.Up4Readiness;
 import org.omecproject.up4.Up4Service;
 import org.omecproject.up4.Up4Translator;
 import org.onlab.util.HexString;
@@ -61,10 +66,17 @@ import java.net.URL;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static io.grpc.Status.INVALID_ARGUMENT;
 import static io.grpc.Status.PERMISSION_DENIED;
@@ -101,6 +113,10 @@ public class Up4NorthComponent {
     private static final int DEFAULT_DEVICE_ID = 1;
     private static final ImmutableSet<P4RuntimeOuterClass.Entity.EntityCase> SUPPORTED_WRITE_ENTITIES =
             ImmutableSet.of(COUNTER_ENTRY, METER_ENTRY, TABLE_ENTRY);
+    // gRPC retry hint, honored by clients with a retry policy
+    private static final Metadata.Key<String> RETRY_PUSHBACK_KEY =
+            Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+    private static final long NOT_READY_LOG_INTERVAL_SECONDS = 10;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected Up4Service up4Service;
@@ -114,6 +130,7 @@ public class Up4NorthComponent {
             StreamObserver<P4RuntimeOuterClass.StreamMessageResponse>> streams =
             Maps.newConcurrentMap();
     private final AtomicInteger ddnDigestListId = new AtomicInteger(0);
+    private final LogRateLimiter notReadyLog = new LogRateLimiter(NOT_READY_LOG_INTERVAL_SECONDS, TimeUnit.SECONDS);
 
     protected P4InfoOuterClass.P4Info p4Info;
     protected PiPipeconf pipeconf;
@@ -171,36 +188,33 @@ public class Up4NorthComponent {
     }
 
     /**
-     * Translate the given logical pipeline table entry to a Up4Service entry deletion call.
+     * Translate the given logical pipeline table entry to the UPF entity to be deleted.
      *
      * @param entry The logical table entry to be deleted
-     * @throws StatusException if the table entry fails translation or cannot be deleted
+     * @return the UPF entity to be deleted
+     * @throws StatusException if the table entry fails translation
      */
-    private void translateEntryAndDelete(PiTableEntry entry) throws StatusException {
+    private UpfEntity translateDeletion(PiTableEntry entry) throws StatusException {
         log.debug("Translating UP4 deletion request to fabric entry deletion.");
         try {
-            up4Service.delete(up4Translator.up4TableEntryToUpfEntity(entry));
+            return up4Translator.up4TableEntryToUpfEntity(entry);
         } catch (Up4Translator.Up4TranslationException e) {
             log.warn("Failed to translate UP4 entry in deletion request: {}", e.getMessage());
             throw INVALID_ARGUMENT
                     .withDescription("Failed to translate entry in deletion request: " + e.getMessage())
                     .asException();
-        } catch (UpfProgrammableException e) {
-            log.warn("Failed to complete deletion request: {}", e.getMessage());
-            throw io.grpc.Status.UNAVAILABLE
-                    .withDescription(e.getMessage())
-                    .asException();
         }
     }
 
     /**
      * Translate the given logical pipeline table entry or meter cell config
-     * to a Up4Service entry apply call.
+     * to the UPF entity to be applied.
      *
      * @param entry The logical table entry or meter cell config to be applied
-     * @throws StatusException if the entry fails translation or cannot be applied
+     * @return the UPF entity to be applied
+     * @throws StatusException if the entry fails translation
      */
-    private void translateEntryAndApply(PiEntity entry) throws StatusException {
+    private UpfEntity translateApply(PiEntity entry) throws StatusException {
         log.debug("Translating UP4 write request to fabric entry.");
         try {
             switch (entry.piEntityType()) {
@@ -212,11 +226,9 @@ public class Up4NorthComponent {
                                 .withDescription("Action profile entries not supported by UP4.")
                                 .asException();
                     }
-                    up4Service.apply(up4Translator.up4TableEntryToUpfEntity(tableEntry));
-                    break;
+                    return up4Translator.up4TableEntryToUpfEntity(tableEntry);
                 case METER_CELL_CONFIG:
-                    up4Service.apply(up4Translator.up4MeterEntryToUpfEntity((PiMeterCellConfig) entry));
-                    break;
+                    return up4Translator.up4MeterEntryToUpfEntity((PiMeterCellConfig) entry);
                 default:
                     throw UNIMPLEMENTED
                             .withDescription("Unsupported entity type: " + entry.piEntityType())
@@ -227,23 +239,114 @@ public class Up4NorthComponent {
             throw INVALID_ARGUMENT
                     .withDescription("Translation error: " + e.getMessage())
                     .asException();
-        } catch (UpfProgrammableException e) {
-            log.warn("Failed to complete table entry insertion request: {}", e.getMessage());
-            switch (e.getType()) {
-                case ENTITY_EXHAUSTED:
-                    throw io.grpc.Status.RESOURCE_EXHAUSTED
-                            .withDescription(e.getMessage())
-                            .asException();
-                case ENTITY_OUT_OF_RANGE:
-                    throw INVALID_ARGUMENT
-                            .withDescription(e.getMessage())
-                            .asException();
-                case UNKNOWN:
-                default:
-                    throw io.grpc.Status.UNAVAILABLE
-                            .withDescription(e.getMessage())
-                            .asException();
+        }
+    }
+
+    /**
+     * Asynchronously executes the given translated write on the Up4Service.
+     *
+     * @param op the write operation
+     * @return the future completed with null if the write succeeded, or
+     * with the write operation if it failed
+     */
+    private CompletableFuture<WriteOp> executeWrite(WriteOp op) {
+        io.grpc.Status cancelled = Contexts.statusFromCancelled(Context.current());
+        if (cancelled != null) {
+            // The client is no longer waiting for the response
+            op.error = cancelled.withDescription("Write not executed: " + cancelled.getDescription()).asException();
+            return CompletableFuture.completedFuture(op);
+        }
+        CompletableFuture<Void> future = op.delete ?
+                up4Service.deleteAsync(op.entity) : up4Service.applyAsync(op.entity);
+        return future.handle((result, error) -> {
+            if (error == null) {
+                return null;
             }
+            op.error = writeError(op, error instanceof CompletionException ? error.getCause() : error);
+            return op;
+        });
+    }
+
+    /**
+     * Executes in order the given writes, stopping at the first failure.
+     *
+     * @param ops      the write operations sharing the same ordering key
+     * @param executor the executor starting each write
+     * @return the future completed with the failed write operation, or with
+     * null if all writes succeeded
+     */
+    private CompletableFuture<WriteOp> executeWrites(List<WriteOp> ops, Executor executor) {
+        CompletableFuture<WriteOp> chain = CompletableFuture.completedFuture(null);
+        for (WriteOp op : ops) {
+            chain = chain.thenComposeAsync(failed -> failed != null ?
+                    CompletableFuture.completedFuture(failed) : executeWrite(op), executor);
+        }
+        return chain;
+    }
+
+    private StatusException writeError(WriteOp op, Throwable error) {
+        if (!(error instanceof UpfProgrammableException)) {
+            log.error("Unexpected error while executing write of {}", op.entity, error);
+            return io.grpc.Status.INTERNAL.withDescription(error.getMessage()).asException();
+        }
+        UpfProgrammableException e = (UpfProgrammableException) error;
+        if (op.delete) {
+            log.warn("Failed to complete deletion request: {}", e.getMessage());
+            return io.grpc.Status.UNAVAILABLE
+                    .withDescription(e.getMessage())
+                    .asException();
+        }
+        log.warn("Failed to complete table entry insertion request: {}", e.getMessage());
+        return applyError(e);
+    }
+
+    /**
+     * Returns the error of a request received while the UPF data plane is
+     * not ready, with the time after which the request should be retried.
+     *
+     * @param description the error description
+     * @param readiness   the UPF data plane readiness
+     * @return the status exception
+     */
+    private static StatusException notReadyError(String description, Up4Readiness readiness) {
+        Metadata trailers = new Metadata();
+        trailers.put(RETRY_PUSHBACK_KEY, String.valueOf(readiness.retryAfterMillis()));
+        return io.grpc.Status.FAILED_PRECONDITION
+                .withDescription(format("%s (retry after %d ms)", description, readiness.retryAfterMillis()))
+                .asException(trailers);
+    }
+
+    private StatusException applyError(UpfProgrammableException e) {
+        switch (e.getType()) {
+            case ENTITY_EXHAUSTED:
+                return io.grpc.Status.RESOURCE_EXHAUSTED
+                        .withDescription(e.getMessage())
+                        .asException();
+            case ENTITY_OUT_OF_RANGE:
+                return INVALID_ARGUMENT
+                        .withDescription(e.getMessage())
+                        .asException();
+            case UNKNOWN:
+            default:
+                return io.grpc.Status.UNAVAILABLE
+                        .withDescription(e.getMessage())
+                        .asException();
+        }
+    }
+
+    /**
+     * Translated update of a write request.
+     */
+    private static final class WriteOp {
+        private final int index;
+        private final UpfEntity entity;
+        private final boolean delete;
+        private StatusException error;
+
+        private WriteOp(int index, UpfEntity entity, boolean delete) {
+            this.index = index;
+            this.entity = entity;
+            this.delete = delete;
         }
     }
 
@@ -761,17 +864,22 @@ public class Up4NorthComponent {
 
         private void errorIfSwitchNotReady() throws StatusException {
             if (!up4Service.configIsLoaded()) {
-                log.warn("UP4 client attempted to read or write to logical switch before an app config was loaded.");
-                throw io.grpc.Status.FAILED_PRECONDITION
-                        .withDescription("App config not loaded.")
-                        .asException();
+                long suppressed = notReadyLog.tryAcquire();
+                if (suppressed >= 0) {
+                    log.warn("UP4 client attempted to read or write to logical switch before an app config " +
+                                     "was loaded (suppressed {} similar messages).", suppressed);
+                }
+                throw notReadyError("App config not loaded", up4Service.readiness());
             }
             if (!up4Service.isReady()) {
-                log.warn("UP4 client attempted to read or write to logical switch " +
-                                 "while the physical device was unavailable.");
-                throw io.grpc.Status.FAILED_PRECONDITION
-                        .withDescription("Physical switch unavailable.")
-                        .asException();
+                Up4Readiness readiness = up4Service.readiness();
+                long suppressed = notReadyLog.tryAcquire();
+                if (suppressed >= 0) {
+                    log.warn("UP4 client attempted to read or write to logical switch while the physical " +
+                                     "device was unavailable: {} (suppressed {} similar messages).",
+                             readiness.reason(), suppressed);
+                }
+                throw notReadyError("Physical switch unavailable: " + readiness.reason(), readiness);
             }
             if (p4Info == null) {
                 log.warn("Read or write request received before pipeline config set.");
@@ -784,7 +892,12 @@ public class Up4NorthComponent {
         private void doWrite(P4RuntimeOuterClass.WriteRequest request,
                              StreamObserver<P4RuntimeOuterClass.WriteResponse> responseObserver)
                 throws StatusException {
+            // Translate all updates before writing, so that an invalid update
+            // fails the request without any side effect on the UPF.
+            List<WriteOp> ops = Lists.newArrayList();
+            int index = 0;
             for (P4RuntimeOuterClass.Update update : request.getUpdatesList()) {
+                index++;
                 if (!update.hasEntity()) {
                     log.warn("Update message with no entities received. Ignoring");
                     continue;
@@ -813,7 +926,7 @@ public class Up4NorthComponent {
                     case METER_ENTRY:
                         if (update.getType() == P4RuntimeOuterClass.Update.Type.MODIFY) {
                             // The only operation supported for meters and counters is MODIFY
-                            translateEntryAndApply(piEntity);
+                            ops.add(new WriteOp(index, translateApply(piEntity), false));
                         } else {
                             log.error("Unsupported update type for {} entry!",
                                       requestEntity.getEntityCase());
@@ -826,10 +939,10 @@ public class Up4NorthComponent {
                         switch (update.getType()) {
                             case INSERT:
                             case MODIFY:
-                                translateEntryAndApply(piEntity);
+                                ops.add(new WriteOp(index, translateApply(piEntity), false));
                                 break;
                             case DELETE:
-                                translateEntryAndDelete((PiTableEntry) piEntity);
+                                ops.add(new WriteOp(index, translateDeletion((PiTableEntry) piEntity), true));
                                 break;
                             default:
                                 log.warn("Unsupported update type for a table entry");
@@ -843,11 +956,101 @@ public class Up4NorthComponent {
                         log.error("I should never reach this point");
                 }
             }
-            // Response is currently defined to be empty per p4runtime.proto
-            responseObserver.onNext(P4RuntimeOuterClass.WriteResponse.getDefaultInstance());
-            responseObserver.onCompleted();
+            if (request.getAtomicity() == P4RuntimeOuterClass.WriteRequest.Atomicity.ROLLBACK_ON_ERROR &&
+                    ops.stream().allMatch(op -> Up4DeviceManager.isBundleType(op.entity.type()))) {
+                // Other entities are not rolled back, they are written as in non-atomic requests
+                executeBundle(ops, responseObserver);
+            } else {
+                executeWriteRequest(ops, responseObserver);
+            }
         }
 
+        /**
+         * Applies the translated updates of a write request as a single UPF
+         * session bundle, rolled back if any of the updates fails. The bundle
+         * is executed via the async Up4Service, as the other write requests,
+         * and the response is sent once it completed.
+         *
+         * @param ops              the translated updates, in request order
+         * @param responseObserver the observer of the write response
+         * @throws StatusException if the bundle is not supported
+         */
+        private void executeBundle(List<WriteOp> ops,
+                                   StreamObserver<P4RuntimeOuterClass.WriteResponse> responseObserver)
+                throws StatusException {
+            if (ops.stream().anyMatch(op -> op.delete)) {
+                log.warn("Deletions not supported in write requests with ROLLBACK_ON_ERROR atomicity");
+                throw UNIMPLEMENTED
+                        .withDescription("Deletions not supported with ROLLBACK_ON_ERROR atomicity")
+                        .asException();
+            }
+            up4Service.applyBundleAsync(ops.stream().map(op -> op.entity).collect(Collectors.toList()))
+                    .whenComplete((result, error) -> {
+                        if (error == null) {
+                            // Response is currently defined to be empty per p4runtime.proto
+                            responseObserver.onNext(P4RuntimeOuterClass.WriteResponse.getDefaultInstance());
+                            responseObserver.onCompleted();
+                            return;
+                        }
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        if (cause instanceof UpfProgrammableException) {
+                            log.warn("Failed to apply UPF session bundle: {}", cause.getMessage());
+                            responseObserver.onError(applyError((UpfProgrammableException) cause));
+                        } else {
+                            log.error("Unexpected error while applying UPF session bundle", cause);
+                            responseObserver.onError(
+                                    io.grpc.Status.INTERNAL.withDescription(cause.getMessage()).asException());
+                        }
+                    });
+        }
+
+        /**
+         * Executes the translated updates of a write request. Updates with the
+         * same ordering key (e.g., of the same UE) are executed in request
+         * order, while groups of updates with different keys are in flight
+         * concurrently via the async Up4Service. A group stops at its first
+         * failure, and the failure of the earliest update in the request is
+         * returned to the client. Returns without waiting for the updates, the
+         * response is sent once all groups completed.
+         *
+         * @param ops              the translated updates, in request order
+         * @param responseObserver the observer of the write response
+         */
+        private void executeWriteRequest(List<WriteOp> ops,
+                                         StreamObserver<P4RuntimeOuterClass.WriteResponse> responseObserver) {
+            Map<Object, List<WriteOp>> groups = new LinkedHashMap<>();
+            for (WriteOp op : ops) {
+                groups.computeIfAbsent(UpfEntityKey.orderingKey(op.entity), k -> Lists.newArrayList()).add(op);
+            }
+            // Propagate the gRPC context (e.g., deadline) to the writes
+            // following the first one, run by the threads completing the
+            // previous writes.
+            Executor ctxExecutor = Context.current().fixedContextExecutor(MoreExecutors.directExecutor());
+            List<CompletableFuture<WriteOp>> futures = groups.values().stream()
+                    .map(group -> executeWrites(group, ctxExecutor))
+                    .collect(Collectors.toList());
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).whenComplete((result, error) -> {
+                if (error != null) {
+                    log.error("Unable to execute write request", error);
+                    responseObserver.onError(io.grpc.Status.INTERNAL.withDescription(error.getMessage()).asException());
+                    return;
+                }
+                WriteOp firstFailed = null;
+                for (CompletableFuture<WriteOp> future : futures) {
+                    WriteOp failed = future.join();
+                    if (failed != null && (firstFailed == null || failed.index < firstFailed.index)) {
+                        firstFailed = failed;
+                    }
+                }
+                if (firstFailed != null) {
+                    responseObserver.onError(firstFailed.error);
+                    return;
+                }
+                // Response is currently defined to be empty per p4runtime.proto
+                responseObserver.onNext(P4RuntimeOuterClass.WriteResponse.getDefaultInstance());
+                responseObserver.onCompleted();
+            });
+        }
 
         /**
          * Writes entities to the logical UP4 switch.
@@ -0,0 +1,510 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang3.tuple.Pair;
+import org.omecproject.up4.Up4Service;
+import org.onlab.packet.Ip4Address;
+import org.onosproject.cfg.ComponentConfigService;
+import org.onosproject.net.behaviour.upf.UpfCounter;
+import org.onosproject.net.behaviour.upf.UpfProgrammableException;
+import org.onosproject.net.behaviour.upf.UpfTerminationDownlink;
+import org.onosproject.net.behaviour.upf.UpfTerminationUplink;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Dictionary;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.STATS_HISTORY_RETENTION;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.STATS_HISTORY_RETENTION_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.STATS_HISTORY_SIZE;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.STATS_HISTORY_SIZE_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.STATS_POLL_INTERVAL;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.STATS_POLL_INTERVAL_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.STATS_TOP_UES;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.STATS_TOP_UES_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.USAGE_LOG_DIRECTORY;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.USAGE_LOG_DIRECTORY_DEFAULT;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.USAGE_LOG_FILE_SIZE;
+import static org.omecproject.up4.impl.OsgiPropertyConstants.USAGE_LOG_FILE_SIZE_DEFAULT;
+import static org.omecproject.up4.impl.UeTrafficRate.Direction.DOWNLINK;
+import static org.omecproject.up4.impl.UeTrafficRate.Direction.UPLINK;
+import static org.omecproject.up4.impl.UpfCountersSample.RX_BYTES;
+import static org.omecproject.up4.impl.UpfCountersSample.RX_PKTS;
+import static org.omecproject.up4.impl.UpfCountersSample.TX_BYTES;
+import static org.omecproject.up4.impl.UpfCountersSample.TX_PKTS;
+import static org.onlab.util.Tools.get;
+import static org.onlab.util.Tools.getIntegerProperty;
+import static org.onlab.util.Tools.getLongProperty;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.APPLICATION;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.COUNTER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.INTERFACE;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.TERMINATION_DOWNLINK;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.TERMINATION_UPLINK;
+
+/**
+ * Background poller of the UPF counters. Periodically samples the counters of
+ * all UPF devices, keeps the most recent samples and computes the per-UE
+ * traffic rates, so that consumers don't need to read the UPF data plane.
+ */
+@Component(immediate = true, service = {Up4StatsService.class},
+        property = {
+                STATS_POLL_INTERVAL + ":Long=" + STATS_POLL_INTERVAL_DEFAULT,
+                STATS_HISTORY_SIZE + ":Integer=" + STATS_HISTORY_SIZE_DEFAULT,
+                STATS_TOP_UES + ":Integer=" + STATS_TOP_UES_DEFAULT,
+                STATS_HISTORY_RETENTION + ":Long=" + STATS_HISTORY_RETENTION_DEFAULT,
+                USAGE_LOG_DIRECTORY + "=" + USAGE_LOG_DIRECTORY_DEFAULT,
+                USAGE_LOG_FILE_SIZE + ":Integer=" + USAGE_LOG_FILE_SIZE_DEFAULT,
+        })
+public class Up4StatsManager implements Up4StatsService {
+
+    // Usage log files are memory-mapped, a mapping is limited to 2 GiB
+    private static final int MAX_USAGE_LOG_FILE_SIZE = Integer.MAX_VALUE / (1024 * 1024);
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected Up4Service up4Service;
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected ComponentConfigService componentConfigService;
+
+    /**
+     * Interval (in seconds) between counter samples, 0 disables polling.
+     **/
+    private long statsPollInterval = STATS_POLL_INTERVAL_DEFAULT;
+
+    /**
+     * Number of counter samples to keep.
+     **/
+    private int statsHistorySize = STATS_HISTORY_SIZE_DEFAULT;
+
+    /**
+     * Number of top UEs selected at each sample, per metric and direction.
+     **/
+    private int statsTopUes = STATS_TOP_UES_DEFAULT;
+
+    /**
+     * Time window (in seconds) of the off-heap counter history, 0 disables it.
+     **/
+    private long statsHistoryRetention = STATS_HISTORY_RETENTION_DEFAULT;
+
+    /**
+     * Directory of the usage record log, empty disables it.
+     **/
+    private String usageLogDirectory = USAGE_LOG_DIRECTORY_DEFAULT;
+
+    /**
+     * Size (in MiB) of each usage record log file, at most 2047.
+     **/
+    private int usageLogFileSize = USAGE_LOG_FILE_SIZE_DEFAULT;
+
+    private ScheduledExecutorService pollExecutor;
+    private Future<?> pollTask;
+
+    // Written only by the poller thread, read by any consumer.
+    private volatile List<UpfCountersSample> history = ImmutableList.of();
+    private volatile Map<Ip4Address, UeTrafficRate> uplinkRates = ImmutableMap.of();
+    private volatile Map<Ip4Address, UeTrafficRate> downlinkRates = ImmutableMap.of();
+    private volatile Map<Pair<UeTrafficRate.Direction, UeTrafficRate.Metric>, List<UeTrafficRate>> topUes =
+            ImmutableMap.of();
+    // Allocated by the poller thread on the first sample
+    private volatile UpfCounterHistory counterHistory;
+    private UsageRecordLog usageLog;
+    // Cell values of the last two polls, reused, accessed only by the poller thread
+    private UpfCellCounters currCells = new UpfCellCounters();
+    private UpfCellCounters prevCells = new UpfCellCounters();
+    private final UpfTrafficAggregator trafficAggregator = new UpfTrafficAggregator();
+
+    @Activate
+    protected void activate(ComponentContext context) {
+        componentConfigService.registerProperties(getClass());
+        pollExecutor = newSingleThreadScheduledExecutor(groupedThreads(
+                "omec/up4/stats", "poller", log));
+        reschedulePolling();
+        modified(context);
+        log.info("Started.");
+    }
+
+    @Modified
+    protected void modified(ComponentContext context) {
+        Dictionary<?, ?> properties = context != null ? context.getProperties() : new Properties();
+        Integer historySize = getIntegerProperty(properties, STATS_HISTORY_SIZE);
+        if (historySize != null && historySize >= 2) {
+            statsHistorySize = historySize;
+        }
+        Integer topUesSize = getIntegerProperty(properties, STATS_TOP_UES);
+        if (topUesSize != null && topUesSize >= 0) {
+            statsTopUes = topUesSize;
+        }
+        Long historyRetention = getLongProperty(properties, STATS_HISTORY_RETENTION);
+        if (historyRetention != null && historyRetention >= 0 && historyRetention != statsHistoryRetention) {
+            statsHistoryRetention = historyRetention;
+            // Re-allocated with the new size on the next sample
+            counterHistory = null;
+        }
+        String logDirectory = get(properties, USAGE_LOG_DIRECTORY);
+        Integer logFileSize = getIntegerProperty(properties, USAGE_LOG_FILE_SIZE);
+        if (logFileSize != null && logFileSize > MAX_USAGE_LOG_FILE_SIZE) {
+            log.warn("Invalid usage log file size {} MiB, must be at most {} MiB, keeping {} MiB",
+                     logFileSize, MAX_USAGE_LOG_FILE_SIZE, usageLogFileSize);
+            logFileSize = null;
+        }
+        if ((logDirectory != null && !logDirectory.trim().equals(usageLogDirectory)) ||
+                (logFileSize != null && logFileSize > 0 && logFileSize != usageLogFileSize)) {
+            usageLogDirectory = logDirectory != null ? logDirectory.trim() : usageLogDirectory;
+            usageLogFileSize = logFileSize != null && logFileSize > 0 ? logFileSize : usageLogFileSize;
+            openUsageLog();
+        }
+        Long pollInterval = getLongProperty(properties, STATS_POLL_INTERVAL);
+        if (pollInterval != null && pollInterval >= 0 && pollInterval != statsPollInterval) {
+            statsPollInterval = pollInterval;
+            reschedulePolling();
+        }
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        componentConfigService.unregisterProperties(getClass(), false);
+        pollExecutor.shutdownNow();
+        pollExecutor = null;
+        closeUsageLog();
+        log.info("Stopped.");
+    }
+
+    private synchronized void openUsageLog() {
+        closeUsageLog();
+        if (!usageLogDirectory.isEmpty()) {
+            long fileSizeBytes = (long) usageLogFileSize * 1024 * 1024;
+            usageLog = new UsageRecordLog(Paths.get(usageLogDirectory), Math.toIntExact(fileSizeBytes));
+            log.info("Usage records log enabled in {}", usageLogDirectory);
+        }
+    }
+
+    private synchronized void closeUsageLog() {
+        if (usageLog != null) {
+            usageLog.close();
+            usageLog = null;
+        }
+    }
+
+    private static List<UsageRecord> usageRecords(UpfCountersSample prev, UpfCountersSample curr,
+                                                  UpfCellCounters prevCells, UpfCellCounters currCells,
+                                                  Collection<UpfTerminationUplink> uplinkTerms,
+                                                  Collection<UpfTerminationDownlink> downlinkTerms) {
+        int intervalMillis = (int) TimeUnit.NANOSECONDS.toMillis(curr.nanos() - prev.nanos());
+        List<UsageRecord> records = Lists.newArrayList();
+        uplinkTerms.forEach(t -> addUsageRecord(
+                records, prevCells, currCells, curr.timestampMillis(), intervalMillis,
+                t.ueSessionId(), t.applicationId(), UPLINK, t.counterId()));
+        downlinkTerms.forEach(t -> addUsageRecord(
+                records, prevCells, currCells, curr.timestampMillis(), intervalMillis,
+                t.ueSessionId(), t.applicationId(), DOWNLINK, t.counterId()));
+        return records;
+    }
+
+    private void aggregateTraffic(List<UsageRecord> records, UpfCountersSample curr)
+            throws UpfProgrammableException {
+        UeSliceResolver sliceResolver = new UeSliceResolver(
+                up4Service.readAll(INTERFACE), up4Service.readAll(APPLICATION));
+        Set<Ip4Address> activeUes = Sets.newHashSet(curr.ues(UPLINK));
+        activeUes.addAll(curr.ues(DOWNLINK));
+        trafficAggregator.add(records, r -> sliceResolver.sliceId(r.ueAddress(), r.applicationId()), activeUes);
+    }
+
+    private synchronized void writeUsageRecords(List<UsageRecord> records) {
+        if (usageLog == null) {
+            return;
+        }
+        try {
+            usageLog.append(records);
+        } catch (IOException e) {
+            log.error("Unable to write usage records, disabling usage log: {}", e.getMessage());
+            closeUsageLog();
+        }
+    }
+
+    private static void addUsageRecord(List<UsageRecord> records, UpfCellCounters prevCells,
+                                       UpfCellCounters currCells, long timestampMillis, int intervalMillis,
+                                       Ip4Address ue, byte appId, UeTrafficRate.Direction direction, int counterId) {
+        if (!prevCells.contains(counterId) || !currCells.contains(counterId)) {
+            return;
+        }
+        long ingressPkts = cellDelta(prevCells, currCells, counterId, UpfCellCounters.INGRESS_PKTS);
+        long egressPkts = cellDelta(prevCells, currCells, counterId, UpfCellCounters.EGRESS_PKTS);
+        if (ingressPkts == 0 && egressPkts == 0) {
+            // Idle terminations don't produce any record.
+            return;
+        }
+        records.add(new UsageRecord(
+                timestampMillis, intervalMillis, ue, appId, direction, counterId,
+                ingressPkts, cellDelta(prevCells, currCells, counterId, UpfCellCounters.INGRESS_BYTES),
+                egressPkts, cellDelta(prevCells, currCells, counterId, UpfCellCounters.EGRESS_BYTES)));
+    }
+
+    private static long cellDelta(UpfCellCounters prevCells, UpfCellCounters currCells, int cellId, int field) {
+        return UpfCellCounters.delta(prevCells.get(cellId, field), currCells.get(cellId, field));
+    }
+
+    private synchronized void reschedulePolling() {
+        if (pollTask != null) {
+            pollTask.cancel(false);
+            pollTask = null;
+        }
+        // Rates computed with a different interval are not comparable.
+        history = ImmutableList.of();
+        uplinkRates = ImmutableMap.of();
+        downlinkRates = ImmutableMap.of();
+        topUes = ImmutableMap.of();
+        counterHistory = null;
+        if (statsPollInterval > 0 && pollExecutor != null) {
+            log.info("Polling UPF counters every {} seconds", statsPollInterval);
+            pollTask = pollExecutor.scheduleAtFixedRate(
+                    this::poll, 0, statsPollInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    private void poll() {
+        if (!up4Service.isReady()) {
+            log.debug("UPF data plane not ready, skipping counters polling");
+            return;
+        }
+        try {
+            long nanos = System.nanoTime();
+            long timestampMillis = System.currentTimeMillis();
+            Collection<UpfTerminationUplink> uplinkTerms = up4Service.readAll(TERMINATION_UPLINK).stream()
+                    .map(t -> (UpfTerminationUplink) t)
+                    .collect(Collectors.toList());
+            Collection<UpfTerminationDownlink> downlinkTerms = up4Service.readAll(TERMINATION_DOWNLINK).stream()
+                    .map(t -> (UpfTerminationDownlink) t)
+                    .collect(Collectors.toList());
+            Collection<UpfCounter> counters = up4Service.readCounters(-1, COUNTER);
+            // Swapped only once everything has been read, the previous values
+            // must be the ones of the last sample in the history.
+            UpfCellCounters cells = prevCells;
+            prevCells = currCells;
+            currCells = cells;
+            cells.load(counters);
+            UpfCountersSample sample = new UpfCountersSample(
+                    timestampMillis, nanos, uplinkTerms, downlinkTerms, cells);
+            List<UpfCountersSample> currHistory = history;
+            if (!currHistory.isEmpty()) {
+                UpfCountersSample prev = currHistory.get(currHistory.size() - 1);
+                uplinkRates = computeRates(prev, sample, UPLINK);
+                downlinkRates = computeRates(prev, sample, DOWNLINK);
+                topUes = computeTopUes();
+                List<UsageRecord> records = usageRecords(prev, sample, prevCells, cells, uplinkTerms, downlinkTerms);
+                writeUsageRecords(records);
+                aggregateTraffic(records, sample);
+            }
+            recordCounterHistory(sample, cells);
+            int skip = Math.max(0, currHistory.size() + 1 - statsHistorySize);
+            history = Stream.concat(currHistory.stream().skip(skip), Stream.of(sample))
+                    .collect(ImmutableList.toImmutableList());
+        } catch (UpfProgrammableException e) {
+            log.warn("Unable to poll UPF counters: {}", e.getMessage());
+        } catch (Exception e) {
+            // Don't let an unexpected exception cancel the periodic task.
+            log.error("Unexpected error while polling UPF counters", e);
+        }
+    }
+
+    private void recordCounterHistory(UpfCountersSample sample, UpfCellCounters cellCounters) {
+        if (statsHistoryRetention <= 0) {
+            return;
+        }
+        UpfCounterHistory currHistory = counterHistory;
+        if (currHistory == null) {
+            int cells;
+            try {
+                cells = (int) Math.min(up4Service.tableSize(COUNTER), Integer.MAX_VALUE);
+            } catch (UpfProgrammableException e) {
+                log.warn("Unable to get the counter table size: {}", e.getMessage());
+                return;
+            }
+            long wantedSlots = Math.max(1, (statsHistoryRetention + statsPollInterval - 1) / statsPollInterval);
+            int slots = (int) Math.min(wantedSlots, UpfCounterHistory.maxSlots(cells));
+            if (slots < wantedSlots) {
+                log.warn("Counter history limited to {} samples instead of {}", slots, wantedSlots);
+            }
+            currHistory = new UpfCounterHistory(cells, slots);
+            counterHistory = currHistory;
+            log.info("Allocated counter history of {} samples for {} cells ({} bytes off-heap)",
+                     slots, cells, currHistory.memoryBytes());
+        }
+        currHistory.record(sample.timestampMillis(), sample.nanos(), cellCounters);
+    }
+
+    /**
+     * Computes the rates of the UEs present in both samples, from the
+     * increments of the counter cells of the UE terminations present in both
+     * samples. A counter cell going backwards (e.g., reused by a new
+     * termination) is considered as restarted from 0, its new value is
+     * counted as the increment.
+     *
+     * @param prev      the previous sample
+     * @param curr      the current sample
+     * @param direction the traffic direction
+     * @return map of UE address to traffic rate
+     */
+    static Map<Ip4Address, UeTrafficRate> computeRates(UpfCountersSample prev, UpfCountersSample curr,
+                                                       UeTrafficRate.Direction direction) {
+        double intervalS = (curr.nanos() - prev.nanos()) / 1e9;
+        ImmutableMap.Builder<Ip4Address, UeTrafficRate> rates = ImmutableMap.builder();
+        for (Ip4Address ue : curr.ues(direction)) {
+            long[] deltas = curr.ueDeltas(prev, ue, direction);
+            if (deltas == null) {
+                continue;
+            }
+            rates.put(ue, new UeTrafficRate(
+                    ue, direction, intervalS,
+                    deltas[RX_PKTS], deltas[RX_BYTES], deltas[TX_PKTS], deltas[TX_BYTES]));
+        }
+        return rates.build();
+    }
+
+    private Map<Pair<UeTrafficRate.Direction, UeTrafficRate.Metric>, List<UeTrafficRate>> computeTopUes() {
+        ImmutableMap.Builder<Pair<UeTrafficRate.Direction, UeTrafficRate.Metric>, List<UeTrafficRate>> top =
+                ImmutableMap.builder();
+        for (UeTrafficRate.Metric metric : UeTrafficRate.Metric.values()) {
+            top.put(Pair.of(UPLINK, metric), TopUeRates.top(uplinkRates.values(), statsTopUes, metric));
+            top.put(Pair.of(DOWNLINK, metric), TopUeRates.top(downlinkRates.values(), statsTopUes, metric));
+        }
+        return top.build();
+    }
+
+    @Override
+    public boolean isPollingEnabled() {
+        return statsPollInterval > 0;
+    }
+
+    @Override
+    public long pollInterval() {
+        return statsPollInterval;
+    }
+
+    @Override
+    public List<UpfCountersSample> history() {
+        return history;
+    }
+
+    @Override
+    public Optional<UpfCountersSample> latestSample() {
+        List<UpfCountersSample> currHistory = history;
+        return currHistory.isEmpty() ? Optional.empty() : Optional.of(currHistory.get(currHistory.size() - 1));
+    }
+
+    @Override
+    public boolean isCounterHistoryEnabled() {
+        return isPollingEnabled() && statsHistoryRetention > 0;
+    }
+
+    @Override
+    public SortedMap<Long, UeTrafficRate> ueHistory(Ip4Address ueAddress, UeTrafficRate.Direction direction,
+                                                    long sinceMillis) {
+        UpfCounterHistory currHistory = counterHistory;
+        if (currHistory == null) {
+            return ImmutableSortedMap.of();
+        }
+        // Resolve the UE counter cells via the current terminations, the
+        // samples only keep the per-UE totals.
+        Collection<Integer> cellIds;
+        try {
+            cellIds = direction == UPLINK ?
+                    up4Service.readAll(TERMINATION_UPLINK).stream()
+                            .map(t -> (UpfTerminationUplink) t)
+                            .filter(t -> t.ueSessionId().equals(ueAddress))
+                            .map(UpfTerminationUplink::counterId)
+                            .collect(Collectors.toSet()) :
+                    up4Service.readAll(TERMINATION_DOWNLINK).stream()
+                            .map(t -> (UpfTerminationDownlink) t)
+                            .filter(t -> t.ueSessionId().equals(ueAddress))
+                            .map(UpfTerminationDownlink::counterId)
+                            .collect(Collectors.toSet());
+        } catch (UpfProgrammableException e) {
+            log.warn("Unable to read the terminations of UE {}: {}", ueAddress, e.getMessage());
+            return ImmutableSortedMap.of();
+        }
+        if (cellIds.isEmpty()) {
+            return ImmutableSortedMap.of();
+        }
+        ImmutableSortedMap.Builder<Long, UeTrafficRate> result = ImmutableSortedMap.naturalOrder();
+        currHistory.query(cellIds, sinceMillis).forEach((timestamp, increments) -> result.put(
+                timestamp, new UeTrafficRate(
+                        ueAddress, direction, increments.intervalNanos() / 1e9,
+                        increments.get(UpfCounterHistory.INGRESS_PKTS),
+                        increments.get(UpfCounterHistory.INGRESS_BYTES),
+                        increments.get(UpfCounterHistory.EGRESS_PKTS),
+                        increments.get(UpfCounterHistory.EGRESS_BYTES))));
+        return result.build();
+    }
+
+    @Override
+    public Optional<Path> usageLogDirectory() {
+        return usageLogDirectory.isEmpty() ? Optional.empty() : Optional.of(Paths.get(usageLogDirectory));
+    }
+
+    @Override
+    public UpfTrafficAggregator trafficAggregator() {
+        return trafficAggregator;
+    }
+
+    @Override
+    public List<UeTrafficRate> topUes(int n, UeTrafficRate.Metric metric, UeTrafficRate.Direction direction) {
+        if (n <= 0) {
+            return ImmutableList.of();
+        }
+        List<UeTrafficRate> top = topUes.getOrDefault(Pair.of(direction, metric), ImmutableList.of());
+        if (n <= top.size()) {
+            return top.subList(0, n);
+        }
+        if (top.size() < statsTopUes) {
+            // Fewer UEs than the pre-selected ones, nothing else to rank
+            return top;
+        }
+        return TopUeRates.top((direction == UPLINK ? uplinkRates : downlinkRates).values(), n, metric);
+    }
+
+    @Override
+    public Collection<UeTrafficRate> rates() {
+        return ImmutableList.<UeTrafficRate>builder()
+                .addAll(uplinkRates.values())
+                .addAll(downlinkRates.values())
+                .build();
+    }
+
+    @Override
+    public Optional<UeTrafficRate> rate(Ip4Address ueAddress, UeTrafficRate.Direction direction) {
+        return Optional.ofNullable((direction == UPLINK ? uplinkRates : downlinkRates).get(ueAddress));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.annotations.Beta;
+import org.onlab.packet.Ip4Address;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+
+/**
+ * UP4 traffic statistics, computed from the UPF counters periodically
+ * sampled in background.
+ */
+@Beta
+public interface Up4StatsService {
+
+    /**
+     * Returns true if the background counter polling is enabled.
+     *
+     * @return true if polling is enabled
+     */
+    boolean isPollingEnabled();
+
+    /**
+     * Returns the interval between counter samples.
+     *
+     * @return the polling interval in seconds, 0 if disabled
+     */
+    long pollInterval();
+
+    /**
+     * Returns the most recent counter samples, oldest first.
+     *
+     * @return the counter samples
+     */
+    List<UpfCountersSample> history();
+
+    /**
+     * Returns the most recent counter sample, if any.
+     *
+     * @return the latest counter sample
+     */
+    Optional<UpfCountersSample> latestSample();
+
+    /**
+     * Returns true if the off-heap counter history is enabled.
+     *
+     * @return true if the counter history is enabled
+     */
+    boolean isCounterHistoryEnabled();
+
+    /**
+     * Returns the traffic history of the given UE in the given direction.
+     * The UE counter cells are resolved via the terminations of the most
+     * recent sample.
+     *
+     * @param ueAddress   the UE address
+     * @param direction   the traffic direction
+     * @param sinceMillis the wall-clock time of the oldest entry to return
+     * @return map of sample time (milliseconds since the epoch) to the UE
+     * traffic in the interval ending at that time
+     */
+    SortedMap<Long, UeTrafficRate> ueHistory(Ip4Address ueAddress, UeTrafficRate.Direction direction,
+                                             long sinceMillis);
+
+    /**
+     * Returns the directory of the usage record log, if enabled.
+     *
+     * @return the usage log directory
+     * @see UsageRecordLog
+     */
+    Optional<Path> usageLogDirectory();
+
+    /**
+     * Returns the slice, application and UE traffic totals, updated at each
+     * counter sample.
+     *
+     * @return the traffic aggregator
+     */
+    UpfTrafficAggregator trafficAggregator();
+
+    /**
+     * Returns the N UEs with the highest traffic rate in the given direction,
+     * according to the given metric, in descending order. The top UEs are
+     * pre-selected at each sample, larger N require ranking all the rates.
+     *
+     * @param n         the number of UEs
+     * @param metric    the ranking metric
+     * @param direction the traffic direction
+     * @return the top UE traffic rates
+     */
+    List<UeTrafficRate> topUes(int n, UeTrafficRate.Metric metric, UeTrafficRate.Direction direction);
+
+    /**
+     * Returns the traffic rates of all UEs, in both directions, computed
+     * between the two most recent samples.
+     *
+     * @return the UE traffic rates
+     */
+    Collection<UeTrafficRate> rates();
+
+    /**
+     * Returns the traffic rate of the given UE in the given direction,
+     * computed between the two most recent samples.
+     *
+     * @param ueAddress the UE address
+     * @param direction the traffic direction
+     * @return the UE traffic rate, if available
+     */
+    Optional<UeTrafficRate> rate(Ip4Address ueAddress, UeTrafficRate.Direction direction);
+}
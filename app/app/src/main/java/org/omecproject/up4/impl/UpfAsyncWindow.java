@@ -0,0 +1,273 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.omecproject.up4.impl.UpfWriteLaneStats.Lane;
+import org.onosproject.net.behaviour.upf.UpfProgrammableException;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded window of outstanding asynchronous UPF device operations.
+ * Operations submitted when the window is full are queued, without blocking
+ * the caller, and started as soon as an outstanding operation completes.
+ * Operations are not ordered with each other, callers requiring ordering
+ * must chain the returned futures.
+ * <p>
+ * Queued operations are dispatched by priority lane, so that latency-critical
+ * writes are not delayed by bulk operations. A lower lane skipped
+ * {@link #STARVATION_LIMIT} times in a row while having queued operations is
+ * served next, thus bulk operations still progress under urgent load.
+ */
+final class UpfAsyncWindow {
+
+    /**
+     * Blocking operation on the UPF devices.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    interface DeviceOperation<T> {
+        T run() throws UpfProgrammableException;
+    }
+
+    // Consecutive dispatches from higher lanes after which a waiting lower lane is served
+    static final int STARVATION_LIMIT = 8;
+
+    private final Executor executor;
+    private final UpfWriteLaneStats stats;
+    private final List<Queue<PendingOperation<?>>> lanes;
+    // Guarded by this
+    private final int[] skipped = new int[Lane.values().length];
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile int window;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new window executing the operations with the given executor.
+     *
+     * @param executor the executor of the blocking operations
+     * @param window   the maximum number of outstanding operations
+     */
+    UpfAsyncWindow(Executor executor, int window) {
+        this(executor, window, new UpfWriteLaneStats());
+    }
+
+    /**
+     * Creates a new window executing the operations with the given executor
+     * and recording the lane statistics in the given object.
+     *
+     * @param executor the executor of the blocking operations
+     * @param window   the maximum number of outstanding operations
+     * @param stats    the lane statistics
+     */
+    UpfAsyncWindow(Executor executor, int window, UpfWriteLaneStats stats) {
+        this.executor = executor;
+        this.stats = stats;
+        ImmutableList.Builder<Queue<PendingOperation<?>>> builder = ImmutableList.builder();
+        for (int i = 0; i < Lane.values().length; i++) {
+            builder.add(new ConcurrentLinkedQueue<>());
+        }
+        this.lanes = builder.build();
+        setWindow(window);
+    }
+
+    /**
+     * Sets the maximum number of outstanding operations. Values lower than 1
+     * are treated as 1.
+     *
+     * @param window the maximum number of outstanding operations
+     */
+    void setWindow(int window) {
+        this.window = Math.max(1, window);
+        drain();
+    }
+
+    /**
+     * Returns the maximum number of outstanding operations.
+     *
+     * @return the window size
+     */
+    int window() {
+        return window;
+    }
+
+    /**
+     * Returns the number of operations currently executing.
+     *
+     * @return number of outstanding operations
+     */
+    int outstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * Returns the number of operations waiting for the window.
+     *
+     * @return number of queued operations
+     */
+    int queued() {
+        return lanes.stream().mapToInt(Queue::size).sum();
+    }
+
+    /**
+     * Returns the number of operations of the given lane waiting for the window.
+     *
+     * @param lane the lane
+     * @return number of queued operations
+     */
+    int queued(Lane lane) {
+        return lanes.get(lane.ordinal()).size();
+    }
+
+    /**
+     * Submits the given operation in the normal lane.
+     *
+     * @param operation the operation
+     * @param <T>       the result type
+     * @return the future result of the operation
+     * @see #submit(Lane, DeviceOperation)
+     */
+    <T> CompletableFuture<T> submit(DeviceOperation<T> operation) {
+        return submit(Lane.NORMAL, operation);
+    }
+
+    /**
+     * Submits the given operation in the given lane. The returned future is
+     * completed with the operation result, or exceptionally with the
+     * operation exception.
+     *
+     * @param lane      the priority lane
+     * @param operation the operation
+     * @param <T>       the result type
+     * @return the future result of the operation
+     */
+    <T> CompletableFuture<T> submit(Lane lane, DeviceOperation<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(closedException());
+            return future;
+        }
+        stats.queued(lane);
+        lanes.get(lane.ordinal()).add(new PendingOperation<>(lane, operation, future));
+        drain();
+        if (closed) {
+            // Closed while queuing
+            close();
+        }
+        return future;
+    }
+
+    /**
+     * Closes the window, failing all queued and future operations.
+     * Outstanding operations are not interrupted.
+     */
+    void close() {
+        closed = true;
+        for (Queue<PendingOperation<?>> queue : lanes) {
+            PendingOperation<?> pending;
+            while ((pending = queue.poll()) != null) {
+                stats.dropped(pending.lane);
+                pending.future.completeExceptionally(closedException());
+            }
+        }
+    }
+
+    private void drain() {
+        while (queued() > 0) {
+            int current = outstanding.get();
+            if (current >= window) {
+                return;
+            }
+            if (!outstanding.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            PendingOperation<?> pending = pollNext();
+            if (pending == null) {
+                outstanding.decrementAndGet();
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        pending.run();
+                    } finally {
+                        outstanding.decrementAndGet();
+                        drain();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                outstanding.decrementAndGet();
+                pending.future.completeExceptionally(closedException());
+            }
+        }
+    }
+
+    private synchronized PendingOperation<?> pollNext() {
+        // Serve first the lower lanes starved by the higher ones
+        for (int i = 1; i < lanes.size(); i++) {
+            if (skipped[i] >= STARVATION_LIMIT) {
+                PendingOperation<?> pending = lanes.get(i).poll();
+                if (pending != null) {
+                    skipped[i] = 0;
+                    stats.dispatched(pending.lane, true);
+                    return pending;
+                }
+            }
+        }
+        for (int i = 0; i < lanes.size(); i++) {
+            PendingOperation<?> pending = lanes.get(i).poll();
+            if (pending != null) {
+                skipped[i] = 0;
+                for (int j = i + 1; j < lanes.size(); j++) {
+                    if (!lanes.get(j).isEmpty()) {
+                        skipped[j]++;
+                    }
+                }
+                stats.dispatched(pending.lane, false);
+                return pending;
+            }
+        }
+        return null;
+    }
+
+    private static UpfProgrammableException closedException() {
+        return new UpfProgrammableException("UP4 is shutting down, operation not executed");
+    }
+
+    private final class PendingOperation<T> implements Runnable {
+        private final Lane lane;
+        private final DeviceOperation<T> operation;
+        private final CompletableFuture<T> future;
+        private final long submittedNanos = System.nanoTime();
+
+        private PendingOperation(Lane lane, DeviceOperation<T> operation, CompletableFuture<T> future) {
+            this.lane = lane;
+            this.operation = operation;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                // Cancelled by the caller while queued
+                return;
+            }
+            try {
+                future.complete(operation.run());
+            } catch (UpfProgrammableException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            stats.completed(lane, System.nanoTime() - submittedNanos);
+        }
+    }
+}
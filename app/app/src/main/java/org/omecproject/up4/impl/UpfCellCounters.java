@@ -0,0 +1,127 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.onosproject.net.behaviour.upf.UpfCounter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Counter cell values read from the UPF data plane, stored in a primitive
+ * array indexed by cell ID. Instances are meant to be reused across polls,
+ * the array grows only when a larger cell ID is read.
+ * <p>
+ * Not thread safe.
+ */
+final class UpfCellCounters {
+
+    static final int INGRESS_PKTS = 0;
+    static final int INGRESS_BYTES = 1;
+    static final int EGRESS_PKTS = 2;
+    static final int EGRESS_BYTES = 3;
+
+    private static final int FIELDS = 4;
+
+    private final BitSet cells = new BitSet();
+    private long[] values = new long[0];
+
+    /**
+     * Replaces the cell values with the given counters.
+     *
+     * @param counters the counters
+     */
+    void load(Collection<UpfCounter> counters) {
+        cells.clear();
+        counters.forEach(this::set);
+    }
+
+    /**
+     * Sets the values of the cell of the given counter.
+     *
+     * @param counter the counter
+     */
+    void set(UpfCounter counter) {
+        int cellId = counter.getCellId();
+        if (cellId < 0) {
+            return;
+        }
+        int offset = cellId * FIELDS;
+        if (offset + FIELDS > values.length) {
+            values = Arrays.copyOf(values, Math.max(offset + FIELDS, values.length * 2));
+        }
+        cells.set(cellId);
+        values[offset + INGRESS_PKTS] = counter.getIngressPkts().orElse(0L);
+        values[offset + INGRESS_BYTES] = counter.getIngressBytes().orElse(0L);
+        values[offset + EGRESS_PKTS] = counter.getEgressPkts().orElse(0L);
+        values[offset + EGRESS_BYTES] = counter.getEgressBytes().orElse(0L);
+    }
+
+    /**
+     * Returns true if the given cell has been read.
+     *
+     * @param cellId the cell ID
+     * @return true if the cell has a value
+     */
+    boolean contains(int cellId) {
+        return cellId >= 0 && cells.get(cellId);
+    }
+
+    /**
+     * Returns a value of the given cell, which must have been read.
+     *
+     * @param cellId the cell ID
+     * @param field  {@link #INGRESS_PKTS}, {@link #INGRESS_BYTES},
+     *               {@link #EGRESS_PKTS} or {@link #EGRESS_BYTES}
+     * @return the value
+     */
+    long get(int cellId, int field) {
+        return values[cellId * FIELDS + field];
+    }
+
+    /**
+     * Returns the increment of a cell value between two reads. Only valid for
+     * the values of the same cell: a cell going backwards restarted from 0
+     * (e.g., reused by a new termination), thus its new value is the
+     * increment.
+     *
+     * @param before the previous value of the cell
+     * @param after  the current value of the cell
+     * @return the increment
+     */
+    static long delta(long before, long after) {
+        return after >= before ? after - before : after;
+    }
+
+    /**
+     * Returns the counter of the given cell, built from the cell values.
+     *
+     * @param cellId the cell ID
+     * @return the counter, or null if the cell has not been read
+     */
+    UpfCounter counter(int cellId) {
+        if (!contains(cellId)) {
+            return null;
+        }
+        int offset = cellId * FIELDS;
+        return UpfCounter.builder()
+                .withCellId(cellId)
+                .setIngress(values[offset + INGRESS_PKTS], values[offset + INGRESS_BYTES])
+                .setEgress(values[offset + EGRESS_PKTS], values[offset + EGRESS_BYTES])
+                .build();
+    }
+
+    /**
+     * Returns the first cell read with ID equal or greater than the given
+     * one.
+     *
+     * @param fromCellId the cell ID to start from
+     * @return the cell ID, or -1 if there are no more cells
+     */
+    int nextCell(int fromCellId) {
+        return cells.nextSetBit(fromCellId);
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.FlowRule;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Convergence statistics of the follower UPF devices. Tracks the time from a
+ * leader flow rule add request to the corresponding rule being added on each
+ * follower, and how many rules reached the followers via the event-driven
+ * mirroring versus the periodic reconciliation. Leader rule removals are
+ * tracked as well until removed on each follower, so that a follower still
+ * having a rule removed from the leader is not considered in sync. Also
+ * tracks the entities re-pushed on the leader when reconciling it with the
+ * intended UPF state.
+ */
+public final class UpfConvergenceStats {
+
+    // Bound the tracked leader rules, so that rules that never converge
+    // (e.g., follower down) cannot grow the map indefinitely.
+    static final int MAX_PENDING_RULES = 100_000;
+
+    private final Map<DeviceId, DeviceStats> deviceStats = Maps.newConcurrentMap();
+    private final Map<FlowRule, PendingRule> pendingRules = Maps.newConcurrentMap();
+    private final AtomicLong untrackedRules = new AtomicLong();
+    private final AtomicLong leaderReconciliations = new AtomicLong();
+    private final AtomicLong leaderRepairedEntities = new AtomicLong();
+    private final AtomicLong leaderRepairFailures = new AtomicLong();
+
+    /**
+     * Per follower device statistics.
+     */
+    public static final class DeviceStats {
+        private final LatencyHistogram convergence = new LatencyHistogram();
+        private final AtomicLong mirroredFlowRules = new AtomicLong();
+        private final AtomicLong mirroredMeters = new AtomicLong();
+        private final AtomicLong reconciledFlowRulesAdded = new AtomicLong();
+        private final AtomicLong reconciledFlowRulesModified = new AtomicLong();
+        private final AtomicLong reconciledFlowRulesRemoved = new AtomicLong();
+        private final AtomicLong reconciledMetersAdded = new AtomicLong();
+        private final AtomicLong reconciledMetersModified = new AtomicLong();
+        private final AtomicLong reconciledMetersRemoved = new AtomicLong();
+
+        /**
+         * Returns the histogram of the leader add request to follower added latency.
+         *
+         * @return the convergence latency histogram
+         */
+        public LatencyHistogram convergence() {
+            return convergence;
+        }
+
+        @Override
+        public String toString() {
+            return "convergence: " + convergence +
+                    "\n    mirrored: flow_rules=" + mirroredFlowRules.get() +
+                    ", meters=" + mirroredMeters.get() +
+                    "\n    repaired by reconciliation: flow_rules(added=" + reconciledFlowRulesAdded.get() +
+                    ", modified=" + reconciledFlowRulesModified.get() +
+                    ", removed=" + reconciledFlowRulesRemoved.get() +
+                    "), meters(added=" + reconciledMetersAdded.get() +
+                    ", modified=" + reconciledMetersModified.get() +
+                    ", removed=" + reconciledMetersRemoved.get() + ")";
+        }
+
+        private void reset() {
+            convergence.reset();
+            mirroredFlowRules.set(0);
+            mirroredMeters.set(0);
+            reconciledFlowRulesAdded.set(0);
+            reconciledFlowRulesModified.set(0);
+            reconciledFlowRulesRemoved.set(0);
+            reconciledMetersAdded.set(0);
+            reconciledMetersModified.set(0);
+            reconciledMetersRemoved.set(0);
+        }
+    }
+
+    private static final class PendingRule {
+        private final long requestedNanos;
+        private final boolean removal;
+        private final Set<DeviceId> awaiting;
+
+        private PendingRule(long requestedNanos, boolean removal, Collection<DeviceId> followers) {
+            this.requestedNanos = requestedNanos;
+            this.removal = removal;
+            this.awaiting = Sets.newConcurrentHashSet(followers);
+        }
+    }
+
+    /**
+     * Returns the statistics of all follower devices.
+     *
+     * @return map of device ID to device statistics
+     */
+    public Map<DeviceId, DeviceStats> deviceStats() {
+        return ImmutableMap.copyOf(deviceStats);
+    }
+
+    /**
+     * Returns the number of leader rule additions and removals currently
+     * waiting to converge on at least one follower.
+     *
+     * @return number of pending leader rules
+     */
+    public int pendingRules() {
+        return pendingRules.size();
+    }
+
+    /**
+     * Returns the number of leader rules that were not tracked because too
+     * many rules were pending.
+     *
+     * @return number of untracked leader rules
+     */
+    public long untrackedRules() {
+        return untrackedRules.get();
+    }
+
+    /**
+     * Returns the number of reconciliations of the leader with the intended
+     * UPF state.
+     *
+     * @return number of leader reconciliations
+     */
+    public long leaderReconciliations() {
+        return leaderReconciliations.get();
+    }
+
+    /**
+     * Returns the number of UPF entities missing or different on the leader
+     * that have been re-pushed from the intended UPF state.
+     *
+     * @return number of repaired leader entities
+     */
+    public long leaderRepairedEntities() {
+        return leaderRepairedEntities.get();
+    }
+
+    /**
+     * Returns the number of UPF entities that failed to be re-pushed on the
+     * leader.
+     *
+     * @return number of failed leader repairs
+     */
+    public long leaderRepairFailures() {
+        return leaderRepairFailures.get();
+    }
+
+    /**
+     * Clears all statistics.
+     */
+    public void reset() {
+        pendingRules.clear();
+        untrackedRules.set(0);
+        leaderReconciliations.set(0);
+        leaderRepairedEntities.set(0);
+        leaderRepairFailures.set(0);
+        deviceStats.values().forEach(DeviceStats::reset);
+    }
+
+    DeviceStats device(DeviceId deviceId) {
+        return deviceStats.computeIfAbsent(deviceId, k -> new DeviceStats());
+    }
+
+    /**
+     * Starts tracking the convergence of the given leader rule on the given
+     * followers.
+     *
+     * @param leaderRule     the flow rule requested on the leader
+     * @param followers      the follower devices
+     * @param requestedNanos the request time, as given by {@link System#nanoTime()}
+     */
+    void leaderRuleRequested(FlowRule leaderRule, Collection<DeviceId> followers, long requestedNanos) {
+        track(leaderRule, new PendingRule(requestedNanos, false, followers));
+    }
+
+    /**
+     * Starts tracking the removal of the given leader rule from the given
+     * followers, replacing the tracking of its addition, if any.
+     *
+     * @param leaderRule     the flow rule removed from the leader
+     * @param followers      the follower devices
+     * @param requestedNanos the request time, as given by {@link System#nanoTime()}
+     */
+    void leaderRuleRemoveRequested(FlowRule leaderRule, Collection<DeviceId> followers, long requestedNanos) {
+        // The addition doesn't need to converge anymore
+        pendingRules.remove(leaderRule);
+        track(leaderRule, new PendingRule(requestedNanos, true, followers));
+    }
+
+    private void track(FlowRule leaderRule, PendingRule pending) {
+        if (pending.awaiting.isEmpty()) {
+            pendingRules.remove(leaderRule);
+            return;
+        }
+        if (pendingRules.size() >= MAX_PENDING_RULES && !pendingRules.containsKey(leaderRule)) {
+            untrackedRules.incrementAndGet();
+            return;
+        }
+        pendingRules.put(leaderRule, pending);
+    }
+
+    /**
+     * Records that the given leader rule has been added on the given follower.
+     *
+     * @param leaderRule  the follower rule, translated back to the leader device
+     * @param follower    the follower device
+     * @param addedNanos  the time the rule was added on the follower
+     */
+    void followerRuleAdded(FlowRule leaderRule, DeviceId follower, long addedNanos) {
+        PendingRule pending = pendingRules.get(leaderRule);
+        if (pending == null || pending.removal || !pending.awaiting.remove(follower)) {
+            return;
+        }
+        device(follower).convergence.record(addedNanos - pending.requestedNanos);
+        if (pending.awaiting.isEmpty()) {
+            pendingRules.remove(leaderRule, pending);
+        }
+    }
+
+    /**
+     * Records that the given leader rule has been removed from the given
+     * follower.
+     *
+     * @param leaderRule the follower rule, translated back to the leader device
+     * @param follower   the follower device
+     */
+    void followerRuleRemoved(FlowRule leaderRule, DeviceId follower) {
+        PendingRule pending = pendingRules.get(leaderRule);
+        if (pending == null || !pending.removal || !pending.awaiting.remove(follower)) {
+            return;
+        }
+        if (pending.awaiting.isEmpty()) {
+            pendingRules.remove(leaderRule, pending);
+        }
+    }
+
+    /**
+     * Returns true if there are leader rules waiting to converge.
+     *
+     * @return true if there are pending leader rules
+     */
+    boolean hasPendingRules() {
+        return !pendingRules.isEmpty();
+    }
+
+    /**
+     * Returns true if leader rule additions or removals are waiting to
+     * converge on the given follower, or if it cannot be known because rules
+     * were not tracked.
+     *
+     * @param follower the follower device
+     * @return true if the follower might miss leader rules, or still have
+     * rules removed from the leader
+     */
+    boolean isAwaiting(DeviceId follower) {
+        return pendingRules.size() >= MAX_PENDING_RULES ||
+                pendingRules.values().stream().anyMatch(p -> p.awaiting.contains(follower));
+    }
+
+    /**
+     * Stops tracking leader rules requested before the given time.
+     *
+     * @param olderThanNanos the expiration time, as given by {@link System#nanoTime()}
+     */
+    void expirePendingRules(long olderThanNanos) {
+        pendingRules.values().removeIf(p -> p.requestedNanos - olderThanNanos < 0);
+    }
+
+    void flowRulesMirrored(DeviceId deviceId, int count) {
+        device(deviceId).mirroredFlowRules.addAndGet(count);
+    }
+
+    void metersMirrored(DeviceId deviceId, int count) {
+        device(deviceId).mirroredMeters.addAndGet(count);
+    }
+
+    void flowRulesReconciled(DeviceId deviceId, int added, int modified, int removed) {
+        DeviceStats stats = device(deviceId);
+        stats.reconciledFlowRulesAdded.addAndGet(added);
+        stats.reconciledFlowRulesModified.addAndGet(modified);
+        stats.reconciledFlowRulesRemoved.addAndGet(removed);
+    }
+
+    void leaderReconciled(int repaired, int failed) {
+        leaderReconciliations.incrementAndGet();
+        leaderRepairedEntities.addAndGet(repaired);
+        leaderRepairFailures.addAndGet(failed);
+    }
+
+    void metersReconciled(DeviceId deviceId, int added, int modified, int removed) {
+        DeviceStats stats = device(deviceId);
+        stats.reconciledMetersAdded.addAndGet(added);
+        stats.reconciledMetersModified.addAndGet(modified);
+        stats.reconciledMetersRemoved.addAndGet(removed);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.onosproject.net.behaviour.upf.UpfCounter;
+import org.onosproject.net.behaviour.upf.UpfEntityType;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.onosproject.net.behaviour.upf.UpfEntityType.EGRESS_COUNTER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.INGRESS_COUNTER;
+
+/**
+ * Aggregates the counter values read from multiple UPF devices into
+ * primitive arrays indexed by counter cell ID. The arrays are allocated
+ * once and reused by the following aggregations, growing only when a larger
+ * cell ID is read. The aggregated values are then copied into compact
+ * arrays holding only the cells read, and {@link UpfCounter} instances are
+ * built only when the aggregated collection is iterated.
+ */
+final class UpfCounterAggregator {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final BitSet cells = new BitSet();
+    private long[] ingressPkts;
+    private long[] ingressBytes;
+    private long[] egressPkts;
+    private long[] egressBytes;
+
+    /**
+     * Creates a new aggregator with the default capacity.
+     */
+    UpfCounterAggregator() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new aggregator.
+     *
+     * @param capacity the initial number of counter cells
+     */
+    UpfCounterAggregator(int capacity) {
+        this.ingressPkts = new long[capacity];
+        this.ingressBytes = new long[capacity];
+        this.egressPkts = new long[capacity];
+        this.egressBytes = new long[capacity];
+    }
+
+    /**
+     * Aggregates the counters read from multiple UPF devices. The returned
+     * collection does not depend on the aggregator buffers, it stays valid
+     * after the following aggregations.
+     *
+     * @param deviceCounters the counters read from each UPF device
+     * @param type           the counter type (COUNTER, INGRESS_COUNTER or EGRESS_COUNTER)
+     * @param maxCounterId   the expected number of counter cells, or a
+     *                       negative value if unknown
+     * @return the aggregated counters
+     */
+    synchronized Collection<UpfCounter> aggregate(Collection<? extends Collection<UpfCounter>> deviceCounters,
+                                                  UpfEntityType type, long maxCounterId) {
+        if (maxCounterId > 0) {
+            ensureCapacity((int) Math.min(maxCounterId, Integer.MAX_VALUE) - 1);
+        }
+        deviceCounters.forEach(counters -> counters.forEach(this::add));
+        Aggregated aggregated = new Aggregated(type, cells.cardinality());
+        int i = 0;
+        for (int cellId = cells.nextSetBit(0); cellId >= 0; cellId = cells.nextSetBit(cellId + 1)) {
+            aggregated.cellIds[i] = cellId;
+            aggregated.ingressPkts[i] = ingressPkts[cellId];
+            aggregated.ingressBytes[i] = ingressBytes[cellId];
+            aggregated.egressPkts[i] = egressPkts[cellId];
+            aggregated.egressBytes[i] = egressBytes[cellId];
+            // Only the cells read are cleared for the next aggregation
+            ingressPkts[cellId] = 0;
+            ingressBytes[cellId] = 0;
+            egressPkts[cellId] = 0;
+            egressBytes[cellId] = 0;
+            i++;
+        }
+        cells.clear();
+        return aggregated;
+    }
+
+    /**
+     * Returns the number of counter cells of the reused buffers.
+     *
+     * @return the buffer capacity
+     */
+    synchronized int capacity() {
+        return ingressPkts.length;
+    }
+
+    private void add(UpfCounter counter) {
+        int cellId = counter.getCellId();
+        ensureCapacity(cellId);
+        cells.set(cellId);
+        ingressPkts[cellId] += counter.getIngressPkts().orElse(0L);
+        ingressBytes[cellId] += counter.getIngressBytes().orElse(0L);
+        egressPkts[cellId] += counter.getEgressPkts().orElse(0L);
+        egressBytes[cellId] += counter.getEgressBytes().orElse(0L);
+    }
+
+    private void ensureCapacity(int cellId) {
+        if (cellId < ingressPkts.length) {
+            return;
+        }
+        int capacity = Math.max(cellId + 1, ingressPkts.length * 2);
+        ingressPkts = Arrays.copyOf(ingressPkts, capacity);
+        ingressBytes = Arrays.copyOf(ingressBytes, capacity);
+        egressPkts = Arrays.copyOf(egressPkts, capacity);
+        egressBytes = Arrays.copyOf(egressBytes, capacity);
+    }
+
+    /**
+     * Read-only view of aggregated counters. Each iteration builds new
+     * {@link UpfCounter} instances from the aggregated values.
+     */
+    private static final class Aggregated extends AbstractCollection<UpfCounter> {
+        private final UpfEntityType type;
+        private final int[] cellIds;
+        private final long[] ingressPkts;
+        private final long[] ingressBytes;
+        private final long[] egressPkts;
+        private final long[] egressBytes;
+
+        private Aggregated(UpfEntityType type, int size) {
+            this.type = type;
+            this.cellIds = new int[size];
+            this.ingressPkts = new long[size];
+            this.ingressBytes = new long[size];
+            this.egressPkts = new long[size];
+            this.egressBytes = new long[size];
+        }
+
+        @Override
+        public Iterator<UpfCounter> iterator() {
+            return new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < cellIds.length;
+                }
+
+                @Override
+                public UpfCounter next() {
+                    if (next >= cellIds.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return build(next++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return cellIds.length;
+        }
+
+        private UpfCounter build(int i) {
+            UpfCounter.Builder builder = UpfCounter.builder().withCellId(cellIds[i]);
+            if (type.equals(INGRESS_COUNTER)) {
+                builder.isIngressCounter().setIngress(ingressPkts[i], ingressBytes[i]);
+            } else if (type.equals(EGRESS_COUNTER)) {
+                builder.isEgressCounter().setEgress(egressPkts[i], egressBytes[i]);
+            } else {
+                builder.setIngress(ingressPkts[i], ingressBytes[i])
+                        .setEgress(egressPkts[i], egressBytes[i]);
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.Maps;
+import org.apache.commons.lang3.tuple.Pair;
+import org.onosproject.net.behaviour.upf.UpfCounter;
+import org.onosproject.net.behaviour.upf.UpfEntityType;
+import org.onosproject.net.behaviour.upf.UpfProgrammableException;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the counters read from the UPF devices, with bounded staleness.
+ * Concurrent reads of the same counters share a single read from the UPF
+ * devices. The cache is disabled when the maximum age is 0.
+ */
+public final class UpfCounterCache {
+
+    /**
+     * Reader of the counters from the UPF devices.
+     */
+    @FunctionalInterface
+    interface CounterReader {
+        Collection<UpfCounter> read(long maxCounterId, UpfEntityType type) throws UpfProgrammableException;
+    }
+
+    private static final class CachedCounters {
+        private final long readNanos;
+        private final Collection<UpfCounter> counters;
+
+        private CachedCounters(long readNanos, Collection<UpfCounter> counters) {
+            this.readNanos = readNanos;
+            this.counters = counters;
+        }
+    }
+
+    private final Map<Pair<Long, UpfEntityType>, CachedCounters> cache = Maps.newConcurrentMap();
+    private final Map<Pair<Long, UpfEntityType>, CompletableFuture<Collection<UpfCounter>>> inFlight =
+            Maps.newConcurrentMap();
+    // Incremented on invalidation, so that in-flight reads don't cache stale counters
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile long maxAgeMillis;
+
+    /**
+     * Creates a new counter cache.
+     *
+     * @param maxAgeMillis the maximum age of the cached counters in milliseconds
+     */
+    UpfCounterCache(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * Reads the given counters, from the cache if fresh enough, otherwise
+     * via the given reader. If a read of the same counters is already in
+     * progress, waits for its result instead of issuing a new read.
+     *
+     * @param maxCounterId the maximum counter ID to read
+     * @param type         the counter type
+     * @param reader       the reader of the counters from the UPF devices
+     * @return the counters
+     * @throws UpfProgrammableException if the counters cannot be read
+     */
+    Collection<UpfCounter> read(long maxCounterId, UpfEntityType type, CounterReader reader)
+            throws UpfProgrammableException {
+        long maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+        if (maxAgeNanos <= 0) {
+            return reader.read(maxCounterId, type);
+        }
+        Pair<Long, UpfEntityType> key = Pair.of(maxCounterId, type);
+        CachedCounters cached = cache.get(key);
+        if (cached != null && System.nanoTime() - cached.readNanos <= maxAgeNanos) {
+            hits.incrementAndGet();
+            return cached.counters;
+        }
+        CompletableFuture<Collection<UpfCounter>> future = new CompletableFuture<>();
+        CompletableFuture<Collection<UpfCounter>> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+        misses.incrementAndGet();
+        try {
+            long readGeneration = generation.get();
+            long readNanos = System.nanoTime();
+            Collection<UpfCounter> counters = reader.read(maxCounterId, type);
+            if (generation.get() == readGeneration) {
+                cache.put(key, new CachedCounters(readNanos, counters));
+            }
+            future.complete(counters);
+            return counters;
+        } catch (UpfProgrammableException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private Collection<UpfCounter> await(CompletableFuture<Collection<UpfCounter>> future)
+            throws UpfProgrammableException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UpfProgrammableException) {
+                throw (UpfProgrammableException) e.getCause();
+            }
+            throw new UpfProgrammableException(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpfProgrammableException("Interrupted while reading counters");
+        }
+    }
+
+    /**
+     * Sets the maximum age of the cached counters, 0 disables the cache.
+     *
+     * @param maxAgeMillis the maximum age in milliseconds
+     */
+    void setMaxAgeMillis(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+        invalidate();
+    }
+
+    /**
+     * Drops all cached counters, e.g., after the counters were written. Reads
+     * already in progress are not cached, nor shared with the next reads.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        inFlight.clear();
+        cache.clear();
+    }
+
+    /**
+     * Returns the maximum age of the cached counters.
+     *
+     * @return the maximum age in milliseconds, 0 if the cache is disabled
+     */
+    public long maxAgeMillis() {
+        return maxAgeMillis;
+    }
+
+    /**
+     * Returns the number of reads served from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of reads that waited for an in-flight read of the
+     * same counters.
+     *
+     * @return the number of coalesced reads
+     */
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Returns the number of reads issued to the UPF devices while the cache
+     * was enabled.
+     *
+     * @return the number of cache misses
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of UPF devices reads saved by the cache.
+     *
+     * @return the number of saved reads
+     */
+    public long savedReads() {
+        return hits.get() + coalesced.get();
+    }
+
+    /**
+     * Returns the ratio of reads not issued to the UPF devices.
+     *
+     * @return the hit ratio, between 0 and 1
+     */
+    public double hitRatio() {
+        long saved = savedReads();
+        long total = saved + misses.get();
+        return total == 0 ? 0.0 : (double) saved / total;
+    }
+
+    /**
+     * Clears the cache statistics.
+     */
+    public void resetStats() {
+        hits.set(0);
+        coalesced.set(0);
+        misses.set(0);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.Maps;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.SortedMap;
+
+/**
+ * Off-heap ring buffer keeping the history of the counter cells values.
+ * <p>
+ * Each slot of the ring stores, for every counter cell, the increment of the
+ * ingress/egress packets since the previous slot as unsigned 32-bit integers
+ * (saturated on overflow), and the increment of the ingress/egress bytes as
+ * 64-bit integers. The last absolute values of each cell are kept off-heap as
+ * well, to compute the increments. Memory usage is thus fixed at creation
+ * time: {@code cells * (slots * 24 + 32)} bytes.
+ * <p>
+ * Counter values going backwards (e.g., cell reused by a new termination)
+ * are considered as a reset: the counter restarted from 0, so the new value
+ * is recorded as the increment.
+ */
+final class UpfCounterHistory {
+
+    static final int INGRESS_PKTS = 0;
+    static final int INGRESS_BYTES = 1;
+    static final int EGRESS_PKTS = 2;
+    static final int EGRESS_BYTES = 3;
+
+    private static final int FIELDS = 4;
+    private static final int DELTA_CELL_BYTES = 2 * Integer.BYTES + 2 * Long.BYTES;
+    private static final int BASE_CELL_BYTES = FIELDS * Long.BYTES;
+    private static final long MAX_PKTS_DELTA = 0xFFFFFFFFL;
+    // Offset of each field in the cell increments: packets first, then bytes
+    private static final int[] DELTA_OFFSETS = {
+            0, // INGRESS_PKTS
+            2 * Integer.BYTES, // INGRESS_BYTES
+            Integer.BYTES, // EGRESS_PKTS
+            2 * Integer.BYTES + Long.BYTES, // EGRESS_BYTES
+    };
+
+    private final int cells;
+    private final int slots;
+    private final ByteBuffer deltas;
+    private final ByteBuffer base;
+    private final long[] slotTimestampMillis;
+    private final long[] slotIntervalNanos;
+
+    // Next slot to write and number of valid slots
+    private int head;
+    private int size;
+    private long lastNanos = -1;
+
+    /**
+     * Creates a new counter history.
+     *
+     * @param cells the number of counter cells
+     * @param slots the number of samples to keep
+     */
+    UpfCounterHistory(int cells, int slots) {
+        if ((long) cells * slots * DELTA_CELL_BYTES > Integer.MAX_VALUE ||
+                (long) cells * BASE_CELL_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Counter history too large: " + cells + " cells, " + slots + " slots");
+        }
+        this.cells = cells;
+        this.slots = slots;
+        this.deltas = ByteBuffer.allocateDirect(cells * slots * DELTA_CELL_BYTES);
+        this.base = ByteBuffer.allocateDirect(cells * BASE_CELL_BYTES);
+        this.slotTimestampMillis = new long[slots];
+        this.slotIntervalNanos = new long[slots];
+    }
+
+    /**
+     * Returns the maximum number of slots that fit in a single history for
+     * the given number of cells.
+     *
+     * @param cells the number of counter cells
+     * @return the maximum number of slots
+     */
+    static int maxSlots(int cells) {
+        return (int) Math.min(Integer.MAX_VALUE, Integer.MAX_VALUE / ((long) Math.max(cells, 1) * DELTA_CELL_BYTES));
+    }
+
+    /**
+     * Returns the off-heap memory used by this history.
+     *
+     * @return the size in bytes
+     */
+    long memoryBytes() {
+        return (long) deltas.capacity() + base.capacity();
+    }
+
+    int cells() {
+        return cells;
+    }
+
+    int slots() {
+        return slots;
+    }
+
+    /**
+     * Records the given counter values. The first sample only initializes
+     * the base values, without adding a slot. Cells above the history
+     * capacity are ignored.
+     *
+     * @param timestampMillis the wall-clock time of the sample
+     * @param nanos           the monotonic time of the sample
+     * @param counters        the counter values
+     */
+    synchronized void record(long timestampMillis, long nanos, UpfCellCounters counters) {
+        boolean first = lastNanos < 0;
+        int slotOffset = head * cells * DELTA_CELL_BYTES;
+        if (!first) {
+            // Cells not present in the sample did not increment.
+            for (int i = 0; i < cells * DELTA_CELL_BYTES; i += Long.BYTES) {
+                deltas.putLong(slotOffset + i, 0);
+            }
+        }
+        for (int cellId = counters.nextCell(0); cellId >= 0 && cellId < cells; cellId = counters.nextCell(cellId + 1)) {
+            recordCell(first, slotOffset, cellId, INGRESS_PKTS, counters.get(cellId, UpfCellCounters.INGRESS_PKTS));
+            recordCell(first, slotOffset, cellId, INGRESS_BYTES,
+                       counters.get(cellId, UpfCellCounters.INGRESS_BYTES));
+            recordCell(first, slotOffset, cellId, EGRESS_PKTS, counters.get(cellId, UpfCellCounters.EGRESS_PKTS));
+            recordCell(first, slotOffset, cellId, EGRESS_BYTES, counters.get(cellId, UpfCellCounters.EGRESS_BYTES));
+        }
+        if (!first) {
+            slotTimestampMillis[head] = timestampMillis;
+            slotIntervalNanos[head] = nanos - lastNanos;
+            head = (head + 1) % slots;
+            size = Math.min(size + 1, slots);
+        }
+        lastNanos = nanos;
+    }
+
+    private void recordCell(boolean first, int slotOffset, int cellId, int field, long value) {
+        int baseIdx = cellId * BASE_CELL_BYTES + field * Long.BYTES;
+        long before = base.getLong(baseIdx);
+        base.putLong(baseIdx, value);
+        if (first) {
+            return;
+        }
+        long delta = value >= before ? value - before : value;
+        int deltaIdx = slotOffset + cellId * DELTA_CELL_BYTES + DELTA_OFFSETS[field];
+        if (isPkts(field)) {
+            deltas.putInt(deltaIdx, (int) Math.min(delta, MAX_PKTS_DELTA));
+        } else {
+            deltas.putLong(deltaIdx, delta);
+        }
+    }
+
+    private static boolean isPkts(int field) {
+        return field == INGRESS_PKTS || field == EGRESS_PKTS;
+    }
+
+    /**
+     * Returns the increments of the given cells, summed together, for each
+     * recorded slot not older than the given time.
+     *
+     * @param cellIds     the counter cell IDs
+     * @param sinceMillis the wall-clock time of the oldest slot to return
+     * @return map of slot wall-clock time to the increments in the slot
+     */
+    synchronized SortedMap<Long, Increments> query(Collection<Integer> cellIds, long sinceMillis) {
+        SortedMap<Long, Increments> result = Maps.newTreeMap();
+        for (int i = 0; i < size; i++) {
+            int slot = (head - size + i + slots) % slots;
+            if (slotTimestampMillis[slot] < sinceMillis) {
+                continue;
+            }
+            long[] values = new long[FIELDS];
+            int slotOffset = slot * cells * DELTA_CELL_BYTES;
+            for (int cellId : cellIds) {
+                if (cellId < 0 || cellId >= cells) {
+                    continue;
+                }
+                int cellOffset = slotOffset + cellId * DELTA_CELL_BYTES;
+                for (int field = 0; field < FIELDS; field++) {
+                    int deltaIdx = cellOffset + DELTA_OFFSETS[field];
+                    values[field] += isPkts(field) ?
+                            Integer.toUnsignedLong(deltas.getInt(deltaIdx)) : deltas.getLong(deltaIdx);
+                }
+            }
+            result.put(slotTimestampMillis[slot], new Increments(slotIntervalNanos[slot], values));
+        }
+        return result;
+    }
+
+    /**
+     * Increments of the counter values in a slot.
+     */
+    static final class Increments {
+        private final long intervalNanos;
+        private final long[] values;
+
+        private Increments(long intervalNanos, long[] values) {
+            this.intervalNanos = intervalNanos;
+            this.values = values;
+        }
+
+        long intervalNanos() {
+            return intervalNanos;
+        }
+
+        long get(int field) {
+            return values[field];
+        }
+    }
+}
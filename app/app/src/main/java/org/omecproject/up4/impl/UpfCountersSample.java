@@ -0,0 +1,168 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.onlab.packet.Ip4Address;
+import org.onosproject.net.behaviour.upf.UpfTerminationDownlink;
+import org.onosproject.net.behaviour.upf.UpfTerminationUplink;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+
+import static org.omecproject.up4.impl.UeTrafficRate.Direction.UPLINK;
+
+/**
+ * Per-termination counter values of the UPF data plane read by the stats
+ * poller at a given time. Only primitive arrays are kept, so that the samples
+ * in the history cost a few longs per UE termination.
+ */
+public final class UpfCountersSample {
+
+    // Indexes in the per-UE values arrays
+    static final int RX_PKTS = 0;
+    static final int RX_BYTES = 1;
+    static final int TX_PKTS = 2;
+    static final int TX_BYTES = 3;
+
+    private static final int FIELDS = 4;
+
+    private final long timestampMillis;
+    private final long nanos;
+    private final UeCells uplinkCells;
+    private final UeCells downlinkCells;
+
+    UpfCountersSample(long timestampMillis, long nanos,
+                      Collection<UpfTerminationUplink> uplinkTerminations,
+                      Collection<UpfTerminationDownlink> downlinkTerminations,
+                      UpfCellCounters counters) {
+        this.timestampMillis = timestampMillis;
+        this.nanos = nanos;
+        long[] keys = new long[uplinkTerminations.size()];
+        int i = 0;
+        for (UpfTerminationUplink t : uplinkTerminations) {
+            keys[i++] = key(t.ueSessionId(), t.counterId());
+        }
+        this.uplinkCells = new UeCells(keys, counters);
+        keys = new long[downlinkTerminations.size()];
+        i = 0;
+        for (UpfTerminationDownlink t : downlinkTerminations) {
+            keys[i++] = key(t.ueSessionId(), t.counterId());
+        }
+        this.downlinkCells = new UeCells(keys, counters);
+    }
+
+    // UE address in the high bits, so that sorting groups the UE terminations
+    private static long key(Ip4Address ue, int counterId) {
+        return ((long) ue.toInt() << Integer.SIZE) | Integer.toUnsignedLong(counterId);
+    }
+
+    /**
+     * Returns the wall-clock time of the sample.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long timestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * Returns the monotonic time of the sample, as given by {@link System#nanoTime()}.
+     *
+     * @return the time in nanoseconds
+     */
+    public long nanos() {
+        return nanos;
+    }
+
+    /**
+     * Returns the UEs with at least one termination in the given direction.
+     *
+     * @param direction the traffic direction
+     * @return the UE addresses
+     */
+    public Set<Ip4Address> ues(UeTrafficRate.Direction direction) {
+        long[] keys = cells(direction).keys;
+        ImmutableSet.Builder<Ip4Address> builder = ImmutableSet.builder();
+        for (long key : keys) {
+            builder.add(Ip4Address.valueOf((int) (key >> Integer.SIZE)));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the counter increments of the given UE since the given previous
+     * sample, summed across the counter cells of the UE terminations in the
+     * given direction. Only the terminations present in both samples are
+     * accounted, thus a UE gaining or losing a termination doesn't make its
+     * increments jump. Values are indexed by {@link #RX_PKTS},
+     * {@link #RX_BYTES}, {@link #TX_PKTS} and {@link #TX_BYTES}.
+     *
+     * @param prev      the previous sample
+     * @param ue        the UE address
+     * @param direction the traffic direction
+     * @return the counter increments, or null if the UE has no termination in
+     * both samples
+     */
+    long[] ueDeltas(UpfCountersSample prev, Ip4Address ue, UeTrafficRate.Direction direction) {
+        UeCells before = prev.cells(direction);
+        UeCells after = cells(direction);
+        long[] deltas = null;
+        int i = after.firstIndex(key(ue, 0));
+        for (; i < after.keys.length && (int) (after.keys[i] >> Integer.SIZE) == ue.toInt(); i++) {
+            int j = Arrays.binarySearch(before.keys, after.keys[i]);
+            if (j < 0) {
+                // New termination, its cumulative value is not an increment
+                continue;
+            }
+            if (deltas == null) {
+                deltas = new long[FIELDS];
+            }
+            for (int field = 0; field < FIELDS; field++) {
+                deltas[field] += UpfCellCounters.delta(before.values[j * FIELDS + field],
+                                                       after.values[i * FIELDS + field]);
+            }
+        }
+        return deltas;
+    }
+
+    private UeCells cells(UeTrafficRate.Direction direction) {
+        return direction == UPLINK ? uplinkCells : downlinkCells;
+    }
+
+    /**
+     * Counter cell values of the UE terminations of one direction, sorted by
+     * UE address and counter ID. Terminations without a counter value are
+     * not kept.
+     */
+    private static final class UeCells {
+        private final long[] keys;
+        private final long[] values;
+
+        private UeCells(long[] keys, UpfCellCounters counters) {
+            this.keys = Arrays.stream(keys)
+                    .filter(key -> counters.contains((int) key))
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            this.values = new long[this.keys.length * FIELDS];
+            for (int i = 0; i < this.keys.length; i++) {
+                int cellId = (int) this.keys[i];
+                int offset = i * FIELDS;
+                values[offset + RX_PKTS] = counters.get(cellId, UpfCellCounters.INGRESS_PKTS);
+                values[offset + RX_BYTES] = counters.get(cellId, UpfCellCounters.INGRESS_BYTES);
+                values[offset + TX_PKTS] = counters.get(cellId, UpfCellCounters.EGRESS_PKTS);
+                values[offset + TX_BYTES] = counters.get(cellId, UpfCellCounters.EGRESS_BYTES);
+            }
+        }
+
+        // Index of the first key equal or greater than the given one
+        private int firstIndex(long key) {
+            int idx = Arrays.binarySearch(keys, key);
+            return idx < 0 ? -idx - 1 : idx;
+        }
+    }
+}
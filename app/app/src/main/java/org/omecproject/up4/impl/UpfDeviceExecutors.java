@@ -0,0 +1,90 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.Maps;
+import org.onosproject.net.DeviceId;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bulkhead of the calls on the UPF devices: each device has its own bounded
+ * pool of threads and bounded queue, so that a hung device cannot exhaust the
+ * threads calling the other devices (e.g., the leader). Calls submitted to a
+ * saturated device are rejected with a {@link RejectedExecutionException}
+ * instead of being queued indefinitely.
+ */
+final class UpfDeviceExecutors {
+
+    private final int threadsPerDevice;
+    private final int queuePerDevice;
+    private final Function<DeviceId, ThreadFactory> threadFactories;
+    private final Map<DeviceId, ThreadPoolExecutor> executors = Maps.newConcurrentMap();
+    private volatile boolean shutdown;
+
+    /**
+     * Creates new per-device executors.
+     *
+     * @param threadsPerDevice the maximum number of threads calling each device
+     * @param queuePerDevice   the maximum number of calls waiting for a thread of each device
+     * @param threadFactories  the thread factory of each device
+     */
+    UpfDeviceExecutors(int threadsPerDevice, int queuePerDevice, Function<DeviceId, ThreadFactory> threadFactories) {
+        this.threadsPerDevice = threadsPerDevice;
+        this.queuePerDevice = queuePerDevice;
+        this.threadFactories = threadFactories;
+    }
+
+    /**
+     * Returns the executor of the calls on the given device, created if
+     * needed. Its threads are released when idle.
+     *
+     * @param deviceId the UPF device ID
+     * @return the executor of the device
+     * @throws RejectedExecutionException if the executors are shut down
+     */
+    ExecutorService executor(DeviceId deviceId) {
+        if (shutdown) {
+            throw new RejectedExecutionException("UPF device executors are shut down");
+        }
+        return executors.computeIfAbsent(deviceId, id -> {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    threadsPerDevice, threadsPerDevice, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queuePerDevice), threadFactories.apply(id));
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        });
+    }
+
+    /**
+     * Shuts down the executor of the given device, e.g., when the device is
+     * removed. Running calls are not interrupted.
+     *
+     * @param deviceId the UPF device ID
+     */
+    void remove(DeviceId deviceId) {
+        ExecutorService executor = executors.remove(deviceId);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Shuts down the executors of all the devices. Running calls are not
+     * interrupted.
+     */
+    void shutdown() {
+        shutdown = true;
+        executors.values().forEach(ExecutorService::shutdown);
+        executors.clear();
+    }
+}
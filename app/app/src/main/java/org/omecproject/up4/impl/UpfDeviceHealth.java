@@ -0,0 +1,262 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.onosproject.net.DeviceId;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breakers of the calls on the UPF devices, one per device. A breaker
+ * trips open after a number of consecutive failures or timeouts of its
+ * device, then calls on the device are rejected without reaching it. Once
+ * the open interval elapsed, a single probe call is let through (half-open):
+ * the breaker closes if the probe succeeds, and trips open again otherwise.
+ * Breakers are disabled when the failure threshold is 0.
+ */
+public final class UpfDeviceHealth {
+
+    /**
+     * Circuit breaker states.
+     */
+    public enum State {
+        /**
+         * Calls reach the device.
+         */
+        CLOSED,
+        /**
+         * Calls are rejected without reaching the device.
+         */
+        OPEN,
+        /**
+         * A single probe call is reaching the device.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Health of a single UPF device.
+     */
+    public static final class DeviceHealth {
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private long successes;
+        private long failures;
+        private long timeouts;
+        private long rejected;
+        private long trips;
+        private long lastLatencyNanos;
+        private String lastError;
+
+        private DeviceHealth() {
+        }
+
+        private DeviceHealth(DeviceHealth other) {
+            this.state = other.state;
+            this.consecutiveFailures = other.consecutiveFailures;
+            this.openedAt = other.openedAt;
+            this.successes = other.successes;
+            this.failures = other.failures;
+            this.timeouts = other.timeouts;
+            this.rejected = other.rejected;
+            this.trips = other.trips;
+            this.lastLatencyNanos = other.lastLatencyNanos;
+            this.lastError = other.lastError;
+        }
+
+        /**
+         * Returns the circuit breaker state.
+         *
+         * @return the breaker state
+         */
+        public State state() {
+            return state;
+        }
+
+        /**
+         * Returns the number of failures or timeouts since the last success.
+         *
+         * @return number of consecutive failures
+         */
+        public int consecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        /**
+         * Returns the number of calls rejected by the open breaker.
+         *
+         * @return number of rejected calls
+         */
+        public long rejected() {
+            return rejected;
+        }
+
+        /**
+         * Returns the number of times the breaker tripped open.
+         *
+         * @return number of trips
+         */
+        public long trips() {
+            return trips;
+        }
+
+        @Override
+        public String toString() {
+            return "state=" + state + ", consecutive_failures=" + consecutiveFailures +
+                    ", successes=" + successes + ", failures=" + failures + ", timeouts=" + timeouts +
+                    ", rejected=" + rejected + ", trips=" + trips +
+                    String.format(", last_latency=%.3fms", lastLatencyNanos / 1e6) +
+                    (lastError == null ? "" : ", last_error=" + lastError);
+        }
+    }
+
+    private final Map<DeviceId, DeviceHealth> devices = Maps.newHashMap();
+    private final LongSupplier nanoClock;
+    private volatile int failureThreshold;
+    private volatile long openNanos;
+
+    /**
+     * Creates new circuit breakers.
+     *
+     * @param failureThreshold the consecutive failures tripping a breaker open, 0 disables the breakers
+     * @param openMillis       the time a breaker stays open before letting a probe call through
+     */
+    UpfDeviceHealth(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::nanoTime);
+    }
+
+    UpfDeviceHealth(int failureThreshold, long openMillis, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        configure(failureThreshold, openMillis);
+    }
+
+    /**
+     * Sets the breaker parameters.
+     *
+     * @param failureThreshold the consecutive failures tripping a breaker open, 0 disables the breakers
+     * @param openMillis       the time a breaker stays open before letting a probe call through
+     */
+    void configure(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(0, failureThreshold);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, openMillis));
+    }
+
+    /**
+     * Returns true if a call on the given device is allowed by its breaker.
+     * Callers allowed must report the outcome of the call.
+     *
+     * @param deviceId the device ID
+     * @return true if the call can be issued, false if rejected
+     */
+    synchronized boolean tryAcquire(DeviceId deviceId) {
+        DeviceHealth health = devices.computeIfAbsent(deviceId, k -> new DeviceHealth());
+        if (failureThreshold == 0) {
+            return true;
+        }
+        switch (health.state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nanoClock.getAsLong() - health.openedAt >= openNanos) {
+                    // Let a single probe through
+                    health.state = State.HALF_OPEN;
+                    return true;
+                }
+                health.rejected++;
+                return false;
+            case HALF_OPEN:
+            default:
+                health.rejected++;
+                return false;
+        }
+    }
+
+    /**
+     * Records a successful call on the given device.
+     *
+     * @param deviceId     the device ID
+     * @param latencyNanos the call latency
+     */
+    synchronized void success(DeviceId deviceId, long latencyNanos) {
+        DeviceHealth health = devices.computeIfAbsent(deviceId, k -> new DeviceHealth());
+        health.successes++;
+        health.lastLatencyNanos = latencyNanos;
+        health.consecutiveFailures = 0;
+        health.state = State.CLOSED;
+    }
+
+    /**
+     * Records a failed call on the given device, possibly tripping its
+     * breaker open.
+     *
+     * @param deviceId the device ID
+     * @param timeout  true if the call did not complete within the deadline
+     * @param error    the error message
+     */
+    synchronized void failure(DeviceId deviceId, boolean timeout, String error) {
+        DeviceHealth health = devices.computeIfAbsent(deviceId, k -> new DeviceHealth());
+        if (timeout) {
+            health.timeouts++;
+        } else {
+            health.failures++;
+        }
+        health.lastError = error;
+        health.consecutiveFailures++;
+        if (failureThreshold > 0 && (health.state == State.HALF_OPEN ||
+                (health.state == State.CLOSED && health.consecutiveFailures >= failureThreshold))) {
+            health.state = State.OPEN;
+            health.openedAt = nanoClock.getAsLong();
+            health.trips++;
+        }
+    }
+
+    /**
+     * Records that a call allowed on the given device was abandoned before
+     * completing for reasons unrelated to the device, e.g., the caller was
+     * interrupted. A probing breaker goes back to open.
+     *
+     * @param deviceId the device ID
+     */
+    synchronized void abandoned(DeviceId deviceId) {
+        DeviceHealth health = devices.get(deviceId);
+        if (health != null && health.state == State.HALF_OPEN) {
+            health.state = State.OPEN;
+        }
+    }
+
+    /**
+     * Returns the circuit breaker state of the given device.
+     *
+     * @param deviceId the device ID
+     * @return the breaker state
+     */
+    synchronized State state(DeviceId deviceId) {
+        DeviceHealth health = devices.get(deviceId);
+        return health == null ? State.CLOSED : health.state;
+    }
+
+    /**
+     * Returns a snapshot of the health of the devices called so far.
+     *
+     * @return map of device ID to device health
+     */
+    public synchronized Map<DeviceId, DeviceHealth> devices() {
+        ImmutableMap.Builder<DeviceId, DeviceHealth> builder = ImmutableMap.builder();
+        devices.forEach((deviceId, health) -> builder.put(deviceId, new DeviceHealth(health)));
+        return builder.build();
+    }
+
+    /**
+     * Closes all the breakers and clears the statistics.
+     */
+    public synchronized void reset() {
+        devices.clear();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.net.behaviour.upf.UpfApplication;
+import org.onosproject.net.behaviour.upf.UpfCounter;
+import org.onosproject.net.behaviour.upf.UpfEntity;
+import org.onosproject.net.behaviour.upf.UpfEntityType;
+import org.onosproject.net.behaviour.upf.UpfGtpTunnelPeer;
+import org.onosproject.net.behaviour.upf.UpfInterface;
+import org.onosproject.net.behaviour.upf.UpfMeter;
+import org.onosproject.net.behaviour.upf.UpfSessionDownlink;
+import org.onosproject.net.behaviour.upf.UpfSessionUplink;
+import org.onosproject.net.behaviour.upf.UpfTerminationDownlink;
+import org.onosproject.net.behaviour.upf.UpfTerminationUplink;
+
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Key of a UPF entity, i.e., the fields matched by the corresponding UP4
+ * table entry or the cell index of meters and counters. Applying an entity
+ * replaces the entity with the same key.
+ */
+final class UpfEntityKey {
+
+    private final UpfEntityType type;
+    private final List<Object> fields;
+
+    private UpfEntityKey(UpfEntityType type, List<Object> fields) {
+        this.type = type;
+        this.fields = fields;
+    }
+
+    /**
+     * Returns the key of the given UPF entity.
+     *
+     * @param entity the UPF entity
+     * @return the UPF entity key
+     */
+    static UpfEntityKey of(UpfEntity entity) {
+        switch (entity.type()) {
+            case INTERFACE:
+                return new UpfEntityKey(entity.type(), ImmutableList.of(((UpfInterface) entity).prefix()));
+            case SESSION_UPLINK:
+                UpfSessionUplink sessUl = (UpfSessionUplink) entity;
+                return new UpfEntityKey(entity.type(), ImmutableList.of(sessUl.tunDstAddr(), sessUl.teid()));
+            case SESSION_DOWNLINK:
+                return new UpfEntityKey(entity.type(), ImmutableList.of(((UpfSessionDownlink) entity).ueAddress()));
+            case TERMINATION_UPLINK:
+                UpfTerminationUplink termUl = (UpfTerminationUplink) entity;
+                return new UpfEntityKey(entity.type(), ImmutableList.of(termUl.ueSessionId(),
+                                                                        termUl.applicationId()));
+            case TERMINATION_DOWNLINK:
+                UpfTerminationDownlink termDl = (UpfTerminationDownlink) entity;
+                return new UpfEntityKey(entity.type(), ImmutableList.of(termDl.ueSessionId(),
+                                                                        termDl.applicationId()));
+            case TUNNEL_PEER:
+                return new UpfEntityKey(entity.type(), ImmutableList.of(((UpfGtpTunnelPeer) entity).tunPeerId()));
+            case APPLICATION:
+                UpfApplication app = (UpfApplication) entity;
+                // Optional fields are part of the key also when empty
+                return new UpfEntityKey(entity.type(), ImmutableList.of(
+                        app.sliceId(), app.ip4Prefix(), app.l4PortRange(), app.ipProto(), app.priority()));
+            case SESSION_METER:
+            case APPLICATION_METER:
+            case SLICE_METER:
+                return new UpfEntityKey(entity.type(), ImmutableList.of(((UpfMeter) entity).cellId()));
+            case COUNTER:
+            case INGRESS_COUNTER:
+            case EGRESS_COUNTER:
+                return new UpfEntityKey(entity.type(), ImmutableList.of(((UpfCounter) entity).getCellId()));
+            default:
+                throw new IllegalArgumentException("Unsupported UPF entity type: " + entity.type());
+        }
+    }
+
+    /**
+     * Returns the key of the GTP tunnel peer with the given ID.
+     *
+     * @param tunPeerId the GTP tunnel peer ID
+     * @return the UPF entity key
+     */
+    static UpfEntityKey tunnelPeer(byte tunPeerId) {
+        return new UpfEntityKey(UpfEntityType.TUNNEL_PEER, ImmutableList.of(tunPeerId));
+    }
+
+    /**
+     * Returns the key that orders the writes of the given UPF entity, i.e.,
+     * writes with the same ordering key must be executed in order, while
+     * writes with different keys can be executed concurrently. Session and
+     * terminations of the same UE share the UE address as ordering key, the
+     * other entities use their own key.
+     *
+     * @param entity the UPF entity
+     * @return the ordering key
+     */
+    static Object orderingKey(UpfEntity entity) {
+        switch (entity.type()) {
+            case SESSION_DOWNLINK:
+                return ((UpfSessionDownlink) entity).ueAddress();
+            case TERMINATION_UPLINK:
+                return ((UpfTerminationUplink) entity).ueSessionId();
+            case TERMINATION_DOWNLINK:
+                return ((UpfTerminationDownlink) entity).ueSessionId();
+            case COUNTER:
+            case INGRESS_COUNTER:
+            case EGRESS_COUNTER:
+                // Ingress and egress writes of a cell are ordered with the whole cell writes
+                return new UpfEntityKey(UpfEntityType.COUNTER, ImmutableList.of(((UpfCounter) entity).getCellId()));
+            default:
+                return of(entity);
+        }
+    }
+
+    /**
+     * Returns the type of the UPF entity of this key.
+     *
+     * @return the UPF entity type
+     */
+    UpfEntityType type() {
+        return type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        UpfEntityKey that = (UpfEntityKey) o;
+        return type == that.type && fields.equals(that.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, fields);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("type", type)
+                .add("fields", fields)
+                .toString();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.onlab.packet.Ip4Address;
+
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Filter of the UPF flows, by UE address, slice ID and application ID.
+ * Empty criteria match any flow.
+ */
+public final class UpfFlowFilter {
+
+    /**
+     * Filter matching all the UPF flows.
+     */
+    public static final UpfFlowFilter ALL = builder().build();
+
+    private final Ip4Address ueAddress;
+    private final Integer sliceId;
+    private final Byte appId;
+
+    private UpfFlowFilter(Ip4Address ueAddress, Integer sliceId, Byte appId) {
+        this.ueAddress = ueAddress;
+        this.sliceId = sliceId;
+        this.appId = appId;
+    }
+
+    /**
+     * Gets the UE address criterion.
+     *
+     * @return the UE address, if any
+     */
+    public Optional<Ip4Address> ueAddress() {
+        return Optional.ofNullable(ueAddress);
+    }
+
+    /**
+     * Gets the slice ID criterion.
+     *
+     * @return the slice ID, if any
+     */
+    public Optional<Integer> sliceId() {
+        return Optional.ofNullable(sliceId);
+    }
+
+    /**
+     * Gets the application ID criterion.
+     *
+     * @return the application ID, if any
+     */
+    public Optional<Byte> appId() {
+        return Optional.ofNullable(appId);
+    }
+
+    /**
+     * Returns true if the filter has no criteria, i.e., it matches any flow.
+     *
+     * @return true if the filter is empty
+     */
+    boolean isEmpty() {
+        return ueAddress == null && sliceId == null && appId == null;
+    }
+
+    /**
+     * Returns true if the filter matches the flow of the given UE and
+     * application, without considering the slice.
+     *
+     * @param ue  the UE address
+     * @param app the application ID
+     * @return true if UE and application match
+     */
+    boolean matches(Ip4Address ue, byte app) {
+        return (ueAddress == null || ueAddress.equals(ue)) && (appId == null || appId == app);
+    }
+
+    /**
+     * Returns true if the filter matches the given slice.
+     *
+     * @param slice the slice ID
+     * @return true if the slice matches
+     */
+    boolean matchesSlice(int slice) {
+        return sliceId == null || sliceId == slice;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("ueAddress", ueAddress)
+                .add("sliceId", sliceId)
+                .add("appId", appId)
+                .toString();
+    }
+
+    /**
+     * Returns a new UPF flow filter builder.
+     *
+     * @return UPF flow filter builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder of a UPF flow filter.
+     */
+    public static class Builder {
+        private Ip4Address ueAddress = null;
+        private Integer sliceId = null;
+        private Byte appId = null;
+
+        public Builder() {
+        }
+
+        /**
+         * Matches only the flows of the given UE.
+         *
+         * @param ueAddress the UE address, null matches any UE
+         * @return this builder object
+         */
+        public Builder withUeAddress(Ip4Address ueAddress) {
+            this.ueAddress = ueAddress;
+            return this;
+        }
+
+        /**
+         * Matches only the flows of the given slice.
+         *
+         * @param sliceId the slice ID, null matches any slice
+         * @return this builder object
+         */
+        public Builder withSliceId(Integer sliceId) {
+            this.sliceId = sliceId;
+            return this;
+        }
+
+        /**
+         * Matches only the flows of the given application.
+         *
+         * @param appId the application ID, null matches any application
+         * @return this builder object
+         */
+        public Builder withAppId(Byte appId) {
+            this.appId = appId;
+            return this;
+        }
+
+        public UpfFlowFilter build() {
+            return new UpfFlowFilter(ueAddress, sliceId, appId);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+/**
+ * Visitor of the uplink and downlink UPF flows. All the uplink flows are
+ * visited before the downlink flows.
+ */
+public interface UpfFlowVisitor {
+
+    /**
+     * Visits an uplink UPF flow.
+     *
+     * @param flow the uplink UPF flow
+     */
+    void visitUplink(UplinkUpfFlow flow);
+
+    /**
+     * Visits a downlink UPF flow.
+     *
+     * @param flow the downlink UPF flow
+     */
+    void visitDownlink(DownlinkUpfFlow flow);
+}
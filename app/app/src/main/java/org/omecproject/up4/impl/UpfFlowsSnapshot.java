@@ -0,0 +1,93 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.net.behaviour.upf.UpfApplication;
+import org.onosproject.net.behaviour.upf.UpfMeter;
+import org.onosproject.net.behaviour.upf.UpfSessionUplink;
+
+import java.util.Collection;
+
+/**
+ * Snapshot of the UE flows installed in the UPF data plane, built by reading
+ * each UPF table and all the counters only once.
+ */
+public final class UpfFlowsSnapshot {
+    private final Collection<UplinkUpfFlow> uplinkFlows;
+    private final Collection<DownlinkUpfFlow> downlinkFlows;
+    private final Collection<UpfSessionUplink> uplinkSessions;
+    private final Collection<UpfApplication> applications;
+    private final Collection<UpfMeter> sessionMeters;
+    private final Collection<UpfMeter> applicationMeters;
+
+    UpfFlowsSnapshot(Collection<UplinkUpfFlow> uplinkFlows,
+                     Collection<DownlinkUpfFlow> downlinkFlows,
+                     Collection<UpfSessionUplink> uplinkSessions,
+                     Collection<UpfApplication> applications,
+                     Collection<UpfMeter> sessionMeters,
+                     Collection<UpfMeter> applicationMeters) {
+        this.uplinkFlows = ImmutableList.copyOf(uplinkFlows);
+        this.downlinkFlows = ImmutableList.copyOf(downlinkFlows);
+        this.uplinkSessions = ImmutableList.copyOf(uplinkSessions);
+        this.applications = ImmutableList.copyOf(applications);
+        this.sessionMeters = ImmutableList.copyOf(sessionMeters);
+        this.applicationMeters = ImmutableList.copyOf(applicationMeters);
+    }
+
+    /**
+     * Gets the uplink UPF flows.
+     *
+     * @return the uplink UPF flows
+     */
+    public Collection<UplinkUpfFlow> uplinkFlows() {
+        return uplinkFlows;
+    }
+
+    /**
+     * Gets the downlink UPF flows.
+     *
+     * @return the downlink UPF flows
+     */
+    public Collection<DownlinkUpfFlow> downlinkFlows() {
+        return downlinkFlows;
+    }
+
+    /**
+     * Gets the uplink UPF sessions.
+     *
+     * @return the uplink UPF sessions
+     */
+    public Collection<UpfSessionUplink> uplinkSessions() {
+        return uplinkSessions;
+    }
+
+    /**
+     * Gets the UPF applications.
+     *
+     * @return the UPF applications
+     */
+    public Collection<UpfApplication> applications() {
+        return applications;
+    }
+
+    /**
+     * Gets the UPF session meters.
+     *
+     * @return the UPF session meters
+     */
+    public Collection<UpfMeter> sessionMeters() {
+        return sessionMeters;
+    }
+
+    /**
+     * Gets the UPF application meters.
+     *
+     * @return the UPF application meters
+     */
+    public Collection<UpfMeter> applicationMeters() {
+        return applicationMeters;
+    }
+}
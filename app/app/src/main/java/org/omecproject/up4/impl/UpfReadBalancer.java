@@ -0,0 +1,233 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.net.DeviceId;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balancer of the UPF entity reads across the leader and the follower UPF
+ * devices in sync with the leader, freeing the leader channel for writes.
+ * A follower is in sync when the last reconciliation found no flow rule and
+ * no meter to repair on it. The caller is responsible for excluding the
+ * followers that diverged since, e.g., with leader changes not yet mirrored.
+ */
+public final class UpfReadBalancer {
+
+    /**
+     * Read balancing policies.
+     */
+    public enum Policy {
+        /**
+         * All reads are served by the leader.
+         */
+        LEADER,
+        /**
+         * Reads are served in turn by the leader and the in-sync followers.
+         */
+        ROUND_ROBIN,
+        /**
+         * Reads are served by the device with the fewest outstanding calls,
+         * the leader outstanding writes included.
+         */
+        LEAST_LOADED
+    }
+
+    private final Set<DeviceId> flowRulesInSync = Sets.newConcurrentHashSet();
+    private final Set<DeviceId> metersInSync = Sets.newConcurrentHashSet();
+    private final Map<DeviceId, AtomicInteger> outstanding = Maps.newConcurrentMap();
+    private final Map<DeviceId, AtomicLong> reads = Maps.newConcurrentMap();
+    private final AtomicInteger nextDevice = new AtomicInteger();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private volatile Policy policy;
+
+    /**
+     * Creates a new read balancer.
+     *
+     * @param policy the balancing policy
+     */
+    UpfReadBalancer(Policy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Sets the balancing policy.
+     *
+     * @param policy the balancing policy
+     */
+    void setPolicy(Policy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Returns the balancing policy.
+     *
+     * @return the balancing policy
+     */
+    public Policy policy() {
+        return policy;
+    }
+
+    /**
+     * Records the outcome of the flow rules reconciliation of a follower.
+     *
+     * @param deviceId the follower device ID
+     * @param inSync   true if no flow rule had to be repaired
+     */
+    void flowRulesReconciled(DeviceId deviceId, boolean inSync) {
+        if (inSync) {
+            flowRulesInSync.add(deviceId);
+        } else {
+            flowRulesInSync.remove(deviceId);
+        }
+    }
+
+    /**
+     * Records the outcome of the meters reconciliation of a follower.
+     *
+     * @param deviceId the follower device ID
+     * @param inSync   true if no meter had to be repaired
+     */
+    void metersReconciled(DeviceId deviceId, boolean inSync) {
+        if (inSync) {
+            metersInSync.add(deviceId);
+        } else {
+            metersInSync.remove(deviceId);
+        }
+    }
+
+    /**
+     * Returns true if the last reconciliation found the given follower in
+     * sync with the leader.
+     *
+     * @param deviceId the follower device ID
+     * @return true if the follower was in sync
+     */
+    boolean reconciledInSync(DeviceId deviceId) {
+        return flowRulesInSync.contains(deviceId) && metersInSync.contains(deviceId);
+    }
+
+    /**
+     * Forgets the sync state of the given device, e.g., when it is removed or
+     * becomes the leader.
+     *
+     * @param deviceId the device ID
+     */
+    void forget(DeviceId deviceId) {
+        flowRulesInSync.remove(deviceId);
+        metersInSync.remove(deviceId);
+    }
+
+    /**
+     * Selects the device serving the next read.
+     *
+     * @param leader    the leader device ID
+     * @param followers the followers currently in sync with the leader
+     * @return the selected device ID
+     */
+    DeviceId select(DeviceId leader, Collection<DeviceId> followers) {
+        Policy current = policy;
+        if (current == Policy.LEADER || followers.isEmpty()) {
+            return leader;
+        }
+        // Followers first, so that ties are not served by the leader
+        List<DeviceId> candidates = Lists.newArrayList(followers);
+        candidates.sort(Comparator.comparing(DeviceId::toString));
+        candidates.add(leader);
+        if (current == Policy.ROUND_ROBIN) {
+            return candidates.get(Math.floorMod(nextDevice.getAndIncrement(), candidates.size()));
+        }
+        return candidates.stream()
+                .min(Comparator.comparingInt(this::outstanding))
+                .orElse(leader);
+    }
+
+    /**
+     * Records the start of a call on the given device.
+     *
+     * @param deviceId the device ID
+     * @param read     true if the call is a read served via the balancer
+     */
+    void started(DeviceId deviceId, boolean read) {
+        outstanding.computeIfAbsent(deviceId, k -> new AtomicInteger()).incrementAndGet();
+        if (read) {
+            reads.computeIfAbsent(deviceId, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Records the completion of a call on the given device.
+     *
+     * @param deviceId the device ID
+     */
+    void completed(DeviceId deviceId) {
+        AtomicInteger calls = outstanding.get(deviceId);
+        if (calls != null) {
+            calls.decrementAndGet();
+        }
+    }
+
+    /**
+     * Records a read served by the leader because the selected follower
+     * failed or diverged during the read.
+     */
+    void fallback() {
+        fallbacks.incrementAndGet();
+    }
+
+    private int outstanding(DeviceId deviceId) {
+        AtomicInteger calls = outstanding.get(deviceId);
+        return calls == null ? 0 : calls.get();
+    }
+
+    /**
+     * Returns the number of reads served by each device.
+     *
+     * @return map of device ID to number of reads
+     */
+    public Map<DeviceId, Long> reads() {
+        ImmutableMap.Builder<DeviceId, Long> builder = ImmutableMap.builder();
+        reads.forEach((deviceId, count) -> builder.put(deviceId, count.get()));
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of reads served by the leader after the selected
+     * follower failed or diverged.
+     *
+     * @return number of fallbacks
+     */
+    public long fallbacks() {
+        return fallbacks.get();
+    }
+
+    /**
+     * Returns the followers found in sync by the last reconciliation.
+     *
+     * @return the in-sync followers
+     */
+    public Set<DeviceId> inSyncFollowers() {
+        return Sets.newHashSet(Sets.intersection(flowRulesInSync, metersInSync));
+    }
+
+    /**
+     * Clears the read statistics.
+     */
+    public void resetStats() {
+        reads.clear();
+        fallbacks.set(0);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.omecproject.up4.Up4Readiness;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free readiness state machine of the UPF data plane. The state is
+ * driven by the device, config and pipeconf events, and read without locks
+ * by the northbound requests. Lazy setup attempts of the UPF physical
+ * devices are allowed one at a time, with an exponential backoff between
+ * failed attempts.
+ */
+final class UpfReadiness {
+
+    private static final class Status {
+        private final Up4Readiness.State state;
+        private final String reason;
+        private final long since;
+
+        private Status(Up4Readiness.State state, String reason, long since) {
+            this.state = state;
+            this.reason = reason;
+            this.since = since;
+        }
+    }
+
+    private final AtomicReference<Status> status;
+    private final AtomicBoolean setupRunning = new AtomicBoolean();
+    private final AtomicLong nextSetupAt;
+    private final AtomicLong retryNanos;
+    private final long minRetryNanos;
+    private final long maxRetryNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * Creates a new readiness state machine, initially not configured.
+     *
+     * @param minRetryMillis the backoff after the first failed setup attempt
+     * @param maxRetryMillis the maximum backoff between setup attempts
+     */
+    UpfReadiness(long minRetryMillis, long maxRetryMillis) {
+        this(minRetryMillis, maxRetryMillis, System::nanoTime);
+    }
+
+    UpfReadiness(long minRetryMillis, long maxRetryMillis, LongSupplier nanoClock) {
+        this.minRetryNanos = TimeUnit.MILLISECONDS.toNanos(minRetryMillis);
+        this.maxRetryNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(minRetryMillis, maxRetryMillis));
+        this.nanoClock = nanoClock;
+        this.status = new AtomicReference<>(new Status(
+                Up4Readiness.State.NOT_CONFIGURED, "No app config is available", System.currentTimeMillis()));
+        this.nextSetupAt = new AtomicLong(nanoClock.getAsLong());
+        this.retryNanos = new AtomicLong(minRetryNanos);
+    }
+
+    /**
+     * Moves to the given state. Moving to ready resets the setup backoff.
+     *
+     * @param state  the new state
+     * @param reason the reason of the new state
+     * @return the previous state
+     */
+    Up4Readiness.State transition(Up4Readiness.State state, String reason) {
+        Status prev;
+        Status next;
+        do {
+            prev = status.get();
+            next = new Status(state, reason, prev.state == state ? prev.since : System.currentTimeMillis());
+        } while (!status.compareAndSet(prev, next));
+        if (state == Up4Readiness.State.READY) {
+            retryNanos.set(minRetryNanos);
+        }
+        return prev.state;
+    }
+
+    /**
+     * Returns true if the current state is ready.
+     *
+     * @return true if ready
+     */
+    boolean isReady() {
+        return status.get().state == Up4Readiness.State.READY;
+    }
+
+    /**
+     * Returns the reason of the current state.
+     *
+     * @return the reason
+     */
+    String reason() {
+        return status.get().reason;
+    }
+
+    /**
+     * Starts a lazy setup attempt, if waiting for the UPF physical devices,
+     * if no other attempt is running and if the backoff elapsed. Callers
+     * starting an attempt must report its outcome with
+     * {@link #setupDone(boolean)}.
+     *
+     * @return true if the attempt can start, false otherwise
+     */
+    boolean tryStartSetup() {
+        if (status.get().state != Up4Readiness.State.WAITING_FOR_DEVICES ||
+                nanoClock.getAsLong() - nextSetupAt.get() < 0) {
+            return false;
+        }
+        return setupRunning.compareAndSet(false, true);
+    }
+
+    /**
+     * Ends the running lazy setup attempt. A failed attempt doubles the
+     * backoff before the next one, up to the maximum.
+     *
+     * @param ready true if the UPF data plane is ready after the attempt
+     */
+    void setupDone(boolean ready) {
+        if (ready) {
+            retryNanos.set(minRetryNanos);
+            nextSetupAt.set(nanoClock.getAsLong());
+        } else {
+            long backoff = retryNanos.getAndUpdate(curr -> Math.min(curr * 2, maxRetryNanos));
+            nextSetupAt.set(nanoClock.getAsLong() + backoff);
+        }
+        setupRunning.set(false);
+    }
+
+    /**
+     * Returns a snapshot of the readiness, with the time after which
+     * requests should be retried.
+     *
+     * @return the readiness
+     */
+    Up4Readiness snapshot() {
+        Status curr = status.get();
+        long retryAfterMillis = 0;
+        if (curr.state != Up4Readiness.State.READY) {
+            long waitNanos = setupRunning.get() ? minRetryNanos :
+                    Math.max(nextSetupAt.get() - nanoClock.getAsLong(), minRetryNanos);
+            retryAfterMillis = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        }
+        return new Up4Readiness(curr.state, curr.reason, curr.since, retryAfterMillis);
+    }
+}
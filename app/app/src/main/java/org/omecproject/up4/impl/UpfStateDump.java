@@ -0,0 +1,344 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.omecproject.up4.Up4Counters;
+import org.omecproject.up4.Up4Service;
+import org.omecproject.up4.Up4Translator;
+import org.onosproject.net.behaviour.upf.UpfCounter;
+import org.onosproject.net.behaviour.upf.UpfEntity;
+import org.onosproject.net.behaviour.upf.UpfEntityType;
+import org.onosproject.net.behaviour.upf.UpfProgrammableException;
+import org.onosproject.net.pi.model.PiCounterId;
+import org.onosproject.net.pi.model.PiPipeconf;
+import org.onosproject.net.pi.runtime.PiCounterCell;
+import org.onosproject.net.pi.runtime.PiCounterCellId;
+import org.onosproject.net.pi.runtime.PiEntity;
+import org.onosproject.net.pi.runtime.PiMeterCellConfig;
+import org.onosproject.net.pi.runtime.PiTableEntry;
+import org.onosproject.p4runtime.ctl.codec.CodecException;
+import org.onosproject.p4runtime.ctl.codec.Codecs;
+import org.onosproject.p4runtime.model.P4InfoParserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import p4.v1.P4RuntimeOuterClass;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.omecproject.up4.impl.Up4P4InfoConstants.POST_QOS_PIPE_POST_QOS_COUNTER;
+import static org.omecproject.up4.impl.Up4P4InfoConstants.PRE_QOS_PIPE_PRE_QOS_COUNTER;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.APPLICATION;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.APPLICATION_METER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.COUNTER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.INTERFACE;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.SESSION_DOWNLINK;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.SESSION_METER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.SESSION_UPLINK;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.SLICE_METER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.TERMINATION_DOWNLINK;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.TERMINATION_UPLINK;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.TUNNEL_PEER;
+
+/**
+ * Dumps the UPF state to a file and loads it back.
+ * <p>
+ * The dump is a sequence of P4Runtime entities of the logical UP4 pipeline,
+ * each preceded by its varint encoded length (i.e., the protobuf delimited
+ * format). Table entries and meters are written in dependency order, so that
+ * the load can replay the file sequentially, followed by the counter cells.
+ * Counters are included for forensics only and are not loaded back.
+ */
+public final class UpfStateDump {
+
+    /**
+     * UPF entity types in the order they are dumped and loaded, i.e., each
+     * type after the types it might refer to.
+     */
+    static final List<UpfEntityType> ENTITY_ORDER = ImmutableList.of(
+            INTERFACE, SLICE_METER, SESSION_METER, APPLICATION_METER, TUNNEL_PEER,
+            APPLICATION, SESSION_UPLINK, SESSION_DOWNLINK, TERMINATION_UPLINK, TERMINATION_DOWNLINK);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Max in-flight applies per loader thread
+    private static final int IN_FLIGHT_PER_THREAD = 16;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final Up4Translator up4Translator = new Up4TranslatorImpl();
+    private final PiPipeconf pipeconf;
+
+    /**
+     * Creates a new UPF state dump, using the logical UP4 pipeline.
+     *
+     * @throws P4InfoParserException if the UP4 p4info cannot be parsed
+     */
+    public UpfStateDump() throws P4InfoParserException {
+        this.pipeconf = Up4NorthComponent.buildPipeconf();
+    }
+
+    /**
+     * Result of a dump or load operation.
+     */
+    public static final class Result {
+        private final Map<UpfEntityType, Long> entities;
+        private final long skipped;
+        private final long failed;
+        private final String firstError;
+
+        private Result(Map<UpfEntityType, Long> entities, long skipped, long failed, String firstError) {
+            this.entities = ImmutableMap.copyOf(entities);
+            this.skipped = skipped;
+            this.failed = failed;
+            this.firstError = firstError;
+        }
+
+        /**
+         * Returns the number of entities dumped or loaded, per UPF entity type.
+         *
+         * @return map of UPF entity type to number of entities
+         */
+        public Map<UpfEntityType, Long> entities() {
+            return entities;
+        }
+
+        /**
+         * Returns the number of entities found in the dump and not loaded,
+         * i.e., the counter cells.
+         *
+         * @return number of skipped entities
+         */
+        public long skipped() {
+            return skipped;
+        }
+
+        /**
+         * Returns the number of entities that failed to load.
+         *
+         * @return number of failed entities
+         */
+        public long failed() {
+            return failed;
+        }
+
+        /**
+         * Returns the error of the first entity that failed to load or, for a
+         * dump, the UPF devices missing from the dumped counters, if any.
+         *
+         * @return the first error message
+         */
+        public Optional<String> firstError() {
+            return Optional.ofNullable(firstError);
+        }
+    }
+
+    /**
+     * Dumps all the UPF entities, meters and, optionally, counters to the
+     * given file, overwriting it if it exists. Entities are streamed to the
+     * file one UPF entity type at a time.
+     *
+     * @param up4Service   the UP4 service to read the UPF state from
+     * @param file         the dump file
+     * @param withCounters whether to dump the counters
+     * @return the number of dumped entities per UPF entity type, and the
+     * UPF devices missing from the dumped counters, if any
+     * @throws UpfProgrammableException if the UPF state is unable to read
+     * @throws IOException              if the dump file cannot be written
+     */
+    public Result dump(Up4Service up4Service, Path file, boolean withCounters)
+            throws UpfProgrammableException, IOException {
+        Map<UpfEntityType, Long> dumped = Maps.newEnumMap(UpfEntityType.class);
+        String error = null;
+        try (FileChannel channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)) {
+            for (UpfEntityType type : ENTITY_ORDER) {
+                long count = 0;
+                for (UpfEntity entity : up4Service.readAll(type)) {
+                    encode(entity).writeDelimitedTo(out);
+                    count++;
+                }
+                dumped.put(type, count);
+            }
+            if (withCounters) {
+                long count = 0;
+                // A hung UPF device must not prevent the dump
+                Up4Counters counters = up4Service.readCountersDegraded(-1, COUNTER);
+                if (!counters.isComplete()) {
+                    error = "Counters without the values of UPF devices " + counters.missingDevices();
+                }
+                for (UpfCounter counter : counters.counters()) {
+                    encode(PRE_QOS_PIPE_PRE_QOS_COUNTER, counter.getCellId(),
+                           counter.getIngressPkts().orElse(0L), counter.getIngressBytes().orElse(0L))
+                            .writeDelimitedTo(out);
+                    encode(POST_QOS_PIPE_POST_QOS_COUNTER, counter.getCellId(),
+                           counter.getEgressPkts().orElse(0L), counter.getEgressBytes().orElse(0L))
+                            .writeDelimitedTo(out);
+                    count++;
+                }
+                dumped.put(COUNTER, count);
+            }
+            out.flush();
+            channel.force(false);
+        }
+        return new Result(dumped, 0, 0, error);
+    }
+
+    /**
+     * Loads the UPF state from the given dump file, applying the entities via
+     * the UP4 service in the order they appear in the file. Entities of the
+     * same type are applied concurrently by the given number of threads, the
+     * load waits for all the entities of a type to be applied before moving
+     * to the next type. Entities that fail to apply are counted and do not
+     * stop the load.
+     *
+     * @param up4Service  the UP4 service to apply the UPF state to
+     * @param file        the dump file
+     * @param parallelism the number of threads applying the entities
+     * @return the number of loaded, skipped and failed entities
+     * @throws IOException if the dump file cannot be read or decoded
+     */
+    public Result load(Up4Service up4Service, Path file, int parallelism) throws IOException {
+        Map<UpfEntityType, AtomicLong> loaded = Maps.newEnumMap(UpfEntityType.class);
+        AtomicLong failed = new AtomicLong();
+        AtomicReference<String> firstError = new AtomicReference<>();
+        long skipped = 0;
+        int maxInFlight = Math.max(parallelism, 1) * IN_FLIGHT_PER_THREAD;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ExecutorService executor = parallelism > 1 ? Executors.newFixedThreadPool(
+                parallelism, groupedThreads("omec/up4", "state-load-%d", log)) : null;
+        try (FileChannel channel = FileChannel.open(file, READ);
+             InputStream in = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE)) {
+            UpfEntityType currentType = null;
+            P4RuntimeOuterClass.Entity message;
+            while ((message = P4RuntimeOuterClass.Entity.parseDelimitedFrom(in)) != null) {
+                UpfEntity entity = decode(message);
+                if (entity == null) {
+                    skipped++;
+                    continue;
+                }
+                if (entity.type() != currentType) {
+                    // Entities of the next type might refer to the ones of
+                    // the current type, wait for all of them to be applied.
+                    inFlight.acquireUninterruptibly(maxInFlight);
+                    inFlight.release(maxInFlight);
+                    currentType = entity.type();
+                }
+                AtomicLong typeCount = loaded.computeIfAbsent(currentType, k -> new AtomicLong());
+                Runnable apply = () -> {
+                    try {
+                        up4Service.apply(entity);
+                        typeCount.incrementAndGet();
+                    } catch (UpfProgrammableException | RuntimeException e) {
+                        failed.incrementAndGet();
+                        firstError.compareAndSet(null, entity + ": " + e.getMessage());
+                        log.debug("Unable to load {}: {}", entity, e.getMessage());
+                    } finally {
+                        inFlight.release();
+                    }
+                };
+                inFlight.acquireUninterruptibly();
+                if (executor == null) {
+                    apply.run();
+                } else {
+                    executor.execute(apply);
+                }
+            }
+            inFlight.acquireUninterruptibly(maxInFlight);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+        Map<UpfEntityType, Long> result = Maps.newEnumMap(UpfEntityType.class);
+        loaded.forEach((type, count) -> result.put(type, count.get()));
+        if (failed.get() > 0) {
+            log.warn("Failed to load {} UPF entities from {}, first error: {}",
+                     failed.get(), file, firstError.get());
+        }
+        return new Result(result, skipped, failed.get(), firstError.get());
+    }
+
+    /**
+     * Encodes the given UPF entity to a P4Runtime entity of the logical UP4
+     * pipeline.
+     *
+     * @param entity the UPF entity, not a counter
+     * @return the P4Runtime entity
+     * @throws IOException if the entity cannot be encoded
+     */
+    P4RuntimeOuterClass.Entity encode(UpfEntity entity) throws IOException {
+        try {
+            switch (entity.type()) {
+                case SESSION_METER:
+                case APPLICATION_METER:
+                case SLICE_METER:
+                    return Codecs.CODECS.entity().encode(
+                            up4Translator.upfEntityToUp4MeterEntry(entity), null, pipeconf);
+                default:
+                    return Codecs.CODECS.entity().encode(
+                            up4Translator.upfEntityToUp4TableEntry(entity), null, pipeconf);
+            }
+        } catch (Up4Translator.Up4TranslationException | CodecException e) {
+            throw new IOException("Unable to encode " + entity + ": " + e.getMessage(), e);
+        }
+    }
+
+    private P4RuntimeOuterClass.Entity encode(PiCounterId counterId, int index, long pkts, long bytes)
+            throws IOException {
+        try {
+            return Codecs.CODECS.entity().encode(
+                    new PiCounterCell(PiCounterCellId.ofIndirect(counterId, index), pkts, bytes),
+                    null, pipeconf);
+        } catch (CodecException e) {
+            throw new IOException("Unable to encode counter cell " + index + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes the given dumped entity to a UPF entity.
+     *
+     * @param message the dumped P4Runtime entity
+     * @return the UPF entity, or null if the entity must not be loaded
+     * @throws IOException if the entity cannot be decoded
+     */
+    UpfEntity decode(P4RuntimeOuterClass.Entity message) throws IOException {
+        try {
+            PiEntity piEntity = Codecs.CODECS.entity().decode(message, null, pipeconf);
+            switch (piEntity.piEntityType()) {
+                case TABLE_ENTRY:
+                    return up4Translator.up4TableEntryToUpfEntity((PiTableEntry) piEntity);
+                case METER_CELL_CONFIG:
+                    return up4Translator.up4MeterEntryToUpfEntity((PiMeterCellConfig) piEntity);
+                case COUNTER_CELL:
+                    return null;
+                default:
+                    throw new IOException("Unsupported entity in UPF state dump: " + piEntity.piEntityType());
+            }
+        } catch (Up4Translator.Up4TranslationException | CodecException e) {
+            throw new IOException("Unable to decode UPF state dump entity: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,604 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.CodedInputStream;
+import org.onosproject.net.behaviour.upf.UpfEntity;
+import org.onosproject.net.behaviour.upf.UpfEntityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import p4.v1.P4RuntimeOuterClass;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * In-memory shadow of the UPF entities applied via UP4, persisted in a local
+ * directory as a snapshot plus an append-only journal of the changes since
+ * the snapshot, so that the UPF state can be restored on the UPF devices
+ * after a restart without waiting for the PFCP agent to resync.
+ * <p>
+ * The snapshot ({@value #SNAPSHOT_FILE}) has the same format of the
+ * {@link UpfStateDump} files. It is written to a temporary file and then
+ * atomically renamed, so it is always complete. Journal
+ * ({@value #JOURNAL_FILE}) records are (big-endian):
+ * <pre>
+ *  0: int   record length n, excluding this field and the CRC
+ *  4: int   CRC32 of the following n bytes
+ *  8: byte  operation, 1 apply, 2 delete, 3 delete all entities of a type
+ *  9: n-1   apply and delete: the P4Runtime entity of the UPF entity,
+ *           delete all: the UPF entity type name
+ * </pre>
+ * A crash while appending leaves a torn record at the end of the journal,
+ * which is detected via length and CRC and discarded on recovery.
+ * <p>
+ * The journal is compacted into a new snapshot when it has more records than
+ * entities. Compaction rolls the journal over to {@value #PREV_JOURNAL_FILE}
+ * and copies the entities, then the snapshot is written and synced on the
+ * compaction executor, without holding the journal lock, while new records
+ * are appended to a new journal. The previous journal is removed once the new
+ * snapshot is in place. Recovery replays the previous journal, if any, before
+ * the current one: replaying it on top of the new snapshot results in the
+ * same state.
+ * <p>
+ * Without a directory the shadow is kept in memory only, e.g., to reconcile
+ * the leader UPF device with the intended state.
+ */
+final class UpfStateJournal {
+
+    static final String SNAPSHOT_FILE = "snapshot.pb";
+    static final String JOURNAL_FILE = "journal.log";
+    static final String PREV_JOURNAL_FILE = JOURNAL_FILE + ".prev";
+    private static final String SNAPSHOT_TMP_FILE = SNAPSHOT_FILE + ".tmp";
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte OP_APPLY = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_DELETE_ALL = 3;
+    // Do not compact small journals, regardless of the number of entities
+    static final int MIN_COMPACTION_RECORDS = 10_000;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Map<UpfEntityKey, UpfEntity> entities = Maps.newConcurrentMap();
+    // Number of entities of each type, updated with the entities
+    private final int[] typeCounts = new int[UpfEntityType.values().length];
+    private final Path directory;
+    private final UpfStateDump codec;
+    private final Executor compactionExecutor;
+    private FileChannel journal;
+    private long journalRecords;
+    // Background compaction running, and generation of the persisted state
+    // to discard the compactions started before a clear.
+    private boolean compacting;
+    private long generation;
+    private volatile boolean complete;
+
+    /**
+     * Creates a new UPF state journal, compacted on the calling thread. The
+     * persisted state is loaded by {@link #open()}.
+     *
+     * @param directory the directory of the snapshot and journal files, null
+     *                  to keep the state in memory only
+     * @param codec     the UPF entity encoder and decoder
+     */
+    UpfStateJournal(Path directory, UpfStateDump codec) {
+        this(directory, codec, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Creates a new UPF state journal. The persisted state is loaded by
+     * {@link #open()}.
+     *
+     * @param directory          the directory of the snapshot and journal
+     *                           files, null to keep the state in memory only
+     * @param codec              the UPF entity encoder and decoder
+     * @param compactionExecutor the executor writing the snapshots
+     */
+    UpfStateJournal(Path directory, UpfStateDump codec, Executor compactionExecutor) {
+        this.directory = directory;
+        this.codec = codec;
+        this.compactionExecutor = compactionExecutor;
+    }
+
+    /**
+     * Returns the directory of the snapshot and journal files.
+     *
+     * @return the journal directory, null if the state is in memory only
+     */
+    Path directory() {
+        return directory;
+    }
+
+    /**
+     * Returns true if the state is persisted.
+     *
+     * @return true if the state is persisted
+     */
+    synchronized boolean isPersistent() {
+        return journal != null;
+    }
+
+    /**
+     * Returns true if all the UPF entities applied via UP4 are tracked, i.e.,
+     * the state has been loaded from a previously persisted one, or it has
+     * been tracked since before the first apply or since the last clear.
+     *
+     * @return true if the tracked state is complete
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Marks the tracked state as complete, e.g., when tracking starts before
+     * the UPF data plane setup.
+     */
+    void markComplete() {
+        complete = true;
+    }
+
+    /**
+     * Loads the snapshot and replays the journal, discarding a torn record at
+     * the end of the journal, then opens the journal for appending.
+     *
+     * @throws IOException if the files cannot be read or decoded
+     */
+    synchronized void open() throws IOException {
+        clearEntities();
+        if (directory == null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        // A state persisted before is complete, a new one only if tracked since the start
+        complete = Files.exists(snapshot) || Files.exists(directory.resolve(JOURNAL_FILE)) ||
+                Files.exists(directory.resolve(PREV_JOURNAL_FILE));
+        if (Files.exists(snapshot)) {
+            try (FileChannel channel = FileChannel.open(snapshot, READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                CodedInputStream input = CodedInputStream.newInstance(buffer);
+                while (!input.isAtEnd()) {
+                    int oldLimit = input.pushLimit(input.readRawVarint32());
+                    put(codec.decode(P4RuntimeOuterClass.Entity.parseFrom(input)));
+                    input.popLimit(oldLimit);
+                }
+            }
+        }
+        int snapshotEntities = entities.size();
+        journalRecords = 0;
+        Path prevJournal = directory.resolve(PREV_JOURNAL_FILE);
+        boolean rolledOver = Files.exists(prevJournal);
+        if (rolledOver) {
+            // Compaction interrupted after rolling over the journal
+            try (FileChannel channel = FileChannel.open(prevJournal, READ)) {
+                replayJournal(channel);
+            }
+        }
+        journal = FileChannel.open(directory.resolve(JOURNAL_FILE), CREATE, READ, WRITE);
+        long validSize = replayJournal(journal);
+        if (validSize < journal.size()) {
+            log.warn("Discarding {} bytes of torn UPF state journal records",
+                     journal.size() - validSize);
+            journal.truncate(validSize);
+        }
+        journal.position(validSize);
+        log.info("Loaded {} UPF entities from {} ({} in snapshot, {} journal records)",
+                 entities.size(), directory, snapshotEntities, journalRecords);
+        if (rolledOver) {
+            compact();
+        }
+    }
+
+    /**
+     * Replays the valid records of the given journal file.
+     *
+     * @param channel the journal file
+     * @return the size of the valid records, a torn record is after it
+     * @throws IOException if the file cannot be read or decoded
+     */
+    private long replayJournal(FileChannel channel) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 1 || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            byte[] record = new byte[length];
+            buffer.get(record);
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != checksum) {
+                buffer.position(start);
+                break;
+            }
+            replay(record);
+            journalRecords++;
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Records that the given UPF entity has been applied.
+     *
+     * @param entity the UPF entity
+     */
+    synchronized void applied(UpfEntity entity) {
+        if (!isJournaled(entity.type())) {
+            return;
+        }
+        put(entity);
+        appendEntity(OP_APPLY, entity);
+    }
+
+    /**
+     * Records that the given UPF entity has been deleted.
+     *
+     * @param entity the UPF entity
+     */
+    synchronized void deleted(UpfEntity entity) {
+        if (!isJournaled(entity.type())) {
+            return;
+        }
+        remove(UpfEntityKey.of(entity));
+        appendEntity(OP_DELETE, entity);
+    }
+
+    /**
+     * Records that all the UPF entities of the given type have been deleted.
+     *
+     * @param entityType the UPF entity type
+     */
+    synchronized void deletedAll(UpfEntityType entityType) {
+        if (!isJournaled(entityType)) {
+            return;
+        }
+        removeAll(entityType);
+        append(OP_DELETE_ALL, entityType.name().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Forgets all UPF entities, removing the snapshot and the journal.
+     */
+    synchronized void clear() {
+        clearEntities();
+        complete = true;
+        if (journal == null) {
+            return;
+        }
+        // A running compaction must not install its snapshot
+        generation++;
+        try {
+            Files.deleteIfExists(directory.resolve(SNAPSHOT_FILE));
+            Files.deleteIfExists(directory.resolve(PREV_JOURNAL_FILE));
+            journal.truncate(0);
+            journalRecords = 0;
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    /**
+     * Returns the applied UPF entities of the given type.
+     *
+     * @param entityType the UPF entity type
+     * @return the applied UPF entities
+     */
+    Collection<UpfEntity> entities(UpfEntityType entityType) {
+        return entities.values().stream()
+                .filter(e -> e.type() == entityType)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns true if the given UPF entity is the applied one for its key.
+     *
+     * @param entity the UPF entity
+     * @return true if the entity is applied
+     */
+    boolean contains(UpfEntity entity) {
+        return isJournaled(entity.type()) && entity.equals(entities.get(UpfEntityKey.of(entity)));
+    }
+
+    /**
+     * Returns the applied UPF entity with the given key.
+     *
+     * @param key the UPF entity key
+     * @return the applied UPF entity, or null if none
+     */
+    UpfEntity get(UpfEntityKey key) {
+        return entities.get(key);
+    }
+
+    /**
+     * Returns the number of applied UPF entities of the given type.
+     *
+     * @param entityType the UPF entity type
+     * @return number of applied entities of the type
+     */
+    synchronized int count(UpfEntityType entityType) {
+        return typeCounts[entityType.ordinal()];
+    }
+
+    /**
+     * Returns the number of applied UPF entities.
+     *
+     * @return number of applied entities
+     */
+    int size() {
+        return entities.size();
+    }
+
+    /**
+     * Returns the number of records in the journal since the last snapshot.
+     *
+     * @return number of journal records
+     */
+    synchronized long journalRecords() {
+        return journalRecords;
+    }
+
+    /**
+     * Writes a new snapshot of the applied UPF entities and empties the
+     * journal, on the calling thread. Waits for the background compaction,
+     * if any, to complete first.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    synchronized void compact() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        while (compacting) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the UPF state journal compaction");
+            }
+        }
+        writeSnapshot(Lists.newArrayList(entities.values()));
+        // A crash before truncating replays the journal on top of the new
+        // snapshot, which results in the same state.
+        Files.deleteIfExists(directory.resolve(PREV_JOURNAL_FILE));
+        journal.truncate(0);
+        journalRecords = 0;
+        log.debug("Compacted UPF state journal, {} entities in snapshot", entities.size());
+    }
+
+    /**
+     * Rolls the journal over and writes the new snapshot on the compaction
+     * executor.
+     *
+     * @throws IOException if the journal cannot be rolled over
+     */
+    private void compactInBackground() throws IOException {
+        if (compacting) {
+            return;
+        }
+        Path prevJournal = directory.resolve(PREV_JOURNAL_FILE);
+        if (Files.exists(prevJournal)) {
+            // A previous compaction failed, its journal must not be overwritten
+            compact();
+            return;
+        }
+        journal.close();
+        journal = null;
+        Path journalFile = directory.resolve(JOURNAL_FILE);
+        Files.move(journalFile, prevJournal, ATOMIC_MOVE);
+        journal = FileChannel.open(journalFile, CREATE, TRUNCATE_EXISTING, READ, WRITE);
+        journalRecords = 0;
+        // Only the copy is done while holding the lock
+        List<UpfEntity> snapshot = Lists.newArrayList(entities.values());
+        long snapshotGeneration = generation;
+        compacting = true;
+        try {
+            compactionExecutor.execute(() -> installSnapshot(snapshot, snapshotGeneration));
+        } catch (RejectedExecutionException e) {
+            // The previous journal is replayed on recovery
+            log.warn("Unable to compact UPF state journal: {}", e.getMessage());
+            compacting = false;
+        }
+    }
+
+    private void installSnapshot(List<UpfEntity> snapshot, long snapshotGeneration) {
+        try {
+            Path tmpSnapshot = writeSnapshotFile(snapshot);
+            synchronized (this) {
+                if (snapshotGeneration != generation) {
+                    Files.deleteIfExists(tmpSnapshot);
+                    return;
+                }
+                Files.move(tmpSnapshot, directory.resolve(SNAPSHOT_FILE), ATOMIC_MOVE, REPLACE_EXISTING);
+                Files.deleteIfExists(directory.resolve(PREV_JOURNAL_FILE));
+            }
+            log.debug("Compacted UPF state journal, {} entities in snapshot", snapshot.size());
+        } catch (IOException e) {
+            // The previous journal is kept and replayed on recovery
+            log.warn("Unable to compact UPF state journal: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                compacting = false;
+                notifyAll();
+            }
+        }
+    }
+
+    private void writeSnapshot(List<UpfEntity> snapshot) throws IOException {
+        Files.move(writeSnapshotFile(snapshot), directory.resolve(SNAPSHOT_FILE), ATOMIC_MOVE, REPLACE_EXISTING);
+    }
+
+    /**
+     * Writes the given entities in a temporary snapshot file, synced to disk.
+     *
+     * @param snapshot the UPF entities
+     * @return the temporary snapshot file
+     * @throws IOException if the snapshot cannot be written
+     */
+    private Path writeSnapshotFile(List<UpfEntity> snapshot) throws IOException {
+        snapshot.sort(Comparator.comparingInt(e -> UpfStateDump.ENTITY_ORDER.indexOf(e.type())));
+        Path tmpSnapshot = directory.resolve(SNAPSHOT_TMP_FILE);
+        try (FileChannel channel = FileChannel.open(tmpSnapshot, CREATE, TRUNCATE_EXISTING, WRITE);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)) {
+            for (UpfEntity entity : snapshot) {
+                codec.encode(entity).writeDelimitedTo(out);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        return tmpSnapshot;
+    }
+
+    /**
+     * Closes the journal, compacting it first.
+     */
+    synchronized void close() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            compact();
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Unable to close UPF state journal: {}", e.getMessage());
+        }
+        journal = null;
+    }
+
+    private static boolean isJournaled(UpfEntityType entityType) {
+        return UpfStateDump.ENTITY_ORDER.contains(entityType);
+    }
+
+    private void put(UpfEntity entity) {
+        if (entity != null && entities.put(UpfEntityKey.of(entity), entity) == null) {
+            typeCounts[entity.type().ordinal()]++;
+        }
+    }
+
+    private void remove(UpfEntityKey key) {
+        if (entities.remove(key) != null) {
+            typeCounts[key.type().ordinal()]--;
+        }
+    }
+
+    private void removeAll(UpfEntityType entityType) {
+        entities.keySet().removeIf(k -> k.type() == entityType);
+        typeCounts[entityType.ordinal()] = 0;
+    }
+
+    private void clearEntities() {
+        entities.clear();
+        Arrays.fill(typeCounts, 0);
+    }
+
+    private void replay(byte[] record) throws IOException {
+        switch (record[0]) {
+            case OP_APPLY:
+                put(decode(record));
+                break;
+            case OP_DELETE:
+                UpfEntity entity = decode(record);
+                if (entity != null) {
+                    remove(UpfEntityKey.of(entity));
+                }
+                break;
+            case OP_DELETE_ALL:
+                UpfEntityType entityType = UpfEntityType.valueOf(
+                        new String(record, 1, record.length - 1, StandardCharsets.UTF_8));
+                removeAll(entityType);
+                break;
+            default:
+                throw new IOException("Unknown UPF state journal operation: " + record[0]);
+        }
+    }
+
+    private UpfEntity decode(byte[] record) throws IOException {
+        return codec.decode(P4RuntimeOuterClass.Entity.parseFrom(
+                ByteBuffer.wrap(record, 1, record.length - 1)));
+    }
+
+    private void appendEntity(byte op, UpfEntity entity) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            append(op, codec.encode(entity).toByteArray());
+        } catch (IOException e) {
+            // Translation errors are not expected, the entity has been applied
+            log.warn("Unable to journal {}: {}", entity, e.getMessage());
+        }
+    }
+
+    private void append(byte op, byte[] payload) {
+        if (journal == null) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(op);
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + 1 + payload.length)
+                .putInt(1 + payload.length)
+                .putInt((int) crc.getValue())
+                .put(op)
+                .put(payload)
+                .flip();
+        try {
+            while (record.hasRemaining()) {
+                journal.write(record);
+            }
+            journalRecords++;
+            if (journalRecords > Math.max(MIN_COMPACTION_RECORDS, entities.size())) {
+                compactInBackground();
+            }
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    private void disable(IOException e) {
+        log.error("Unable to write UPF state journal in {}, disabling persistence: {}",
+                  directory, e.getMessage());
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException ex) {
+            log.debug("Unable to close UPF state journal: {}", ex.getMessage());
+        }
+        journal = null;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.onlab.packet.Ip4Address;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.omecproject.up4.impl.UeTrafficRate.Direction.UPLINK;
+
+/**
+ * Incremental slice, application and UE traffic aggregation. Usage records
+ * produced by the stats poller are added to the totals of the UE, of the
+ * application (in the slice) and of the slice, so that queries at any level
+ * of the hierarchy don't need to scan the terminations.
+ * <p>
+ * Totals are cumulative since the last reset. UE totals are dropped once the
+ * UE has no more terminations, without affecting the application and slice
+ * totals. Applications and slices left without UEs are dropped from the UE
+ * totals as well.
+ */
+public final class UpfTrafficAggregator {
+
+    /**
+     * Slice ID of the traffic that could not be associated to any slice.
+     */
+    public static final int UNKNOWN_SLICE_ID = UeSliceResolver.UNKNOWN_SLICE_ID;
+
+    private final Map<Integer, TrafficTotals> sliceTotals = Maps.newHashMap();
+    private final Map<Integer, Map<Byte, TrafficTotals>> appTotals = Maps.newHashMap();
+    private final Map<Integer, Map<Byte, Map<Ip4Address, TrafficTotals>>> ueTotals = Maps.newHashMap();
+    private long sinceMillis = System.currentTimeMillis();
+
+    /**
+     * Cumulative traffic, in both directions.
+     */
+    public static final class TrafficTotals {
+        private static final int FIELDS = 4;
+        private static final int RX_PKTS = 0;
+        private static final int RX_BYTES = 1;
+        private static final int TX_PKTS = 2;
+        private static final int TX_BYTES = 3;
+
+        private final long[] values;
+
+        private TrafficTotals() {
+            this.values = new long[2 * FIELDS];
+        }
+
+        private TrafficTotals(TrafficTotals other) {
+            this.values = other.values.clone();
+        }
+
+        private void add(UsageRecord record) {
+            int offset = offset(record.direction());
+            values[offset + RX_PKTS] += record.ingressPkts();
+            values[offset + RX_BYTES] += record.ingressBytes();
+            values[offset + TX_PKTS] += record.egressPkts();
+            values[offset + TX_BYTES] += record.egressBytes();
+        }
+
+        private static int offset(UeTrafficRate.Direction direction) {
+            return direction == UPLINK ? 0 : FIELDS;
+        }
+
+        /**
+         * Returns the packets received by the UPF in the given direction.
+         *
+         * @param direction the traffic direction
+         * @return the received packets
+         */
+        public long rxPkts(UeTrafficRate.Direction direction) {
+            return values[offset(direction) + RX_PKTS];
+        }
+
+        /**
+         * Returns the bytes received by the UPF in the given direction.
+         *
+         * @param direction the traffic direction
+         * @return the received bytes
+         */
+        public long rxBytes(UeTrafficRate.Direction direction) {
+            return values[offset(direction) + RX_BYTES];
+        }
+
+        /**
+         * Returns the packets transmitted by the UPF in the given direction.
+         *
+         * @param direction the traffic direction
+         * @return the transmitted packets
+         */
+        public long txPkts(UeTrafficRate.Direction direction) {
+            return values[offset(direction) + TX_PKTS];
+        }
+
+        /**
+         * Returns the bytes transmitted by the UPF in the given direction.
+         *
+         * @param direction the traffic direction
+         * @return the transmitted bytes
+         */
+        public long txBytes(UeTrafficRate.Direction direction) {
+            return values[offset(direction) + TX_BYTES];
+        }
+
+        /**
+         * Returns the packets dropped by the UPF in the given direction.
+         *
+         * @param direction the traffic direction
+         * @return the dropped packets
+         */
+        public long droppedPkts(UeTrafficRate.Direction direction) {
+            return rxPkts(direction) - txPkts(direction);
+        }
+    }
+
+    /**
+     * Adds the given usage records to the totals. Records of UEs without
+     * terminations in the given set are dropped from the UE totals.
+     *
+     * @param records       the usage records of the last polling interval
+     * @param sliceResolver function returning the slice ID of a usage record
+     * @param activeUes     the UEs with at least one termination
+     */
+    synchronized void add(Collection<UsageRecord> records, Function<UsageRecord, Integer> sliceResolver,
+                          Set<Ip4Address> activeUes) {
+        for (UsageRecord record : records) {
+            int sliceId = sliceResolver.apply(record);
+            sliceTotals.computeIfAbsent(sliceId, k -> new TrafficTotals()).add(record);
+            appTotals.computeIfAbsent(sliceId, k -> Maps.newHashMap())
+                    .computeIfAbsent(record.applicationId(), k -> new TrafficTotals()).add(record);
+            ueTotals.computeIfAbsent(sliceId, k -> Maps.newHashMap())
+                    .computeIfAbsent(record.applicationId(), k -> Maps.newHashMap())
+                    .computeIfAbsent(record.ueAddress(), k -> new TrafficTotals()).add(record);
+        }
+        ueTotals.values().removeIf(apps -> {
+            apps.values().removeIf(ues -> {
+                ues.keySet().retainAll(activeUes);
+                return ues.isEmpty();
+            });
+            return apps.isEmpty();
+        });
+    }
+
+    /**
+     * Returns the traffic totals of all slices.
+     *
+     * @return map of slice ID to traffic totals
+     */
+    public synchronized Map<Integer, TrafficTotals> sliceTotals() {
+        return copy(sliceTotals);
+    }
+
+    /**
+     * Returns the traffic totals of the applications in the given slice.
+     *
+     * @param sliceId the slice ID
+     * @return map of application ID to traffic totals
+     */
+    public synchronized Map<Byte, TrafficTotals> appTotals(int sliceId) {
+        return copy(appTotals.getOrDefault(sliceId, ImmutableMap.of()));
+    }
+
+    /**
+     * Returns the traffic totals of the UEs of the given application in the
+     * given slice.
+     *
+     * @param sliceId the slice ID
+     * @param appId   the application ID
+     * @return map of UE address to traffic totals
+     */
+    public synchronized Map<Ip4Address, TrafficTotals> ueTotals(int sliceId, byte appId) {
+        return copy(ueTotals.getOrDefault(sliceId, ImmutableMap.of()).getOrDefault(appId, ImmutableMap.of()));
+    }
+
+    /**
+     * Returns the time of the last reset.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public synchronized long sinceMillis() {
+        return sinceMillis;
+    }
+
+    /**
+     * Clears all the totals.
+     */
+    public synchronized void reset() {
+        sliceTotals.clear();
+        appTotals.clear();
+        ueTotals.clear();
+        sinceMillis = System.currentTimeMillis();
+    }
+
+    private static <K> Map<K, TrafficTotals> copy(Map<K, TrafficTotals> totals) {
+        return totals.entrySet().stream()
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, e -> new TrafficTotals(e.getValue())));
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.Lists;
+import org.onosproject.net.behaviour.upf.UpfProgrammableException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Micro-batching stage merging the device writes of concurrent callers.
+ * The first write of a batch waits for the batching window, or until the
+ * batch is full, then executes all the writes of the batch at once. Each
+ * caller blocks until its own write completed, and gets its own result.
+ * <p>
+ * The window adapts to the load: it is halved every time a batch is flushed
+ * with a single write while no other batch is executing, down to 0 (i.e.,
+ * writes are executed as soon as submitted), and doubled, up to the
+ * configured maximum, every time a batch merges concurrent writes or is
+ * flushed while another batch is executing. Batching is disabled when the
+ * maximum window is 0 or the maximum batch size is 1.
+ *
+ * @param <T> the type of the write operations
+ */
+final class UpfWriteBatcher<T> {
+
+    /**
+     * Executor of a batch of write operations.
+     *
+     * @param <T> the type of the write operations
+     */
+    @FunctionalInterface
+    interface BatchExecutor<T> {
+        /**
+         * Executes the given writes, returning the failure of each write.
+         *
+         * @param writes the write operations
+         * @return the failure of each write, in the same order, null if the write succeeded
+         */
+        List<UpfProgrammableException> execute(List<T> writes);
+    }
+
+    private final BatchExecutor<T> executor;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedWrites = new AtomicLong();
+    private final AtomicInteger executing = new AtomicInteger();
+    private volatile long maxWindowNanos;
+    private volatile int maxBatchSize;
+
+    // Guarded by this
+    private List<PendingWrite<T>> openBatch;
+    private Thread openBatchOwner;
+    private long windowNanos;
+
+    /**
+     * Creates a new write batcher.
+     *
+     * @param executor        the executor of the batches
+     * @param maxWindowMicros the maximum batching window in microseconds
+     * @param maxBatchSize    the maximum number of writes per batch
+     */
+    UpfWriteBatcher(BatchExecutor<T> executor, long maxWindowMicros, int maxBatchSize) {
+        this.executor = executor;
+        configure(maxWindowMicros, maxBatchSize);
+    }
+
+    /**
+     * Sets the maximum batching window and batch size.
+     *
+     * @param maxWindowMicros the maximum batching window in microseconds, 0 disables batching
+     * @param maxBatchSize    the maximum number of writes per batch, 1 disables batching
+     */
+    synchronized void configure(long maxWindowMicros, int maxBatchSize) {
+        this.maxWindowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxWindowMicros));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        // Start batching, the window shrinks if the load is light
+        this.windowNanos = this.maxWindowNanos;
+    }
+
+    /**
+     * Executes the given write, batched with the concurrent writes of the
+     * other callers.
+     *
+     * @param write the write operation
+     * @throws UpfProgrammableException if the write failed
+     */
+    void write(T write) throws UpfProgrammableException {
+        if (maxWindowNanos <= 0 || maxBatchSize <= 1) {
+            UpfProgrammableException failure = executor.execute(List.of(write)).get(0);
+            if (failure != null) {
+                throw failure;
+            }
+            return;
+        }
+        PendingWrite<T> pending = new PendingWrite<>(write);
+        List<PendingWrite<T>> batch;
+        List<PendingWrite<T>> toFlush = null;
+        Thread owner = null;
+        boolean opener = false;
+        long window;
+        synchronized (this) {
+            if (openBatch == null) {
+                openBatch = Lists.newArrayList();
+                openBatchOwner = Thread.currentThread();
+                opener = true;
+            }
+            batch = openBatch;
+            batch.add(pending);
+            if (batch.size() >= maxBatchSize) {
+                toFlush = batch;
+                owner = openBatchOwner;
+                openBatch = null;
+                openBatchOwner = null;
+            }
+            window = windowNanos;
+        }
+        if (toFlush != null && !opener) {
+            // Wake up the opener waiting for the window
+            LockSupport.unpark(owner);
+        }
+        if (toFlush == null && opener) {
+            long deadline = System.nanoTime() + window;
+            long remaining = window;
+            while (remaining > 0 && !isFlushed(batch)) {
+                LockSupport.parkNanos(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+            synchronized (this) {
+                if (openBatch == batch) {
+                    toFlush = batch;
+                    openBatch = null;
+                    openBatchOwner = null;
+                }
+            }
+        }
+        if (toFlush != null) {
+            flush(toFlush);
+        }
+        await(pending.result);
+    }
+
+    private synchronized boolean isFlushed(List<PendingWrite<T>> batch) {
+        return openBatch != batch;
+    }
+
+    private void flush(List<PendingWrite<T>> batch) {
+        boolean concurrent = executing.getAndIncrement() > 0;
+        adapt(batch.size() > 1 || concurrent);
+        batches.incrementAndGet();
+        batchedWrites.addAndGet(batch.size());
+        List<UpfProgrammableException> failures;
+        try {
+            failures = executor.execute(batch.stream().map(w -> w.write).collect(Collectors.toList()));
+        } catch (RuntimeException e) {
+            batch.forEach(w -> w.result.completeExceptionally(e));
+            return;
+        } finally {
+            executing.decrementAndGet();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            UpfProgrammableException failure = failures.get(i);
+            if (failure == null) {
+                batch.get(i).result.complete(null);
+            } else {
+                batch.get(i).result.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private synchronized void adapt(boolean loaded) {
+        long minWindow = maxWindowNanos / 8;
+        if (loaded) {
+            windowNanos = Math.min(maxWindowNanos, Math.max(windowNanos * 2, minWindow));
+        } else {
+            windowNanos = windowNanos / 2 < minWindow ? 0 : windowNanos / 2;
+        }
+    }
+
+    private static void await(CompletableFuture<Void> future) throws UpfProgrammableException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UpfProgrammableException) {
+                throw (UpfProgrammableException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new UpfProgrammableException(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpfProgrammableException("Interrupted while waiting for batched write");
+        }
+    }
+
+    /**
+     * Returns the current, adaptive, batching window.
+     *
+     * @return the window in microseconds
+     */
+    synchronized long windowMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(windowNanos);
+    }
+
+    /**
+     * Returns the number of flushed batches.
+     *
+     * @return number of batches
+     */
+    long batches() {
+        return batches.get();
+    }
+
+    /**
+     * Returns the number of writes executed in batches.
+     *
+     * @return number of batched writes
+     */
+    long batchedWrites() {
+        return batchedWrites.get();
+    }
+
+    private static final class PendingWrite<T> {
+        private final T write;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private PendingWrite(T write) {
+            this.write = write;
+        }
+    }
+}
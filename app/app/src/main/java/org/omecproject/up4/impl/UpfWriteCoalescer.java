@@ -0,0 +1,286 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.Maps;
+import org.onosproject.net.behaviour.upf.UpfEntity;
+import org.onosproject.net.behaviour.upf.UpfProgrammableException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+/**
+ * Coalesces the asynchronous writes of the same key issued within a short
+ * window, so that only the last write reaches the UPF devices, e.g., a UE
+ * downlink session flapping between buffering and forwarding. The first write
+ * of a key schedules a flush after the window, without blocking the caller.
+ * The flush is dispatched, e.g., to the async window, and executes the last
+ * write received for the key until then. All the coalesced writes are
+ * completed with the result of the executed one. Coalescing is disabled when
+ * the window is 0.
+ * <p>
+ * Writes are executed while holding the lock of their key. Synchronous writes
+ * are executed immediately and supersede the pending write of their key.
+ * Other writes of the same key not going through the coalescer (e.g., the
+ * terminations of the same UE, or session bundles) must
+ * {@link #flush(Object, Writer) flush} the pending write while holding the
+ * same lock, so that the writes of a key are executed in the order they were
+ * issued and a pending write cannot overwrite them afterwards.
+ */
+public final class UpfWriteCoalescer {
+
+    /**
+     * Executor of the writes on the UPF devices.
+     */
+    @FunctionalInterface
+    interface Writer {
+        void write(UpfEntity entity, boolean delete) throws UpfProgrammableException;
+    }
+
+    /**
+     * Dispatcher of the asynchronous writes once their window expired.
+     */
+    @FunctionalInterface
+    interface Dispatcher {
+        /**
+         * Runs the given flush of a write asynchronously. The returned future
+         * completes exceptionally if the flush is not going to run.
+         *
+         * @param entity the UPF entity to write, at dispatch time
+         * @param delete true if the entity is deleted, false if applied
+         * @param flush  the flush of the write
+         * @return the future completion of the flush
+         */
+        CompletableFuture<?> dispatch(UpfEntity entity, boolean delete, Runnable flush);
+    }
+
+    private static final class PendingWrite {
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private volatile UpfEntity entity;
+        private volatile boolean delete;
+
+        private PendingWrite(UpfEntity entity, boolean delete) {
+            this.entity = entity;
+            this.delete = delete;
+        }
+    }
+
+    private final Map<Object, PendingWrite> pending = Maps.newConcurrentMap();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final Function<Object, Lock> locks;
+    private final Dispatcher dispatcher;
+    private volatile long windowMillis;
+
+    /**
+     * Creates a new write coalescer.
+     *
+     * @param windowMillis the coalescing window in milliseconds
+     * @param locks        the lock of each coalescing key
+     * @param dispatcher   the dispatcher of the asynchronous writes
+     */
+    UpfWriteCoalescer(long windowMillis, Function<Object, Lock> locks, Dispatcher dispatcher) {
+        this.windowMillis = windowMillis;
+        this.locks = locks;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Writes the given entity asynchronously, coalescing it with the other
+     * writes of the same key within the window.
+     *
+     * @param key    the coalescing key
+     * @param entity the UPF entity to apply or delete
+     * @param delete true to delete the entity, false to apply it
+     * @param writer the executor of the write, called while holding the lock
+     *               of the key
+     * @return the future completed with the result of the executed write
+     */
+    CompletableFuture<Void> writeAsync(Object key, UpfEntity entity, boolean delete, Writer writer) {
+        PendingWrite created = new PendingWrite(entity, delete);
+        long window = windowMillis;
+        if (window <= 0) {
+            dispatch(key, created, writer, false);
+            return created.result;
+        }
+        // Atomic with the removal on flush, so the last write is never lost
+        PendingWrite current = pending.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return created;
+            }
+            existing.entity = entity;
+            existing.delete = delete;
+            return existing;
+        });
+        if (current != created) {
+            coalesced.incrementAndGet();
+            return current.result;
+        }
+        CompletableFuture.delayedExecutor(window, TimeUnit.MILLISECONDS)
+                .execute(() -> dispatch(key, created, writer, true));
+        return created.result;
+    }
+
+    private void dispatch(Object key, PendingWrite write, Writer writer, boolean coalescing) {
+        dispatcher.dispatch(write.entity, write.delete, () -> {
+            Lock lock = locks.apply(key);
+            lock.lock();
+            try {
+                // Not pending anymore if flushed in the meantime
+                if (!coalescing) {
+                    execute(write, writer);
+                } else if (pending.remove(key, write)) {
+                    writes.incrementAndGet();
+                    execute(write, writer);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }).whenComplete((result, error) -> {
+            // Not executed, e.g., UP4 is shutting down
+            if (error != null && (!coalescing || pending.remove(key, write))) {
+                write.result.completeExceptionally(error);
+            }
+        });
+    }
+
+    /**
+     * Writes the given entity immediately, on the calling thread. The pending
+     * write of the same key, if any, is superseded and its callers get the
+     * result of this write.
+     *
+     * @param key    the coalescing key
+     * @param entity the UPF entity to apply or delete
+     * @param delete true to delete the entity, false to apply it
+     * @param writer the executor of the write, called while holding the lock
+     *               of the key
+     * @throws UpfProgrammableException if the write failed
+     */
+    void write(Object key, UpfEntity entity, boolean delete, Writer writer) throws UpfProgrammableException {
+        Lock lock = locks.apply(key);
+        PendingWrite write;
+        lock.lock();
+        try {
+            write = pending.remove(key);
+            if (write != null) {
+                coalesced.incrementAndGet();
+                write.entity = entity;
+                write.delete = delete;
+            } else {
+                write = new PendingWrite(entity, delete);
+            }
+            if (windowMillis > 0) {
+                writes.incrementAndGet();
+            }
+            execute(write, writer);
+        } finally {
+            lock.unlock();
+        }
+        await(write.result);
+    }
+
+    /**
+     * Executes the pending write of the given key, if any, on the calling
+     * thread. Must be called while holding the lock of the key, before
+     * writing the key without the coalescer. A failure of the pending write
+     * is returned to its callers only.
+     *
+     * @param key    the coalescing key
+     * @param writer the executor of the write
+     */
+    void flush(Object key, Writer writer) {
+        PendingWrite write = pending.remove(key);
+        if (write != null) {
+            writes.incrementAndGet();
+            execute(write, writer);
+        }
+    }
+
+    private void execute(PendingWrite write, Writer writer) {
+        try {
+            writer.write(write.entity, write.delete);
+            write.result.complete(null);
+        } catch (UpfProgrammableException | RuntimeException e) {
+            write.result.completeExceptionally(e);
+        }
+    }
+
+    private void await(CompletableFuture<Void> future) throws UpfProgrammableException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UpfProgrammableException) {
+                throw (UpfProgrammableException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new UpfProgrammableException(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpfProgrammableException("Interrupted while waiting for coalesced write");
+        }
+    }
+
+    /**
+     * Sets the coalescing window, 0 disables coalescing.
+     *
+     * @param windowMillis the window in milliseconds
+     */
+    void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Returns the coalescing window.
+     *
+     * @return the window in milliseconds, 0 if coalescing is disabled
+     */
+    public long windowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * Returns the number of writes executed on the UPF devices while
+     * coalescing was enabled.
+     *
+     * @return the number of executed writes
+     */
+    public long writes() {
+        return writes.get();
+    }
+
+    /**
+     * Returns the number of writes superseded by a later write of the same
+     * key, thus not executed on the UPF devices.
+     *
+     * @return the number of coalesced writes
+     */
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Returns the number of keys with a write waiting for the window.
+     *
+     * @return the number of pending keys
+     */
+    public int pendingKeys() {
+        return pending.size();
+    }
+
+    /**
+     * Clears the coalescing statistics.
+     */
+    public void resetStats() {
+        writes.set(0);
+        coalesced.set(0);
+    }
+}
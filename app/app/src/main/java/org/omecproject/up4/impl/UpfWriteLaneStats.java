@@ -0,0 +1,161 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the priority lanes of the asynchronous UPF operations, i.e.,
+ * the latency from the submission to the completion of the operations of each
+ * lane, and how many operations of a lower lane were dispatched ahead of a
+ * higher lane to prevent their starvation.
+ */
+public final class UpfWriteLaneStats {
+
+    /**
+     * Priority lanes of the asynchronous UPF operations, from the highest to
+     * the lowest priority.
+     */
+    public enum Lane {
+        /**
+         * Latency-critical writes, e.g., paging-related downlink session
+         * changes and detaches.
+         */
+        URGENT,
+        /**
+         * Regular writes and reads.
+         */
+        NORMAL,
+        /**
+         * Bulk operations, e.g., purges, resyncs and table wipes.
+         */
+        BULK
+    }
+
+    /**
+     * Per lane statistics.
+     */
+    public static final class LaneStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong dispatched = new AtomicLong();
+        private final AtomicLong promoted = new AtomicLong();
+
+        /**
+         * Returns the histogram of the submission to completion latency.
+         *
+         * @return the latency histogram
+         */
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        /**
+         * Returns the number of operations waiting for the async window.
+         *
+         * @return number of queued operations
+         */
+        public int queued() {
+            return queued.get();
+        }
+
+        /**
+         * Returns the number of dispatched operations.
+         *
+         * @return number of dispatched operations
+         */
+        public long dispatched() {
+            return dispatched.get();
+        }
+
+        /**
+         * Returns the number of operations dispatched ahead of a higher lane
+         * to prevent their starvation.
+         *
+         * @return number of promoted operations
+         */
+        public long promoted() {
+            return promoted.get();
+        }
+
+        @Override
+        public String toString() {
+            return "queued=" + queued.get() + ", dispatched=" + dispatched.get() +
+                    ", promoted=" + promoted.get() + "\n    latency: " + latency;
+        }
+
+        private void reset() {
+            latency.reset();
+            dispatched.set(0);
+            promoted.set(0);
+        }
+    }
+
+    private final Map<Lane, LaneStats> laneStats;
+
+    /**
+     * Creates new lane statistics.
+     */
+    public UpfWriteLaneStats() {
+        Map<Lane, LaneStats> stats = Maps.newEnumMap(Lane.class);
+        for (Lane lane : Lane.values()) {
+            stats.put(lane, new LaneStats());
+        }
+        laneStats = Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Returns the statistics of each lane.
+     *
+     * @return the per lane statistics
+     */
+    public Map<Lane, LaneStats> laneStats() {
+        return laneStats;
+    }
+
+    /**
+     * Returns the statistics of the given lane.
+     *
+     * @param lane the lane
+     * @return the lane statistics
+     */
+    public LaneStats laneStats(Lane lane) {
+        return laneStats.get(lane);
+    }
+
+    /**
+     * Clears the latency and dispatch statistics, the queued operations are
+     * still accounted.
+     */
+    public void reset() {
+        laneStats.values().forEach(LaneStats::reset);
+    }
+
+    void queued(Lane lane) {
+        laneStats.get(lane).queued.incrementAndGet();
+    }
+
+    void dispatched(Lane lane, boolean promoted) {
+        LaneStats stats = laneStats.get(lane);
+        stats.queued.decrementAndGet();
+        stats.dispatched.incrementAndGet();
+        if (promoted) {
+            stats.promoted.incrementAndGet();
+        }
+    }
+
+    void dropped(Lane lane) {
+        laneStats.get(lane).queued.decrementAndGet();
+    }
+
+    void completed(Lane lane, long latencyNanos) {
+        laneStats.get(lane).latency.record(latencyNanos);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.onlab.packet.Ip4Address;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Usage record of a UE termination, i.e., the traffic of a UE application
+ * in one direction during a polling interval.
+ */
+public final class UsageRecord {
+    private final long timestampMillis;
+    private final int intervalMillis;
+    private final Ip4Address ueAddress;
+    private final byte applicationId;
+    private final UeTrafficRate.Direction direction;
+    private final int counterId;
+    private final long ingressPkts;
+    private final long ingressBytes;
+    private final long egressPkts;
+    private final long egressBytes;
+
+    /**
+     * Creates a new usage record.
+     *
+     * @param timestampMillis the end of the interval, in milliseconds since the epoch
+     * @param intervalMillis  the interval duration in milliseconds
+     * @param ueAddress       the UE address
+     * @param applicationId   the application ID of the termination
+     * @param direction       the traffic direction
+     * @param counterId       the counter cell ID of the termination
+     * @param ingressPkts     packets received by the UPF in the interval
+     * @param ingressBytes    bytes received by the UPF in the interval
+     * @param egressPkts      packets transmitted by the UPF in the interval
+     * @param egressBytes     bytes transmitted by the UPF in the interval
+     */
+    public UsageRecord(long timestampMillis, int intervalMillis, Ip4Address ueAddress, byte applicationId,
+                       UeTrafficRate.Direction direction, int counterId, long ingressPkts, long ingressBytes,
+                       long egressPkts, long egressBytes) {
+        this.timestampMillis = timestampMillis;
+        this.intervalMillis = intervalMillis;
+        this.ueAddress = ueAddress;
+        this.applicationId = applicationId;
+        this.direction = direction;
+        this.counterId = counterId;
+        this.ingressPkts = ingressPkts;
+        this.ingressBytes = ingressBytes;
+        this.egressPkts = egressPkts;
+        this.egressBytes = egressBytes;
+    }
+
+    /**
+     * Returns the end of the interval.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long timestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * Returns the interval duration.
+     *
+     * @return the interval in milliseconds
+     */
+    public int intervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Returns the UE address.
+     *
+     * @return the UE address
+     */
+    public Ip4Address ueAddress() {
+        return ueAddress;
+    }
+
+    /**
+     * Returns the application ID of the termination.
+     *
+     * @return the application ID
+     */
+    public byte applicationId() {
+        return applicationId;
+    }
+
+    /**
+     * Returns the traffic direction.
+     *
+     * @return the traffic direction
+     */
+    public UeTrafficRate.Direction direction() {
+        return direction;
+    }
+
+    /**
+     * Returns the counter cell ID of the termination.
+     *
+     * @return the counter cell ID
+     */
+    public int counterId() {
+        return counterId;
+    }
+
+    /**
+     * Returns the packets received by the UPF in the interval.
+     *
+     * @return the ingress packets
+     */
+    public long ingressPkts() {
+        return ingressPkts;
+    }
+
+    /**
+     * Returns the bytes received by the UPF in the interval.
+     *
+     * @return the ingress bytes
+     */
+    public long ingressBytes() {
+        return ingressBytes;
+    }
+
+    /**
+     * Returns the packets transmitted by the UPF in the interval.
+     *
+     * @return the egress packets
+     */
+    public long egressPkts() {
+        return egressPkts;
+    }
+
+    /**
+     * Returns the bytes transmitted by the UPF in the interval.
+     *
+     * @return the egress bytes
+     */
+    public long egressBytes() {
+        return egressBytes;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("timestampMillis", timestampMillis)
+                .add("intervalMillis", intervalMillis)
+                .add("ueAddress", ueAddress)
+                .add("applicationId", applicationId)
+                .add("direction", direction)
+                .add("counterId", counterId)
+                .add("ingressPkts", ingressPkts)
+                .add("ingressBytes", ingressBytes)
+                .add("egressPkts", egressPkts)
+                .add("egressBytes", egressBytes)
+                .toString();
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.onlab.packet.Ip4Address;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Rolling, memory-mapped, append-only log of usage records.
+ * <p>
+ * Records are written in files named {@code usage-<epoch millis>-<sequence>.log} in the
+ * configured directory. Each file has a fixed size, when full a new file is
+ * created. Files are never deleted by UP4: the export tool is expected to
+ * remove the files it consumed. All values are big-endian.
+ * <p>
+ * File header (16 bytes):
+ * <pre>
+ *  0: int   magic, 0x55503455 ("UP4U")
+ *  4: short format version, 1
+ *  6: short record size in bytes, 56
+ *  8: long  number of valid records in the file
+ * </pre>
+ * Records (56 bytes each), starting right after the header:
+ * <pre>
+ *  0: long  end of the interval, milliseconds since the epoch
+ *  8: int   interval duration in milliseconds
+ * 12: int   UE IPv4 address
+ * 16: byte  application ID
+ * 17: byte  direction, 0 uplink, 1 downlink
+ * 18: short reserved, 0
+ * 20: int   counter cell ID
+ * 24: long  ingress packets in the interval
+ * 32: long  ingress bytes in the interval
+ * 40: long  egress packets in the interval
+ * 48: long  egress bytes in the interval
+ * </pre>
+ * The record count in the header is updated after each record is written,
+ * readers must ignore anything after the last valid record.
+ */
+public final class UsageRecordLog {
+
+    public static final int MAGIC = 0x55503455;
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_SIZE = 56;
+    private static final int RECORD_COUNT_OFFSET = 8;
+    static final String FILE_PREFIX = "usage-";
+    static final String FILE_SUFFIX = ".log";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Path directory;
+    private final int fileSize;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private Path currentFile;
+    private long recordCount;
+    private int fileSequence;
+
+    /**
+     * Creates a new usage record log.
+     *
+     * @param directory the directory of the log files
+     * @param fileSize  the size of each log file in bytes
+     */
+    UsageRecordLog(Path directory, int fileSize) {
+        if (fileSize < HEADER_SIZE + RECORD_SIZE) {
+            throw new IllegalArgumentException("Usage log file size too small: " + fileSize);
+        }
+        this.directory = directory;
+        this.fileSize = fileSize;
+    }
+
+    /**
+     * Appends the given records to the log, rolling to a new file when the
+     * current one is full.
+     *
+     * @param records the usage records
+     * @throws IOException if the records cannot be written
+     */
+    synchronized void append(Collection<UsageRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        for (UsageRecord record : records) {
+            if (buffer == null || buffer.position() + RECORD_SIZE > fileSize) {
+                roll();
+            }
+            buffer.putLong(record.timestampMillis())
+                    .putInt(record.intervalMillis())
+                    .putInt(record.ueAddress().toInt())
+                    .put(record.applicationId())
+                    .put((byte) (record.direction() == UeTrafficRate.Direction.UPLINK ? 0 : 1))
+                    .putShort((short) 0)
+                    .putInt(record.counterId())
+                    .putLong(record.ingressPkts())
+                    .putLong(record.ingressBytes())
+                    .putLong(record.egressPkts())
+                    .putLong(record.egressBytes());
+            recordCount++;
+            buffer.putLong(RECORD_COUNT_OFFSET, recordCount);
+        }
+    }
+
+    private void roll() throws IOException {
+        closeCurrentFile();
+        Files.createDirectories(directory);
+        currentFile = directory.resolve(String.format("%s%d-%06d%s", FILE_PREFIX, System.currentTimeMillis(),
+                                                      fileSequence++, FILE_SUFFIX));
+        channel = FileChannel.open(currentFile, StandardOpenOption.CREATE_NEW,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE).putLong(0);
+        recordCount = 0;
+        log.info("Writing usage records to {}", currentFile);
+    }
+
+    private void closeCurrentFile() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Flushes and closes the current log file.
+     */
+    synchronized void close() {
+        try {
+            closeCurrentFile();
+        } catch (IOException e) {
+            log.warn("Error while closing usage log file {}: {}", currentFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads all the valid records of the given usage log file.
+     *
+     * @param file     the usage log file
+     * @param consumer the consumer of the records
+     * @throws IOException if the file cannot be read or is not a usage log
+     */
+    public static void read(Path file, Consumer<UsageRecord> consumer) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer data = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            if (data.remaining() < HEADER_SIZE || data.getInt() != MAGIC) {
+                throw new IOException("Not a usage log file: " + file);
+            }
+            short version = data.getShort();
+            short recordSize = data.getShort();
+            if (version != VERSION || recordSize != RECORD_SIZE) {
+                throw new IOException("Unsupported usage log format version " + version + ": " + file);
+            }
+            long count = data.getLong();
+            for (long i = 0; i < count && data.remaining() >= RECORD_SIZE; i++) {
+                long timestamp = data.getLong();
+                int interval = data.getInt();
+                Ip4Address ue = Ip4Address.valueOf(data.getInt());
+                byte appId = data.get();
+                UeTrafficRate.Direction direction = data.get() == 0 ?
+                        UeTrafficRate.Direction.UPLINK : UeTrafficRate.Direction.DOWNLINK;
+                data.getShort();
+                int counterId = data.getInt();
+                consumer.accept(new UsageRecord(timestamp, interval, ue, appId, direction, counterId,
+                                                data.getLong(), data.getLong(), data.getLong(), data.getLong()));
+            }
+        }
+    }
+}
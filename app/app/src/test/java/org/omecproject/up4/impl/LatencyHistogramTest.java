@@ -0,0 +1,51 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Tests of the latency histogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.count(), equalTo(0L));
+        assertThat(histogram.percentileMillis(99), equalTo(0L));
+        assertThat(histogram.meanMillis(), equalTo(0.0));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(150));
+        }
+        assertThat(histogram.count(), equalTo(100L));
+        assertThat(histogram.percentileMillis(50), equalTo(5L));
+        assertThat(histogram.percentileMillis(90), equalTo(5L));
+        assertThat(histogram.percentileMillis(99), equalTo(200L));
+        assertThat(histogram.maxMillis(), equalTo(150.0));
+    }
+
+    @Test
+    public void testUnboundedBucketAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MINUTES.toNanos(5));
+        assertThat(histogram.percentileMillis(50), equalTo(-1L));
+        histogram.reset();
+        assertThat(histogram.count(), equalTo(0L));
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Tests of the log rate limiter.
+ */
+public class LogRateLimiterTest {
+
+    @Test
+    public void testRateLimit() {
+        AtomicLong clock = new AtomicLong();
+        LogRateLimiter limiter = new LogRateLimiter(10, TimeUnit.SECONDS, clock::get);
+        assertThat(limiter.tryAcquire(), equalTo(0L));
+        assertThat(limiter.tryAcquire(), equalTo(-1L));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThat(limiter.tryAcquire(), equalTo(-1L));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThat(limiter.tryAcquire(), equalTo(2L));
+        assertThat(limiter.tryAcquire(), equalTo(-1L));
+    }
+}
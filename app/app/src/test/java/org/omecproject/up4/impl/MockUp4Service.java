@@ -4,8 +4,11 @@
  */
 package org.omecproject.up4.impl;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import org.omecproject.up4.Up4Counters;
 import org.omecproject.up4.Up4EventListener;
+import org.omecproject.up4.Up4Readiness;
 import org.omecproject.up4.Up4Service;
 import org.onosproject.net.behaviour.upf.UpfCounter;
 import org.onosproject.net.behaviour.upf.UpfEntity;
@@ -17,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.LongStream;
 
 import static org.omecproject.up4.impl.TestImplConstants.PHYSICAL_APPLICATIONS_SIZE;
@@ -63,6 +67,17 @@ public class MockUp4Service implements Up4Service {
         return upfProgrammableAvailable;
     }
 
+    @Override
+    public Up4Readiness readiness() {
+        if (!configAvailable) {
+            return new Up4Readiness(Up4Readiness.State.NOT_CONFIGURED, "No app config is available", 0, 1000);
+        }
+        if (!upfProgrammableAvailable) {
+            return new Up4Readiness(Up4Readiness.State.WAITING_FOR_DEVICES, "UPF Devices are not set", 0, 1000);
+        }
+        return new Up4Readiness(Up4Readiness.State.READY, "UPF data plane ready", 0, 0);
+    }
+
     @Override
     public boolean configIsLoaded() {
         return configAvailable;
@@ -349,4 +364,69 @@ public class MockUp4Service implements Up4Service {
     public void enablePscEncap() throws UpfProgrammableException {
 
     }
+
+    @Override
+    public void applyBundle(Collection<? extends UpfEntity> entities) throws UpfProgrammableException {
+        List<UpfEntity> applied = new ArrayList<>();
+        try {
+            for (UpfEntity entity : entities) {
+                apply(entity);
+                applied.add(entity);
+            }
+        } catch (UpfProgrammableException e) {
+            for (UpfEntity entity : applied) {
+                delete(entity);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(UpfEntity entity) {
+        try {
+            apply(entity);
+            return CompletableFuture.completedFuture(null);
+        } catch (UpfProgrammableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(UpfEntity entity) {
+        try {
+            delete(entity);
+            return CompletableFuture.completedFuture(null);
+        } catch (UpfProgrammableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> applyBundleAsync(Collection<? extends UpfEntity> entities) {
+        try {
+            applyBundle(entities);
+            return CompletableFuture.completedFuture(null);
+        } catch (UpfProgrammableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Collection<? extends UpfEntity>> readAllAsync(UpfEntityType entityType) {
+        try {
+            return CompletableFuture.completedFuture(readAll(entityType));
+        } catch (UpfProgrammableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Collection<UpfCounter>> readCountersAsync(long maxCounterId, UpfEntityType type) {
+        return CompletableFuture.completedFuture(readCounters(maxCounterId, type));
+    }
+
+    @Override
+    public Up4Counters readCountersDegraded(long maxCounterId, UpfEntityType type) {
+        return new Up4Counters(readCounters(maxCounterId, type), ImmutableSet.of());
+    }
 }
@@ -0,0 +1,46 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.onlab.packet.Ip4Address;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Tests of the top UE traffic rates selection.
+ */
+public class TopUeRatesTest {
+
+    private static UeTrafficRate rate(int ue, long txPkts, long dropped) {
+        return new UeTrafficRate(Ip4Address.valueOf(ue), UeTrafficRate.Direction.UPLINK, 1,
+                                 txPkts + dropped, 0, txPkts, txPkts * 100);
+    }
+
+    @Test
+    public void testTop() {
+        List<UeTrafficRate> rates = Lists.newArrayList();
+        for (int i = 1; i <= 100; i++) {
+            // UE 50 drops the most
+            rates.add(rate(i, (i * 37) % 101, i == 50 ? 100 : 0));
+        }
+        List<Long> topPkts = TopUeRates.top(rates, 3, UeTrafficRate.Metric.PPS).stream()
+                .map(UeTrafficRate::txPkts)
+                .collect(Collectors.toList());
+        assertThat(topPkts, contains(100L, 99L, 98L));
+
+        List<UeTrafficRate> topDrop = TopUeRates.top(rates, 1, UeTrafficRate.Metric.DROP);
+        assertThat(topDrop.get(0).ueAddress(), equalTo(Ip4Address.valueOf(50)));
+
+        assertThat(TopUeRates.top(rates.subList(0, 2), 5, UeTrafficRate.Metric.BPS).size(), equalTo(2));
+        assertThat(TopUeRates.top(rates, 0, UeTrafficRate.Metric.BPS).isEmpty(), equalTo(true));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.Ip4Address;
+import org.onosproject.net.behaviour.upf.UpfEntityType;
+import org.onosproject.net.behaviour.upf.UpfSessionDownlink;
+import org.onosproject.net.behaviour.upf.UpfSessionUplink;
+import org.onosproject.net.behaviour.upf.UpfTerminationUplink;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.omecproject.up4.impl.TestImplConstants.DOWNLINK_SESSION;
+import static org.omecproject.up4.impl.TestImplConstants.DOWNLINK_TERMINATION;
+import static org.omecproject.up4.impl.TestImplConstants.METER_IDX;
+import static org.omecproject.up4.impl.TestImplConstants.N3_ADDR;
+import static org.omecproject.up4.impl.TestImplConstants.SESSION_METER;
+import static org.omecproject.up4.impl.TestImplConstants.TEID;
+import static org.omecproject.up4.impl.TestImplConstants.UE_ADDR;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_SESSION;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_TERMINATION;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_TERMINATION_DEFAULT_METER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.APPLICATION_METER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.SESSION_DOWNLINK;
+
+/**
+ * Tests of the index of the UPF entities by UE.
+ */
+public class UeEntityIndexTest {
+
+    private static final Ip4Address OTHER_UE_ADDR = Ip4Address.valueOf("17.0.0.2");
+    private static final UpfSessionUplink UPLINK_SESSION_DEFAULT_METER = UpfSessionUplink.builder()
+            .withTeid(TEID)
+            .withTunDstAddr(N3_ADDR)
+            .withSessionMeterIdx(UeEntityIndex.DEFAULT_METER_CELL)
+            .build();
+
+    @Test
+    public void testIndexByUe() {
+        UeEntityIndex index = new UeEntityIndex();
+        index.applied(DOWNLINK_SESSION);
+        index.applied(UPLINK_TERMINATION);
+        index.applied(DOWNLINK_TERMINATION);
+        // Not related to a UE
+        index.applied(UPLINK_SESSION_DEFAULT_METER);
+        index.applied(SESSION_METER);
+        assertThat(index.size(), equalTo(3));
+        assertThat(index.ues(ue -> true), equalTo(ImmutableSet.of(UE_ADDR)));
+        assertThat(index.entities(UE_ADDR),
+                   containsInAnyOrder(DOWNLINK_SESSION, UPLINK_TERMINATION, DOWNLINK_TERMINATION));
+
+        index.associate(UPLINK_SESSION_DEFAULT_METER, UE_ADDR);
+        assertThat(index.entities(UE_ADDR).size(), equalTo(4));
+
+        index.deleted(UPLINK_TERMINATION);
+        index.deletedAll(SESSION_DOWNLINK);
+        assertThat(index.entities(UE_ADDR), containsInAnyOrder(UPLINK_SESSION_DEFAULT_METER, DOWNLINK_TERMINATION));
+
+        index.clear();
+        assertThat(index.ues(ue -> true), empty());
+    }
+
+    @Test
+    public void testUplinkSessionBySessionMeter() {
+        UeEntityIndex index = new UeEntityIndex();
+        // Waits for the downlink session with the same session meter
+        index.applied(UPLINK_SESSION);
+        assertThat(index.size(), equalTo(0));
+        index.applied(DOWNLINK_SESSION);
+        assertThat(index.entities(UE_ADDR), containsInAnyOrder(UPLINK_SESSION, DOWNLINK_SESSION));
+
+        // Session meter shared by two UEs, the uplink session is not attributed
+        index.deleted(UPLINK_SESSION);
+        index.applied(UpfSessionDownlink.builder()
+                              .withUeAddress(OTHER_UE_ADDR)
+                              .withGtpTunnelPeerId((byte) 1)
+                              .withSessionMeterIdx(METER_IDX)
+                              .build());
+        index.applied(UPLINK_SESSION);
+        assertThat(index.entities(UE_ADDR), contains(DOWNLINK_SESSION));
+        assertThat(index.entities(OTHER_UE_ADDR).size(), equalTo(1));
+    }
+
+    @Test
+    public void testSeeding() {
+        UeEntityIndex index = new UeEntityIndex();
+        assertFalse(index.isSeeded());
+        index.startSeeding();
+        // Applied and deleted while reading the installed entities
+        index.applied(UPLINK_TERMINATION_DEFAULT_METER);
+        index.deleted(DOWNLINK_TERMINATION);
+        index.seed(ImmutableList.of(UPLINK_SESSION, DOWNLINK_SESSION, UPLINK_TERMINATION, DOWNLINK_TERMINATION));
+        assertTrue(index.isSeeded());
+        assertThat(index.entities(UE_ADDR),
+                   containsInAnyOrder(UPLINK_SESSION, DOWNLINK_SESSION, UPLINK_TERMINATION_DEFAULT_METER));
+    }
+
+    @Test
+    public void testExclusiveMeterCells() {
+        UeEntityIndex index = new UeEntityIndex();
+        index.applied(UPLINK_TERMINATION);
+        index.applied(UpfSessionDownlink.builder()
+                              .withUeAddress(OTHER_UE_ADDR)
+                              .withGtpTunnelPeerId((byte) 1)
+                              .withSessionMeterIdx(METER_IDX + 1)
+                              .build());
+        index.applied(UpfTerminationUplink.builder()
+                              .withUeSessionId(OTHER_UE_ADDR)
+                              .withApplicationId((byte) 1)
+                              .withCounterId(1)
+                              .withAppMeterIdx(METER_IDX)
+                              .build());
+        // App meter shared by the two UEs
+        assertThat(index.exclusiveMeterCells(APPLICATION_METER, ImmutableSet.of(UE_ADDR)), empty());
+        assertThat(index.exclusiveMeterCells(APPLICATION_METER, ImmutableSet.of(UE_ADDR, OTHER_UE_ADDR)),
+                   equalTo(ImmutableSet.of(METER_IDX)));
+        assertThat(index.exclusiveMeterCells(UpfEntityType.SESSION_METER, ImmutableSet.of(OTHER_UE_ADDR)),
+                   equalTo(ImmutableSet.of(METER_IDX + 1)));
+    }
+}
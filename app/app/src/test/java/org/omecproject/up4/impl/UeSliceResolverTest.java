@@ -0,0 +1,56 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onlab.packet.Ip4Address;
+import org.onosproject.net.behaviour.upf.UpfApplication;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.omecproject.up4.impl.TestImplConstants.APPLICATION_FILTERING;
+import static org.omecproject.up4.impl.TestImplConstants.APP_FILTER_ID;
+import static org.omecproject.up4.impl.TestImplConstants.APP_FILTER_PRIORITY;
+import static org.omecproject.up4.impl.TestImplConstants.APP_IP_PREFIX;
+import static org.omecproject.up4.impl.TestImplConstants.DOWNLINK_INTERFACE;
+import static org.omecproject.up4.impl.TestImplConstants.MOBILE_SLICE;
+import static org.omecproject.up4.impl.TestImplConstants.UE_ADDR;
+
+/**
+ * Tests of the UE traffic slice resolution.
+ */
+public class UeSliceResolverTest {
+
+    private static final Ip4Address OUTSIDE_UE = Ip4Address.valueOf("18.0.0.1");
+    private static final int OTHER_SLICE = MOBILE_SLICE + 1;
+
+    private static UpfApplication application(byte appId, int sliceId) {
+        return UpfApplication.builder()
+                .withAppId(appId)
+                .withIp4Prefix(APP_IP_PREFIX)
+                .withPriority(APP_FILTER_PRIORITY)
+                .withSliceId(sliceId)
+                .build();
+    }
+
+    @Test
+    public void testUePoolSlice() {
+        UeSliceResolver resolver = new UeSliceResolver(
+                ImmutableList.of(DOWNLINK_INTERFACE), ImmutableList.of(application(APP_FILTER_ID, OTHER_SLICE)));
+        assertThat(resolver.sliceId(UE_ADDR, APP_FILTER_ID), equalTo(MOBILE_SLICE));
+        assertThat(resolver.sliceId(OUTSIDE_UE, APP_FILTER_ID), equalTo(OTHER_SLICE));
+    }
+
+    @Test
+    public void testAppInMultipleSlices() {
+        UeSliceResolver resolver = new UeSliceResolver(
+                ImmutableList.of(), ImmutableList.of(APPLICATION_FILTERING, application(APP_FILTER_ID, OTHER_SLICE)));
+        // The application ID alone doesn't identify the slice
+        assertThat(resolver.sliceId(OUTSIDE_UE, APP_FILTER_ID), equalTo(UeSliceResolver.UNKNOWN_SLICE_ID));
+        assertThat(resolver.sliceId(OUTSIDE_UE, (byte) (APP_FILTER_ID + 1)),
+                   equalTo(UeSliceResolver.UNKNOWN_SLICE_ID));
+    }
+}
@@ -7,12 +7,16 @@ package org.omecproject.up4.impl;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.onlab.packet.Ip4Address;
 import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.common.event.impl.TestEventDispatcher;
 import org.onosproject.core.CoreServiceAdapter;
+import org.onosproject.net.behaviour.upf.UpfCounter;
+import org.onosproject.net.behaviour.upf.UpfEntityType;
 import org.onosproject.net.behaviour.upf.UpfGtpTunnelPeer;
 import org.onosproject.net.behaviour.upf.UpfInterface;
+import org.onosproject.net.behaviour.upf.UpfProgrammable;
 import org.onosproject.net.behaviour.upf.UpfProgrammableException;
 import org.onosproject.net.config.NetworkConfigRegistryAdapter;
 import org.onosproject.net.device.DeviceServiceAdapter;
@@ -20,9 +24,48 @@ import org.onosproject.net.flow.FlowRuleServiceAdapter;
 import org.onosproject.net.meter.MeterServiceAdapter;
 import org.onosproject.net.pi.PiPipeconfServiceAdapter;
 
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.omecproject.up4.impl.AppConstants.DEFAULT_SLICE_ID;
+import static org.omecproject.up4.impl.TestImplConstants.APPLICATION_FILTERING;
+import static org.omecproject.up4.impl.TestImplConstants.DEVICE_ID;
+import static org.omecproject.up4.impl.TestImplConstants.DOWNLINK_SESSION;
+import static org.omecproject.up4.impl.TestImplConstants.DOWNLINK_SESSION_DBUF;
+import static org.omecproject.up4.impl.TestImplConstants.DOWNLINK_TERMINATION;
+import static org.omecproject.up4.impl.TestImplConstants.PHYSICAL_MAX_TERMINATIONS;
+import static org.omecproject.up4.impl.TestImplConstants.TUNNEL_PEER;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_COUNTER_CELL_ID;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_TERMINATION;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_TERMINATION_DEFAULT_METER;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_TERMINATION_DROP;
 import static org.omecproject.up4.impl.Up4DeviceManager.DBUF_TUNNEL_ID;
 import static org.onosproject.net.NetTestTools.injectEventDispatcher;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.APPLICATION;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.COUNTER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.SESSION_DOWNLINK;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.SESSION_UPLINK;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.TERMINATION_UPLINK;
 
 /**
  * Set of tests of the ONOS application component.
@@ -85,4 +128,148 @@ public class Up4DeviceManagerTest {
         component.delete(dbufTunnelPeer);
     }
 
+    @Test
+    public void testBundleRollback() throws UpfProgrammableException {
+        UpfProgrammable upfProgrammable = setUpUpfProgrammable();
+        doReturn(List.of(DOWNLINK_SESSION_DBUF)).when(upfProgrammable).readAll(SESSION_DOWNLINK);
+        doThrow(new UpfProgrammableException("failed")).when(upfProgrammable).apply(DOWNLINK_TERMINATION);
+        try {
+            component.applyBundle(List.of(DOWNLINK_TERMINATION, DOWNLINK_SESSION, TUNNEL_PEER));
+            fail("Expected exception");
+        } catch (UpfProgrammableException e) {
+            assertThat(e.getMessage(), equalTo("failed"));
+        }
+        // The new tunnel peer is deleted, the previous session is restored
+        InOrder inOrder = inOrder(upfProgrammable);
+        inOrder.verify(upfProgrammable).apply(TUNNEL_PEER);
+        inOrder.verify(upfProgrammable).apply(DOWNLINK_SESSION);
+        inOrder.verify(upfProgrammable).apply(DOWNLINK_TERMINATION);
+        inOrder.verify(upfProgrammable).apply(DOWNLINK_SESSION_DBUF);
+        inOrder.verify(upfProgrammable).delete(TUNNEL_PEER);
+        verify(upfProgrammable, never()).delete(DOWNLINK_SESSION);
+    }
+
+    @Test
+    public void testBundleAsyncRollback() throws Exception {
+        UpfProgrammable upfProgrammable = setUpUpfProgrammable();
+        doThrow(new UpfProgrammableException("failed")).when(upfProgrammable).apply(DOWNLINK_TERMINATION);
+        try {
+            component.applyBundleAsync(List.of(DOWNLINK_TERMINATION, DOWNLINK_SESSION, TUNNEL_PEER))
+                    .get(10, TimeUnit.SECONDS);
+            fail("Expected exception");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(UpfProgrammableException.class));
+            assertThat(e.getCause().getMessage(), equalTo("failed"));
+        }
+        // Rolled back before the future completes
+        verify(upfProgrammable).delete(TUNNEL_PEER);
+        verify(upfProgrammable).delete(DOWNLINK_SESSION);
+    }
+
+    @Test
+    public void testBundleMissingTunnelPeer() throws UpfProgrammableException {
+        UpfProgrammable upfProgrammable = setUpUpfProgrammable();
+        try {
+            component.applyBundle(List.of(DOWNLINK_SESSION, DOWNLINK_TERMINATION));
+            fail("Expected exception");
+        } catch (UpfProgrammableException e) {
+            assertThat(e.getMessage(), containsString("tunnel peer"));
+        }
+        verify(upfProgrammable, never()).apply(any());
+    }
+
+    @Test
+    public void testBundleTableFull() throws UpfProgrammableException {
+        UpfProgrammable upfProgrammable = setUpUpfProgrammable();
+        doReturn(List.of(UPLINK_TERMINATION)).when(upfProgrammable).readAll(TERMINATION_UPLINK);
+        when(upfProgrammable.tableSize(TERMINATION_UPLINK)).thenReturn(1L);
+        // Replacing the installed termination fits in the table
+        component.applyBundle(List.of(UPLINK_TERMINATION_DEFAULT_METER));
+        try {
+            component.applyBundle(List.of(UPLINK_TERMINATION_DROP));
+            fail("Expected exception");
+        } catch (UpfProgrammableException e) {
+            assertThat(e.getType(), equalTo(UpfProgrammableException.Type.ENTITY_EXHAUSTED));
+        }
+        verify(upfProgrammable, never()).apply(UPLINK_TERMINATION_DROP);
+    }
+
+    @Test
+    public void testBundleUnsupportedType() throws UpfProgrammableException {
+        UpfProgrammable upfProgrammable = setUpUpfProgrammable();
+        try {
+            component.applyBundle(List.of(DOWNLINK_SESSION_DBUF, APPLICATION_FILTERING));
+            fail("Expected exception");
+        } catch (UpfProgrammableException e) {
+            assertThat(e.getMessage(), containsString(APPLICATION.toString()));
+        }
+        verify(upfProgrammable, never()).apply(any());
+    }
+
+    @Test
+    public void testCounterWriteInvalidatesCache() throws UpfProgrammableException {
+        UpfProgrammable upfProgrammable = setUpUpfProgrammable();
+        component.counterCache().setMaxAgeMillis(TimeUnit.MINUTES.toMillis(1));
+        UpfCounter used = UpfCounter.builder()
+                .withCellId(UPLINK_COUNTER_CELL_ID).setIngress(10, 1000).setEgress(10, 1000).build();
+        UpfCounter reset = UpfCounter.builder()
+                .withCellId(UPLINK_COUNTER_CELL_ID).setIngress(0, 0).setEgress(0, 0).build();
+        doReturn(List.of(used), List.of(reset)).when(upfProgrammable).readCounters(-1, COUNTER);
+        assertThat(component.readCounters(-1, COUNTER), contains(used));
+        // Served from the cache
+        assertThat(component.readCounters(-1, COUNTER), contains(used));
+
+        component.apply(reset);
+        // The reset counter is read again from the device
+        assertThat(component.readCounters(-1, COUNTER), contains(reset));
+        verify(upfProgrammable, times(2)).readCounters(-1, COUNTER);
+    }
+
+    @Test
+    public void testLeaderWritesBatched() throws Exception {
+        UpfProgrammable upfProgrammable = setUpUpfProgrammable();
+        // The batch is flushed as soon as the second write joins it
+        component.writeBatcher().configure(TimeUnit.SECONDS.toMicros(10), 2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> {
+                component.apply(TUNNEL_PEER);
+                return null;
+            });
+            Future<?> second = executor.submit(() -> {
+                component.apply(UPLINK_TERMINATION);
+                return null;
+            });
+            first.get();
+            second.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(upfProgrammable).apply(TUNNEL_PEER);
+        verify(upfProgrammable).apply(UPLINK_TERMINATION);
+        assertThat(component.writeBatcher().batches(), equalTo(1L));
+        assertThat(component.writeBatcher().batchedWrites(), equalTo(2L));
+    }
+
+    @Test
+    public void testDeleteAllFromAsyncWindow() throws Exception {
+        UpfProgrammable upfProgrammable = setUpUpfProgrammable();
+        // The only slot of the window is taken by the operation deleting all
+        component.asyncWindow().setWindow(1);
+        doReturn(List.of(TUNNEL_PEER)).when(upfProgrammable).readAll(UpfEntityType.TUNNEL_PEER);
+        doAnswer(invocation -> {
+            component.deleteAll(UpfEntityType.TUNNEL_PEER);
+            return List.of();
+        }).when(upfProgrammable).readAll(SESSION_UPLINK);
+        component.readAllAsync(SESSION_UPLINK).get(10, TimeUnit.SECONDS);
+        verify(upfProgrammable).delete(TUNNEL_PEER);
+    }
+
+    private UpfProgrammable setUpUpfProgrammable() throws UpfProgrammableException {
+        UpfProgrammable upfProgrammable = mock(UpfProgrammable.class);
+        when(upfProgrammable.tableSize(any())).thenReturn((long) PHYSICAL_MAX_TERMINATIONS);
+        component.setUpUpfDataPlane(DEVICE_ID, upfProgrammable);
+        return upfProgrammable;
+    }
+
 }
@@ -411,6 +411,64 @@ public class Up4NorthComponentTest {
         assertThat(mockUp4Service.readAll(UpfEntityType.TERMINATION_UPLINK).size(), equalTo(1));
     }
 
+    @Test
+    public void sessionBundleInsertionTest() throws Exception {
+        MockStreamObserver<P4RuntimeOuterClass.WriteResponse> responseObserver = new MockStreamObserver<>();
+        P4RuntimeOuterClass.WriteRequest request = bundleRequest(P4RuntimeOuterClass.Update.Type.INSERT);
+        up4NorthService.write(request, responseObserver);
+        assertThat(responseObserver.lastResponse(),
+                   equalTo(P4RuntimeOuterClass.WriteResponse.getDefaultInstance()));
+        assertThat(mockUp4Service.readAll(UpfEntityType.TUNNEL_PEER).size(), equalTo(1));
+        assertThat(mockUp4Service.readAll(UpfEntityType.SESSION_DOWNLINK).size(), equalTo(1));
+        assertThat(mockUp4Service.readAll(UpfEntityType.TERMINATION_UPLINK).size(), equalTo(1));
+    }
+
+    @Test
+    public void sessionBundleDeletionTestFail() throws Exception {
+        MockStreamObserver<P4RuntimeOuterClass.WriteResponse> responseObserver = new MockStreamObserver<>();
+        responseObserver.setErrorExpected(io.grpc.Status.UNIMPLEMENTED.asException());
+        up4NorthService.write(bundleRequest(P4RuntimeOuterClass.Update.Type.DELETE), responseObserver);
+        responseObserver.assertErrorObserved();
+        assertThat(io.grpc.Status.fromThrowable(responseObserver.lastError()).getCode(),
+                   equalTo(io.grpc.Status.Code.UNIMPLEMENTED));
+    }
+
+    @Test
+    public void nonSessionBundleInsertionTest() throws Exception {
+        MockStreamObserver<P4RuntimeOuterClass.WriteResponse> responseObserver = new MockStreamObserver<>();
+        // Not a session bundle, written as a non-atomic request
+        P4RuntimeOuterClass.WriteRequest request = bundleRequest(
+                P4RuntimeOuterClass.Update.Type.INSERT,
+                List.of(TestImplConstants.UP4_DOWNLINK_INTERFACE, TestImplConstants.UP4_APPLICATION_FILTERING));
+        up4NorthService.write(request, responseObserver);
+        assertThat(responseObserver.lastResponse(),
+                   equalTo(P4RuntimeOuterClass.WriteResponse.getDefaultInstance()));
+        assertThat(mockUp4Service.readAll(UpfEntityType.INTERFACE).size(), equalTo(1));
+        assertThat(mockUp4Service.readAll(UpfEntityType.APPLICATION).size(), equalTo(1));
+    }
+
+    private P4RuntimeOuterClass.WriteRequest bundleRequest(P4RuntimeOuterClass.Update.Type type)
+            throws CodecException {
+        return bundleRequest(type, List.of(TestImplConstants.UP4_TUNNEL_PEER,
+                                           TestImplConstants.UP4_DOWNLINK_SESSION,
+                                           TestImplConstants.UP4_UPLINK_TERMINATION));
+    }
+
+    private P4RuntimeOuterClass.WriteRequest bundleRequest(P4RuntimeOuterClass.Update.Type type,
+                                                           List<PiEntity> entries)
+            throws CodecException {
+        P4RuntimeOuterClass.WriteRequest.Builder request = P4RuntimeOuterClass.WriteRequest.newBuilder()
+                .setDeviceId(NorthTestConstants.P4RUNTIME_DEVICE_ID)
+                .setAtomicity(P4RuntimeOuterClass.WriteRequest.Atomicity.ROLLBACK_ON_ERROR);
+        for (PiEntity entry : entries) {
+            request.addUpdates(P4RuntimeOuterClass.Update.newBuilder()
+                                       .setEntity(Codecs.CODECS.entity().encode(entry, null, pipeconf))
+                                       .setType(type)
+                                       .build());
+        }
+        return request.build();
+    }
+
     @Test
     public void downlinkInterfaceInsertionTest() throws Exception {
         insertionTest(TestImplConstants.UP4_DOWNLINK_INTERFACE);
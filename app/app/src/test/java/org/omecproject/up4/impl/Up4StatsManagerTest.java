@@ -0,0 +1,125 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onlab.packet.Ip4Address;
+import org.onosproject.net.behaviour.upf.UpfCounter;
+import org.onosproject.net.behaviour.upf.UpfTerminationUplink;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.omecproject.up4.impl.TestImplConstants.TRAFFIC_CLASS_UL;
+import static org.omecproject.up4.impl.TestImplConstants.UE_ADDR;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_COUNTER_CELL_ID;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_TERMINATION;
+import static org.omecproject.up4.impl.UeTrafficRate.Direction.DOWNLINK;
+import static org.omecproject.up4.impl.UeTrafficRate.Direction.UPLINK;
+
+/**
+ * Tests of the UE traffic rates computed by the stats poller.
+ */
+public class Up4StatsManagerTest {
+
+    private static UpfCountersSample sample(long seconds, long pkts, long bytes, long dropped) {
+        UpfCounter counter = UpfCounter.builder()
+                .withCellId(UPLINK_COUNTER_CELL_ID)
+                .setIngress(pkts, bytes)
+                .setEgress(pkts - dropped, bytes - dropped * 100)
+                .build();
+        UpfCellCounters counters = new UpfCellCounters();
+        counters.set(counter);
+        return new UpfCountersSample(TimeUnit.SECONDS.toMillis(seconds), TimeUnit.SECONDS.toNanos(seconds),
+                                     ImmutableList.of(UPLINK_TERMINATION), ImmutableList.of(), counters);
+    }
+
+    @Test
+    public void testComputeRates() {
+        UpfCountersSample prev = sample(10, 100, 10000, 0);
+        UpfCountersSample curr = sample(12, 300, 30000, 20);
+
+        Map<Ip4Address, UeTrafficRate> rates = Up4StatsManager.computeRates(prev, curr, UPLINK);
+        UeTrafficRate rate = rates.get(UE_ADDR);
+        assertThat(rate.rxPkts(), equalTo(200L));
+        assertThat(rate.txPkts(), equalTo(180L));
+        assertThat(rate.rxPps(), equalTo(100.0));
+        assertThat(rate.txBps(), equalTo(18000 * 8 / 2.0));
+        assertThat(rate.droppedPkts(), equalTo(20L));
+        assertThat(rate.dropPercentage(), equalTo(10.0));
+        assertThat(Up4StatsManager.computeRates(prev, curr, DOWNLINK).isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void testCounterReset() {
+        UpfCountersSample prev = sample(10, 300, 30000, 0);
+        UpfCountersSample curr = sample(11, 50, 5000, 0);
+
+        // The counter restarted from 0, the new values are the increments
+        UeTrafficRate rate = Up4StatsManager.computeRates(prev, curr, UPLINK).get(UE_ADDR);
+        assertThat(rate.rxPkts(), equalTo(50L));
+        assertThat(rate.txBytes(), equalTo(5000L));
+    }
+
+    @Test
+    public void testTerminationsChanged() {
+        UpfCellCounters prevCells = new UpfCellCounters();
+        prevCells.set(counter(1, 100));
+        prevCells.set(counter(2, 1000));
+        UpfCountersSample prev = new UpfCountersSample(
+                0, 0, ImmutableList.of(termination(1), termination(2)), ImmutableList.of(), prevCells);
+        // The UE loses the termination of cell 2 and gains the one of cell 3
+        UpfCellCounters currCells = new UpfCellCounters();
+        currCells.set(counter(1, 150));
+        currCells.set(counter(2, 1000));
+        currCells.set(counter(3, 5000));
+        UpfCountersSample curr = new UpfCountersSample(
+                TimeUnit.SECONDS.toMillis(1), TimeUnit.SECONDS.toNanos(1),
+                ImmutableList.of(termination(1), termination(3)), ImmutableList.of(), currCells);
+
+        // Only the termination present in both samples is accounted
+        UeTrafficRate rate = Up4StatsManager.computeRates(prev, curr, UPLINK).get(UE_ADDR);
+        assertThat(rate.rxPkts(), equalTo(50L));
+        assertThat(rate.txPkts(), equalTo(50L));
+    }
+
+    @Test
+    public void testTerminationRemoved() {
+        UpfCellCounters prevCells = new UpfCellCounters();
+        prevCells.set(counter(1, 100));
+        prevCells.set(counter(2, 1000));
+        UpfCountersSample prev = new UpfCountersSample(
+                0, 0, ImmutableList.of(termination(1), termination(2)), ImmutableList.of(), prevCells);
+        UpfCellCounters currCells = new UpfCellCounters();
+        currCells.set(counter(1, 110));
+        UpfCountersSample curr = new UpfCountersSample(
+                TimeUnit.SECONDS.toMillis(1), TimeUnit.SECONDS.toNanos(1),
+                ImmutableList.of(termination(1)), ImmutableList.of(), currCells);
+
+        // The UE total going backwards is not a counter reset
+        UeTrafficRate rate = Up4StatsManager.computeRates(prev, curr, UPLINK).get(UE_ADDR);
+        assertThat(rate.rxPkts(), equalTo(10L));
+    }
+
+    private static UpfCounter counter(int cellId, long pkts) {
+        return UpfCounter.builder()
+                .withCellId(cellId)
+                .setIngress(pkts, pkts * 100)
+                .setEgress(pkts, pkts * 100)
+                .build();
+    }
+
+    private static UpfTerminationUplink termination(int counterId) {
+        return UpfTerminationUplink.builder()
+                .withUeSessionId(UE_ADDR)
+                .withApplicationId((byte) counterId)
+                .withCounterId(counterId)
+                .withTrafficClass(TRAFFIC_CLASS_UL)
+                .build();
+    }
+}
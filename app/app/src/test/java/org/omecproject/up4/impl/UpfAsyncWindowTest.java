@@ -0,0 +1,137 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.omecproject.up4.impl.UpfWriteLaneStats.Lane;
+import org.onosproject.net.behaviour.upf.UpfProgrammableException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the bounded window of asynchronous UPF operations.
+ */
+public class UpfAsyncWindowTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testResult() {
+        UpfAsyncWindow window = new UpfAsyncWindow(executor, 2);
+        assertThat(window.submit(() -> 42).join(), equalTo(42));
+        try {
+            window.submit(() -> {
+                throw new UpfProgrammableException("failed");
+            }).join();
+            fail("Expected exception");
+        } catch (CompletionException e) {
+            assertThat(e.getCause(), instanceOf(UpfProgrammableException.class));
+        }
+    }
+
+    @Test
+    public void testBoundedOutstanding() {
+        UpfAsyncWindow window = new UpfAsyncWindow(executor, 3);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = Lists.newArrayList();
+        for (int i = 0; i < 20; i++) {
+            futures.add(window.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Uninterruptibles.awaitUninterruptibly(release, 5, TimeUnit.SECONDS);
+                running.decrementAndGet();
+                return 1;
+            }));
+        }
+        // Submitting did not block, and only the window is outstanding
+        assertThat(window.outstanding(), lessThanOrEqualTo(3));
+        assertThat(window.queued(), equalTo(20 - window.outstanding()));
+        release.countDown();
+        int total = futures.stream().mapToInt(CompletableFuture::join).sum();
+        assertThat(total, equalTo(20));
+        assertThat(maxRunning.get(), lessThanOrEqualTo(3));
+        assertThat(window.queued(), equalTo(0));
+    }
+
+    @Test
+    public void testClose() {
+        UpfAsyncWindow window = new UpfAsyncWindow(executor, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> outstanding = window.submit(() -> {
+            Uninterruptibles.awaitUninterruptibly(release, 5, TimeUnit.SECONDS);
+            return 1;
+        });
+        CompletableFuture<Integer> queued = window.submit(() -> 2);
+        window.close();
+        release.countDown();
+        assertThat(outstanding.join(), equalTo(1));
+        assertTrue(queued.isCompletedExceptionally());
+        assertTrue(window.submit(() -> 3).isCompletedExceptionally());
+    }
+
+    @Test
+    public void testPriorityLanes() {
+        UpfWriteLaneStats stats = new UpfWriteLaneStats();
+        UpfAsyncWindow window = new UpfAsyncWindow(executor, 1, stats);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> executed = Collections.synchronizedList(Lists.newArrayList());
+        CompletableFuture<Integer> blocking = window.submit(() -> {
+            Uninterruptibles.awaitUninterruptibly(release, 5, TimeUnit.SECONDS);
+            return 0;
+        });
+        List<CompletableFuture<Boolean>> futures = Lists.newArrayList();
+        futures.add(window.submit(Lane.BULK, () -> executed.add("bulk")));
+        futures.add(window.submit(Lane.NORMAL, () -> executed.add("normal")));
+        for (int i = 0; i < UpfAsyncWindow.STARVATION_LIMIT + 1; i++) {
+            futures.add(window.submit(Lane.URGENT, () -> executed.add("urgent")));
+        }
+        assertThat(window.queued(Lane.URGENT), equalTo(UpfAsyncWindow.STARVATION_LIMIT + 1));
+        assertThat(stats.laneStats(Lane.BULK).queued(), equalTo(1));
+        release.countDown();
+        blocking.join();
+        futures.forEach(CompletableFuture::join);
+        // Urgent first, lower lanes served after skipped STARVATION_LIMIT times
+        List<String> expected = Lists.newArrayList(Collections.nCopies(UpfAsyncWindow.STARVATION_LIMIT, "urgent"));
+        expected.add("normal");
+        expected.add("bulk");
+        expected.add("urgent");
+        assertThat(executed, contains(expected.toArray()));
+        assertThat(stats.laneStats(Lane.URGENT).latency().count(),
+                   equalTo((long) UpfAsyncWindow.STARVATION_LIMIT + 1));
+        assertThat(stats.laneStats(Lane.BULK).promoted(), equalTo(1L));
+        assertThat(stats.laneStats(Lane.BULK).queued(), equalTo(0));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.Ip4Prefix;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowRule;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.omecproject.up4.impl.TestImplConstants.APP_ID;
+
+/**
+ * Tests of the follower UPF devices convergence statistics.
+ */
+public class UpfConvergenceStatsTest {
+
+    private static final DeviceId LEADER = DeviceId.deviceId("device:1");
+    private static final DeviceId FOLLOWER_1 = DeviceId.deviceId("device:2");
+    private static final DeviceId FOLLOWER_2 = DeviceId.deviceId("device:3");
+
+    @Test
+    public void testConvergence() {
+        UpfConvergenceStats stats = new UpfConvergenceStats();
+        FlowRule rule = leaderRule(0);
+        stats.leaderRuleRequested(rule, ImmutableList.of(FOLLOWER_1, FOLLOWER_2), 0);
+        assertTrue(stats.isAwaiting(FOLLOWER_1));
+        assertTrue(stats.isAwaiting(FOLLOWER_2));
+
+        stats.followerRuleAdded(rule, FOLLOWER_1, TimeUnit.MILLISECONDS.toNanos(5));
+        assertFalse(stats.isAwaiting(FOLLOWER_1));
+        assertTrue(stats.isAwaiting(FOLLOWER_2));
+        assertThat(stats.pendingRules(), equalTo(1));
+        // Duplicate add events are not recorded twice
+        stats.followerRuleAdded(rule, FOLLOWER_1, TimeUnit.MILLISECONDS.toNanos(6));
+        assertThat(stats.deviceStats().get(FOLLOWER_1).convergence().count(), equalTo(1L));
+
+        stats.followerRuleAdded(rule, FOLLOWER_2, TimeUnit.MILLISECONDS.toNanos(7));
+        assertFalse(stats.isAwaiting(FOLLOWER_2));
+        assertFalse(stats.hasPendingRules());
+    }
+
+    @Test
+    public void testExpiry() {
+        UpfConvergenceStats stats = new UpfConvergenceStats();
+        stats.leaderRuleRequested(leaderRule(0), ImmutableList.of(FOLLOWER_1), 100);
+        stats.leaderRuleRequested(leaderRule(1), ImmutableList.of(FOLLOWER_2), 300);
+        stats.expirePendingRules(200);
+        assertFalse(stats.isAwaiting(FOLLOWER_1));
+        assertTrue(stats.isAwaiting(FOLLOWER_2));
+        assertThat(stats.pendingRules(), equalTo(1));
+
+        // The removal now awaits the follower
+        stats.leaderRuleRemoveRequested(leaderRule(1), ImmutableList.of(FOLLOWER_2), 400);
+        assertThat(stats.pendingRules(), equalTo(1));
+        stats.expirePendingRules(500);
+        assertFalse(stats.isAwaiting(FOLLOWER_2));
+    }
+
+    @Test
+    public void testReadAfterRemoval() {
+        UpfConvergenceStats stats = new UpfConvergenceStats();
+        FlowRule rule = leaderRule(0);
+        stats.leaderRuleRequested(rule, ImmutableList.of(FOLLOWER_1, FOLLOWER_2), 0);
+        stats.followerRuleAdded(rule, FOLLOWER_1, 1);
+        stats.followerRuleAdded(rule, FOLLOWER_2, 1);
+        assertFalse(stats.isAwaiting(FOLLOWER_1));
+
+        // A read right after the delete must not be served by a follower still having the rule
+        stats.leaderRuleRemoveRequested(rule, ImmutableList.of(FOLLOWER_1, FOLLOWER_2), 2);
+        assertTrue(stats.isAwaiting(FOLLOWER_1));
+        assertTrue(stats.isAwaiting(FOLLOWER_2));
+        // Add events of the removed rule don't confirm the removal
+        stats.followerRuleAdded(rule, FOLLOWER_1, 3);
+        assertTrue(stats.isAwaiting(FOLLOWER_1));
+
+        stats.followerRuleRemoved(rule, FOLLOWER_1);
+        assertFalse(stats.isAwaiting(FOLLOWER_1));
+        assertTrue(stats.isAwaiting(FOLLOWER_2));
+        stats.followerRuleRemoved(rule, FOLLOWER_2);
+        assertFalse(stats.hasPendingRules());
+    }
+
+    @Test
+    public void testRemovalBeforeConvergence() {
+        UpfConvergenceStats stats = new UpfConvergenceStats();
+        FlowRule rule = leaderRule(0);
+        stats.leaderRuleRequested(rule, ImmutableList.of(FOLLOWER_1), 0);
+        stats.leaderRuleRemoveRequested(rule, ImmutableList.of(FOLLOWER_1), 1);
+        // The addition is not awaited anymore, only the removal
+        stats.followerRuleAdded(rule, FOLLOWER_1, 2);
+        assertFalse(stats.deviceStats().containsKey(FOLLOWER_1));
+        assertTrue(stats.isAwaiting(FOLLOWER_1));
+        stats.followerRuleRemoved(rule, FOLLOWER_1);
+        assertFalse(stats.isAwaiting(FOLLOWER_1));
+    }
+
+    @Test
+    public void testPendingRulesCap() {
+        UpfConvergenceStats stats = new UpfConvergenceStats();
+        for (int i = 0; i < UpfConvergenceStats.MAX_PENDING_RULES; i++) {
+            stats.leaderRuleRequested(leaderRule(i), ImmutableList.of(FOLLOWER_1), 0);
+        }
+        stats.leaderRuleRequested(leaderRule(-1), ImmutableList.of(FOLLOWER_2), 0);
+        assertThat(stats.untrackedRules(), equalTo(1L));
+        // Rules for the follower might be missing from the tracked ones
+        assertTrue(stats.isAwaiting(FOLLOWER_2));
+
+        stats.expirePendingRules(1);
+        assertFalse(stats.isAwaiting(FOLLOWER_1));
+        assertFalse(stats.isAwaiting(FOLLOWER_2));
+    }
+
+    private static FlowRule leaderRule(int id) {
+        return DefaultFlowRule.builder()
+                .forDevice(LEADER)
+                .forTable(0)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchEthType(Ethernet.TYPE_IPV4)
+                                      .matchIPDst(Ip4Prefix.valueOf(id, Ip4Prefix.MAX_MASK_LENGTH))
+                                      .build())
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .withPriority(10)
+                .fromApp(APP_ID)
+                .makePermanent()
+                .build();
+    }
+}
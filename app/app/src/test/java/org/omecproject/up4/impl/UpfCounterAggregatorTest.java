@@ -0,0 +1,82 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.onosproject.net.behaviour.upf.UpfCounter;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.COUNTER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.INGRESS_COUNTER;
+
+/**
+ * Tests of the counter aggregator.
+ */
+public class UpfCounterAggregatorTest {
+
+    private static UpfCounter counter(int cellId, long value) {
+        return UpfCounter.builder()
+                .withCellId(cellId)
+                .setIngress(value, value * 10)
+                .setEgress(value, value * 10)
+                .build();
+    }
+
+    @Test
+    public void testAggregateCounters() {
+        UpfCounterAggregator aggregator = new UpfCounterAggregator(4);
+        // Cell ID above the expected capacity
+        Collection<UpfCounter> aggregated = aggregator.aggregate(ImmutableList.of(
+                ImmutableList.of(counter(0, 1), counter(3, 2)),
+                ImmutableList.of(counter(0, 5), counter(3000, 7))), COUNTER, 4);
+
+        List<UpfCounter> counters = Lists.newArrayList(aggregated);
+        assertThat(aggregated.size(), equalTo(3));
+        assertThat(counters.size(), equalTo(3));
+        assertThat(counters.get(0), equalTo(counter(0, 6)));
+        assertThat(counters.get(1), equalTo(counter(3, 2)));
+        assertThat(counters.get(2), equalTo(counter(3000, 7)));
+    }
+
+    @Test
+    public void testReuseBuffers() {
+        UpfCounterAggregator aggregator = new UpfCounterAggregator(4);
+        Collection<UpfCounter> first = aggregator.aggregate(ImmutableList.of(
+                ImmutableList.of(counter(1, 1)), ImmutableList.of(counter(1, 2))), COUNTER, 8);
+        int capacity = aggregator.capacity();
+        Collection<UpfCounter> second = aggregator.aggregate(ImmutableList.of(
+                ImmutableList.of(counter(2, 4)), ImmutableList.of(counter(2, 4))), COUNTER, 8);
+
+        // No value left from the previous aggregation, which is still valid
+        assertThat(Lists.newArrayList(first), equalTo(ImmutableList.of(counter(1, 3))));
+        assertThat(Lists.newArrayList(second), equalTo(ImmutableList.of(counter(2, 8))));
+        assertThat(aggregator.capacity(), equalTo(capacity));
+    }
+
+    @Test
+    public void testAggregateIngressCounters() {
+        UpfCounterAggregator aggregator = new UpfCounterAggregator();
+        UpfCounter ingress = UpfCounter.builder()
+                .withCellId(1)
+                .isIngressCounter()
+                .setIngress(2, 20)
+                .build();
+
+        UpfCounter expected = UpfCounter.builder()
+                .withCellId(1)
+                .isIngressCounter()
+                .setIngress(4, 40)
+                .build();
+        assertThat(aggregator.aggregate(ImmutableList.of(ImmutableList.of(ingress), ImmutableList.of(ingress)),
+                                        INGRESS_COUNTER, -1).iterator().next(),
+                   equalTo(expected));
+    }
+}
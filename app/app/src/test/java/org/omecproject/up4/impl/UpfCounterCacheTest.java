@@ -0,0 +1,114 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.junit.Test;
+import org.onosproject.net.behaviour.upf.UpfCounter;
+import org.onosproject.net.behaviour.upf.UpfEntityType;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.COUNTER;
+import static org.onosproject.net.behaviour.upf.UpfEntityType.INGRESS_COUNTER;
+
+/**
+ * Tests of the UPF counter cache.
+ */
+public class UpfCounterCacheTest {
+
+    private static final Collection<UpfCounter> COUNTERS = ImmutableList.of(
+            UpfCounter.builder().withCellId(1).setIngress(1, 1).setEgress(1, 1).build());
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private Collection<UpfCounter> read(long maxCounterId, UpfEntityType type) {
+        reads.incrementAndGet();
+        return COUNTERS;
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        UpfCounterCache cache = new UpfCounterCache(0);
+        cache.read(-1, COUNTER, this::read);
+        cache.read(-1, COUNTER, this::read);
+        assertThat(reads.get(), equalTo(2));
+        assertThat(cache.savedReads(), equalTo(0L));
+    }
+
+    @Test
+    public void testHit() throws Exception {
+        UpfCounterCache cache = new UpfCounterCache(TimeUnit.MINUTES.toMillis(1));
+        assertThat(cache.read(-1, COUNTER, this::read), equalTo(COUNTERS));
+        assertThat(cache.read(-1, COUNTER, this::read), equalTo(COUNTERS));
+        // Different counter set
+        cache.read(-1, INGRESS_COUNTER, this::read);
+        assertThat(reads.get(), equalTo(2));
+        assertThat(cache.hits(), equalTo(1L));
+        assertThat(cache.misses(), equalTo(2L));
+
+        cache.invalidate();
+        cache.read(-1, COUNTER, this::read);
+        assertThat(reads.get(), equalTo(3));
+    }
+
+    @Test
+    public void testInvalidatedDuringRead() throws Exception {
+        UpfCounterCache cache = new UpfCounterCache(TimeUnit.MINUTES.toMillis(1));
+        cache.read(-1, COUNTER, (max, type) -> {
+            // Counters written while being read
+            cache.invalidate();
+            return read(max, type);
+        });
+        // The values read before the write are not cached
+        cache.read(-1, COUNTER, this::read);
+        assertThat(reads.get(), equalTo(2));
+        assertThat(cache.hits(), equalTo(0L));
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        UpfCounterCache cache = new UpfCounterCache(TimeUnit.MINUTES.toMillis(1));
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch releaseRead = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Collection<UpfCounter>> first = executor.submit(() -> cache.read(-1, COUNTER, (max, type) -> {
+                readStarted.countDown();
+                Uninterruptibles.awaitUninterruptibly(releaseRead);
+                return read(max, type);
+            }));
+            readStarted.await();
+            Thread waiter = new Thread(() -> {
+                try {
+                    cache.read(-1, COUNTER, this::read);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            waiter.start();
+            // Wait for the second reader to join the in-flight read
+            while (cache.coalesced() == 0) {
+                Thread.sleep(1);
+            }
+            releaseRead.countDown();
+            waiter.join();
+            assertThat(first.get(), equalTo(COUNTERS));
+            assertThat(reads.get(), equalTo(1));
+            assertThat(cache.coalesced(), equalTo(1L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
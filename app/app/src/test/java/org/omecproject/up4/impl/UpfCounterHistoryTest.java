@@ -0,0 +1,73 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onosproject.net.behaviour.upf.UpfCounter;
+
+import java.util.SortedMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.omecproject.up4.impl.UpfCounterHistory.EGRESS_BYTES;
+import static org.omecproject.up4.impl.UpfCounterHistory.INGRESS_PKTS;
+
+/**
+ * Tests of the off-heap counter history.
+ */
+public class UpfCounterHistoryTest {
+
+    private static UpfCellCounters counters(long value) {
+        UpfCellCounters counters = new UpfCellCounters();
+        counters.load(ImmutableList.of(
+                UpfCounter.builder().withCellId(1).setIngress(value, value * 10).setEgress(value, value * 10).build(),
+                UpfCounter.builder().withCellId(2).setIngress(value * 2, 0).setEgress(0, 0).build()));
+        return counters;
+    }
+
+    @Test
+    public void testRecordAndQuery() {
+        UpfCounterHistory history = new UpfCounterHistory(4, 2);
+        // First sample only sets the base values
+        history.record(1000, 1_000_000_000L, counters(10));
+        assertThat(history.query(ImmutableList.of(1, 2), 0).isEmpty(), equalTo(true));
+
+        history.record(2000, 2_000_000_000L, counters(15));
+        history.record(3000, 3_000_000_000L, counters(25));
+        SortedMap<Long, UpfCounterHistory.Increments> result = history.query(ImmutableList.of(1, 2), 0);
+        assertThat(result.keySet(), contains(2000L, 3000L));
+        assertThat(result.get(2000L).get(INGRESS_PKTS), equalTo(5L + 10L));
+        assertThat(result.get(3000L).get(EGRESS_BYTES), equalTo(100L));
+        assertThat(result.get(3000L).intervalNanos(), equalTo(1_000_000_000L));
+
+        // Ring wraps around, the oldest slot is overwritten
+        history.record(4000, 4_000_000_000L, counters(26));
+        result = history.query(ImmutableList.of(1), 0);
+        assertThat(result.keySet(), contains(3000L, 4000L));
+        assertThat(result.get(4000L).get(INGRESS_PKTS), equalTo(1L));
+        assertThat(history.query(ImmutableList.of(1), 3500).keySet(), contains(4000L));
+    }
+
+    @Test
+    public void testCounterReset() {
+        UpfCounterHistory history = new UpfCounterHistory(4, 2);
+        history.record(1000, 1_000_000_000L, counters(10));
+        history.record(2000, 2_000_000_000L, counters(3));
+        // The counter restarted from 0, the new value is the increment
+        assertThat(history.query(ImmutableList.of(1), 0).get(2000L).get(INGRESS_PKTS), equalTo(3L));
+        assertThat(history.query(ImmutableList.of(1), 0).get(2000L).get(EGRESS_BYTES), equalTo(30L));
+    }
+
+    @Test
+    public void testLargeBytesIncrement() {
+        UpfCounterHistory history = new UpfCounterHistory(4, 2);
+        history.record(1000, 1_000_000_000L, counters(0));
+        // More than 4 GB transmitted in the poll interval
+        history.record(2000, 2_000_000_000L, counters(1_000_000_000L));
+        assertThat(history.query(ImmutableList.of(1), 0).get(2000L).get(EGRESS_BYTES), equalTo(10_000_000_000L));
+    }
+}
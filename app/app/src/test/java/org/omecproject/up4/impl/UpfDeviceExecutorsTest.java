@@ -0,0 +1,64 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.junit.After;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.fail;
+import static org.omecproject.up4.impl.TestImplConstants.DEVICE_ID;
+
+/**
+ * Tests of the per-device executors of the UPF device calls.
+ */
+public class UpfDeviceExecutorsTest {
+
+    private static final DeviceId OTHER_DEVICE_ID = DeviceId.deviceId("OtherSwitch");
+
+    private final UpfDeviceExecutors executors =
+            new UpfDeviceExecutors(1, 1, deviceId -> Executors.defaultThreadFactory());
+    private final CountDownLatch hung = new CountDownLatch(1);
+    private final Callable<Void> hungCall = () -> {
+        hung.await();
+        return null;
+    };
+
+    @After
+    public void tearDown() {
+        hung.countDown();
+        executors.shutdown();
+    }
+
+    @Test
+    public void testHungDeviceIsolated() throws Exception {
+        // One call running and one queued saturate the device
+        executors.executor(DEVICE_ID).submit(hungCall);
+        executors.executor(DEVICE_ID).submit(hungCall);
+        try {
+            executors.executor(DEVICE_ID).submit(hungCall);
+            fail("Expected rejection");
+        } catch (RejectedExecutionException e) {
+            // Expected
+        }
+        // The other devices are still called
+        assertThat(executors.executor(OTHER_DEVICE_ID).submit(() -> true).get(1, TimeUnit.SECONDS),
+                   equalTo(true));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testShutdown() {
+        executors.shutdown();
+        executors.executor(DEVICE_ID);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.omecproject.up4.impl.UpfDeviceHealth.State.CLOSED;
+import static org.omecproject.up4.impl.UpfDeviceHealth.State.HALF_OPEN;
+import static org.omecproject.up4.impl.UpfDeviceHealth.State.OPEN;
+
+/**
+ * Tests of the UPF device circuit breakers.
+ */
+public class UpfDeviceHealthTest {
+
+    private static final DeviceId DEVICE_ID = DeviceId.deviceId("device:1");
+    private static final long OPEN_MILLIS = 1000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testTripAndRecover() {
+        UpfDeviceHealth health = new UpfDeviceHealth(2, OPEN_MILLIS, clock::get);
+        assertTrue(health.tryAcquire(DEVICE_ID));
+        health.failure(DEVICE_ID, true, "timeout");
+        assertThat(health.state(DEVICE_ID), equalTo(CLOSED));
+        assertTrue(health.tryAcquire(DEVICE_ID));
+        health.failure(DEVICE_ID, false, "error");
+        assertThat(health.state(DEVICE_ID), equalTo(OPEN));
+        // Rejected until the open time elapsed
+        assertFalse(health.tryAcquire(DEVICE_ID));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_MILLIS));
+        // Single probe let through
+        assertTrue(health.tryAcquire(DEVICE_ID));
+        assertThat(health.state(DEVICE_ID), equalTo(HALF_OPEN));
+        assertFalse(health.tryAcquire(DEVICE_ID));
+        health.failure(DEVICE_ID, true, "timeout");
+        assertThat(health.state(DEVICE_ID), equalTo(OPEN));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_MILLIS));
+        assertTrue(health.tryAcquire(DEVICE_ID));
+        health.success(DEVICE_ID, 1);
+        assertThat(health.state(DEVICE_ID), equalTo(CLOSED));
+
+        UpfDeviceHealth.DeviceHealth deviceHealth = health.devices().get(DEVICE_ID);
+        assertThat(deviceHealth.trips(), equalTo(2L));
+        assertThat(deviceHealth.rejected(), equalTo(2L));
+        assertThat(deviceHealth.consecutiveFailures(), equalTo(0));
+    }
+
+    @Test
+    public void testDisabled() {
+        UpfDeviceHealth health = new UpfDeviceHealth(0, OPEN_MILLIS, clock::get);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(health.tryAcquire(DEVICE_ID));
+            health.failure(DEVICE_ID, true, "timeout");
+        }
+        assertThat(health.state(DEVICE_ID), equalTo(CLOSED));
+        assertThat(health.devices().get(DEVICE_ID).consecutiveFailures(), equalTo(10));
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.junit.Test;
+import org.onlab.packet.Ip4Address;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the UPF flow filter.
+ */
+public class UpfFlowFilterTest {
+
+    private static final Ip4Address UE_1 = Ip4Address.valueOf("17.0.0.1");
+    private static final Ip4Address UE_2 = Ip4Address.valueOf("17.0.0.2");
+
+    @Test
+    public void testMatchAll() {
+        assertTrue(UpfFlowFilter.ALL.matches(UE_1, (byte) 1));
+        assertTrue(UpfFlowFilter.ALL.matchesSlice(UeSliceResolver.UNKNOWN_SLICE_ID));
+        assertTrue(UpfFlowFilter.ALL.isEmpty());
+    }
+
+    @Test
+    public void testMatchUeAndApp() {
+        UpfFlowFilter filter = UpfFlowFilter.builder()
+                .withUeAddress(UE_1)
+                .withAppId((byte) 2)
+                .build();
+        assertTrue(filter.matches(UE_1, (byte) 2));
+        assertFalse(filter.matches(UE_1, (byte) 1));
+        assertFalse(filter.matches(UE_2, (byte) 2));
+        assertTrue(filter.matchesSlice(5));
+        assertFalse(filter.isEmpty());
+    }
+
+    @Test
+    public void testMatchSlice() {
+        UpfFlowFilter filter = UpfFlowFilter.builder().withSliceId(5).build();
+        assertTrue(filter.matches(UE_2, (byte) 3));
+        assertTrue(filter.matchesSlice(5));
+        assertFalse(filter.matchesSlice(6));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the UPF entity read balancer.
+ */
+public class UpfReadBalancerTest {
+
+    private static final DeviceId LEADER = DeviceId.deviceId("device:1");
+    private static final DeviceId FOLLOWER_1 = DeviceId.deviceId("device:2");
+    private static final DeviceId FOLLOWER_2 = DeviceId.deviceId("device:3");
+    private static final List<DeviceId> FOLLOWERS = ImmutableList.of(FOLLOWER_2, FOLLOWER_1);
+
+    @Test
+    public void testLeaderPolicy() {
+        UpfReadBalancer balancer = new UpfReadBalancer(UpfReadBalancer.Policy.LEADER);
+        for (int i = 0; i < 5; i++) {
+            assertThat(balancer.select(LEADER, FOLLOWERS), equalTo(LEADER));
+        }
+    }
+
+    @Test
+    public void testRoundRobin() {
+        UpfReadBalancer balancer = new UpfReadBalancer(UpfReadBalancer.Policy.ROUND_ROBIN);
+        assertThat(balancer.select(LEADER, FOLLOWERS), equalTo(FOLLOWER_1));
+        assertThat(balancer.select(LEADER, FOLLOWERS), equalTo(FOLLOWER_2));
+        assertThat(balancer.select(LEADER, FOLLOWERS), equalTo(LEADER));
+        assertThat(balancer.select(LEADER, FOLLOWERS), equalTo(FOLLOWER_1));
+        // No follower in sync
+        assertThat(balancer.select(LEADER, ImmutableList.of()), equalTo(LEADER));
+    }
+
+    @Test
+    public void testLeastLoaded() {
+        UpfReadBalancer balancer = new UpfReadBalancer(UpfReadBalancer.Policy.LEAST_LOADED);
+        balancer.started(LEADER, false);
+        balancer.started(FOLLOWER_1, true);
+        assertThat(balancer.select(LEADER, FOLLOWERS), equalTo(FOLLOWER_2));
+        balancer.started(FOLLOWER_2, true);
+        balancer.started(FOLLOWER_2, true);
+        assertThat(balancer.select(LEADER, FOLLOWERS), equalTo(FOLLOWER_1));
+        balancer.completed(LEADER);
+        assertThat(balancer.select(LEADER, FOLLOWERS), equalTo(LEADER));
+        assertThat(balancer.reads().get(FOLLOWER_2), equalTo(2L));
+        assertFalse(balancer.reads().containsKey(LEADER));
+    }
+
+    @Test
+    public void testReconciledInSync() {
+        UpfReadBalancer balancer = new UpfReadBalancer(UpfReadBalancer.Policy.ROUND_ROBIN);
+        balancer.flowRulesReconciled(FOLLOWER_1, true);
+        assertFalse(balancer.reconciledInSync(FOLLOWER_1));
+        balancer.metersReconciled(FOLLOWER_1, true);
+        assertTrue(balancer.reconciledInSync(FOLLOWER_1));
+        balancer.metersReconciled(FOLLOWER_1, false);
+        assertFalse(balancer.reconciledInSync(FOLLOWER_1));
+        balancer.metersReconciled(FOLLOWER_1, true);
+        balancer.forget(FOLLOWER_1);
+        assertFalse(balancer.reconciledInSync(FOLLOWER_1));
+        assertTrue(balancer.inSyncFollowers().isEmpty());
+    }
+}
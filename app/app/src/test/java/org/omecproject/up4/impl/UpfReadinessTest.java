@@ -0,0 +1,81 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import org.junit.Test;
+import org.omecproject.up4.Up4Readiness;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.omecproject.up4.Up4Readiness.State.NOT_CONFIGURED;
+import static org.omecproject.up4.Up4Readiness.State.READY;
+import static org.omecproject.up4.Up4Readiness.State.WAITING_FOR_DEVICES;
+
+/**
+ * Tests of the UPF data plane readiness state machine.
+ */
+public class UpfReadinessTest {
+
+    private static final long MIN_RETRY_MILLIS = 1000;
+    private static final long MAX_RETRY_MILLIS = 3000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testTransitions() {
+        UpfReadiness readiness = new UpfReadiness(MIN_RETRY_MILLIS, MAX_RETRY_MILLIS, clock::get);
+        assertThat(readiness.snapshot().state(), equalTo(NOT_CONFIGURED));
+        // No setup without config
+        assertFalse(readiness.tryStartSetup());
+        assertThat(readiness.transition(WAITING_FOR_DEVICES, "device missing"), equalTo(NOT_CONFIGURED));
+        assertThat(readiness.reason(), equalTo("device missing"));
+        assertThat(readiness.transition(READY, "ready"), equalTo(WAITING_FOR_DEVICES));
+        assertTrue(readiness.isReady());
+        Up4Readiness snapshot = readiness.snapshot();
+        assertTrue(snapshot.isReady());
+        assertThat(snapshot.retryAfterMillis(), equalTo(0L));
+    }
+
+    @Test
+    public void testSetupBackoff() {
+        UpfReadiness readiness = new UpfReadiness(MIN_RETRY_MILLIS, MAX_RETRY_MILLIS, clock::get);
+        readiness.transition(WAITING_FOR_DEVICES, "device missing");
+        assertTrue(readiness.tryStartSetup());
+        // One attempt at a time
+        assertFalse(readiness.tryStartSetup());
+        assertThat(readiness.snapshot().retryAfterMillis(), equalTo(MIN_RETRY_MILLIS));
+        readiness.setupDone(false);
+        assertFalse(readiness.tryStartSetup());
+        advance(MIN_RETRY_MILLIS);
+        assertTrue(readiness.tryStartSetup());
+        readiness.setupDone(false);
+        // Backoff doubled
+        assertThat(readiness.snapshot().retryAfterMillis(), equalTo(2 * MIN_RETRY_MILLIS));
+        advance(2 * MIN_RETRY_MILLIS);
+        assertTrue(readiness.tryStartSetup());
+        readiness.setupDone(false);
+        advance(MAX_RETRY_MILLIS);
+        assertTrue(readiness.tryStartSetup());
+        readiness.setupDone(false);
+        // Capped to the maximum
+        assertThat(readiness.snapshot().retryAfterMillis(), equalTo(MAX_RETRY_MILLIS));
+        // Ready resets the backoff
+        readiness.transition(READY, "ready");
+        readiness.transition(WAITING_FOR_DEVICES, "device removed");
+        advance(MAX_RETRY_MILLIS);
+        assertTrue(readiness.tryStartSetup());
+        readiness.setupDone(false);
+        assertThat(readiness.snapshot().retryAfterMillis(), equalTo(MIN_RETRY_MILLIS));
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
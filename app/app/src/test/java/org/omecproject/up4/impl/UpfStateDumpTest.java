@@ -0,0 +1,69 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.onosproject.net.behaviour.upf.UpfEntity;
+import org.onosproject.net.behaviour.upf.UpfEntityType;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.omecproject.up4.impl.TestImplConstants.APPLICATION_FILTERING;
+import static org.omecproject.up4.impl.TestImplConstants.APP_METER;
+import static org.omecproject.up4.impl.TestImplConstants.DOWNLINK_INTERFACE;
+import static org.omecproject.up4.impl.TestImplConstants.DOWNLINK_SESSION;
+import static org.omecproject.up4.impl.TestImplConstants.DOWNLINK_TERMINATION;
+import static org.omecproject.up4.impl.TestImplConstants.PHYSICAL_COUNTER_SIZE;
+import static org.omecproject.up4.impl.TestImplConstants.SESSION_METER;
+import static org.omecproject.up4.impl.TestImplConstants.TUNNEL_PEER;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_INTERFACE;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_SESSION;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_TERMINATION;
+
+/**
+ * Tests of the UPF state dump and load.
+ */
+public class UpfStateDumpTest {
+
+    private static final List<UpfEntity> ENTITIES = ImmutableList.of(
+            UPLINK_INTERFACE, DOWNLINK_INTERFACE, TUNNEL_PEER, UPLINK_SESSION, DOWNLINK_SESSION,
+            UPLINK_TERMINATION, DOWNLINK_TERMINATION, APPLICATION_FILTERING, SESSION_METER, APP_METER);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDumpAndLoad() throws Exception {
+        MockUp4Service source = new MockUp4Service();
+        for (UpfEntity entity : ENTITIES) {
+            source.apply(entity);
+        }
+        Path file = folder.getRoot().toPath().resolve("upf.dump");
+        UpfStateDump stateDump = new UpfStateDump();
+
+        UpfStateDump.Result dumped = stateDump.dump(source, file, true);
+        assertThat(dumped.entities().get(UpfEntityType.INTERFACE), equalTo(2L));
+        assertThat(dumped.entities().get(UpfEntityType.COUNTER), equalTo((long) PHYSICAL_COUNTER_SIZE));
+
+        MockUp4Service target = new MockUp4Service();
+        // The mock service is not thread-safe, load with a single thread
+        UpfStateDump.Result loaded = stateDump.load(target, file, 1);
+        assertThat(loaded.failed(), equalTo(0L));
+        // Both the ingress and egress cells of each counter are skipped
+        assertThat(loaded.skipped(), equalTo(2L * PHYSICAL_COUNTER_SIZE));
+        assertThat(loaded.entities().values().stream().mapToLong(Long::longValue).sum(),
+                   equalTo((long) ENTITIES.size()));
+        for (UpfEntityType type : UpfStateDump.ENTITY_ORDER) {
+            assertThat(target.readAll(type).toArray(), containsInAnyOrder(source.readAll(type).toArray()));
+        }
+    }
+}
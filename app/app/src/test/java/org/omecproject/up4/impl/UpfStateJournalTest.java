@@ -0,0 +1,187 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.onosproject.net.behaviour.upf.UpfEntityType;
+import org.onosproject.net.behaviour.upf.UpfTerminationUplink;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.omecproject.up4.impl.TestImplConstants.DOWNLINK_SESSION;
+import static org.omecproject.up4.impl.TestImplConstants.SESSION_METER;
+import static org.omecproject.up4.impl.TestImplConstants.SESSION_METER_RESET;
+import static org.omecproject.up4.impl.TestImplConstants.TUNNEL_PEER;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_COUNTER;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_TERMINATION;
+import static org.omecproject.up4.impl.TestImplConstants.UPLINK_TERMINATION_DEFAULT_METER;
+
+/**
+ * Tests of the UPF state snapshot and journal.
+ */
+public class UpfStateJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private UpfStateDump codec;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.getRoot().toPath().resolve("state");
+        codec = new UpfStateDump();
+    }
+
+    private UpfStateJournal reopen() throws Exception {
+        UpfStateJournal journal = new UpfStateJournal(directory, codec);
+        journal.open();
+        return journal;
+    }
+
+    @Test
+    public void testJournalReplay() throws Exception {
+        UpfStateJournal journal = reopen();
+        journal.applied(TUNNEL_PEER);
+        journal.applied(DOWNLINK_SESSION);
+        journal.applied(UPLINK_TERMINATION);
+        // Same key, replaces the previous termination
+        journal.applied(UPLINK_TERMINATION_DEFAULT_METER);
+        journal.applied(SESSION_METER);
+        journal.applied(SESSION_METER_RESET);
+        journal.deleted(DOWNLINK_SESSION);
+        // Counters are not journaled
+        journal.applied(UPLINK_COUNTER);
+        assertThat(journal.size(), equalTo(3));
+        assertThat(journal.count(UpfEntityType.TERMINATION_UPLINK), equalTo(1));
+        assertThat(journal.count(UpfEntityType.SESSION_DOWNLINK), equalTo(0));
+        // The entities applied before the first open are not known
+        assertFalse(journal.isComplete());
+
+        // Simulate a crash, without closing the journal
+        UpfStateJournal recovered = reopen();
+        assertThat(recovered.size(), equalTo(3));
+        assertThat(recovered.count(UpfEntityType.SESSION_METER), equalTo(1));
+        assertTrue(recovered.isComplete());
+        assertTrue(recovered.contains(TUNNEL_PEER));
+        assertTrue(recovered.contains(UPLINK_TERMINATION_DEFAULT_METER));
+        assertFalse(recovered.contains(UPLINK_TERMINATION));
+        assertFalse(recovered.contains(DOWNLINK_SESSION));
+        assertThat(recovered.entities(UpfEntityType.SESSION_METER), contains(SESSION_METER_RESET));
+    }
+
+    @Test
+    public void testTornRecord() throws Exception {
+        UpfStateJournal journal = reopen();
+        journal.applied(TUNNEL_PEER);
+        journal.applied(UPLINK_TERMINATION);
+        Path journalFile = directory.resolve(UpfStateJournal.JOURNAL_FILE);
+        long size = Files.size(journalFile);
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            // Cut the last record in half
+            channel.truncate(size - 5);
+        }
+
+        UpfStateJournal recovered = reopen();
+        assertThat(recovered.size(), equalTo(1));
+        assertTrue(recovered.contains(TUNNEL_PEER));
+        assertThat(recovered.journalRecords(), equalTo(1L));
+        // The torn record is discarded and the journal is appendable again
+        recovered.applied(UPLINK_TERMINATION);
+        assertThat(reopen().size(), equalTo(2));
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        UpfStateJournal journal = reopen();
+        for (int i = 0; i <= UpfStateJournal.MIN_COMPACTION_RECORDS; i++) {
+            journal.applied(uplinkTermination(i));
+        }
+        assertThat(journal.journalRecords(), equalTo(0L));
+        assertTrue(Files.exists(directory.resolve(UpfStateJournal.SNAPSHOT_FILE)));
+        journal.applied(TUNNEL_PEER);
+        journal.deletedAll(UpfEntityType.TERMINATION_UPLINK);
+
+        UpfStateJournal recovered = reopen();
+        assertThat(recovered.size(), equalTo(1));
+        assertThat(recovered.entities(UpfEntityType.TERMINATION_UPLINK), empty());
+        assertThat(recovered.count(UpfEntityType.TERMINATION_UPLINK), equalTo(0));
+        assertTrue(recovered.contains(TUNNEL_PEER));
+
+        recovered.clear();
+        assertThat(reopen().size(), equalTo(0));
+    }
+
+    @Test
+    public void testBackgroundCompaction() throws Exception {
+        List<Runnable> tasks = Lists.newArrayList();
+        UpfStateJournal journal = new UpfStateJournal(directory, codec, tasks::add);
+        journal.open();
+        for (int i = 0; i <= UpfStateJournal.MIN_COMPACTION_RECORDS; i++) {
+            journal.applied(uplinkTermination(i));
+        }
+        // Rolled over, the snapshot is not written yet
+        assertThat(tasks.size(), equalTo(1));
+        assertTrue(Files.exists(directory.resolve(UpfStateJournal.PREV_JOURNAL_FILE)));
+        assertFalse(Files.exists(directory.resolve(UpfStateJournal.SNAPSHOT_FILE)));
+        journal.applied(TUNNEL_PEER);
+        assertThat(journal.journalRecords(), equalTo(1L));
+
+        // Crash before the snapshot is written
+        assertThat(reopen().size(), equalTo(2));
+
+        journal = new UpfStateJournal(directory, codec, tasks::add);
+        journal.open();
+        tasks.clear();
+        for (int i = 0; i <= UpfStateJournal.MIN_COMPACTION_RECORDS; i++) {
+            journal.deleted(uplinkTermination(i));
+        }
+        journal.applied(DOWNLINK_SESSION);
+        tasks.forEach(Runnable::run);
+        assertFalse(Files.exists(directory.resolve(UpfStateJournal.PREV_JOURNAL_FILE)));
+        UpfStateJournal recovered = reopen();
+        assertThat(recovered.size(), equalTo(2));
+        assertTrue(recovered.contains(TUNNEL_PEER));
+        assertTrue(recovered.contains(DOWNLINK_SESSION));
+    }
+
+    @Test
+    public void testClearDuringCompaction() throws Exception {
+        List<Runnable> tasks = Lists.newArrayList();
+        UpfStateJournal journal = new UpfStateJournal(directory, codec, tasks::add);
+        journal.open();
+        for (int i = 0; i <= UpfStateJournal.MIN_COMPACTION_RECORDS; i++) {
+            journal.applied(uplinkTermination(i));
+        }
+        journal.clear();
+        // The snapshot of the cleared state is discarded
+        tasks.forEach(Runnable::run);
+        assertFalse(Files.exists(directory.resolve(UpfStateJournal.SNAPSHOT_FILE)));
+        assertThat(reopen().size(), equalTo(0));
+    }
+
+    private static UpfTerminationUplink uplinkTermination(int counterId) {
+        return UpfTerminationUplink.builder()
+                .withUeSessionId(UPLINK_TERMINATION.ueSessionId())
+                .withApplicationId(UPLINK_TERMINATION.applicationId())
+                .withCounterId(counterId)
+                .needsDropping(true)
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.Ip4Address;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.omecproject.up4.impl.UeTrafficRate.Direction.DOWNLINK;
+import static org.omecproject.up4.impl.UeTrafficRate.Direction.UPLINK;
+
+/**
+ * Tests of the slice, application and UE traffic aggregation.
+ */
+public class UpfTrafficAggregatorTest {
+
+    private static final Ip4Address UE_1 = Ip4Address.valueOf("17.0.0.1");
+    private static final Ip4Address UE_2 = Ip4Address.valueOf("17.0.0.2");
+    private static final byte APP_1 = 1;
+    private static final byte APP_2 = 2;
+    private static final int SLICE = 5;
+
+    private static UsageRecord record(Ip4Address ue, byte appId, UeTrafficRate.Direction direction, long pkts) {
+        return new UsageRecord(0, 1000, ue, appId, direction, 0, pkts, pkts * 100, pkts, pkts * 100);
+    }
+
+    @Test
+    public void testAggregate() {
+        UpfTrafficAggregator aggregator = new UpfTrafficAggregator();
+        aggregator.add(ImmutableList.of(record(UE_1, APP_1, UPLINK, 10),
+                                        record(UE_2, APP_1, UPLINK, 5),
+                                        record(UE_1, APP_2, DOWNLINK, 7)),
+                       r -> SLICE, ImmutableSet.of(UE_1, UE_2));
+        aggregator.add(ImmutableList.of(record(UE_1, APP_1, UPLINK, 1)),
+                       r -> SLICE, ImmutableSet.of(UE_1));
+
+        assertThat(aggregator.sliceTotals().get(SLICE).rxPkts(UPLINK), equalTo(16L));
+        assertThat(aggregator.sliceTotals().get(SLICE).rxPkts(DOWNLINK), equalTo(7L));
+        assertThat(aggregator.appTotals(SLICE).get(APP_1).txBytes(UPLINK), equalTo(1600L));
+        assertThat(aggregator.appTotals(SLICE).get(APP_2).txPkts(DOWNLINK), equalTo(7L));
+        assertThat(aggregator.ueTotals(SLICE, APP_1).get(UE_1).rxPkts(UPLINK), equalTo(11L));
+        // UE 2 has no more terminations
+        assertThat(aggregator.ueTotals(SLICE, APP_1).containsKey(UE_2), equalTo(false));
+
+        // No more UEs, the application and slice totals are kept
+        aggregator.add(ImmutableList.of(), r -> SLICE, ImmutableSet.of());
+        assertThat(aggregator.ueTotals(SLICE, APP_2).isEmpty(), equalTo(true));
+        assertThat(aggregator.appTotals(SLICE).get(APP_2).txPkts(DOWNLINK), equalTo(7L));
+
+        aggregator.reset();
+        assertThat(aggregator.sliceTotals().isEmpty(), equalTo(true));
+    }
+}
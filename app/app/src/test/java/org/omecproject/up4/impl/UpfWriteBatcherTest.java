@@ -0,0 +1,98 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.onosproject.net.behaviour.upf.UpfProgrammableException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the micro-batching of the UPF device writes.
+ */
+public class UpfWriteBatcherTest {
+
+    private static final String FAIL = "fail";
+
+    private final List<Integer> batchSizes = Collections.synchronizedList(Lists.newArrayList());
+
+    private List<UpfProgrammableException> execute(List<String> writes) {
+        batchSizes.add(writes.size());
+        return writes.stream()
+                .map(w -> w.equals(FAIL) ? new UpfProgrammableException(FAIL) : null)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        UpfWriteBatcher<String> batcher = new UpfWriteBatcher<>(this::execute, 0, 32);
+        batcher.write("a");
+        batcher.write("b");
+        assertThat(batchSizes, contains(1, 1));
+        assertThat(batcher.batches(), equalTo(0L));
+    }
+
+    @Test
+    public void testFullBatch() throws Exception {
+        // Flushed when full, long before the window expires
+        UpfWriteBatcher<String> batcher = new UpfWriteBatcher<>(this::execute, TimeUnit.SECONDS.toMicros(10), 3);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            List<Future<Boolean>> results = Lists.newArrayList();
+            for (String write : List.of("a", FAIL, "b")) {
+                results.add(executor.submit(() -> {
+                    try {
+                        batcher.write(write);
+                        return true;
+                    } catch (UpfProgrammableException e) {
+                        return false;
+                    }
+                }));
+            }
+            long failed = 0;
+            for (Future<Boolean> result : results) {
+                failed += result.get(5, TimeUnit.SECONDS) ? 0 : 1;
+            }
+            // Each caller got its own result
+            assertThat(failed, equalTo(1L));
+            assertThat(batchSizes, contains(3));
+            assertThat(batcher.batchedWrites(), equalTo(3L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWindowShrinks() throws Exception {
+        UpfWriteBatcher<String> batcher = new UpfWriteBatcher<>(this::execute, 1000, 32);
+        assertThat(batcher.windowMicros(), equalTo(1000L));
+        batcher.write("a");
+        assertThat(batcher.windowMicros(), lessThan(1000L));
+        for (int i = 0; i < 4; i++) {
+            batcher.write("a");
+        }
+        // Light load, writes are executed as soon as submitted
+        assertThat(batcher.windowMicros(), equalTo(0L));
+        try {
+            batcher.write(FAIL);
+            fail("Expected exception");
+        } catch (UpfProgrammableException e) {
+            assertThat(e.getMessage(), equalTo(FAIL));
+        }
+    }
+}
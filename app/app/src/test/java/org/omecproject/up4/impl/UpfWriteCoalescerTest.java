@@ -0,0 +1,147 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.behaviour.upf.UpfEntity;
+import org.onosproject.net.behaviour.upf.UpfProgrammableException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.omecproject.up4.impl.TestImplConstants.DOWNLINK_SESSION;
+import static org.omecproject.up4.impl.TestImplConstants.DOWNLINK_SESSION_DBUF;
+import static org.omecproject.up4.impl.TestImplConstants.UE_ADDR;
+
+/**
+ * Tests of the UPF write coalescer.
+ */
+public class UpfWriteCoalescerTest {
+
+    private final List<Pair<UpfEntity, Boolean>> written = Collections.synchronizedList(Lists.newArrayList());
+    private final Lock lock = new ReentrantLock();
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private void write(UpfEntity entity, boolean delete) {
+        written.add(Pair.of(entity, delete));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        UpfWriteCoalescer coalescer = newCoalescer(0);
+        coalescer.write(UE_ADDR, DOWNLINK_SESSION_DBUF, false, this::write);
+        coalescer.writeAsync(UE_ADDR, DOWNLINK_SESSION, false, this::write).get();
+        assertThat(written, contains(Pair.of(DOWNLINK_SESSION_DBUF, false), Pair.of(DOWNLINK_SESSION, false)));
+        assertThat(coalescer.coalesced(), equalTo(0L));
+        assertThat(coalescer.writes(), equalTo(0L));
+    }
+
+    @Test
+    public void testLastWriteWins() throws Exception {
+        UpfWriteCoalescer coalescer = newCoalescer(TimeUnit.SECONDS.toMillis(1));
+        CompletableFuture<Void> first = coalescer.writeAsync(UE_ADDR, DOWNLINK_SESSION_DBUF, false, this::write);
+        CompletableFuture<Void> second = coalescer.writeAsync(UE_ADDR, DOWNLINK_SESSION, false, this::write);
+        CompletableFuture<Void> third = coalescer.writeAsync(UE_ADDR, DOWNLINK_SESSION_DBUF, true, this::write);
+        // The callers are not blocked by the window
+        assertThat(coalescer.pendingKeys(), equalTo(1));
+        assertThat(coalescer.coalesced(), equalTo(2L));
+        first.get();
+        second.get();
+        third.get();
+        // Only the last write reached the devices
+        assertThat(written, contains(Pair.of(DOWNLINK_SESSION_DBUF, true)));
+        assertThat(coalescer.writes(), equalTo(1L));
+        assertThat(coalescer.pendingKeys(), equalTo(0));
+    }
+
+    @Test
+    public void testWriteSupersedesPending() throws Exception {
+        UpfWriteCoalescer coalescer = newCoalescer(TimeUnit.SECONDS.toMillis(1));
+        CompletableFuture<Void> pending = coalescer.writeAsync(UE_ADDR, DOWNLINK_SESSION_DBUF, false, this::write);
+        coalescer.write(UE_ADDR, DOWNLINK_SESSION, false, this::write);
+        assertTrue(pending.isDone());
+        assertThat(written, contains(Pair.of(DOWNLINK_SESSION, false)));
+        assertThat(coalescer.coalesced(), equalTo(1L));
+        assertThat(coalescer.pendingKeys(), equalTo(0));
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        UpfWriteCoalescer coalescer = newCoalescer(TimeUnit.SECONDS.toMillis(1));
+        CompletableFuture<Void> pending = coalescer.writeAsync(UE_ADDR, DOWNLINK_SESSION_DBUF, false, this::write);
+        // A write of the same key bypassing the coalescer flushes the pending one first
+        lock.lock();
+        try {
+            coalescer.flush(UE_ADDR, this::write);
+            write(DOWNLINK_SESSION, false);
+        } finally {
+            lock.unlock();
+        }
+        assertTrue(pending.isDone());
+        assertThat(written, contains(Pair.of(DOWNLINK_SESSION_DBUF, false), Pair.of(DOWNLINK_SESSION, false)));
+        assertThat(coalescer.pendingKeys(), equalTo(0));
+    }
+
+    @Test
+    public void testErrorPropagated() throws Exception {
+        UpfWriteCoalescer coalescer = newCoalescer(1);
+        CompletableFuture<Void> result = coalescer.writeAsync(UE_ADDR, DOWNLINK_SESSION, false, (entity, delete) -> {
+            throw new UpfProgrammableException("failed");
+        });
+        try {
+            result.get();
+            fail("Expected exception");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause().getMessage(), equalTo("failed"));
+        }
+        assertThat(coalescer.pendingKeys(), equalTo(0));
+    }
+
+    @Test
+    public void testDispatchRejected() throws Exception {
+        UpfWriteCoalescer coalescer = new UpfWriteCoalescer(1, key -> lock, (entity, delete, flush) ->
+                CompletableFuture.failedFuture(new UpfProgrammableException("not active")));
+        try {
+            coalescer.writeAsync(UE_ADDR, DOWNLINK_SESSION, false, this::write).get();
+            fail("Expected exception");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause().getMessage(), equalTo("not active"));
+        }
+        assertThat(written, empty());
+        assertThat(coalescer.pendingKeys(), equalTo(0));
+    }
+
+    private UpfWriteCoalescer newCoalescer(long windowMillis) {
+        return new UpfWriteCoalescer(windowMillis, key -> lock,
+                                     (entity, delete, flush) -> CompletableFuture.runAsync(flush, executor));
+    }
+}
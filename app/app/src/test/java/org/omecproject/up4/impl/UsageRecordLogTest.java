@@ -0,0 +1,66 @@
+/*
+ SPDX-License-Identifier: Apache-2.0
+ SPDX-FileCopyrightText: 2022-present Open Networking Foundation <info@opennetworking.org>
+ */
+package org.omecproject.up4.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.omecproject.up4.impl.TestImplConstants.APP_FILTER_ID;
+import static org.omecproject.up4.impl.TestImplConstants.UE_ADDR;
+
+/**
+ * Tests of the usage record log.
+ */
+public class UsageRecordLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static UsageRecord record(long timestamp, UeTrafficRate.Direction direction) {
+        return new UsageRecord(timestamp, 1000, UE_ADDR, (byte) APP_FILTER_ID, direction, 3,
+                               10, 1000, 9, 900);
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        // Room for 2 records per file
+        UsageRecordLog usageLog = new UsageRecordLog(
+                directory, UsageRecordLog.HEADER_SIZE + 2 * UsageRecordLog.RECORD_SIZE);
+        usageLog.append(ImmutableList.of(record(1, UeTrafficRate.Direction.UPLINK),
+                                         record(2, UeTrafficRate.Direction.DOWNLINK),
+                                         record(3, UeTrafficRate.Direction.UPLINK)));
+        usageLog.close();
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.sorted().collect(Collectors.toList());
+        }
+        assertThat(files.size(), equalTo(2));
+        List<UsageRecord> records = Lists.newArrayList();
+        for (Path file : files) {
+            UsageRecordLog.read(file, records::add);
+        }
+        assertThat(records.size(), equalTo(3));
+        UsageRecord read = records.get(1);
+        assertThat(read.timestampMillis(), equalTo(2L));
+        assertThat(read.ueAddress(), equalTo(UE_ADDR));
+        assertThat(read.applicationId(), equalTo((byte) APP_FILTER_ID));
+        assertThat(read.direction(), equalTo(UeTrafficRate.Direction.DOWNLINK));
+        assertThat(read.counterId(), equalTo(3));
+        assertThat(read.egressBytes(), equalTo(900L));
+    }
+}